@@ -0,0 +1,80 @@
+package com.example.food.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Đồng bộ bảng id_generators với MAX(id) hiện có khi khởi động.
+ * Các bảng orders / order_items / order_item_options / payments / sales trước đây dùng IDENTITY,
+ * nên generator phải bắt đầu sau id lớn nhất để không bị trùng khóa.
+ * messages không dùng @TableGenerator mà cấp id qua MessageIdAllocator (cùng bảng, cùng quy ước pooled).
+ * Chạy khi các singleton đã tạo xong, trước khi web server nhận request; mỗi generator một transaction,
+ * lỗi thì dừng khởi động (không cấp id trùng khóa).
+ */
+@Component
+@Slf4j
+public class IdGeneratorAligner implements SmartInitializingSingleton {
+
+    // Phải khớp với allocationSize của @TableGenerator trên các entity
+    private static final int ALLOCATION_SIZE = 50;
+
+    // pkColumnValue -> JPQL lấy id lớn nhất
+    private static final Map<String, String> GENERATORS = new LinkedHashMap<>();
+
+    static {
+        GENERATORS.put("orders", "SELECT MAX(o.orderId) FROM Order o");
+        GENERATORS.put("order_items", "SELECT MAX(oi.orderItemId) FROM OrderItem oi");
+        GENERATORS.put("order_item_options", "SELECT MAX(oio.orderItemOptionId) FROM OrderItemOption oio");
+        GENERATORS.put("payments", "SELECT MAX(p.paymentId) FROM Payment p");
+        GENERATORS.put("sales", "SELECT MAX(s.saleId) FROM Sale s");
+        GENERATORS.put("messages", "SELECT MAX(m.messageId) FROM Message m");
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public IdGeneratorAligner(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        GENERATORS.forEach((name, maxIdQuery) -> transactionTemplate.executeWithoutResult(status -> align(name, maxIdQuery)));
+    }
+
+    private void align(String name, String maxIdQuery) {
+        Long maxId = entityManager.createQuery(maxIdQuery, Long.class).getSingleResult();
+        // Pooled optimizer cấp các id trong khoảng (value - allocationSize, value]
+        long required = (maxId != null ? maxId : 0L) + ALLOCATION_SIZE + 1;
+
+        List<?> current = entityManager
+                .createNativeQuery("SELECT gen_value FROM id_generators WHERE gen_name = :name FOR UPDATE")
+                .setParameter("name", name)
+                .getResultList();
+
+        if (current.isEmpty()) {
+            entityManager.createNativeQuery("INSERT INTO id_generators (gen_name, gen_value) VALUES (:name, :value)")
+                    .setParameter("name", name)
+                    .setParameter("value", required)
+                    .executeUpdate();
+            log.info("Initialized id generator {} at {}", name, required);
+        } else if (((Number) current.get(0)).longValue() < required) {
+            entityManager.createNativeQuery("UPDATE id_generators SET gen_value = :value WHERE gen_name = :name")
+                    .setParameter("name", name)
+                    .setParameter("value", required)
+                    .executeUpdate();
+            log.info("Advanced id generator {} to {}", name, required);
+        }
+    }
+}
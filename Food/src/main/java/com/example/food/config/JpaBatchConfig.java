@@ -0,0 +1,36 @@
+package com.example.food.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+@Configuration
+public class JpaBatchConfig {
+
+    /**
+     * Bật JDBC batching cho Hibernate.
+     * Các entity của order graph dùng pooled table generator nên insert được gom batch
+     * và sắp xếp theo entity (order_inserts) khi flush.
+     * JDBC URL của PostgreSQL cần thêm reWriteBatchedInserts=true để gom batch khi gửi đi.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer jdbcBatchingCustomizer() {
+        return properties -> {
+            properties.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, 50);
+            properties.putIfAbsent(AvailableSettings.ORDER_INSERTS, true);
+            properties.putIfAbsent(AvailableSettings.ORDER_UPDATES, true);
+            properties.putIfAbsent(AvailableSettings.BATCH_VERSIONED_DATA, true);
+        };
+    }
+
+    /**
+     * Đếm statement cho benchmark đường ghi order (OrderWriteStats), chỉ khi bật profile "benchmark"
+     */
+    @Bean
+    @Profile("benchmark")
+    public HibernatePropertiesCustomizer statementCountingCustomizer() {
+        return properties -> properties.putIfAbsent(AvailableSettings.STATEMENT_INSPECTOR, new StatementCountingInspector());
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.food.config;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+@Configuration
+@Data
+public class ShippingConfig {
+
+    // Tọa độ cửa hàng (điểm xuất phát giao hàng)
+    @Value("${shipping.store-latitude:10.7769}")
+    private double storeLatitude;
+
+    @Value("${shipping.store-longitude:106.7009}")
+    private double storeLongitude;
+
+    // haversine | local-routing
+    @Value("${shipping.distance-provider:haversine}")
+    private String distanceProvider;
+
+    // Bậc phí theo khoảng cách: "đến km:phí", ví dụ 3:15000,5:20000,8:25000,12:35000,20:50000;
+    // xa hơn bậc cuối = ngoài phạm vi giao. Mặc định rỗng = phí cố định: chỉ bật khi đã cấu hình geocoder thật
+    @Value("${shipping.distance-tiers:}")
+    private String distanceTiers;
+
+    // 7 ký tự ~ ô 150m: các địa chỉ cùng khu dùng chung một kết quả khoảng cách
+    @Value("${shipping.geohash-precision:7}")
+    private int geohashPrecision;
+
+    @Value("${shipping.distance-cache-size:5000}")
+    private int distanceCacheSize;
+
+    @Value("${shipping.distance-cache-ttl-days:30}")
+    private int distanceCacheTtlDays;
+
+    // local (geocoder thay thế, không gọi mạng)
+    @Value("${shipping.geocoder:local}")
+    private String geocoder;
+
+    @Value("${shipping.geocode-cache-size:10000}")
+    private int geocodeCacheSize;
+
+    @Value("${shipping.geocode-cache-ttl-days:90}")
+    private int geocodeCacheTtlDays;
+
+    /**
+     * Các bậc phí đã sắp xếp theo khoảng cách
+     */
+    public List<DistanceTier> getTiers() {
+        List<DistanceTier> tiers = new ArrayList<>();
+        if (distanceTiers == null || distanceTiers.isBlank()) {
+            return tiers;
+        }
+        for (String tier : distanceTiers.split(",")) {
+            String[] parts = tier.trim().split(":");
+            if (parts.length != 2) {
+                throw new IllegalStateException("Invalid shipping.distance-tiers entry: " + tier);
+            }
+            tiers.add(new DistanceTier(new BigDecimal(parts[0].trim()), new BigDecimal(parts[1].trim())));
+        }
+        tiers.sort(Comparator.comparing(DistanceTier::maxKm));
+        return tiers;
+    }
+
+    public record DistanceTier(BigDecimal maxKm, BigDecimal fee) {
+    }
+}
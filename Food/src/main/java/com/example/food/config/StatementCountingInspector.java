@@ -0,0 +1,31 @@
+package com.example.food.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Đếm số JDBC statement Hibernate chuẩn bị trên thread hiện tại.
+ * Chỉ đếm khi đã gọi start(), dùng để đo số statement cho mỗi lần ghi order.
+ */
+public class StatementCountingInspector implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNTER = new ThreadLocal<>();
+
+    public static void start() {
+        COUNTER.set(new int[1]);
+    }
+
+    public static int stop() {
+        int[] counter = COUNTER.get();
+        COUNTER.remove();
+        return counter != null ? counter[0] : 0;
+    }
+
+    @Override
+    public String inspect(String sql) {
+        int[] counter = COUNTER.get();
+        if (counter != null) {
+            counter[0]++;
+        }
+        return sql;
+    }
+}
@@ -1,6 +1,9 @@
 package com.example.food.config;
 
+import com.example.food.security.StompAuthChannelInterceptor;
+import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
@@ -8,16 +11,29 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 
 @Configuration
 @EnableWebSocketMessageBroker
+@RequiredArgsConstructor
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
+    private final StompAuthChannelInterceptor stompAuthChannelInterceptor;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
-        // Enable a simple message broker for destinations prefixed with "/topic"
-        config.enableSimpleBroker("/topic");
+        // Enable a simple message broker for destinations prefixed with "/topic" (broadcast)
+        // and "/queue" (per-user replies such as chat errors, via /user/queue/...).
+        // The simple broker lives in this process: a message only reaches clients connected to the same instance
+        // (chat, admin chat page, order topics). Running more than one instance needs a STOMP broker relay
+        // (config.enableStompBrokerRelay with RabbitMQ/ActiveMQ) instead.
+        config.enableSimpleBroker("/topic", "/queue");
         // Set application destination prefix
         config.setApplicationDestinationPrefixes("/app");
     }
 
+    @Override
+    public void configureClientInboundChannel(ChannelRegistration registration) {
+        // Authenticate CONNECT (JWT or HTTP session) and guard conversation subscriptions
+        registration.interceptors(stompAuthChannelInterceptor);
+    }
+
     @Override
     public void registerStompEndpoints(StompEndpointRegistry registry) {
         // Register the "/ws" endpoint for WebSocket connections
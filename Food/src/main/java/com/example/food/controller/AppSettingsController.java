@@ -0,0 +1,40 @@
+package com.example.food.controller;
+
+import com.example.food.dto.ApiResponse;
+import com.example.food.dto.StoreSettingsDTO;
+import com.example.food.service.StoreSettingsService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/app")
+@RequiredArgsConstructor
+@Slf4j
+public class AppSettingsController {
+
+    private final StoreSettingsService storeSettingsService;
+
+    /**
+     * Thông tin cửa hàng cho màn hình khởi động app.
+     * Trả ETag theo version cài đặt: client gửi If-None-Match sẽ nhận 304 khi không đổi.
+     */
+    @GetMapping("/store-info")
+    public ResponseEntity<ApiResponse<StoreSettingsDTO>> getStoreInfo() {
+        try {
+            String eTag = storeSettingsService.getSettingsETag();
+            return ResponseEntity.ok().eTag(eTag).body(ApiResponse.<StoreSettingsDTO>builder()
+                    .success(true)
+                    .message("Lấy thông tin cửa hàng thành công")
+                    .data(storeSettingsService.getStoreInfo())
+                    .build());
+        } catch (Exception e) {
+            log.error("Error getting store info: {}", e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.<StoreSettingsDTO>builder()
+                    .success(false)
+                    .message("Lỗi khi lấy thông tin cửa hàng: " + e.getMessage())
+                    .build());
+        }
+    }
+}
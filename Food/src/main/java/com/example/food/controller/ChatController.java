@@ -117,16 +117,21 @@ public class ChatController {
     }
 
     /**
-     * Lấy messages của conversation
+     * Lấy messages của conversation theo trang (cũ -> mới).
+     * Mặc định trả về trang mới nhất; before=<messageId cũ nhất> để tải lịch sử, after=<messageId của tin cuối đã nhận> để lấy tin mới; mốc không tồn tại thì trả trang rỗng
      */
     @GetMapping("/conversations/{conversationId}/messages")
     public ResponseEntity<ApiResponse<List<MessageDTO>>> getMessages(
             @RequestHeader("Authorization") String token,
-            @PathVariable Long conversationId) {
+            @PathVariable Long conversationId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int size) {
         try {
             Long userId = getUserIdFromToken(token);
-            log.debug("Getting messages for conversationId: {}, userId: {}", conversationId, userId);
-            List<MessageDTO> messages = chatService.getMessages(conversationId, userId);
+            log.debug("Getting messages for conversationId: {}, userId: {}, before: {}, after: {}",
+                    conversationId, userId, before, after);
+            List<MessageDTO> messages = chatService.getMessages(conversationId, userId, before, after, size);
             log.debug("Found {} messages for conversationId: {}", messages != null ? messages.size() : 0, conversationId);
             return ResponseEntity.ok(ApiResponse.<List<MessageDTO>>builder()
                     .success(true)
@@ -195,11 +200,13 @@ public class ChatController {
     // ===============================
 
     /**
-     * Admin lấy tất cả conversations
+     * Admin lấy conversations theo trang (mới cập nhật trước)
      */
     @GetMapping("/admin/conversations")
     public ResponseEntity<ApiResponse<List<ConversationDTO>>> getAllConversations(
-            @RequestHeader("Authorization") String token) {
+            @RequestHeader("Authorization") String token,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + ChatService.DEFAULT_CONVERSATION_PAGE_SIZE) int size) {
         try {
             Long adminId = getUserIdFromToken(token);
             User admin = userRepository.findById(adminId)
@@ -212,10 +219,10 @@ public class ChatController {
                         .build());
             }
 
-            List<ConversationDTO> conversations = chatService.getAllConversationsForAdmin(adminId);
+            List<ConversationDTO> conversations = chatService.getAllConversationsForAdmin(adminId, page, size).getContent();
             return ResponseEntity.ok(ApiResponse.<List<ConversationDTO>>builder()
                     .success(true)
-                    .message("All conversations retrieved")
+                    .message("Conversations retrieved")
                     .data(conversations)
                     .build());
         } catch (Exception e) {
@@ -0,0 +1,46 @@
+package com.example.food.controller;
+
+import com.example.food.dto.ApiResponse;
+import com.example.food.dto.ChatSendRequest;
+import com.example.food.security.StompAuthChannelInterceptor;
+import com.example.food.service.ChatRealtimeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.handler.annotation.MessageExceptionHandler;
+import org.springframework.messaging.handler.annotation.MessageMapping;
+import org.springframework.messaging.handler.annotation.Payload;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.annotation.SendToUser;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Controller;
+
+/**
+ * Chat qua STOMP: client gửi tới /app/chat.send, nhận tin ở /topic/conversations/{id},
+ * lỗi trả riêng về /user/queue/chat.errors
+ */
+@Controller
+@RequiredArgsConstructor
+@Slf4j
+public class ChatStompController {
+
+    private final ChatRealtimeService chatRealtimeService;
+
+    @MessageMapping("chat.send")
+    public void send(@Payload ChatSendRequest request, SimpMessageHeaderAccessor headerAccessor) {
+        Long userId = StompAuthChannelInterceptor.getUserId(headerAccessor);
+        if (userId == null) {
+            throw new AccessDeniedException("Chưa đăng nhập");
+        }
+        chatRealtimeService.send(userId, request);
+    }
+
+    @MessageExceptionHandler
+    @SendToUser(destinations = "/queue/chat.errors", broadcast = false)
+    public ApiResponse<Void> handleError(Exception e) {
+        log.warn("Error handling STOMP chat message: {}", e.getMessage());
+        return ApiResponse.<Void>builder()
+                .success(false)
+                .message(e.getMessage())
+                .build();
+    }
+}
@@ -2,8 +2,11 @@ package com.example.food.controller;
 
 import com.example.food.dto.*;
 import com.example.food.model.Order;
+import com.example.food.service.CartPricingService;
+import com.example.food.service.OrderIdempotencyService;
 import com.example.food.service.OrderService;
 import com.example.food.service.UserService;
+import com.example.food.service.ShippingCalculatorService;
 import com.example.food.service.ShippingFeeSettingsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -25,6 +28,9 @@ public class OrderController {
     private final OrderService orderService;
     private final UserService userService;
     private final ShippingFeeSettingsService shippingFeeSettingsService;
+    private final ShippingCalculatorService shippingCalculatorService;
+    private final CartPricingService cartPricingService;
+    private final OrderIdempotencyService orderIdempotencyService;
 
     // ===============================
     // HELPER METHODS
@@ -123,10 +129,14 @@ public class OrderController {
     // ===============================
 
     /**
-     * Tạo đơn hàng mới
+     * Tạo đơn hàng mới.
+     * Client có thể gửi header Idempotency-Key để retry an toàn mà không tạo đơn trùng;
+     * retry trả về đơn đã tạo với trạng thái hiện tại.
      */
     @PostMapping
-    public ResponseEntity<ApiResponse<OrderDTO>> createOrder(@RequestBody CreateOrderRequest request) {
+    public ResponseEntity<ApiResponse<OrderDTO>> createOrder(
+            @RequestBody CreateOrderRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
         try {
             log.debug("OrderController - createOrder called");
 
@@ -145,7 +155,13 @@ public class OrderController {
 
             log.info("Creating order for user: {} (email: {})", currentUser.getUserId(), currentUser.getEmail());
 
-            OrderDTO order = orderService.createOrder(request);
+            OrderDTO order;
+            if (idempotencyKey != null && !idempotencyKey.trim().isEmpty()) {
+                order = orderIdempotencyService.execute(currentUser.getUserId(), idempotencyKey.trim(),
+                        () -> orderService.createOrder(request));
+            } else {
+                order = orderService.createOrder(request);
+            }
 
             return ResponseEntity.ok(ApiResponse.<OrderDTO>builder()
                     .success(true)
@@ -183,6 +199,31 @@ public class OrderController {
         }
     }
 
+    /**
+     * Lấy danh sách đơn hàng của user theo trang (cursor), mới nhất trước
+     */
+    @GetMapping("/user/{userId}/page")
+    public ResponseEntity<ApiResponse<CursorPageDTO<OrderDTO>>> getOrdersPageByUserId(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int size) {
+        try {
+            CursorPageDTO<OrderDTO> page = orderService.getOrdersPage(userId, cursor, size);
+
+            return ResponseEntity.ok(ApiResponse.<CursorPageDTO<OrderDTO>>builder()
+                    .success(true)
+                    .message("Lấy danh sách đơn hàng thành công")
+                    .data(page)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error getting orders page for user {}: ", userId, e);
+            return ResponseEntity.badRequest().body(ApiResponse.<CursorPageDTO<OrderDTO>>builder()
+                    .success(false)
+                    .message("Lỗi lấy danh sách đơn hàng: " + e.getMessage())
+                    .build());
+        }
+    }
+
     /**
      * Lấy chi tiết đơn hàng theo ID
      */
@@ -281,9 +322,10 @@ public class OrderController {
     @GetMapping("/shipping-fee")
     public ResponseEntity<ApiResponse<ShippingFeeInfo>> getShippingFeeInfo() {
         try {
-            log.info("Getting shipping fee info");
+            // ETag đọc trước nội dung: nếu cài đặt vừa đổi, client chỉ phải tải lại ở lần sau
+            String eTag = shippingFeeSettingsService.getSettingsETag();
 
-            // Lấy cài đặt phí ship hiện tại
+            // Lấy cài đặt phí ship hiện tại (từ cache)
             Optional<ShippingFeeSettingsDTO> settings = shippingFeeSettingsService.getCurrentSettings();
 
             ShippingFeeInfo info = new ShippingFeeInfo();
@@ -299,7 +341,8 @@ public class OrderController {
                 info.setMinOrderAmount(BigDecimal.valueOf(50000));
             }
 
-            return ResponseEntity.ok(ApiResponse.<ShippingFeeInfo>builder()
+            // If-None-Match trùng ETag -> Spring trả 304 không kèm body
+            return ResponseEntity.ok().eTag(eTag).body(ApiResponse.<ShippingFeeInfo>builder()
                     .success(true)
                     .message("Lấy thông tin phí ship thành công")
                     .data(info)
@@ -314,6 +357,28 @@ public class OrderController {
         }
     }
 
+    /**
+     * Tính phí ship cho địa chỉ / tọa độ giao hàng, cùng cách tính với tạo đơn
+     */
+    @PostMapping("/calculate-shipping")
+    public ResponseEntity<ApiResponse<ShippingCalculationResponse>> calculateShipping(
+            @RequestBody ShippingCalculationRequest request) {
+        try {
+            ShippingCalculationResponse response = shippingCalculatorService.calculate(request);
+            return ResponseEntity.ok(ApiResponse.<ShippingCalculationResponse>builder()
+                    .success(true)
+                    .message("Tính phí ship thành công")
+                    .data(response)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error calculating shipping: {}", e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.<ShippingCalculationResponse>builder()
+                    .success(false)
+                    .message("Lỗi khi tính phí ship: " + e.getMessage())
+                    .build());
+        }
+    }
+
     /**
      * Tính tạm tính đơn hàng theo danh sách hàng và option phía client gửi lên
      * để hiển thị đúng subtotal (bao gồm options) + shipping + finalAmount.
@@ -321,12 +386,17 @@ public class OrderController {
     @PostMapping("/quote")
     public ResponseEntity<ApiResponse<PriceQuoteDTO>> quoteOrder(@RequestBody CreateOrderRequest request) {
         try {
-            // Tính subtotal theo đúng logic server (bao gồm options)
-            java.math.BigDecimal subtotal = orderService
-                    .getOrderItemsSubtotal(request.getOrderItems());
-
-            // Tính phí ship theo subtotal
-            java.math.BigDecimal shippingFee = shippingFeeSettingsService.calculateShippingFee(subtotal);
+            // Tính subtotal theo đúng logic server (bao gồm options), dùng chung engine với createOrder
+            java.math.BigDecimal subtotal = cartPricingService
+                    .price(request.getOrderItems())
+                    .getBaseSubtotal();
+
+            // Tính phí ship theo subtotal và vùng giao hàng (nếu có tọa độ / địa chỉ)
+            ShippingCalculatorService.DeliveryQuote delivery = shippingCalculatorService.previewDelivery(subtotal,
+                    request.getDeliveryLatitude(), request.getDeliveryLongitude(), request.getDeliveryAddress());
+            // Không giao được thì phí null: báo 0 cho cả shippingFee và finalAmount, lý do ở deliverable / deliveryMessage
+            java.math.BigDecimal shippingFee = delivery.shippingFee() != null
+                    ? delivery.shippingFee() : java.math.BigDecimal.ZERO;
 
             // Tính coupon nếu có (mỗi coupon dựa trên subtotal gốc, không trừ dần)
             java.math.BigDecimal couponDiscount = java.math.BigDecimal.ZERO;
@@ -355,6 +425,11 @@ public class OrderController {
                     .shippingFee(shippingFee)
                     .couponDiscount(couponDiscount)
                     .finalAmount(finalAmount)
+                    .deliverable(delivery.deliverable())
+                    .deliveryZone(delivery.zoneName())
+                    .minOrderAmount(delivery.minOrderAmount())
+                    .estimatedDeliveryMinutes(delivery.estimatedMinutes())
+                    .deliveryMessage(delivery.message())
                     .build();
 
             return ResponseEntity.ok(ApiResponse.<PriceQuoteDTO>builder()
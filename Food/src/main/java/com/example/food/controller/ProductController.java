@@ -3,17 +3,26 @@ package com.example.food.controller;
 import com.example.food.dto.*;
 import com.example.food.model.Product;
 import com.example.food.model.Category;
+import com.example.food.service.CatalogService;
+import com.example.food.service.CatalogSnapshot;
+import com.example.food.service.PriceTimelineService;
+import com.example.food.service.ProductFacetIndex;
 import com.example.food.service.ProductService;
+import com.example.food.service.SuggestionTrie;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 @RestController
@@ -24,9 +33,11 @@ import java.util.stream.Collectors;
 public class ProductController {
 
     private final ProductService productService;
+    private final CatalogService catalogService;
+    private final PriceTimelineService priceTimelineService;
 
     // ===============================
-    // PUBLIC PRODUCT ENDPOINTS
+    // PUBLIC PRODUCT ENDPOINTS (đọc từ catalog snapshot trong bộ nhớ)
     // ===============================
 
     /**
@@ -40,12 +51,12 @@ public class ProductController {
             @RequestParam(defaultValue = "asc") String sortDir) {
 
         try {
-            Sort sort = sortDir.equalsIgnoreCase("desc") ?
-                    Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
+            boolean descending = sortDir.equalsIgnoreCase("desc");
+            Sort sort = descending ? Sort.by(sortBy).descending() : Sort.by(sortBy).ascending();
             Pageable pageable = PageRequest.of(page, size, sort);
 
-            Page<Product> products = productService.getAllAvailableProducts(pageable);
-            Page<ProductDTO> productDTOs = products.map(this::convertToDTO);
+            List<ProductDTO> sorted = catalogService.getSnapshot().getAvailableProducts(sortBy, descending);
+            Page<ProductDTO> productDTOs = toPage(sorted, pageable);
 
             return ResponseEntity.ok(ApiResponse.<Page<ProductDTO>>builder()
                     .success(true)
@@ -67,7 +78,7 @@ public class ProductController {
     @GetMapping("/{productId}")
     public ResponseEntity<ApiResponse<ProductDTO>> getProductById(@PathVariable Long productId) {
         try {
-            Product product = productService.getProductById(productId)
+            ProductDTO product = catalogService.getSnapshot().getProduct(productId)
                     .orElseThrow(() -> new IllegalArgumentException("Product not found"));
 
             // Chỉ cho phép truy cập sản phẩm đang hoạt động ở API public
@@ -81,7 +92,7 @@ public class ProductController {
             return ResponseEntity.ok(ApiResponse.<ProductDTO>builder()
                     .success(true)
                     .message("Product retrieved successfully")
-                    .data(convertToDTO(product))
+                    .data(product)
                     .build());
         } catch (Exception e) {
             log.error("Error retrieving product {}: ", productId, e);
@@ -98,10 +109,7 @@ public class ProductController {
     @GetMapping("/category/{categoryId}")
     public ResponseEntity<ApiResponse<List<ProductDTO>>> getProductsByCategory(@PathVariable Long categoryId) {
         try {
-            List<Product> products = productService.getProductsByCategory(categoryId);
-            List<ProductDTO> productDTOs = products.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+            List<ProductDTO> productDTOs = catalogService.getSnapshot().getProductsByCategory(categoryId);
 
             return ResponseEntity.ok(ApiResponse.<List<ProductDTO>>builder()
                     .success(true)
@@ -123,10 +131,7 @@ public class ProductController {
     @GetMapping("/featured")
     public ResponseEntity<ApiResponse<List<ProductDTO>>> getFeaturedProducts() {
         try {
-            List<Product> products = productService.getFeaturedProducts();
-            List<ProductDTO> productDTOs = products.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+            List<ProductDTO> productDTOs = catalogService.getSnapshot().getFeaturedProducts();
 
             return ResponseEntity.ok(ApiResponse.<List<ProductDTO>>builder()
                     .success(true)
@@ -143,7 +148,7 @@ public class ProductController {
     }
 
     /**
-     * Tìm kiếm sản phẩm theo tên
+     * Tìm kiếm sản phẩm theo tên, mô tả, danh mục (không phân biệt dấu, xếp theo độ liên quan)
      */
     @GetMapping("/search")
     public ResponseEntity<ApiResponse<Page<ProductDTO>>> searchProducts(
@@ -153,8 +158,9 @@ public class ProductController {
 
         try {
             Pageable pageable = PageRequest.of(page, size);
-            Page<Product> products = productService.searchProductsByName(keyword, pageable);
-            Page<ProductDTO> productDTOs = products.map(this::convertToDTO);
+            List<ProductDTO> matches = catalogService.getSnapshot()
+                    .search(keyword, product -> Boolean.TRUE.equals(product.getIsAvailable()));
+            Page<ProductDTO> productDTOs = toPage(matches, pageable);
 
             return ResponseEntity.ok(ApiResponse.<Page<ProductDTO>>builder()
                     .success(true)
@@ -170,16 +176,104 @@ public class ProductController {
         }
     }
 
+    /**
+     * Lọc sản phẩm theo nhiều facet cùng lúc (category, price, featured, onSale, hasOptions, prepTime),
+     * trả về trang kết quả và số đếm từng giá trị facet.
+     * Ví dụ: /api/products/filter?categoryId=1&categoryId=2&price=30000-50000&onSale=true
+     * Khoảng price / prepTime hoặc sortBy không hỗ trợ trả về 400.
+     */
+    @GetMapping("/filter")
+    public ResponseEntity<ApiResponse<ProductFilterResultDTO>> filterProducts(
+            @RequestParam(required = false) List<Long> categoryId,
+            @RequestParam(required = false) List<String> price,
+            @RequestParam(required = false) Boolean featured,
+            @RequestParam(required = false) Boolean onSale,
+            @RequestParam(required = false) Boolean hasOptions,
+            @RequestParam(required = false) List<String> prepTime,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size,
+            @RequestParam(defaultValue = "name") String sortBy,
+            @RequestParam(defaultValue = "asc") String sortDir) {
+
+        try {
+            Map<String, Set<String>> selections = new HashMap<>();
+            if (categoryId != null) {
+                selections.put(ProductFacetIndex.CATEGORY,
+                        categoryId.stream().map(String::valueOf).collect(Collectors.toSet()));
+            }
+            if (price != null) {
+                selections.put(ProductFacetIndex.PRICE, Set.copyOf(price));
+            }
+            if (featured != null) {
+                selections.put(ProductFacetIndex.FEATURED, Set.of(featured.toString()));
+            }
+            if (onSale != null) {
+                selections.put(ProductFacetIndex.ON_SALE, Set.of(onSale.toString()));
+            }
+            if (hasOptions != null) {
+                selections.put(ProductFacetIndex.HAS_OPTIONS, Set.of(hasOptions.toString()));
+            }
+            if (prepTime != null) {
+                selections.put(ProductFacetIndex.PREP_TIME, Set.copyOf(prepTime));
+            }
+
+            ProductFacetIndex.FilterResult result = catalogService.filter(selections);
+            boolean descending = sortDir.equalsIgnoreCase("desc");
+            List<ProductDTO> sorted = CatalogSnapshot.sort(result.products(), sortBy, descending);
+            Pageable pageable = PageRequest.of(page, size);
+
+            ProductFilterResultDTO filterResult = ProductFilterResultDTO.builder()
+                    .products(toPage(sorted, pageable))
+                    .facets(result.facets())
+                    .build();
+
+            return ResponseEntity.ok(ApiResponse.<ProductFilterResultDTO>builder()
+                    .success(true)
+                    .message("Filtered products retrieved successfully")
+                    .data(filterResult)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error filtering products: ", e);
+            return ResponseEntity.badRequest().body(ApiResponse.<ProductFilterResultDTO>builder()
+                    .success(false)
+                    .message("Error filtering products: " + e.getMessage())
+                    .build());
+        }
+    }
+
+    /**
+     * Gợi ý autocomplete theo tiền tố tên sản phẩm / danh mục (không phân biệt dấu, phổ biến nhất trước)
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<ApiResponse<List<SuggestionDTO>>> suggest(
+            @RequestParam("q") String prefix,
+            @RequestParam(defaultValue = "8") int limit) {
+
+        try {
+            int cappedLimit = Math.min(limit, SuggestionTrie.MAX_SUGGESTIONS);
+            List<SuggestionDTO> suggestions = catalogService.getSnapshot().suggest(prefix, cappedLimit);
+
+            return ResponseEntity.ok(ApiResponse.<List<SuggestionDTO>>builder()
+                    .success(true)
+                    .message("Suggestions retrieved successfully")
+                    .data(suggestions)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error retrieving suggestions: ", e);
+            return ResponseEntity.badRequest().body(ApiResponse.<List<SuggestionDTO>>builder()
+                    .success(false)
+                    .message("Error retrieving suggestions: " + e.getMessage())
+                    .build());
+        }
+    }
+
     /**
      * Lấy sản phẩm có nhiều ảnh
      */
     @GetMapping("/with-gallery")
     public ResponseEntity<ApiResponse<List<ProductDTO>>> getProductsWithGallery() {
         try {
-            List<Product> products = productService.getProductsWithGallery();
-            List<ProductDTO> productDTOs = products.stream()
-                    .map(this::convertToDTO)
-                    .collect(Collectors.toList());
+            List<ProductDTO> productDTOs = catalogService.getSnapshot().getProductsWithGallery();
 
             return ResponseEntity.ok(ApiResponse.<List<ProductDTO>>builder()
                     .success(true)
@@ -278,10 +372,7 @@ public class ProductController {
     @GetMapping("/categories")
     public ResponseEntity<ApiResponse<List<CategoryDTO>>> getAllCategories() {
         try {
-            List<Category> categories = productService.getAllActiveCategories();
-            List<CategoryDTO> categoryDTOs = categories.stream()
-                    .map(this::convertCategoryToDTO)
-                    .collect(Collectors.toList());
+            List<CategoryDTO> categoryDTOs = catalogService.getSnapshot().getActiveCategories();
 
             return ResponseEntity.ok(ApiResponse.<List<CategoryDTO>>builder()
                     .success(true)
@@ -303,10 +394,7 @@ public class ProductController {
     @GetMapping("/categories/with-products")
     public ResponseEntity<ApiResponse<List<CategoryDTO>>> getCategoriesWithProducts() {
         try {
-            List<Category> categories = productService.getCategoriesWithProducts();
-            List<CategoryDTO> categoryDTOs = categories.stream()
-                    .map(this::convertCategoryToDTO)
-                    .collect(Collectors.toList());
+            List<CategoryDTO> categoryDTOs = catalogService.getSnapshot().getCategoriesWithProducts();
 
             return ResponseEntity.ok(ApiResponse.<List<CategoryDTO>>builder()
                     .success(true)
@@ -326,69 +414,14 @@ public class ProductController {
     // HELPER METHODS
     // ===============================
 
-    private ProductDTO convertToDTO(Product product) {
-        CategoryDTO categoryDTO = null;
-        if (product.getCategory() != null) {
-            categoryDTO = convertCategoryToDTO(product.getCategory());
-        }
-
-        // Convert options to DTOs
-        List<ProductOptionDTO> optionDTOs = null;
-        if (product.getOptions() != null && !product.getOptions().isEmpty()) {
-            optionDTOs = product.getOptions().stream()
-                    .map(this::convertOptionToDTO)
-                    .collect(Collectors.toList());
-        }
-
-        return ProductDTO.builder()
-                .productId(product.getProductId())
-                .name(product.getName())
-                .description(product.getDescription())
-                .price(product.getPrice())
-                .imageUrl(product.getImageUrl())
-                .galleryUrls(product.getGalleryUrlsList())
-                .hasOptions(product.getHasOptions())
-                .isAvailable(product.getIsAvailable())
-                .isFeatured(product.getIsFeatured())
-                .preparationTime(product.getPreparationTime())
-                .category(categoryDTO)
-                .options(optionDTOs) // Add options
-                .salePrice(product.getSalePrice()) // Add sale fields
-                .salePercentage(product.getSalePercentage())
-                .isOnSale(product.getIsOnSale())
-                .saleStartDate(product.getSaleStartDate() != null ? product.getSaleStartDate().toString() : null)
-                .saleEndDate(product.getSaleEndDate() != null ? product.getSaleEndDate().toString() : null)
-                .createdAt(product.getCreatedAt())
-                .updatedAt(product.getUpdatedAt())
-                .build();
+    private Page<ProductDTO> toPage(List<ProductDTO> products, Pageable pageable) {
+        int from = (int) Math.min(pageable.getOffset(), products.size());
+        int to = Math.min(from + pageable.getPageSize(), products.size());
+        return new PageImpl<>(products.subList(from, to), pageable, products.size());
     }
 
-    private CategoryDTO convertCategoryToDTO(Category category) {
-        return CategoryDTO.builder()
-                .categoryId(category.getCategoryId())
-                .categoryName(category.getCategoryName())
-                .categoryImageUrl(category.getCategoryImageUrl())
-                .description(category.getDescription())
-                .isActive(category.getIsActive())
-                .sortOrder(category.getSortOrder())
-                .createdAt(category.getCreatedAt())
-                .updatedAt(category.getUpdatedAt())
-                .build();
-    }
-
-    private ProductOptionDTO convertOptionToDTO(com.example.food.model.ProductOption option) {
-        return ProductOptionDTO.builder()
-                .optionId(option.getOptionId())
-                .productId(option.getProductId())
-                .optionName(option.getOptionName())
-                .optionType(option.getOptionType().toString())
-                .price(option.getPrice())
-                .isRequired(option.getIsRequired())
-                .isActive(option.getIsActive())
-                .maxSelections(option.getMaxSelections())
-                .createdAt(option.getCreatedAt())
-                .updatedAt(option.getUpdatedAt())
-                .build();
+    private ProductDTO convertToDTO(Product product) {
+        return CatalogSnapshot.toProductDTO(product, product.getOptions(), priceTimelineService.getPrice(product));
     }
 
     private Product convertToEntity(CreateProductRequest request) {
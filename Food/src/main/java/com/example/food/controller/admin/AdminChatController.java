@@ -5,8 +5,10 @@ import com.example.food.model.User;
 import com.example.food.repository.UserRepository;
 import com.example.food.security.JwtTokenProvider;
 import com.example.food.service.ChatService;
+import com.example.food.service.FirebaseSyncQueue;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -27,6 +29,7 @@ public class AdminChatController {
     private final ChatService chatService;
     private final UserRepository userRepository;
     private final JwtTokenProvider jwtTokenProvider;
+    private final FirebaseSyncQueue firebaseSyncQueue;
 
     /**
      * Lấy user ID từ session hoặc SecurityContext
@@ -118,7 +121,8 @@ public class AdminChatController {
      * Trang danh sách conversations cho admin
      */
     @GetMapping
-    public String chatList(Model model, HttpServletRequest request) {
+    public String chatList(@RequestParam(defaultValue = "0") int page,
+                           Model model, HttpServletRequest request) {
         try {
             Long adminId = getAdminIdFromSession(model, request);
 
@@ -130,8 +134,12 @@ public class AdminChatController {
                 return "redirect:/admin/login?error=access_denied";
             }
 
-            List<ConversationDTO> conversations = chatService.getAllConversationsForAdmin(adminId);
-            model.addAttribute("conversations", conversations);
+            Page<ConversationDTO> conversations = chatService.getAllConversationsForAdmin(adminId, page,
+                    ChatService.DEFAULT_CONVERSATION_PAGE_SIZE);
+            model.addAttribute("conversations", conversations.getContent());
+            model.addAttribute("totalConversations", conversations.getTotalElements());
+            model.addAttribute("currentPage", conversations.getNumber());
+            model.addAttribute("totalPages", conversations.getTotalPages());
             model.addAttribute("pageTitle", "Quản lý Chat");
             return "admin/chat/list";
         } catch (Exception e) {
@@ -158,6 +166,7 @@ public class AdminChatController {
             }
 
             ConversationDTO conversation = chatService.getConversation(conversationId, adminId);
+            // Chỉ render trang mới nhất; tin cũ hơn tải qua /messages?before=
             List<MessageDTO> messages = chatService.getMessages(conversationId, adminId);
 
             // Đánh dấu đã đọc
@@ -165,6 +174,8 @@ public class AdminChatController {
 
             model.addAttribute("conversation", conversation);
             model.addAttribute("messages", messages);
+            model.addAttribute("hasOlderMessages", messages.size() >= ChatService.DEFAULT_MESSAGE_PAGE_SIZE);
+            model.addAttribute("messagePageSize", ChatService.DEFAULT_MESSAGE_PAGE_SIZE);
             model.addAttribute("conversationId", conversationId);
             model.addAttribute("adminId", adminId);
             model.addAttribute("pageTitle", "Chat với " + conversation.getCreatedByName());
@@ -261,12 +272,15 @@ public class AdminChatController {
     }
 
     /**
-     * API endpoint để lấy messages (AJAX)
+     * API endpoint để lấy messages theo trang (AJAX): before / after là messageId cursor
      */
     @GetMapping("/{conversationId}/messages")
     @ResponseBody
     public ResponseEntity<ApiResponse<List<MessageDTO>>> getMessages(
             @PathVariable Long conversationId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int size,
             Model model,
             HttpServletRequest httpRequest) {
         try {
@@ -282,7 +296,7 @@ public class AdminChatController {
                         .build());
             }
 
-            List<MessageDTO> messages = chatService.getMessages(conversationId, adminId);
+            List<MessageDTO> messages = chatService.getMessages(conversationId, adminId, before, after, size);
             return ResponseEntity.ok(ApiResponse.<List<MessageDTO>>builder()
                     .success(true)
                     .message("Messages retrieved")
@@ -296,5 +310,25 @@ public class AdminChatController {
                     .build());
         }
     }
-}
 
+    /**
+     * Thống kê đồng bộ chat lên Firebase: độ sâu queue, số path gom / từ chối / bỏ, độ trễ flush p50, p99 (API)
+     */
+    @GetMapping("/api/firebase-sync-stats")
+    @ResponseBody
+    public ResponseEntity<ApiResponse<FirebaseSyncStatsDTO>> getFirebaseSyncStats() {
+        try {
+            return ResponseEntity.ok(ApiResponse.<FirebaseSyncStatsDTO>builder()
+                    .success(true)
+                    .message("Lấy thống kê đồng bộ Firebase thành công")
+                    .data(firebaseSyncQueue.getStats())
+                    .build());
+        } catch (Exception e) {
+            log.error("Error getting Firebase sync stats: ", e);
+            return ResponseEntity.badRequest().body(ApiResponse.<FirebaseSyncStatsDTO>builder()
+                    .success(false)
+                    .message("Lỗi lấy thống kê đồng bộ Firebase: " + e.getMessage())
+                    .build());
+        }
+    }
+}
@@ -1,10 +1,13 @@
 package com.example.food.controller.admin;
 
 import com.example.food.dto.ApiResponse;
+import com.example.food.dto.LiveKpiDTO;
 import com.example.food.model.Category;
 import com.example.food.model.Product;
 import com.example.food.repository.UserRepository;
 import com.example.food.service.ProductService;
+import com.example.food.service.DailySalesRollupService;
+import com.example.food.service.LiveKpiService;
 import com.example.food.service.OrderService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,6 +17,7 @@ import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
@@ -28,6 +32,8 @@ public class AdminDashboardController {
     private final UserRepository userRepository;
     private final ProductService productService;
     private final OrderService orderService;
+    private final DailySalesRollupService dailySalesRollupService;
+    private final LiveKpiService liveKpiService;
 
     /**
      * Dashboard chính
@@ -169,12 +175,12 @@ public class AdminDashboardController {
             // Order stats (last 30 days)
             LocalDate thirtyDaysAgo = LocalDate.now().minusDays(30);
             long totalOrders = orderService.getOrderCountByDateRange(thirtyDaysAgo, LocalDate.now());
-            double totalRevenue = orderService.getRevenueByDateRange(thirtyDaysAgo, LocalDate.now());
+            BigDecimal totalRevenue = orderService.getRevenueByDateRange(thirtyDaysAgo, LocalDate.now());
             
             // Today's stats
             LocalDate today = LocalDate.now();
             long todayOrders = orderService.getOrderCountByDateRange(today, today);
-            double todayRevenue = orderService.getRevenueByDateRange(today, today);
+            BigDecimal todayRevenue = orderService.getRevenueByDateRange(today, today);
             
             stats.put("totalUsers", totalUsers);
             stats.put("totalProducts", totalProducts);
@@ -199,98 +205,143 @@ public class AdminDashboardController {
         }
     }
 
+    /**
+     * API: Snapshot KPI trực tiếp (cửa sổ trượt, đọc từ bộ nhớ). Cập nhật tiếp theo được đẩy qua /topic/admin/kpis
+     */
+    @GetMapping("/api/dashboard/kpis")
+    @ResponseBody
+    public ResponseEntity<ApiResponse<LiveKpiDTO>> getLiveKpis() {
+        return ResponseEntity.ok(ApiResponse.<LiveKpiDTO>builder()
+                .success(true)
+                .message("Lấy KPI trực tiếp thành công")
+                .data(liveKpiService.getSnapshot())
+                .build());
+    }
+
+    /**
+     * API: Tính lại bảng daily_sales_rollup từ bảng orders (mặc định toàn bộ lịch sử)
+     */
+    @PostMapping("/api/dashboard/rollup/rebuild")
+    @ResponseBody
+    public ResponseEntity<ApiResponse<Map<String, Object>>> rebuildSalesRollup(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate) {
+        try {
+            long started = System.currentTimeMillis();
+            int days = startDate != null
+                    ? dailySalesRollupService.rebuild(startDate, endDate != null ? endDate : LocalDate.now())
+                    : dailySalesRollupService.rebuildAll();
+
+            Map<String, Object> result = new HashMap<>();
+            result.put("days", days);
+            result.put("durationMs", System.currentTimeMillis() - started);
+
+            return ResponseEntity.ok(ApiResponse.<Map<String, Object>>builder()
+                    .success(true)
+                    .message("Đã tính lại dữ liệu doanh thu theo ngày")
+                    .data(result)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error rebuilding daily sales rollup: ", e);
+            return ResponseEntity.badRequest().body(ApiResponse.<Map<String, Object>>builder()
+                    .success(false)
+                    .message("Lỗi tính lại dữ liệu doanh thu: " + e.getMessage())
+                    .build());
+        }
+    }
+
     // ===============================
     // PRIVATE HELPER METHODS
     // ===============================
 
     private Map<String, Object> getOrderDataByDay(LocalDate startDate, LocalDate endDate) {
-        Map<String, Object> data = new HashMap<>();
+        Map<LocalDate, DailySalesRollupService.DayTotals> daily = dailySalesRollupService.getDailyTotals(startDate, endDate);
+
         List<String> labels = new ArrayList<>();
         List<Long> orderCounts = new ArrayList<>();
-        List<Double> revenues = new ArrayList<>();
-        
-        LocalDate current = startDate;
-        while (!current.isAfter(endDate)) {
-            labels.add(current.format(DateTimeFormatter.ofPattern("dd/MM")));
-            
-            long count = orderService.getOrderCountByDateRange(current, current);
-            double revenue = orderService.getRevenueByDateRange(current, current);
-            
-            orderCounts.add(count);
-            revenues.add(revenue);
-            
-            current = current.plusDays(1);
-        }
-        
-        data.put("labels", labels);
-        data.put("orderCounts", orderCounts);
-        data.put("revenues", revenues);
-        data.put("period", "day");
-        
-        return data;
+        List<BigDecimal> revenues = new ArrayList<>();
+        daily.forEach((day, totals) -> {
+            labels.add(day.format(DateTimeFormatter.ofPattern("dd/MM")));
+            orderCounts.add(totals.orderCount());
+            revenues.add(totals.revenue());
+        });
+
+        return chartData(labels, orderCounts, revenues, "day");
     }
 
     private Map<String, Object> getOrderDataByWeek(LocalDate startDate, LocalDate endDate) {
-        Map<String, Object> data = new HashMap<>();
+        LocalDate firstWeek = startDate.with(java.time.DayOfWeek.MONDAY);
+        Map<LocalDate, DailySalesRollupService.DayTotals> daily = dailySalesRollupService.getDailyTotals(firstWeek, endDate);
+
         List<String> labels = new ArrayList<>();
         List<Long> orderCounts = new ArrayList<>();
-        List<Double> revenues = new ArrayList<>();
-        
-        LocalDate current = startDate.with(java.time.DayOfWeek.MONDAY);
+        List<BigDecimal> revenues = new ArrayList<>();
+
+        LocalDate current = firstWeek;
         while (!current.isAfter(endDate)) {
             LocalDate weekEnd = current.plusDays(6);
             if (weekEnd.isAfter(endDate)) {
                 weekEnd = endDate;
             }
-            
+
             labels.add("Tuần " + current.format(DateTimeFormatter.ofPattern("dd/MM")));
-            
-            long count = orderService.getOrderCountByDateRange(current, weekEnd);
-            double revenue = orderService.getRevenueByDateRange(current, weekEnd);
-            
-            orderCounts.add(count);
-            revenues.add(revenue);
-            
+            addBucket(daily, current, weekEnd, orderCounts, revenues);
+
             current = current.plusWeeks(1);
         }
-        
-        data.put("labels", labels);
-        data.put("orderCounts", orderCounts);
-        data.put("revenues", revenues);
-        data.put("period", "week");
-        
-        return data;
+
+        return chartData(labels, orderCounts, revenues, "week");
     }
 
     private Map<String, Object> getOrderDataByMonth(LocalDate startDate, LocalDate endDate) {
-        Map<String, Object> data = new HashMap<>();
+        LocalDate firstMonth = startDate.withDayOfMonth(1);
+        Map<LocalDate, DailySalesRollupService.DayTotals> daily = dailySalesRollupService.getDailyTotals(firstMonth, endDate);
+
         List<String> labels = new ArrayList<>();
         List<Long> orderCounts = new ArrayList<>();
-        List<Double> revenues = new ArrayList<>();
-        
-        LocalDate current = startDate.withDayOfMonth(1);
+        List<BigDecimal> revenues = new ArrayList<>();
+
+        LocalDate current = firstMonth;
         while (!current.isAfter(endDate)) {
             LocalDate monthEnd = current.withDayOfMonth(current.lengthOfMonth());
             if (monthEnd.isAfter(endDate)) {
                 monthEnd = endDate;
             }
-            
+
             labels.add(current.format(DateTimeFormatter.ofPattern("MM/yyyy")));
-            
-            long count = orderService.getOrderCountByDateRange(current, monthEnd);
-            double revenue = orderService.getRevenueByDateRange(current, monthEnd);
-            
-            orderCounts.add(count);
-            revenues.add(revenue);
-            
+            addBucket(daily, current, monthEnd, orderCounts, revenues);
+
             current = current.plusMonths(1);
         }
-        
+
+        return chartData(labels, orderCounts, revenues, "month");
+    }
+
+    /**
+     * Cộng dồn các ngày [from, to] (đã load sẵn) thành một điểm trên biểu đồ
+     */
+    private void addBucket(Map<LocalDate, DailySalesRollupService.DayTotals> daily, LocalDate from, LocalDate to,
+                           List<Long> orderCounts, List<BigDecimal> revenues) {
+        long count = 0;
+        BigDecimal revenue = BigDecimal.ZERO;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            DailySalesRollupService.DayTotals totals = daily.get(day);
+            if (totals != null) {
+                count += totals.orderCount();
+                revenue = revenue.add(totals.revenue());
+            }
+        }
+        orderCounts.add(count);
+        revenues.add(revenue);
+    }
+
+    private Map<String, Object> chartData(List<String> labels, List<Long> orderCounts,
+                                          List<BigDecimal> revenues, String period) {
+        Map<String, Object> data = new HashMap<>();
         data.put("labels", labels);
         data.put("orderCounts", orderCounts);
         data.put("revenues", revenues);
-        data.put("period", "month");
-        
+        data.put("period", period);
         return data;
     }
 
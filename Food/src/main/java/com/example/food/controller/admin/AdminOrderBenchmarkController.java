@@ -0,0 +1,76 @@
+package com.example.food.controller.admin;
+
+import com.example.food.dto.ApiResponse;
+import com.example.food.dto.OrderWriteStatsDTO;
+import com.example.food.service.OrderWriteStats;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.List;
+
+/**
+ * Benchmark đường ghi order, chỉ có khi chạy với profile "benchmark"
+ */
+@Controller
+@RequestMapping("/admin/orders")
+@Profile("benchmark")
+@RequiredArgsConstructor
+@Slf4j
+public class AdminOrderBenchmarkController {
+
+    private final OrderWriteStats orderWriteStats;
+
+    /**
+     * Benchmark đường ghi order: số statement / order và độ trễ p50, p99 của từng đường ghi (API)
+     */
+    @GetMapping("/api/write-stats")
+    @ResponseBody
+    public ResponseEntity<ApiResponse<List<OrderWriteStatsDTO>>> getOrderWriteStats() {
+        try {
+            List<OrderWriteStatsDTO> stats = orderWriteStats.snapshot();
+
+            return ResponseEntity.ok(ApiResponse.<List<OrderWriteStatsDTO>>builder()
+                    .success(true)
+                    .message("Lấy thống kê ghi đơn hàng thành công")
+                    .data(stats)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error getting order write stats: ", e);
+            return ResponseEntity.badRequest().body(ApiResponse.<List<OrderWriteStatsDTO>>builder()
+                    .success(false)
+                    .message("Lỗi lấy thống kê ghi đơn hàng: " + e.getMessage())
+                    .build());
+        }
+    }
+
+    /**
+     * Chọn đường ghi cho các order tiếp theo: GRAPH (mới) hoặc PER_ENTITY (cũ, để đo baseline) (API)
+     */
+    @PostMapping("/api/write-stats/path")
+    @ResponseBody
+    public ResponseEntity<ApiResponse<List<OrderWriteStatsDTO>>> setOrderWritePath(@RequestParam String path) {
+        try {
+            orderWriteStats.setWritePath(OrderWriteStats.WritePath.valueOf(path.toUpperCase()));
+
+            return ResponseEntity.ok(ApiResponse.<List<OrderWriteStatsDTO>>builder()
+                    .success(true)
+                    .message("Đã chuyển đường ghi đơn hàng sang " + orderWriteStats.getWritePath())
+                    .data(orderWriteStats.snapshot())
+                    .build());
+        } catch (Exception e) {
+            log.error("Error setting order write path: ", e);
+            return ResponseEntity.badRequest().body(ApiResponse.<List<OrderWriteStatsDTO>>builder()
+                    .success(false)
+                    .message("Lỗi chuyển đường ghi đơn hàng: " + e.getMessage())
+                    .build());
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.food.controller.admin;
 
 import com.example.food.dto.ApiResponse;
+import com.example.food.dto.CursorPageDTO;
 import com.example.food.dto.OrderDTO;
 import com.example.food.dto.OrderStatsDTO;
 import com.example.food.model.Order;
@@ -32,9 +33,7 @@ public class AdminOrderController {
     @GetMapping
     public String ordersPage(Model model) {
         try {
-            // Get all orders (you can add pagination later)
-            List<OrderDTO> orders = orderService.getAllOrders();
-            model.addAttribute("orders", orders);
+            // Danh sách đơn hàng được load qua API phân trang theo cursor (/admin/orders/api/page)
             model.addAttribute("pageTitle", "Đơn hàng - Danh sách");
             return "admin/orders/list";
         } catch (Exception e) {
@@ -68,7 +67,7 @@ public class AdminOrderController {
     // ===============================
 
     /**
-     * Lấy tất cả đơn hàng (API)
+     * Lấy tất cả đơn hàng (API cũ, load theo từng trang ở service); trang admin dùng /api/page
      */
     @GetMapping("/api/all")
     @ResponseBody
@@ -90,6 +89,31 @@ public class AdminOrderController {
         }
     }
 
+    /**
+     * Lấy đơn hàng phân trang theo cursor, mới nhất trước (API)
+     */
+    @GetMapping("/api/page")
+    @ResponseBody
+    public ResponseEntity<ApiResponse<CursorPageDTO<OrderDTO>>> getOrdersPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int size) {
+        try {
+            CursorPageDTO<OrderDTO> page = orderService.getOrdersPage(null, cursor, size);
+
+            return ResponseEntity.ok(ApiResponse.<CursorPageDTO<OrderDTO>>builder()
+                    .success(true)
+                    .message("Lấy danh sách đơn hàng thành công")
+                    .data(page)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error getting orders page: ", e);
+            return ResponseEntity.badRequest().body(ApiResponse.<CursorPageDTO<OrderDTO>>builder()
+                    .success(false)
+                    .message("Lỗi lấy danh sách đơn hàng: " + e.getMessage())
+                    .build());
+        }
+    }
+
     /**
      * Lấy đơn hàng theo trạng thái (API)
      */
@@ -4,6 +4,7 @@ import com.example.food.dto.*;
 import com.example.food.model.Product;
 import com.example.food.model.Category;
 import com.example.food.model.ProductOption;
+import com.example.food.service.CatalogService;
 import com.example.food.service.ProductService;
 import com.example.food.repository.ProductRepository;
 import com.example.food.repository.ProductOptionRepository;
@@ -38,6 +39,7 @@ public class AdminProductController {
     private final ProductService productService;
     private final ProductOptionRepository productOptionRepository;
     private final ProductRepository productRepository;
+    private final CatalogService catalogService;
 
     // ===============================
     // WEB PAGES (Thymeleaf)
@@ -268,6 +270,7 @@ public class AdminProductController {
                 }
             }
 
+            catalogService.markChanged();
             log.info("Product created successfully: {}", createdProduct.getName());
             return "redirect:/admin/products?success=created";
         } catch (Exception e) {
@@ -347,6 +350,7 @@ public class AdminProductController {
                     .orElseThrow(() -> new IllegalArgumentException("Sản phẩm không tồn tại"));
             product.setIsFeatured(isFeatured);
             Product saved = productRepository.save(product);
+            catalogService.markChanged();
 
             return ResponseEntity.ok(ApiResponse.<ProductDTO>builder()
                     .success(true)
@@ -374,6 +378,7 @@ public class AdminProductController {
                     .orElseThrow(() -> new IllegalArgumentException("Sản phẩm không tồn tại"));
             product.setIsAvailable(isAvailable);
             Product saved = productRepository.save(product);
+            catalogService.markChanged();
 
             return ResponseEntity.ok(ApiResponse.<ProductDTO>builder()
                     .success(true)
@@ -484,6 +489,7 @@ public class AdminProductController {
                 productOptionRepository.deleteByProductId(productId);
             }
 
+            catalogService.markChanged();
             model.addAttribute("success", "Cập nhật sản phẩm thành công!");
             return "redirect:/admin/products/view/" + updatedProduct.getProductId();
 
@@ -688,6 +694,7 @@ public class AdminProductController {
             for (ProductOption option : options) {
                 productOptionRepository.save(option);
             }
+            catalogService.markChanged();
 
             return ResponseEntity.ok(ApiResponse.<String>builder()
                     .success(true)
@@ -862,6 +869,7 @@ public class AdminProductController {
                     .build();
 
             ProductOption savedOption = productOptionRepository.save(option);
+            catalogService.markChanged();
             ProductOptionDTO optionDTO = convertToDTO(savedOption);
             return ResponseEntity.ok(optionDTO);
         } catch (Exception e) {
@@ -875,6 +883,7 @@ public class AdminProductController {
     public ResponseEntity<Void> deleteProductOption(@PathVariable Long optionId) {
         try {
             productOptionRepository.deleteById(optionId);
+            catalogService.markChanged();
             return ResponseEntity.ok().build();
         } catch (Exception e) {
             log.error("Error deleting product option ID: {}", optionId, e);
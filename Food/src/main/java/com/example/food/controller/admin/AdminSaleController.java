@@ -1,20 +1,26 @@
 package com.example.food.controller.admin;
 
+import com.example.food.dto.ApiResponse;
+import com.example.food.dto.CreateSaleCampaignRequest;
 import com.example.food.dto.CreateSaleRequest;
+import com.example.food.dto.SaleCampaignResultDTO;
 import com.example.food.dto.SaleDTO;
 import com.example.food.service.ProductService;
 import com.example.food.service.SaleService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.util.List;
 
 @Controller
 @RequestMapping("/admin")
 @RequiredArgsConstructor
+@Slf4j
 public class AdminSaleController {
 
     private final SaleService saleService;
@@ -25,9 +31,16 @@ public class AdminSaleController {
     // ===============================
 
     @GetMapping("/sales")
-    public String salesList(Model model) {
-        List<SaleDTO> sales = saleService.getAllSales();
-        model.addAttribute("sales", sales);
+    public String salesList(@RequestParam(defaultValue = "0") int page,
+                            @RequestParam(defaultValue = "20") int size,
+                            Model model) {
+        Page<SaleDTO> sales = saleService.getSalesPage(page, size);
+        model.addAttribute("sales", sales.getContent());
+        model.addAttribute("currentPage", page);
+        model.addAttribute("pageSize", size);
+        model.addAttribute("totalPages", sales.getTotalPages());
+        model.addAttribute("totalElements", sales.getTotalElements());
+        model.addAttribute("stats", saleService.getSaleStatistics());
         model.addAttribute("pageTitle", "Sale - Danh sách");
         return "admin/sales/list";
     }
@@ -117,4 +130,29 @@ public class AdminSaleController {
         return "redirect:/admin/sales";
     }
 
-}
\ No newline at end of file
+    // ===============================
+    // SALE CAMPAIGN API
+    // ===============================
+
+    /**
+     * Áp một sale cho cả danh mục / nhiều sản phẩm trong một transaction
+     */
+    @PostMapping("/sales/api/campaigns")
+    @ResponseBody
+    public ResponseEntity<ApiResponse<SaleCampaignResultDTO>> createCampaign(@RequestBody CreateSaleCampaignRequest request) {
+        try {
+            SaleCampaignResultDTO result = saleService.createCampaign(request);
+            return ResponseEntity.ok(ApiResponse.<SaleCampaignResultDTO>builder()
+                    .success(true)
+                    .message("Đã tạo " + result.getCreatedSales() + " sale trong " + result.getDurationMs() + " ms")
+                    .data(result)
+                    .build());
+        } catch (Exception e) {
+            log.error("Error creating sale campaign: ", e);
+            return ResponseEntity.badRequest().body(ApiResponse.<SaleCampaignResultDTO>builder()
+                    .success(false)
+                    .message("Lỗi tạo campaign: " + e.getMessage())
+                    .build());
+        }
+    }
+}
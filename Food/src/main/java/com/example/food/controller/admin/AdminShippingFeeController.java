@@ -1,15 +1,20 @@
 package com.example.food.controller.admin;
 
+import com.example.food.dto.ApiResponse;
+import com.example.food.dto.DeliveryZoneDTO;
 import com.example.food.dto.ShippingFeeSettingsDTO;
+import com.example.food.service.DeliveryZoneService;
 import com.example.food.service.ShippingFeeSettingsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 
 @Controller
@@ -19,6 +24,7 @@ import java.util.Optional;
 public class AdminShippingFeeController {
 
     private final ShippingFeeSettingsService shippingFeeSettingsService;
+    private final DeliveryZoneService deliveryZoneService;
 
     /**
      * Trang danh sách phí ship
@@ -78,4 +84,76 @@ public class AdminShippingFeeController {
 
         return "redirect:/admin/shipping-fees/list";
     }
+
+    // ===============================
+    // DELIVERY ZONES API
+    // ===============================
+
+    /**
+     * Danh sách vùng giao hàng (đa giác "lat,lng;lat,lng;...")
+     */
+    @GetMapping("/delivery-zones/api")
+    @ResponseBody
+    public ResponseEntity<ApiResponse<List<DeliveryZoneDTO>>> getDeliveryZones() {
+        return ResponseEntity.ok(ApiResponse.<List<DeliveryZoneDTO>>builder()
+                .success(true)
+                .message("Lấy danh sách vùng giao hàng thành công")
+                .data(deliveryZoneService.getAllZones())
+                .build());
+    }
+
+    @PostMapping("/delivery-zones/api")
+    @ResponseBody
+    public ResponseEntity<ApiResponse<DeliveryZoneDTO>> createDeliveryZone(@RequestBody DeliveryZoneDTO zoneDTO) {
+        try {
+            return ResponseEntity.ok(ApiResponse.<DeliveryZoneDTO>builder()
+                    .success(true)
+                    .message("Tạo vùng giao hàng thành công")
+                    .data(deliveryZoneService.createZone(zoneDTO))
+                    .build());
+        } catch (Exception e) {
+            log.error("Error creating delivery zone: {}", e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.<DeliveryZoneDTO>builder()
+                    .success(false)
+                    .message("Lỗi khi tạo vùng giao hàng: " + e.getMessage())
+                    .build());
+        }
+    }
+
+    @PutMapping("/delivery-zones/api/{zoneId}")
+    @ResponseBody
+    public ResponseEntity<ApiResponse<DeliveryZoneDTO>> updateDeliveryZone(@PathVariable Long zoneId,
+                                                                           @RequestBody DeliveryZoneDTO zoneDTO) {
+        try {
+            return ResponseEntity.ok(ApiResponse.<DeliveryZoneDTO>builder()
+                    .success(true)
+                    .message("Cập nhật vùng giao hàng thành công")
+                    .data(deliveryZoneService.updateZone(zoneId, zoneDTO))
+                    .build());
+        } catch (Exception e) {
+            log.error("Error updating delivery zone {}: {}", zoneId, e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.<DeliveryZoneDTO>builder()
+                    .success(false)
+                    .message("Lỗi khi cập nhật vùng giao hàng: " + e.getMessage())
+                    .build());
+        }
+    }
+
+    @DeleteMapping("/delivery-zones/api/{zoneId}")
+    @ResponseBody
+    public ResponseEntity<ApiResponse<Void>> deleteDeliveryZone(@PathVariable Long zoneId) {
+        try {
+            deliveryZoneService.deleteZone(zoneId);
+            return ResponseEntity.ok(ApiResponse.<Void>builder()
+                    .success(true)
+                    .message("Đã xóa vùng giao hàng")
+                    .build());
+        } catch (Exception e) {
+            log.error("Error deleting delivery zone {}: {}", zoneId, e.getMessage(), e);
+            return ResponseEntity.badRequest().body(ApiResponse.<Void>builder()
+                    .success(false)
+                    .message("Lỗi khi xóa vùng giao hàng: " + e.getMessage())
+                    .build());
+        }
+    }
 }
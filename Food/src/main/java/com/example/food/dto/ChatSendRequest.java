@@ -0,0 +1,22 @@
+package com.example.food.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Payload gửi lên /app/chat.send qua STOMP
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChatSendRequest {
+    private Long conversationId;
+    private String content;
+    private List<String> attachmentUrls;
+    private String clientMessageId; // Id tạm phía client, trả lại trong MessageDTO để thay tin nhắn gửi tạm
+}
@@ -5,6 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @Data
@@ -19,6 +20,8 @@ public class CreateOrderRequest {
     private String paymentMethod;
     private List<OrderItemRequest> orderItems;
     private List<String> couponCodes; // Danh sách nhiều coupon cho đơn hàng
+    private BigDecimal deliveryLatitude;  // Tọa độ giao hàng (tùy chọn, không có thì geocode deliveryAddress)
+    private BigDecimal deliveryLongitude;
 
     @Data
     @Builder
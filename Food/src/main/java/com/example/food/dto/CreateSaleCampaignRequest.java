@@ -0,0 +1,29 @@
+package com.example.food.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Tạo cùng một sale cho cả danh mục và / hoặc danh sách sản phẩm
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreateSaleCampaignRequest {
+    private String saleName;
+    private String saleDescription;
+    private String discountType;        // PERCENTAGE, FIXED_AMOUNT
+    private BigDecimal discountValue;
+    private LocalDateTime startDate;
+    private LocalDateTime endDate;
+    private Long categoryId;            // Mọi sản phẩm đang bán trong danh mục
+    private List<Long> productIds;      // Thêm các sản phẩm chỉ định
+    private Boolean skipConflicts;      // true: bỏ qua sản phẩm trùng khung sale; false: hủy cả campaign
+}
@@ -0,0 +1,23 @@
+package com.example.food.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Một trang kết quả phân trang theo cursor (keyset).
+ * Gửi nextCursor trong request kế tiếp để lấy trang sau.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageDTO<T> {
+    private List<T> items;
+    private String nextCursor; // null nếu không còn trang sau
+    private Boolean hasMore;
+    private Integer size;
+}
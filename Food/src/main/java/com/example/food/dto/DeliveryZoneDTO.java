@@ -0,0 +1,27 @@
+package com.example.food.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryZoneDTO {
+
+    private Long zoneId;
+    private String zoneName;
+    private String polygon;             // "lat,lng;lat,lng;..."
+    private BigDecimal shippingFee;     // Phí ship trong vùng
+    private BigDecimal minOrderAmount;  // Đơn tối thiểu
+    private Integer estimatedMinutes;   // Thời gian giao dự kiến (phút)
+    private Integer priority;           // Vùng chồng nhau: cao hơn được chọn
+    private Boolean enabled;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,27 @@
+package com.example.food.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FirebaseSyncStatsDTO {
+
+    private String sink;                 // firebase / local
+    private Integer queueDepth;          // Số path đang chờ ghi
+    private Integer capacity;
+    private Long enqueued;               // Path mới đưa vào queue
+    private Long coalesced;              // Ghi đè path đang chờ (không tốn thêm chỗ)
+    private Long rejected;               // Bị từ chối vì queue đầy / đang tắt (outbox sẽ retry)
+    private Long flushes;                // Số lần updateChildren thành công
+    private Long flushedPaths;
+    private Long failedFlushes;
+    private Long dropped;                // Bỏ sau khi retry quá số lần cho phép
+    private Integer lastBatchSize;
+    private Double p50FlushLatencyMs;
+    private Double p99FlushLatencyMs;
+}
@@ -0,0 +1,42 @@
+package com.example.food.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LiveKpiDTO {
+
+    private Long version;                // Tăng mỗi khi có order event, client bỏ qua bản cũ hơn
+    private LocalDateTime generatedAt;
+    private Integer windowMinutes;       // Độ dài cửa sổ trượt
+
+    // Tổng trong cửa sổ
+    private Long orders;                 // Số đơn mới
+    private BigDecimal revenue;          // Doanh thu từ đơn hoàn thành (DONE)
+    private Long cancellations;          // Số đơn bị hủy
+    private BigDecimal averageBasket;    // Giá trị trung bình đơn mới
+
+    // Full snapshot: toàn bộ bucket trong cửa sổ; delta qua WebSocket: chỉ các bucket thay đổi
+    private List<MinuteBucket> buckets;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class MinuteBucket {
+        private LocalDateTime minute;
+        private Long orders;
+        private BigDecimal basketTotal;
+        private BigDecimal revenue;
+        private Long cancellations;
+    }
+}
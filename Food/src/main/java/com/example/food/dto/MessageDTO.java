@@ -23,5 +23,6 @@ public class MessageDTO {
     private Boolean isRead;
     private LocalDateTime createdAt;
     private Boolean isOwnMessage; // true nếu là tin nhắn của user hiện tại
+    private String clientMessageId; // Chỉ có khi gửi qua STOMP (ChatSendRequest.clientMessageId)
 }
 
@@ -0,0 +1,29 @@
+package com.example.food.dto;
+
+import com.example.food.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Payload của các event order ghi vào outbox
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderEventPayload {
+    private Long orderId;
+    private String orderNumber;
+    private Long userId;
+    private String userFullName;
+    private Order.OrderStatus previousStatus; // null với ORDER_CREATED
+    private Order.OrderStatus orderStatus;
+    private BigDecimal finalAmount;
+    private LocalDateTime createdAt;          // Thời điểm tạo order
+    private LocalDateTime occurredAt;         // Thời điểm xảy ra event
+}
@@ -0,0 +1,21 @@
+package com.example.food.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderWriteStatsDTO {
+
+    private String writePath;             // GRAPH (cascade + batch) | PER_ENTITY (đường ghi cũ)
+    private Boolean active;               // Đường ghi createOrder đang dùng
+    private Integer samples;              // Số lần ghi order được ghi nhận (tối đa kích thước cửa sổ)
+    private Double avgStatementsPerOrder; // Số JDBC statement trung bình cho mỗi order graph
+    private Integer maxStatementsPerOrder;
+    private Double p50LatencyMs;          // Độ trễ ghi (persist + flush) p50
+    private Double p99LatencyMs;          // Độ trễ ghi (persist + flush) p99
+}
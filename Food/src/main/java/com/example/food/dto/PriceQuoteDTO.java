@@ -13,9 +13,14 @@ import java.math.BigDecimal;
 @AllArgsConstructor
 public class PriceQuoteDTO {
     private BigDecimal subtotal;      // Tổng tiền hàng (bao gồm options)
-    private BigDecimal shippingFee;   // Phí vận chuyển
+    private BigDecimal shippingFee;   // Phí vận chuyển (0 khi deliverable = false), đã tính trong finalAmount
     private BigDecimal couponDiscount; // Giảm giá coupon (nếu có)
     private BigDecimal finalAmount;   // Thành tiền cuối
+    private Boolean deliverable;      // false: ngoài vùng giao hàng / chưa đủ đơn tối thiểu của vùng
+    private String deliveryZone;      // Tên vùng giao hàng (nếu có)
+    private BigDecimal minOrderAmount; // Đơn tối thiểu của vùng
+    private Integer estimatedDeliveryMinutes; // Thời gian giao dự kiến của vùng
+    private String deliveryMessage;   // Lý do không giao được
 }
 
 
@@ -0,0 +1,40 @@
+package com.example.food.dto;
+
+import com.example.food.model.Product;
+import com.example.food.model.ProductOption;
+import lombok.Builder;
+import lombok.Singular;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Kết quả tính giá giỏ hàng (bất biến) do CartPricingService trả về.
+ * - baseSubtotal: tổng theo giá gốc + options (dùng làm nền cho coupon / quote)
+ * - subtotal: tổng theo giá hiện tại (đã áp sale) + options (dùng làm totalAmount của order)
+ */
+@Value
+@Builder
+public class PricedCart {
+
+    @Singular
+    List<PricedLine> lines;
+    BigDecimal baseSubtotal;
+    BigDecimal subtotal;
+
+    @Value
+    @Builder
+    public static class PricedLine {
+        Product product;
+        @Singular
+        List<ProductOption> options;
+        Integer quantity;
+        String specialInstructions;
+        BigDecimal unitPrice;       // Giá gốc
+        BigDecimal salePrice;       // Giá hiện tại (có thể bằng giá gốc)
+        BigDecimal optionsPrice;    // Tổng giá options cho 1 đơn vị
+        BigDecimal baseTotal;       // (unitPrice + optionsPrice) * quantity
+        BigDecimal totalPrice;      // (salePrice + optionsPrice) * quantity
+    }
+}
@@ -0,0 +1,34 @@
+package com.example.food.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProductFilterResultDTO {
+
+    private Page<ProductDTO> products;
+
+    // facet (category, price, featured, onSale, hasOptions, prepTime) -> số sản phẩm theo từng giá trị,
+    // tính với bộ lọc của các facet còn lại (chọn thêm giá trị này sẽ ra bao nhiêu sản phẩm)
+    private Map<String, List<FacetCount>> facets;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FacetCount {
+        private String value;       // Giá trị gửi lại trong request (categoryId, mã bucket, true/false)
+        private String label;
+        private Long count;
+        private Boolean selected;
+    }
+}
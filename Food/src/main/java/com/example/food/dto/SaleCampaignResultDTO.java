@@ -0,0 +1,22 @@
+package com.example.food.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SaleCampaignResultDTO {
+    private String saleName;
+    private Integer targetedProducts;           // Số sản phẩm thuộc campaign
+    private Integer createdSales;
+    private Integer appliedNow;                 // Sale đã bắt đầu, field sale của sản phẩm được gán ngay
+    private List<Long> saleIds;
+    private List<Long> skippedProductIds;       // Trùng khung giờ với sale đang bật khác
+    private Long durationMs;                    // Thời gian áp campaign (trong transaction)
+}
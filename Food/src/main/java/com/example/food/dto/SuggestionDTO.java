@@ -0,0 +1,21 @@
+package com.example.food.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Một gợi ý autocomplete (sản phẩm hoặc danh mục)
+ */
+@Data
+@Builder(toBuilder = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionDTO {
+    private String type;        // PRODUCT, CATEGORY
+    private Long id;
+    private String name;
+    private String imageUrl;
+    private long popularity;    // Số lượng đã bán (danh mục: tổng các sản phẩm)
+}
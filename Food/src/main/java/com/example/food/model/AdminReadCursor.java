@@ -0,0 +1,37 @@
+package com.example.food.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Cursor đã đọc của admin trong conversation mà admin không phải participant.
+ * Admin đọc mọi conversation nhưng không được thêm vào danh sách participant chỉ vì đã mở xem.
+ */
+@Entity
+@Table(name = "admin_read_cursors", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_admin_read_cursor", columnNames = {"conversation_id", "user_id"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AdminReadCursor {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "cursor_id")
+    private Long cursorId;
+
+    @Column(name = "conversation_id", nullable = false)
+    private Long conversationId;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    // Cùng quy ước với ConversationParticipant.lastReadSeq
+    @Column(name = "last_read_seq", nullable = false)
+    private Long lastReadSeq;
+}
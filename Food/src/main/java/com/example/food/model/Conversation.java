@@ -34,6 +34,19 @@ public class Conversation {
     @Builder.Default
     private ConversationStatus status = ConversationStatus.OPEN;
 
+    // Tin nhắn cuối (denormalize để danh sách chat không phải đọc bảng messages)
+    @Column(name = "last_message_id")
+    private Long lastMessageId;
+
+    @Column(name = "last_message_content", columnDefinition = "TEXT")
+    private String lastMessageContent;
+
+    @Column(name = "last_message_sender_id")
+    private Long lastMessageSenderId;
+
+    @Column(name = "last_message_at")
+    private LocalDateTime lastMessageAt;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
@@ -42,6 +55,23 @@ public class Conversation {
     @Column(name = "updated_at", nullable = false)
     private LocalDateTime updatedAt;
 
+    /**
+     * Ghi nhận message vừa lưu là tin nhắn cuối
+     */
+    public void recordLastMessage(Message message) {
+        // REST và kênh STOMP (ghi theo batch) cùng cập nhật: không lùi về tin cũ hơn.
+        // So theo createdAt trước: id cấp theo block của từng instance nên không phản ánh thứ tự gửi giữa các instance
+        LocalDateTime createdAt = message.getCreatedAt() != null ? message.getCreatedAt() : LocalDateTime.now();
+        if (lastMessageAt != null && (createdAt.isBefore(lastMessageAt) || (createdAt.isEqual(lastMessageAt)
+                && lastMessageId != null && message.getMessageId() != null && message.getMessageId() < lastMessageId))) {
+            return;
+        }
+        this.lastMessageId = message.getMessageId();
+        this.lastMessageContent = message.getContent();
+        this.lastMessageSenderId = message.getSenderUserId();
+        this.lastMessageAt = createdAt;
+    }
+
     public enum ConversationStatus {
         OPEN, CLOSED
     }
@@ -28,6 +28,10 @@ public class ConversationParticipant {
     @Column(name = "user_id", nullable = false)
     private Long userId;
 
+    // Đã đọc đến Message.seq này (mọi message có seq <= cursor coi như đã đọc); null = chưa đọc gì
+    @Column(name = "last_read_seq")
+    private Long lastReadSeq;
+
     @CreationTimestamp
     @Column(name = "joined_at", nullable = false, updatable = false)
     private LocalDateTime joinedAt;
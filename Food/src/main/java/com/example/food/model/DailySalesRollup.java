@@ -0,0 +1,51 @@
+package com.example.food.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Số đơn và doanh thu theo (ngày tạo đơn, trạng thái hiện tại), cập nhật mỗi lần order đổi trạng thái.
+ * Tổng order_count của một ngày = số đơn tạo trong ngày; revenue của dòng DONE = doanh thu ngày đó.
+ */
+@Entity
+@Table(name = "daily_sales_rollup", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_daily_sales_rollup_date_status", columnNames = {"sale_date", "status"})
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailySalesRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "rollup_id")
+    private Long rollupId;
+
+    @Column(name = "sale_date", nullable = false)
+    private LocalDate saleDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private Order.OrderStatus status;
+
+    @Column(name = "order_count", nullable = false)
+    @Builder.Default
+    private Long orderCount = 0L;
+
+    @Column(name = "revenue", nullable = false, precision = 15, scale = 2)
+    @Builder.Default
+    private BigDecimal revenue = BigDecimal.ZERO;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,43 @@
+package com.example.food.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Delta chờ cộng vào daily_sales_rollup, ghi (chỉ INSERT) trong transaction của order.
+ * DailySalesRollupService gom các delta theo lịch rồi xóa; rebuild xóa các delta đã nằm trong snapshot của nó.
+ */
+@Entity
+@Table(name = "daily_sales_rollup_deltas", indexes = {
+        @Index(name = "idx_rollup_delta_sale_date", columnList = "sale_date")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailySalesRollupDelta {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "delta_id")
+    private Long deltaId;
+
+    @Column(name = "sale_date", nullable = false)
+    private LocalDate saleDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    private Order.OrderStatus status;
+
+    @Column(name = "count_delta", nullable = false)
+    private Long countDelta;
+
+    @Column(name = "revenue_delta", nullable = false, precision = 15, scale = 2)
+    private BigDecimal revenueDelta;
+}
@@ -0,0 +1,28 @@
+package com.example.food.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Đánh dấu một bước chuyển dữ liệu đã chạy (mỗi tên một dòng), để bước đó chỉ chạy một lần dù khởi động lại
+ */
+@Entity
+@Table(name = "data_migrations")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DataMigration {
+
+    @Id
+    @Column(name = "name", length = 100)
+    private String name;
+
+    @Column(name = "applied_at", nullable = false)
+    private LocalDateTime appliedAt;
+}
@@ -0,0 +1,65 @@
+package com.example.food.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Vùng giao hàng do admin vẽ (đa giác), đi cùng ShippingFeeSettings:
+ * địa chỉ nằm trong vùng thì dùng phí ship / đơn tối thiểu / thời gian giao của vùng
+ */
+@Entity
+@Table(name = "delivery_zones")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeliveryZone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "zone_id")
+    private Long zoneId;
+
+    @Column(name = "zone_name", nullable = false, length = 255)
+    private String zoneName;
+
+    // Các đỉnh "lat,lng;lat,lng;..." theo thứ tự (tối thiểu 3 đỉnh, không cần lặp lại đỉnh đầu)
+    @Column(name = "polygon", nullable = false, columnDefinition = "TEXT")
+    private String polygon;
+
+    @Column(name = "shipping_fee", nullable = false, precision = 10, scale = 2)
+    private BigDecimal shippingFee;
+
+    @Column(name = "min_order_amount", precision = 10, scale = 2)
+    @Builder.Default
+    private BigDecimal minOrderAmount = BigDecimal.ZERO;
+
+    @Column(name = "estimated_minutes")
+    @Builder.Default
+    private Integer estimatedMinutes = 30;
+
+    // Các vùng chồng nhau: priority cao hơn được chọn
+    @Column(name = "priority")
+    @Builder.Default
+    private Integer priority = 0;
+
+    @Column(name = "enabled", nullable = false)
+    @Builder.Default
+    private Boolean enabled = true;
+
+    @CreationTimestamp
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
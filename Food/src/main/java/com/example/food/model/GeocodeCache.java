@@ -0,0 +1,50 @@
+package com.example.food.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "geocode_cache")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class GeocodeCache {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "geocode_id")
+    private Long geocodeId;
+
+    // Khóa chuẩn "đường|phường|quận|thành phố" (AddressKeyUtil)
+    @Column(name = "address_key", nullable = false, unique = true, length = 500)
+    private String addressKey;
+
+    @Column(name = "latitude", nullable = false, precision = 10, scale = 8)
+    private BigDecimal latitude;
+
+    @Column(name = "longitude", nullable = false, precision = 11, scale = 8)
+    private BigDecimal longitude;
+
+    @Column(name = "provider", length = 50)
+    private String provider;
+
+    @CreationTimestamp
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+
+    // Dòng cũ chưa có hạn (null) được coi là đã hết hạn
+    @Column(name = "expires_at")
+    private LocalDateTime expiresAt;
+
+    public boolean isExpired() {
+        return expiresAt == null || LocalDateTime.now().isAfter(expiresAt);
+    }
+}
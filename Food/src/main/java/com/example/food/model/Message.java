@@ -4,24 +4,34 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.CreationTimestamp;
+import lombok.ToString;
+import org.springframework.data.domain.Persistable;
 
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "messages")
+@Table(name = "messages", indexes = {
+        @Index(name = "idx_messages_conversation_message", columnList = "conversation_id, message_id"),
+        @Index(name = "idx_messages_conversation_seq", columnList = "conversation_id, seq")
+})
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
-public class Message {
+public class Message implements Persistable<Long> {
 
+    // Id cấp trước bởi MessageIdAllocator (dùng được trước khi ghi DB: fan-out realtime, insert theo batch)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Column(name = "message_id")
     private Long messageId;
 
+    // Thứ tự ghi (MessageSequencer, cấp trong transaction insert): lịch sử và cursor đã đọc so theo cột này,
+    // không theo message_id (cấp lúc gửi, theo block từng instance)
+    @Column(name = "seq")
+    private Long seq;
+
     @Column(name = "conversation_id", nullable = false)
     private Long conversationId;
 
@@ -34,12 +44,42 @@ public class Message {
     @Column(name = "attachment_urls", columnDefinition = "TEXT")
     private String attachmentUrls; // comma-separated URLs or JSON
 
+    // Không còn cập nhật: trạng thái đọc theo ConversationParticipant.lastReadSeq (giữ cột cho dữ liệu cũ)
     @Column(name = "is_read", nullable = false)
     @Builder.Default
     private Boolean isRead = false;
 
-    @CreationTimestamp
+    // Gán khi tạo message (trước khi ghi DB) để thời gian đã phát realtime khớp với dữ liệu lưu
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
+
+    // Id được gán sẵn nên Spring Data không tự biết entity mới: persist thẳng, không SELECT trước khi insert
+    @Transient
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean persisted;
+
+    @Override
+    public Long getId() {
+        return messageId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PrePersist
+    void onCreate() {
+        if (createdAt == null) {
+            createdAt = LocalDateTime.now();
+        }
+    }
+
+    @PostPersist
+    @PostLoad
+    void markPersisted() {
+        persisted = true;
+    }
 }
 
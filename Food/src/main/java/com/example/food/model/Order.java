@@ -21,7 +21,10 @@ import java.util.List;
 public class Order {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled table generator thay cho IDENTITY để Hibernate có thể batch insert cả order graph
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "orders_id_gen")
+    @TableGenerator(name = "orders_id_gen", table = "id_generators", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "orders", allocationSize = 50)
     @Column(name = "order_id")
     private Long orderId;
 
@@ -0,0 +1,39 @@
+package com.example.food.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "order_idempotency_keys")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OrderIdempotencyKey {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "idempotency_id")
+    private Long idempotencyId;
+
+    // "{userId}:{Idempotency-Key}" - key của client chỉ có ý nghĩa trong phạm vi một user
+    @Column(name = "idempotency_key", nullable = false, unique = true, length = 150)
+    private String idempotencyKey;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    // Thời điểm key được gán cho order (cập nhật lại khi dùng lại key đã hết hạn)
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
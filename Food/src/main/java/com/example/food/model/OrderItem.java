@@ -20,7 +20,9 @@ import java.util.List;
 public class OrderItem {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_items_id_gen")
+    @TableGenerator(name = "order_items_id_gen", table = "id_generators", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "order_items", allocationSize = 50)
     @Column(name = "order_item_id")
     private Long orderItemId;
 
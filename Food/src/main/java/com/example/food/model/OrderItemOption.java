@@ -19,7 +19,9 @@ import java.time.LocalDateTime;
 public class OrderItemOption {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "order_item_options_id_gen")
+    @TableGenerator(name = "order_item_options_id_gen", table = "id_generators", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "order_item_options", allocationSize = 50)
     @Column(name = "order_item_option_id")
     private Long orderItemOptionId;
 
@@ -0,0 +1,71 @@
+package com.example.food.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "outbox_events", indexes = {
+        @Index(name = "idx_outbox_status_next_attempt", columnList = "status, next_attempt_at"),
+        @Index(name = "idx_outbox_aggregate", columnList = "aggregate_id, event_id")
+})
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "event_id")
+    private Long eventId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 50)
+    private EventType eventType;
+
+    @Column(name = "aggregate_id")
+    private Long aggregateId; // ID của order / conversation liên quan
+
+    @Column(name = "payload", columnDefinition = "TEXT", nullable = false)
+    private String payload; // JSON
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "status", nullable = false, length = 20)
+    @Builder.Default
+    private EventStatus status = EventStatus.PENDING;
+
+    @Column(name = "attempts", nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    public enum EventType {
+        ORDER_CREATED,          // Thông báo đơn hàng mới cho admin
+        ORDER_STATUS_UPDATED,   // Thông báo cập nhật trạng thái cho user
+        CHAT_MESSAGE_CREATED    // Đồng bộ tin nhắn lên Firebase
+    }
+
+    public enum EventStatus {
+        PENDING,    // Chờ gửi (hoặc chờ retry)
+        SENT,       // Đã xử lý xong
+        FAILED      // Hết số lần retry
+    }
+}
@@ -19,7 +19,9 @@ import java.time.LocalDateTime;
 public class Payment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "payments_id_gen")
+    @TableGenerator(name = "payments_id_gen", table = "id_generators", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "payments", allocationSize = 50)
     @Column(name = "payment_id")
     private Long paymentId;
 
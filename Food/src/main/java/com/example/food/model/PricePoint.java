@@ -0,0 +1,62 @@
+package com.example.food.model;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Giá của một sản phẩm tại một thời điểm (bất biến), tính sẵn một lần thay vì mỗi lần gọi getter
+ */
+@Value
+@Builder
+public class PricePoint {
+
+    BigDecimal basePrice;           // Giá gốc
+    BigDecimal currentPrice;        // Giá đang áp dụng (bằng giá gốc nếu không có sale)
+    BigDecimal discountAmount;
+    int discountPercentage;
+    boolean saleActive;
+
+    public static PricePoint regular(BigDecimal basePrice) {
+        return PricePoint.builder()
+                .basePrice(basePrice)
+                .currentPrice(basePrice)
+                .discountAmount(BigDecimal.ZERO)
+                .discountPercentage(0)
+                .saleActive(false)
+                .build();
+    }
+
+    /**
+     * Giá khi sale đang chạy: ưu tiên salePrice, không có thì tính theo salePercentage
+     */
+    public static PricePoint onSale(BigDecimal basePrice, BigDecimal salePrice, Integer salePercentage) {
+        BigDecimal currentPrice = basePrice;
+        if (salePrice != null) {
+            currentPrice = salePrice;
+        } else if (salePercentage != null && basePrice != null) {
+            currentPrice = basePrice.multiply(BigDecimal.valueOf(100 - salePercentage)).divide(BigDecimal.valueOf(100));
+        }
+        if (basePrice == null || currentPrice == null) {
+            return regular(basePrice);
+        }
+
+        BigDecimal discountAmount = basePrice.subtract(currentPrice);
+        int discountPercentage = 0;
+        if (salePercentage != null) {
+            discountPercentage = salePercentage;
+        } else if (basePrice.signum() > 0) {
+            discountPercentage = discountAmount.multiply(BigDecimal.valueOf(100))
+                    .divide(basePrice, 0, RoundingMode.DOWN).intValue();
+        }
+        return PricePoint.builder()
+                .basePrice(basePrice)
+                .currentPrice(currentPrice)
+                .discountAmount(discountAmount)
+                .discountPercentage(discountPercentage)
+                .saleActive(true)
+                .build();
+    }
+}
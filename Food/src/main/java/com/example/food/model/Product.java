@@ -121,40 +121,34 @@ public class Product {
     }
 
     // Sale helper methods
+    // Đường nóng (catalog, giỏ hàng, order) đọc giá từ PriceTimelineService; các getter dưới đây tính lại tại thời điểm gọi
+
+    /**
+     * Sale (theo các field sale của sản phẩm) có hiệu lực tại thời điểm at: [saleStartDate, saleEndDate)
+     */
+    public boolean isSaleActiveAt(LocalDateTime at) {
+        if (!Boolean.TRUE.equals(isOnSale)) return false;
+        return (saleStartDate == null || !at.isBefore(saleStartDate)) &&
+               (saleEndDate == null || at.isBefore(saleEndDate));
+    }
+
+    public PricePoint getPricePointAt(LocalDateTime at) {
+        return isSaleActiveAt(at) ? PricePoint.onSale(price, salePrice, salePercentage) : PricePoint.regular(price);
+    }
+
     public BigDecimal getCurrentPrice() {
-        if (isOnSale && isSaleActive()) {
-            if (salePrice != null) {
-                return salePrice;
-            } else if (salePercentage != null) {
-                return price.multiply(BigDecimal.valueOf(100 - salePercentage)).divide(BigDecimal.valueOf(100));
-            }
-        }
-        return price;
+        return getPricePointAt(LocalDateTime.now()).getCurrentPrice();
     }
 
     public boolean isSaleActive() {
-        if (!isOnSale) return false;
-        LocalDateTime now = LocalDateTime.now();
-        return (saleStartDate == null || now.isAfter(saleStartDate)) && 
-               (saleEndDate == null || now.isBefore(saleEndDate));
+        return isSaleActiveAt(LocalDateTime.now());
     }
 
     public BigDecimal getDiscountAmount() {
-        if (isOnSale && isSaleActive()) {
-            return price.subtract(getCurrentPrice());
-        }
-        return BigDecimal.ZERO;
+        return getPricePointAt(LocalDateTime.now()).getDiscountAmount();
     }
 
     public Integer getDiscountPercentage() {
-        if (isOnSale && isSaleActive()) {
-            if (salePercentage != null) {
-                return salePercentage;
-            } else if (salePrice != null) {
-                BigDecimal discount = getDiscountAmount();
-                return discount.multiply(BigDecimal.valueOf(100)).divide(price).intValue();
-            }
-        }
-        return 0;
+        return getPricePointAt(LocalDateTime.now()).getDiscountPercentage();
     }
 }
@@ -13,7 +13,10 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "sales")
+@Table(name = "sales", indexes = {
+        // SaleScheduler: khôi phục hàng đợi lúc khởi động và tắt sale hết hạn (is_active + end_date)
+        @Index(name = "idx_sales_active_end", columnList = "is_active, end_date")
+})
 @Data
 @Builder
 @NoArgsConstructor
@@ -21,7 +24,9 @@ import java.time.LocalDateTime;
 public class Sale {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "sales_id_gen")
+    @TableGenerator(name = "sales_id_gen", table = "id_generators", pkColumnName = "gen_name",
+            valueColumnName = "gen_value", pkColumnValue = "sales", allocationSize = 50)
     @Column(name = "sale_id")
     private Long saleId;
 
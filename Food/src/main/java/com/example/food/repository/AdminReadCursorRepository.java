@@ -0,0 +1,27 @@
+package com.example.food.repository;
+
+import com.example.food.model.AdminReadCursor;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface AdminReadCursorRepository extends JpaRepository<AdminReadCursor, Long> {
+
+    List<AdminReadCursor> findByConversationId(Long conversationId);
+
+    // Tạo hoặc đẩy cursor lên seq (không lùi cursor)
+    @Modifying
+    @Query(value = "INSERT INTO admin_read_cursors (conversation_id, user_id, last_read_seq) " +
+            "VALUES (:conversationId, :userId, :seq) " +
+            "ON CONFLICT (conversation_id, user_id) DO UPDATE SET " +
+            "last_read_seq = GREATEST(admin_read_cursors.last_read_seq, EXCLUDED.last_read_seq)",
+            nativeQuery = true)
+    int advanceReadCursor(@Param("conversationId") Long conversationId,
+                          @Param("userId") Long userId,
+                          @Param("seq") Long seq);
+}
@@ -2,10 +2,12 @@ package com.example.food.repository;
 
 import com.example.food.model.ConversationParticipant;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,7 +20,27 @@ public interface ConversationParticipantRepository extends JpaRepository<Convers
 
     List<ConversationParticipant> findByConversationIdAndUserId(Long conversationId, Long userId);
 
+    boolean existsByConversationIdAndUserId(Long conversationId, Long userId);
+
     @Query("SELECT cp.userId FROM ConversationParticipant cp WHERE cp.conversationId = :conversationId")
     List<Long> findUserIdsByConversationId(@Param("conversationId") Long conversationId);
-}
 
+    List<ConversationParticipant> findByConversationIdIn(Collection<Long> conversationIds);
+
+    // Đánh dấu đã đọc: đẩy cursor lên seq (không lùi cursor)
+    @Modifying
+    @Query("UPDATE ConversationParticipant cp SET cp.lastReadSeq = :seq " +
+           "WHERE cp.conversationId = :conversationId AND cp.userId = :userId " +
+           "AND (cp.lastReadSeq IS NULL OR cp.lastReadSeq < :seq)")
+    int advanceReadCursor(@Param("conversationId") Long conversationId,
+                          @Param("userId") Long userId,
+                          @Param("seq") Long seq);
+
+    // Chuyển dữ liệu Message.isRead cũ sang cursor: đọc đến message lớn nhất người khác gửi đã được đánh dấu đọc
+    @Modifying
+    @Query("UPDATE ConversationParticipant cp SET cp.lastReadSeq = " +
+           "(SELECT MAX(m.seq) FROM Message m WHERE m.conversationId = cp.conversationId " +
+           "AND m.senderUserId != cp.userId AND m.isRead = true) " +
+           "WHERE cp.lastReadSeq IS NULL")
+    int migrateReadFlags();
+}
@@ -1,7 +1,10 @@
 package com.example.food.repository;
 
 import com.example.food.model.Conversation;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -34,5 +37,28 @@ public interface ConversationRepository extends JpaRepository<Conversation, Long
            "WHERE cp.userId = :userId AND c.createdByUserId = :userId " +
            "ORDER BY c.updatedAt DESC")
     List<Conversation> findUserConversationsForAdmin(@Param("userId") Long userId);
-}
 
+    // Danh sách cho admin theo trang (conversationId phá hòa để thứ tự ổn định giữa các trang)
+    Page<Conversation> findAllByOrderByUpdatedAtDescConversationIdDesc(Pageable pageable);
+
+    // Conversation cũ còn thiếu cột tin nhắn cuối, duyệt theo id (keyset) để backfill từng phần
+    @Query("SELECT c.conversationId FROM Conversation c " +
+           "WHERE c.conversationId > :afterId AND (c.lastMessageId IS NULL OR c.lastMessageAt IS NULL) " +
+           "ORDER BY c.conversationId")
+    List<Long> findIdsMissingLastMessage(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Backfill cột tin nhắn cuối cho conversation cũ (bước 1: id, bước 2: nội dung)
+    @Modifying
+    @Query("UPDATE Conversation c SET c.lastMessageId = " +
+           "(SELECT MAX(m.messageId) FROM Message m WHERE m.conversationId = c.conversationId) " +
+           "WHERE c.conversationId IN :ids AND c.lastMessageId IS NULL")
+    int backfillLastMessageIds(@Param("ids") List<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Conversation c SET " +
+           "c.lastMessageContent = (SELECT m.content FROM Message m WHERE m.messageId = c.lastMessageId), " +
+           "c.lastMessageSenderId = (SELECT m.senderUserId FROM Message m WHERE m.messageId = c.lastMessageId), " +
+           "c.lastMessageAt = (SELECT m.createdAt FROM Message m WHERE m.messageId = c.lastMessageId) " +
+           "WHERE c.conversationId IN :ids AND c.lastMessageId IS NOT NULL AND c.lastMessageAt IS NULL")
+    int backfillLastMessageDetails(@Param("ids") List<Long> ids);
+}
@@ -0,0 +1,32 @@
+package com.example.food.repository;
+
+import com.example.food.model.DailySalesRollupDelta;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailySalesRollupDeltaRepository extends JpaRepository<DailySalesRollupDelta, Long> {
+
+    /**
+     * Nhận batch delta để gom (FOR UPDATE SKIP LOCKED: instance khác bỏ qua các dòng đang gom)
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT d FROM DailySalesRollupDelta d ORDER BY d.deltaId ASC")
+    List<DailySalesRollupDelta> claimBatch(Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM DailySalesRollupDelta d WHERE d.saleDate BETWEEN :startDate AND :endDate")
+    int deleteRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+}
@@ -0,0 +1,65 @@
+package com.example.food.repository;
+
+import com.example.food.model.DailySalesRollup;
+import com.example.food.model.Order;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailySalesRollupRepository extends JpaRepository<DailySalesRollup, Long> {
+
+    /**
+     * Cộng dồn delta vào dòng (ngày, trạng thái), tạo dòng nếu chưa có
+     */
+    @Modifying
+    @Query(value = "INSERT INTO daily_sales_rollup (sale_date, status, order_count, revenue, updated_at) " +
+            "VALUES (:saleDate, :status, :countDelta, :revenueDelta, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (sale_date, status) DO UPDATE SET " +
+            "order_count = daily_sales_rollup.order_count + EXCLUDED.order_count, " +
+            "revenue = daily_sales_rollup.revenue + EXCLUDED.revenue, updated_at = CURRENT_TIMESTAMP",
+            nativeQuery = true)
+    int upsertDelta(@Param("saleDate") LocalDate saleDate,
+                    @Param("status") String status,
+                    @Param("countDelta") long countDelta,
+                    @Param("revenueDelta") BigDecimal revenueDelta);
+
+    /**
+     * Khóa các dòng trong khoảng theo thứ tự (ngày, trạng thái) - cùng thứ tự với lúc gom delta
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM DailySalesRollup r WHERE r.saleDate BETWEEN :startDate AND :endDate " +
+            "ORDER BY r.saleDate ASC, r.status ASC")
+    List<DailySalesRollup> lockRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+
+    /**
+     * Số đơn và doanh thu (đơn ở revenueStatus) theo từng ngày trong khoảng: [saleDate, orderCount, revenue]
+     */
+    @Query("SELECT r.saleDate, SUM(r.orderCount), " +
+            "SUM(CASE WHEN r.status = :revenueStatus THEN r.revenue ELSE 0 END) " +
+            "FROM DailySalesRollup r WHERE r.saleDate BETWEEN :startDate AND :endDate " +
+            "GROUP BY r.saleDate ORDER BY r.saleDate")
+    List<Object[]> sumByDay(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate,
+                            @Param("revenueStatus") Order.OrderStatus revenueStatus);
+
+    /**
+     * Tổng số đơn và doanh thu (đơn ở revenueStatus) trong khoảng: [orderCount, revenue]
+     */
+    @Query("SELECT COALESCE(SUM(r.orderCount), 0), " +
+            "COALESCE(SUM(CASE WHEN r.status = :revenueStatus THEN r.revenue ELSE 0 END), 0) " +
+            "FROM DailySalesRollup r WHERE r.saleDate BETWEEN :startDate AND :endDate")
+    List<Object[]> sumRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate,
+                            @Param("revenueStatus") Order.OrderStatus revenueStatus);
+
+    @Modifying
+    @Query("DELETE FROM DailySalesRollup r WHERE r.saleDate BETWEEN :startDate AND :endDate")
+    int deleteRange(@Param("startDate") LocalDate startDate, @Param("endDate") LocalDate endDate);
+}
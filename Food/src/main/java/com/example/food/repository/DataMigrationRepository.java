@@ -0,0 +1,20 @@
+package com.example.food.repository;
+
+import com.example.food.model.DataMigration;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DataMigrationRepository extends JpaRepository<DataMigration, String> {
+
+    /**
+     * Ghi dấu đã chạy; 0 nếu đã có (instance khác đã / đang chạy bước này thì chờ khóa dòng rồi trả 0)
+     */
+    @Modifying
+    @Query(value = "INSERT INTO data_migrations (name, applied_at) VALUES (:name, CURRENT_TIMESTAMP) " +
+            "ON CONFLICT (name) DO NOTHING", nativeQuery = true)
+    int markApplied(@Param("name") String name);
+}
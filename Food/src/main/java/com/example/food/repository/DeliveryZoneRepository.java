@@ -0,0 +1,15 @@
+package com.example.food.repository;
+
+import com.example.food.model.DeliveryZone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface DeliveryZoneRepository extends JpaRepository<DeliveryZone, Long> {
+
+    List<DeliveryZone> findByEnabledTrue();
+
+    List<DeliveryZone> findAllByOrderByPriorityDescZoneIdAsc();
+}
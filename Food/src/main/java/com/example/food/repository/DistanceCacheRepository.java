@@ -1,6 +1,7 @@
 package com.example.food.repository;
 
 import com.example.food.model.DistanceCache;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
@@ -10,7 +11,7 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.Optional;
+import java.util.List;
 
 @Repository
 public interface DistanceCacheRepository extends JpaRepository<DistanceCache, Long> {
@@ -18,8 +19,8 @@ public interface DistanceCacheRepository extends JpaRepository<DistanceCache, Lo
     @Query("SELECT dc FROM DistanceCache dc WHERE " +
            "dc.originLat = :originLat AND dc.originLng = :originLng AND " +
            "dc.destinationLat = :destLat AND dc.destinationLng = :destLng AND " +
-           "dc.expiresAt > :now")
-    Optional<DistanceCache> findByCoordinates(
+           "dc.expiresAt > :now ORDER BY dc.expiresAt DESC")
+    List<DistanceCache> findByCoordinates(
             @Param("originLat") BigDecimal originLat,
             @Param("originLng") BigDecimal originLng,
             @Param("destLat") BigDecimal destLat,
@@ -30,4 +31,13 @@ public interface DistanceCacheRepository extends JpaRepository<DistanceCache, Lo
     @Transactional
     @Query("DELETE FROM DistanceCache dc WHERE dc.expiresAt < :now")
     void deleteExpiredCache(@Param("now") LocalDateTime now);
+
+    @Query("SELECT dc.cacheId FROM DistanceCache dc WHERE dc.expiresAt < :now ORDER BY dc.cacheId")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Xóa theo batch id (mỗi batch một transaction ngắn)
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM DistanceCache dc WHERE dc.cacheId IN :ids AND dc.expiresAt < :now")
+    int deleteExpiredCache(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
 }
@@ -0,0 +1,29 @@
+package com.example.food.repository;
+
+import com.example.food.model.GeocodeCache;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface GeocodeCacheRepository extends JpaRepository<GeocodeCache, Long> {
+
+    Optional<GeocodeCache> findByAddressKey(String addressKey);
+
+    @Query("SELECT g.geocodeId FROM GeocodeCache g WHERE g.expiresAt IS NULL OR g.expiresAt < :now ORDER BY g.geocodeId")
+    List<Long> findExpiredIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Xóa theo batch id (mỗi batch một transaction ngắn)
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM GeocodeCache g WHERE g.geocodeId IN :ids AND (g.expiresAt IS NULL OR g.expiresAt < :now)")
+    int deleteExpiredCache(@Param("ids") List<Long> ids, @Param("now") LocalDateTime now);
+}
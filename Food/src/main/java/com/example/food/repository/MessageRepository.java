@@ -1,12 +1,14 @@
 package com.example.food.repository;
 
 import com.example.food.model.Message;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -14,18 +16,51 @@ public interface MessageRepository extends JpaRepository<Message, Long> {
 
     List<Message> findByConversationIdOrderByCreatedAtAsc(Long conversationId);
 
+    // Phân trang keyset theo seq - thứ tự ghi (index conversation_id, seq); Pageable chỉ dùng để giới hạn số dòng
+    @Query("SELECT m FROM Message m WHERE m.conversationId = :conversationId ORDER BY m.seq DESC")
+    List<Message> findLatestMessages(@Param("conversationId") Long conversationId, Pageable pageable);
+
+    @Query("SELECT m FROM Message m WHERE m.conversationId = :conversationId " +
+           "AND m.seq < :beforeSeq ORDER BY m.seq DESC")
+    List<Message> findMessagesBefore(@Param("conversationId") Long conversationId,
+                                     @Param("beforeSeq") Long beforeSeq,
+                                     Pageable pageable);
+
+    @Query("SELECT m FROM Message m WHERE m.conversationId = :conversationId " +
+           "AND m.seq > :afterSeq ORDER BY m.seq ASC")
+    List<Message> findMessagesAfter(@Param("conversationId") Long conversationId,
+                                    @Param("afterSeq") Long afterSeq,
+                                    Pageable pageable);
+
+    @Query("SELECT MAX(m.seq) FROM Message m WHERE m.conversationId = :conversationId")
+    Long findMaxSeq(@Param("conversationId") Long conversationId);
+
     @Query("SELECT m FROM Message m WHERE m.conversationId = :conversationId " +
            "AND m.createdAt > :since ORDER BY m.createdAt ASC")
     List<Message> findNewMessages(@Param("conversationId") Long conversationId, 
                                    @Param("since") LocalDateTime since);
 
-    @Query("SELECT COUNT(m) FROM Message m WHERE m.conversationId = :conversationId " +
-           "AND m.isRead = false AND m.senderUserId != :userId")
-    Long countUnreadMessages(@Param("conversationId") Long conversationId, 
+    // Đếm theo khoảng seq sau cursor đọc (index conversation_id, seq); admin không là participant
+    // thì dùng AdminReadCursor; không có cursor nào = chưa đọc gì
+    @Query("SELECT COUNT(m) FROM Message m LEFT JOIN ConversationParticipant cp " +
+           "ON cp.conversationId = m.conversationId AND cp.userId = :userId " +
+           "LEFT JOIN AdminReadCursor rc ON rc.conversationId = m.conversationId AND rc.userId = :userId " +
+           "WHERE m.conversationId = :conversationId AND m.senderUserId != :userId " +
+           "AND m.seq > COALESCE(cp.lastReadSeq, rc.lastReadSeq, 0)")
+    Long countUnreadMessages(@Param("conversationId") Long conversationId,
                              @Param("userId") Long userId);
 
-    @Query("SELECT m FROM Message m WHERE m.isRead = false AND m.senderUserId != :userId " +
-           "AND m.conversationId IN (SELECT cp.conversationId FROM ConversationParticipant cp WHERE cp.userId = :userId)")
+    @Query("SELECT m FROM Message m JOIN ConversationParticipant cp " +
+           "ON cp.conversationId = m.conversationId AND cp.userId = :userId " +
+           "WHERE m.senderUserId != :userId AND m.seq > COALESCE(cp.lastReadSeq, 0)")
     List<Message> findUnreadMessagesForUser(@Param("userId") Long userId);
-}
 
+    // Số tin chưa đọc của nhiều conversation trong một query: [conversationId, count]
+    @Query("SELECT m.conversationId, COUNT(m) FROM Message m LEFT JOIN ConversationParticipant cp " +
+           "ON cp.conversationId = m.conversationId AND cp.userId = :userId " +
+           "LEFT JOIN AdminReadCursor rc ON rc.conversationId = m.conversationId AND rc.userId = :userId " +
+           "WHERE m.conversationId IN :conversationIds AND m.senderUserId != :userId " +
+           "AND m.seq > COALESCE(cp.lastReadSeq, rc.lastReadSeq, 0) GROUP BY m.conversationId")
+    List<Object[]> countUnreadByConversation(@Param("conversationIds") Collection<Long> conversationIds,
+                                             @Param("userId") Long userId);
+}
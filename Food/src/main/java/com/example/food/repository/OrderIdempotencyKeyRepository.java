@@ -0,0 +1,38 @@
+package com.example.food.repository;
+
+import com.example.food.model.OrderIdempotencyKey;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface OrderIdempotencyKeyRepository extends JpaRepository<OrderIdempotencyKey, Long> {
+
+    Optional<OrderIdempotencyKey> findByIdempotencyKey(String idempotencyKey);
+
+    /**
+     * Dùng lại key đã hết hạn nhưng chưa bị dọn (gán order mới, tính lại thời hạn); 0 nếu key không tồn tại / còn hạn
+     */
+    @Modifying
+    @Query("UPDATE OrderIdempotencyKey k SET k.userId = :userId, k.orderId = :orderId, k.createdAt = :now " +
+           "WHERE k.idempotencyKey = :idempotencyKey AND k.createdAt < :expiredBefore")
+    int reclaimExpired(@Param("idempotencyKey") String idempotencyKey,
+                       @Param("userId") Long userId,
+                       @Param("orderId") Long orderId,
+                       @Param("now") LocalDateTime now,
+                       @Param("expiredBefore") LocalDateTime expiredBefore);
+
+    /**
+     * Xóa các key đã hết hạn
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OrderIdempotencyKey k WHERE k.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
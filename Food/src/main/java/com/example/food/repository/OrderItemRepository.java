@@ -1,9 +1,13 @@
 package com.example.food.repository;
 
+import com.example.food.model.Order;
 import com.example.food.model.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,4 +16,20 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     List<OrderItem> findByOrderOrderId(Long orderId);
 
     List<OrderItem> findByProductProductId(Long productId);
+
+    /**
+     * Load items + options của nhiều order trong 1 query (dùng cho danh sách đơn hàng)
+     */
+    @Query("SELECT DISTINCT oi FROM OrderItem oi " +
+            "LEFT JOIN FETCH oi.orderItemOptions " +
+            "WHERE oi.order.orderId IN :orderIds")
+    List<OrderItem> findWithOptionsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Tổng số lượng đã bán theo sản phẩm (bỏ đơn ở trạng thái excludedStatus): [productId, quantity]
+     */
+    @Query("SELECT oi.product.productId, SUM(oi.quantity) FROM OrderItem oi " +
+            "WHERE oi.order.orderStatus <> :excludedStatus " +
+            "GROUP BY oi.product.productId")
+    List<Object[]> sumQuantityByProduct(@Param("excludedStatus") Order.OrderStatus excludedStatus);
 }
@@ -1,12 +1,14 @@
 package com.example.food.repository;
 
 import com.example.food.model.Order;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -46,4 +48,65 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     Long countByCreatedAtBetweenAndOrderStatus(@Param("startDate") LocalDateTime startDate, 
                                                @Param("endDate") LocalDateTime endDate, 
                                                @Param("status") Order.OrderStatus status);
+
+    /**
+     * Thống kê theo trạng thái trong một query: [status, count, sum(finalAmount),
+     * sum(finalAmount) của đơn tạo từ :todayStart, sum(finalAmount) của đơn tạo từ :monthStart]
+     */
+    @Query("SELECT o.orderStatus, COUNT(o), COALESCE(SUM(o.finalAmount), 0), " +
+            "COALESCE(SUM(CASE WHEN o.createdAt >= :todayStart THEN o.finalAmount ELSE 0 END), 0), " +
+            "COALESCE(SUM(CASE WHEN o.createdAt >= :monthStart THEN o.finalAmount ELSE 0 END), 0) " +
+            "FROM Order o WHERE o.createdAt >= :startDate AND o.createdAt < :endDate " +
+            "GROUP BY o.orderStatus")
+    List<Object[]> aggregateByStatus(@Param("startDate") LocalDateTime startDate,
+                                     @Param("endDate") LocalDateTime endDate,
+                                     @Param("todayStart") LocalDateTime todayStart,
+                                     @Param("monthStart") LocalDateTime monthStart);
+
+    // ===============================
+    // KEYSET PAGINATION (createdAt DESC, orderId DESC)
+    // ===============================
+
+    @Query("SELECT o.orderId FROM Order o ORDER BY o.createdAt DESC, o.orderId DESC")
+    List<Long> findFirstPageIds(Pageable pageable);
+
+    @Query("SELECT o.orderId FROM Order o WHERE " +
+            "o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.orderId < :orderId) " +
+            "ORDER BY o.createdAt DESC, o.orderId DESC")
+    List<Long> findPageIdsAfter(@Param("createdAt") LocalDateTime createdAt,
+                                @Param("orderId") Long orderId,
+                                Pageable pageable);
+
+    @Query("SELECT o.orderId FROM Order o WHERE o.user.userId = :userId ORDER BY o.createdAt DESC, o.orderId DESC")
+    List<Long> findFirstPageIdsByUserId(@Param("userId") Long userId, Pageable pageable);
+
+    @Query("SELECT o.orderId FROM Order o WHERE o.user.userId = :userId AND " +
+            "(o.createdAt < :createdAt OR (o.createdAt = :createdAt AND o.orderId < :orderId)) " +
+            "ORDER BY o.createdAt DESC, o.orderId DESC")
+    List<Long> findPageIdsAfterByUserId(@Param("userId") Long userId,
+                                        @Param("createdAt") LocalDateTime createdAt,
+                                        @Param("orderId") Long orderId,
+                                        Pageable pageable);
+
+    /**
+     * Load orders + user + items + product trong 1 query (items là bag nên options load riêng)
+     */
+    @Query("SELECT DISTINCT o FROM Order o " +
+            "JOIN FETCH o.user " +
+            "LEFT JOIN FETCH o.orderItems oi " +
+            "LEFT JOIN FETCH oi.product " +
+            "WHERE o.orderId IN :orderIds")
+    List<Order> findWithItemsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Tổng hợp số đơn và doanh thu theo (ngày tạo, trạng thái) - dùng để rebuild daily_sales_rollup
+     */
+    @Query("SELECT CAST(o.createdAt AS LocalDate), o.orderStatus, COUNT(o), COALESCE(SUM(o.finalAmount), 0) " +
+            "FROM Order o WHERE o.createdAt >= :startDate AND o.createdAt < :endDate " +
+            "GROUP BY CAST(o.createdAt AS LocalDate), o.orderStatus")
+    List<Object[]> aggregateByDayAndStatus(@Param("startDate") LocalDateTime startDate,
+                                           @Param("endDate") LocalDateTime endDate);
+
+    @Query("SELECT MIN(o.createdAt) FROM Order o")
+    LocalDateTime findFirstCreatedAt();
 }
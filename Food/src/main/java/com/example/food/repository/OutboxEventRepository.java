@@ -0,0 +1,61 @@
+package com.example.food.repository;
+
+import com.example.food.model.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Nhận (claim) batch event đến hạn: khóa dòng FOR UPDATE SKIP LOCKED để instance khác bỏ qua các dòng này.
+     * Bỏ qua event mà cùng aggregate còn event trước đó đang chờ retry (giữ thứ tự trong aggregate);
+     * các loại event trong :orderTypes dùng chung một aggregate (order).
+     * Event trước đang bị instance khác khóa thì không lọc được ở đây: dispatcher lọc tiếp bằng findPendingBefore
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("SELECT e FROM OutboxEvent e WHERE e.status = :status AND e.nextAttemptAt <= :now " +
+            "AND NOT EXISTS (SELECT p.eventId FROM OutboxEvent p WHERE p.status = :status " +
+            "AND p.aggregateId = e.aggregateId AND p.eventId < e.eventId AND p.nextAttemptAt > :now " +
+            "AND (p.eventType = e.eventType OR (p.eventType IN :orderTypes AND e.eventType IN :orderTypes))) " +
+            "ORDER BY e.eventId ASC")
+    List<OutboxEvent> claimDue(@Param("status") OutboxEvent.EventStatus status,
+                               @Param("now") LocalDateTime now,
+                               @Param("orderTypes") Collection<OutboxEvent.EventType> orderTypes,
+                               Pageable pageable);
+
+    /**
+     * (eventId, eventType, aggregateId) của các event còn PENDING thuộc các aggregate cho trước, id nhỏ hơn :maxEventId.
+     * Dùng sau claimDue để bỏ aggregate còn event trước chưa nằm trong batch (đang bị instance khác khóa / chưa đến hạn)
+     */
+    @Query("SELECT e.eventId, e.eventType, e.aggregateId FROM OutboxEvent e WHERE e.status = :status " +
+            "AND e.aggregateId IN :aggregateIds AND e.eventId < :maxEventId")
+    List<Object[]> findPendingBefore(@Param("status") OutboxEvent.EventStatus status,
+                                     @Param("aggregateIds") Collection<Long> aggregateIds,
+                                     @Param("maxEventId") Long maxEventId);
+
+    long countByStatus(OutboxEvent.EventStatus status);
+
+    /**
+     * Xóa các event đã gửi xong (cleanup)
+     */
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM OutboxEvent e WHERE e.status = :status AND e.processedAt < :before")
+    int deleteProcessedBefore(@Param("status") OutboxEvent.EventStatus status,
+                              @Param("before") LocalDateTime before);
+}
@@ -4,10 +4,13 @@ import com.example.food.model.Product;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -32,34 +35,6 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     // Tìm sản phẩm inactive theo category với pagination
     Page<Product> findByCategoryCategoryIdAndIsAvailableFalse(Long categoryId, Pageable pageable);
 
-    // Tìm kiếm sản phẩm theo tên
-    @Query("SELECT p FROM Product p WHERE " +
-            "LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) AND " +
-            "p.isAvailable = true")
-    Page<Product> searchByName(@Param("keyword") String keyword, Pageable pageable);
-
-    @Query("SELECT p FROM Product p WHERE " +
-            "LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) AND " +
-            "p.isAvailable = false")
-    Page<Product> searchInactiveByName(@Param("keyword") String keyword, Pageable pageable);
-
-    // Tìm kiếm sản phẩm theo tên và category
-    @Query("SELECT p FROM Product p WHERE " +
-            "LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) AND " +
-            "p.category.categoryId = :categoryId AND " +
-            "p.isAvailable = true")
-    Page<Product> searchByNameAndCategory(@Param("keyword") String keyword,
-                                          @Param("categoryId") Long categoryId,
-                                          Pageable pageable);
-
-    @Query("SELECT p FROM Product p WHERE " +
-            "LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%')) AND " +
-            "p.category.categoryId = :categoryId AND " +
-            "p.isAvailable = false")
-    Page<Product> searchInactiveByNameAndCategory(@Param("keyword") String keyword,
-                                                  @Param("categoryId") Long categoryId,
-                                                  Pageable pageable);
-
     // Đếm số sản phẩm theo category
     long countByCategoryCategoryIdAndIsAvailableTrue(Long categoryId);
 
@@ -86,4 +61,15 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
             "p.galleryUrls != '' AND " +
             "p.isAvailable = true")
     List<Product> findProductsWithGallery();
+
+    // Load toàn bộ sản phẩm kèm category (build catalog snapshot)
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.category ORDER BY p.productId")
+    List<Product> findAllWithCategory();
+
+    // Xóa field sale của các sản phẩm có sale đã kết thúc (sản phẩm đang chạy sale khác thì giữ nguyên)
+    @Modifying
+    @Query("UPDATE Product p SET p.isOnSale = false, p.salePrice = null, p.salePercentage = null, " +
+            "p.saleStartDate = null, p.saleEndDate = null, p.updatedAt = :now " +
+            "WHERE p.productId IN :productIds AND p.isOnSale = true AND p.saleEndDate <= :now")
+    int clearEndedSales(@Param("productIds") Collection<Long> productIds, @Param("now") LocalDateTime now);
 }
@@ -1,12 +1,16 @@
 package com.example.food.repository;
 
 import com.example.food.model.Sale;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,6 +29,45 @@ public interface SaleRepository extends JpaRepository<Sale, Long> {
 
     Optional<Sale> findByProductIdAndIsActiveTrueAndStartDateLessThanEqualAndEndDateGreaterThanEqual(
             Long productId, LocalDateTime now, LocalDateTime now2);
-}
 
+    // Sale còn hiệu lực hoặc sắp diễn ra (dùng build price timeline)
+    List<Sale> findByIsActiveTrueAndEndDateAfter(LocalDateTime now);
+
+    // Sale vẫn bật nhưng đã hết hạn (bị lỡ khi server tắt)
+    List<Sale> findByIsActiveTrueAndEndDateLessThanEqual(LocalDateTime now);
+
+    @Modifying
+    @Query("UPDATE Sale s SET s.isActive = false, s.updatedAt = :now WHERE s.saleId IN :saleIds")
+    int deactivateByIds(@Param("saleIds") Collection<Long> saleIds, @Param("now") LocalDateTime now);
+
+    // Xóa sale đã tắt và kết thúc trước cutoff
+    @Modifying
+    @Query("DELETE FROM Sale s WHERE s.isActive = false AND s.endDate < :cutoff")
+    int deleteInactiveEndedBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    // Sale đang bật của các sản phẩm có khung giờ giao với [startDate, endDate)
+    @Query("SELECT s FROM Sale s WHERE s.productId IN :productIds AND s.isActive = true " +
+           "AND s.startDate < :endDate AND s.endDate > :startDate")
+    List<Sale> findOverlapping(@Param("productIds") Collection<Long> productIds,
+                               @Param("startDate") LocalDateTime startDate,
+                               @Param("endDate") LocalDateTime endDate);
 
+    // Danh sách sale kèm product + category trong một query (trang admin)
+    @Query(value = "SELECT s FROM Sale s LEFT JOIN FETCH s.product p LEFT JOIN FETCH p.category",
+           countQuery = "SELECT COUNT(s) FROM Sale s")
+    Page<Sale> findPageWithProduct(Pageable pageable);
+
+    @Query("SELECT s FROM Sale s LEFT JOIN FETCH s.product p LEFT JOIN FETCH p.category ORDER BY s.saleId DESC")
+    List<Sale> findAllWithProduct();
+
+    @Query("SELECT s FROM Sale s LEFT JOIN FETCH s.product p LEFT JOIN FETCH p.category " +
+           "WHERE s.isActive = true AND s.startDate <= :now AND s.endDate >= :now ORDER BY s.saleId DESC")
+    List<Sale> findAllActiveWithProduct(@Param("now") LocalDateTime now);
+
+    // Thống kê trong một query: [tổng, đang chạy, hết hạn / tạm dừng]
+    @Query("SELECT COUNT(s), " +
+           "COALESCE(SUM(CASE WHEN s.isActive = true AND s.endDate > :now THEN 1 ELSE 0 END), 0), " +
+           "COALESCE(SUM(CASE WHEN s.isActive = false OR s.endDate < :now THEN 1 ELSE 0 END), 0) " +
+           "FROM Sale s")
+    List<Object[]> aggregateStatistics(@Param("now") LocalDateTime now);
+}
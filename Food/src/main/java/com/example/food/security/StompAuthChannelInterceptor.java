@@ -0,0 +1,181 @@
+package com.example.food.security;
+
+import com.example.food.model.User;
+import com.example.food.repository.UserRepository;
+import com.example.food.service.ChatAccessService;
+import com.example.food.service.ChatRealtimeService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
+import org.springframework.util.StringUtils;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Xác thực STOMP:
+ * - CONNECT: header "Authorization: Bearer <jwt>" (app) hoặc phiên đăng nhập HTTP khi handshake (web admin).
+ *   Token sai thì từ chối kết nối; không có thông tin đăng nhập thì vẫn kết nối ẩn danh (chỉ nghe các topic công khai)
+ * - SUBSCRIBE: mặc định từ chối, chỉ cho các destination cụ thể dưới đây. Destination dạng pattern
+ *   (*, ?, {..}) luôn bị từ chối: simple broker nhận pattern Ant, "/topic/**" sẽ nghe được mọi topic
+ *   - /topic/conversations/{id}: chỉ participant hoặc admin
+ *   - /topic/user/{id}/notifications: chỉ chính user đó hoặc admin
+ *   - /topic/admin/**: chỉ admin
+ *   - /user/queue/**: reply riêng của phiên (broker gắn theo session)
+ *   - PUBLIC_TOPICS: ai cũng nghe được, kể cả phiên ẩn danh
+ * - SEND: chỉ tới /app/** (controller); SEND thẳng vào /topic, /queue sẽ đi qua broker, bỏ qua mọi kiểm tra
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StompAuthChannelInterceptor implements ChannelInterceptor {
+
+    public static final String USER_ID_ATTRIBUTE = "chatUserId";
+
+    private static final String ADMIN_TOPIC_PREFIX = "/topic/admin/";
+    private static final String USER_TOPIC_PREFIX = "/topic/user/";
+    private static final String USER_NOTIFICATIONS_SUFFIX = "/notifications";
+    private static final String USER_QUEUE_PREFIX = "/user/queue/";
+    // Topic không cần đăng nhập; hiện chưa có topic công khai nào
+    private static final Set<String> PUBLIC_TOPICS = Set.of();
+    private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+    private static final String APP_DESTINATION_PREFIX = "/app/";
+
+    private final JwtTokenProvider jwtTokenProvider;
+    private final UserRepository userRepository;
+    private final ChatAccessService chatAccessService;
+
+    /**
+     * userId đã xác thực lúc CONNECT của phiên STOMP (null nếu ẩn danh)
+     */
+    public static Long getUserId(SimpMessageHeaderAccessor accessor) {
+        Map<String, Object> attributes = accessor.getSessionAttributes();
+        Object userId = attributes != null ? attributes.get(USER_ID_ATTRIBUTE) : null;
+        return userId instanceof Long ? (Long) userId : null;
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+        if (accessor == null || accessor.getCommand() == null) {
+            return message;
+        }
+        if (StompCommand.CONNECT.equals(accessor.getCommand())) {
+            authenticate(accessor);
+        } else if (StompCommand.SUBSCRIBE.equals(accessor.getCommand())) {
+            authorizeSubscription(accessor);
+        } else if (StompCommand.SEND.equals(accessor.getCommand())) {
+            String destination = accessor.getDestination();
+            if (destination == null || !destination.startsWith(APP_DESTINATION_PREFIX)) {
+                throw new AccessDeniedException("SEND is only allowed to " + APP_DESTINATION_PREFIX + "**: " + destination);
+            }
+        }
+        return message;
+    }
+
+    private void authenticate(StompHeaderAccessor accessor) {
+        String email = null;
+        String bearerToken = accessor.getFirstNativeHeader("Authorization");
+        if (StringUtils.hasText(bearerToken)) {
+            String token = bearerToken.startsWith("Bearer ") ? bearerToken.substring(7) : bearerToken;
+            if (!jwtTokenProvider.validateToken(token)) {
+                throw new BadCredentialsException("Invalid JWT token");
+            }
+            email = jwtTokenProvider.getEmailFromToken(token);
+        } else {
+            Principal sessionUser = accessor.getUser();
+            if (sessionUser != null) {
+                email = sessionUser.getName();
+            }
+        }
+        if (email == null) {
+            return;
+        }
+
+        User user = userRepository.findByEmail(email)
+                .filter(found -> !Boolean.FALSE.equals(found.getIsActive()))
+                .orElseThrow(() -> new BadCredentialsException("User not found or inactive"));
+        accessor.setUser(new UsernamePasswordAuthenticationToken(user.getEmail(), null, List.of()));
+        if (accessor.getSessionAttributes() != null) {
+            accessor.getSessionAttributes().put(USER_ID_ATTRIBUTE, user.getUserId());
+        }
+        log.debug("STOMP session {} authenticated as user {}", accessor.getSessionId(), user.getUserId());
+    }
+
+    private void authorizeSubscription(StompHeaderAccessor accessor) {
+        String destination = accessor.getDestination();
+        if (destination == null) {
+            throw new AccessDeniedException("SUBSCRIBE requires a destination");
+        }
+        if (PATH_MATCHER.isPattern(destination) || destination.indexOf('*') >= 0
+                || destination.indexOf('?') >= 0 || destination.indexOf('{') >= 0) {
+            throw new AccessDeniedException("Pattern subscriptions are not allowed: " + destination);
+        }
+        if (PUBLIC_TOPICS.contains(destination)) {
+            return;
+        }
+        if (destination.startsWith(USER_QUEUE_PREFIX)) {
+            return;
+        }
+        Long userId = getUserId(accessor);
+        if (userId == null) {
+            throw new AccessDeniedException("Subscription requires an authenticated session: " + destination);
+        }
+        if (destination.startsWith(ADMIN_TOPIC_PREFIX)) {
+            if (!isAdmin(userId)) {
+                throw new AccessDeniedException("Admin topic requires an admin session: " + destination);
+            }
+            return;
+        }
+        if (destination.startsWith(ChatRealtimeService.CONVERSATION_TOPIC_PREFIX)) {
+            Long conversationId = parseId(destination.substring(ChatRealtimeService.CONVERSATION_TOPIC_PREFIX.length()));
+            if (conversationId == null) {
+                throw new AccessDeniedException("Invalid conversation topic: " + destination);
+            }
+            if (!chatAccessService.canAccess(conversationId, userId)) {
+                throw new AccessDeniedException("Access denied to conversation " + conversationId);
+            }
+            return;
+        }
+        if (destination.startsWith(USER_TOPIC_PREFIX) && destination.endsWith(USER_NOTIFICATIONS_SUFFIX)) {
+            Long ownerId = parseId(destination.substring(USER_TOPIC_PREFIX.length(),
+                    destination.length() - USER_NOTIFICATIONS_SUFFIX.length()));
+            if (ownerId == null) {
+                throw new AccessDeniedException("Invalid notification topic: " + destination);
+            }
+            if (!ownerId.equals(userId) && !isAdmin(userId)) {
+                throw new AccessDeniedException("Access denied to notifications of user " + ownerId);
+            }
+            return;
+        }
+        throw new AccessDeniedException("Subscription not allowed: " + destination);
+    }
+
+    private boolean isAdmin(Long userId) {
+        return chatAccessService.getSender(userId)
+                .map(ChatAccessService.Sender::admin)
+                .orElse(false);
+    }
+
+    private static Long parseId(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.food.service;
+
+import com.example.food.dto.CreateOrderRequest;
+import com.example.food.dto.PricedCart;
+import com.example.food.model.PricePoint;
+import com.example.food.model.Product;
+import com.example.food.model.ProductOption;
+import com.example.food.repository.ProductOptionRepository;
+import com.example.food.repository.ProductRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CartPricingService {
+
+    private final ProductRepository productRepository;
+    private final ProductOptionRepository productOptionRepository;
+    private final PriceTimelineService priceTimelineService;
+
+    /**
+     * Tính giá toàn bộ giỏ hàng.
+     * Load tất cả products và options được tham chiếu trong 2 query (findAllById),
+     * kiểm tra option thuộc đúng product rồi trả về PricedCart bất biến.
+     */
+    @Transactional(readOnly = true)
+    public PricedCart price(List<CreateOrderRequest.OrderItemRequest> orderItems) {
+        if (orderItems == null || orderItems.isEmpty()) {
+            return PricedCart.builder()
+                    .baseSubtotal(BigDecimal.ZERO)
+                    .subtotal(BigDecimal.ZERO)
+                    .build();
+        }
+
+        Set<Long> productIds = new LinkedHashSet<>();
+        Set<Long> optionIds = new LinkedHashSet<>();
+        for (CreateOrderRequest.OrderItemRequest item : orderItems) {
+            if (item.getProductId() == null) {
+                throw new IllegalArgumentException("Product ID is required");
+            }
+            if (item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new IllegalArgumentException("Invalid quantity for product: " + item.getProductId());
+            }
+            productIds.add(item.getProductId());
+            if (item.getSelectedOptionIds() != null) {
+                optionIds.addAll(item.getSelectedOptionIds());
+            }
+        }
+
+        Map<Long, Product> products = productRepository.findAllById(productIds).stream()
+                .collect(Collectors.toMap(Product::getProductId, Function.identity()));
+        Map<Long, ProductOption> options = optionIds.isEmpty()
+                ? Map.of()
+                : productOptionRepository.findAllById(optionIds).stream()
+                        .collect(Collectors.toMap(ProductOption::getOptionId, Function.identity()));
+
+        PricedCart.PricedCartBuilder cart = PricedCart.builder();
+        BigDecimal baseSubtotal = BigDecimal.ZERO;
+        BigDecimal subtotal = BigDecimal.ZERO;
+
+        for (CreateOrderRequest.OrderItemRequest item : orderItems) {
+            Product product = products.get(item.getProductId());
+            if (product == null) {
+                throw new IllegalArgumentException("Product not found: " + item.getProductId());
+            }
+
+            PricedCart.PricedLine.PricedLineBuilder line = PricedCart.PricedLine.builder()
+                    .product(product)
+                    .quantity(item.getQuantity())
+                    .specialInstructions(item.getSpecialInstructions());
+
+            BigDecimal optionsPrice = BigDecimal.ZERO;
+            if (item.getSelectedOptionIds() != null) {
+                for (Long optionId : item.getSelectedOptionIds()) {
+                    ProductOption option = options.get(optionId);
+                    if (option == null) {
+                        throw new IllegalArgumentException("Product option not found: " + optionId);
+                    }
+                    if (!product.getProductId().equals(option.getProductId())) {
+                        throw new IllegalArgumentException("Product option " + optionId
+                                + " does not belong to product: " + product.getProductId());
+                    }
+                    line.option(option);
+                    optionsPrice = optionsPrice.add(option.getPrice() != null ? option.getPrice() : BigDecimal.ZERO);
+                }
+            }
+
+            PricePoint pricePoint = priceTimelineService.getPrice(product);
+            BigDecimal unitPrice = product.getPrice();
+            BigDecimal salePrice = pricePoint.getCurrentPrice();
+            // Giống OrderItem.calculateTotalPrice: dùng sale price nếu > 0, ngược lại dùng giá gốc
+            BigDecimal priceToUse = (salePrice != null && salePrice.compareTo(BigDecimal.ZERO) > 0)
+                    ? salePrice
+                    : unitPrice;
+            BigDecimal quantity = BigDecimal.valueOf(item.getQuantity());
+
+            // Options áp dụng cho mỗi đơn vị sản phẩm
+            BigDecimal baseTotal = unitPrice.add(optionsPrice).multiply(quantity);
+            BigDecimal totalPrice = priceToUse.add(optionsPrice).multiply(quantity);
+
+            cart.line(line
+                    .unitPrice(unitPrice)
+                    .salePrice(salePrice)
+                    .optionsPrice(optionsPrice)
+                    .baseTotal(baseTotal)
+                    .totalPrice(totalPrice)
+                    .build());
+
+            baseSubtotal = baseSubtotal.add(baseTotal);
+            subtotal = subtotal.add(totalPrice);
+        }
+
+        log.debug("Priced cart: {} lines, {} products, {} options", orderItems.size(), products.size(), options.size());
+
+        return cart
+                .baseSubtotal(baseSubtotal)
+                .subtotal(subtotal)
+                .build();
+    }
+}
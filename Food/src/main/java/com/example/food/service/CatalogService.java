@@ -0,0 +1,173 @@
+package com.example.food.service;
+
+import com.example.food.model.Category;
+import com.example.food.model.Order;
+import com.example.food.model.Product;
+import com.example.food.model.ProductOption;
+import com.example.food.model.Sale;
+import com.example.food.repository.CategoryRepository;
+import com.example.food.repository.OrderItemRepository;
+import com.example.food.repository.ProductOptionRepository;
+import com.example.food.repository.ProductRepository;
+import com.example.food.repository.SaleRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Giữ CatalogSnapshot hiện tại cho các API public /api/products.
+ * Admin sửa menu gọi markChanged(): snapshot được build lại sau khi transaction commit
+ * (nhiều thay đổi trong cùng transaction chỉ build một lần) rồi thay bằng một phép gán.
+ */
+@Service
+@Slf4j
+public class CatalogService {
+
+    private static final Object REBUILD_KEY = new Object();
+
+    private final ProductRepository productRepository;
+    private final CategoryRepository categoryRepository;
+    private final ProductOptionRepository productOptionRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final SaleRepository saleRepository;
+    private final PriceTimelineService priceTimelineService;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private volatile CatalogSnapshot snapshot = CatalogSnapshot.empty();
+    private volatile boolean loaded = false;
+
+    public CatalogService(ProductRepository productRepository,
+                          CategoryRepository categoryRepository,
+                          ProductOptionRepository productOptionRepository,
+                          OrderItemRepository orderItemRepository,
+                          SaleRepository saleRepository,
+                          PriceTimelineService priceTimelineService,
+                          PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.categoryRepository = categoryRepository;
+        this.productOptionRepository = productOptionRepository;
+        this.orderItemRepository = orderItemRepository;
+        this.saleRepository = saleRepository;
+        this.priceTimelineService = priceTimelineService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // Có thể chạy trong afterCompletion của transaction admin -> luôn mở transaction mới
+        this.readOnlyTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Snapshot hiện tại (build lần đầu nếu chưa có); bảng giá đã qua mốc sale thì định giá lại trước
+     */
+    public CatalogSnapshot getSnapshot() {
+        if (!loaded) {
+            rebuild();
+        }
+        CatalogSnapshot current = snapshot;
+        if (current.getPriceVersion() != priceTimelineService.getPriceTable().version()) {
+            current = reprice();
+        }
+        return current;
+    }
+
+    private synchronized CatalogSnapshot reprice() {
+        PriceTimelineService.PriceTable prices = priceTimelineService.getPriceTable();
+        if (snapshot.getPriceVersion() != prices.version()) {
+            snapshot = snapshot.withPrices(prices);
+            log.debug("Catalog snapshot v{} repriced at price version {}", snapshot.getVersion(), prices.version());
+        }
+        return snapshot;
+    }
+
+    /**
+     * Đánh dấu menu đã thay đổi: build lại sau commit, hoặc ngay nếu không có transaction
+     */
+    public void markChanged() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            rebuild();
+            return;
+        }
+        if (TransactionSynchronizationManager.hasResource(REBUILD_KEY)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(REBUILD_KEY, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(REBUILD_KEY);
+                if (status == STATUS_COMMITTED) {
+                    rebuild();
+                }
+            }
+        });
+    }
+
+    /**
+     * Lọc sản phẩm đang bán theo facet, giá / sale lấy từ bảng giá hiện tại của PriceTimelineService
+     */
+    public ProductFacetIndex.FilterResult filter(Map<String, Set<String>> selections) {
+        return getSnapshot().filter(selections, priceTimelineService.getPriceTable());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Error building catalog snapshot: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Độ phổ biến (số lượng đã bán) chỉ đổi theo đơn hàng, không theo thao tác admin -> làm mới định kỳ
+     */
+    @Scheduled(fixedDelay = 30 * 60 * 1000L, initialDelay = 30 * 60 * 1000L)
+    public void refreshPopularity() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Error refreshing catalog popularity: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Load toàn bộ menu, số lượng đã bán và sale sắp / đang chạy (5 query),
+     * build lại price timeline rồi thay snapshot
+     */
+    public synchronized void rebuild() {
+        long started = System.nanoTime();
+        CatalogSnapshot next = readOnlyTransaction.execute(status -> {
+            List<Category> categories = categoryRepository.findAll();
+            List<Product> products = productRepository.findAllWithCategory();
+            Map<Long, List<ProductOption>> optionsByProductId = productOptionRepository.findAll().stream()
+                    .sorted(Comparator.comparing(ProductOption::getOptionId))
+                    .collect(Collectors.groupingBy(ProductOption::getProductId));
+            Map<Long, Long> soldByProductId = new HashMap<>();
+            for (Object[] row : orderItemRepository.sumQuantityByProduct(Order.OrderStatus.CANCELLED)) {
+                soldByProductId.put((Long) row[0], ((Number) row[1]).longValue());
+            }
+            List<Sale> sales = saleRepository.findByIsActiveTrueAndEndDateAfter(LocalDateTime.now());
+            priceTimelineService.rebuild(products, sales);
+            return CatalogSnapshot.build(snapshot.getVersion() + 1, categories, products, optionsByProductId,
+                    soldByProductId, priceTimelineService.getPriceTable(), snapshot);
+        });
+        snapshot = next;
+        loaded = true;
+        log.info("Catalog snapshot v{} built: {} products in {} ms", next.getVersion(), next.getProductCount(),
+                (System.nanoTime() - started) / 1_000_000);
+    }
+}
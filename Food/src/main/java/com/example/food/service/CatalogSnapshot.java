@@ -0,0 +1,380 @@
+package com.example.food.service;
+
+import com.example.food.dto.CategoryDTO;
+import com.example.food.dto.ProductDTO;
+import com.example.food.dto.ProductOptionDTO;
+import com.example.food.dto.SuggestionDTO;
+import com.example.food.model.Category;
+import com.example.food.model.PricePoint;
+import com.example.food.model.Product;
+import com.example.food.model.ProductOption;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * Ảnh chụp bất biến của menu (sản phẩm, danh mục, options) tại một version.
+ * Được build lại toàn bộ khi admin sửa menu và thay bằng một phép gán tham chiếu,
+ * request đọc không bao giờ thấy trạng thái build dở.
+ * Giá / sale của ProductDTO lấy từ bảng giá của PriceTimelineService tại priceVersion;
+ * bảng giá qua mốc sale thì CatalogService định giá lại bằng withPrices() (không query lại DB).
+ * DTO (Lombok @Data) vẫn mutable nên getter public trả bản sao, DTO trong snapshot không rời khỏi snapshot:
+ * caller sửa DTO nhận được không ảnh hưởng request khác hay index.
+ */
+public final class CatalogSnapshot {
+
+    private static final Map<String, Comparator<ProductDTO>> SORTS = Map.of(
+            "name", Comparator.comparing(ProductDTO::getName, Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)),
+            "price", Comparator.comparing(ProductDTO::getPrice, Comparator.nullsLast(Comparator.naturalOrder())),
+            "preparationTime", Comparator.comparing(ProductDTO::getPreparationTime, Comparator.nullsLast(Comparator.naturalOrder())),
+            "createdAt", Comparator.comparing(ProductDTO::getCreatedAt, Comparator.nullsLast(Comparator.naturalOrder())),
+            "updatedAt", Comparator.comparing(ProductDTO::getUpdatedAt, Comparator.nullsLast(Comparator.naturalOrder())),
+            "productId", Comparator.comparing(ProductDTO::getProductId, Comparator.nullsLast(Comparator.naturalOrder())));
+
+    private final long version;
+    private final long priceVersion;
+    private final LocalDateTime builtAt;
+    private final Source source;                               // Dữ liệu gốc để định giá lại
+
+    private final Map<Long, ProductDTO> productsById;          // Mọi sản phẩm (kể cả ngừng bán)
+    private final List<ProductDTO> availableProducts;          // Đang bán, theo productId
+    private final Map<Long, List<ProductDTO>> availableByCategory;
+    private final List<ProductDTO> featuredProducts;
+    private final List<ProductDTO> productsWithGallery;
+    private final List<CategoryDTO> activeCategories;          // Theo sortOrder
+    private final List<CategoryDTO> categoriesWithProducts;    // Active và có ít nhất một sản phẩm đang bán
+    private final ProductSearchIndex searchIndex;              // Index trên mọi sản phẩm (admin tìm cả hàng ngừng bán)
+    private final SuggestionTrie suggestionTrie;               // Sản phẩm đang bán + categoriesWithProducts
+    private volatile ProductFacetIndex facetIndex;             // Sản phẩm đang bán; build lại khi bảng giá đổi version
+
+    private CatalogSnapshot(long version, long priceVersion, LocalDateTime builtAt, Source source,
+                            Map<Long, ProductDTO> productsById,
+                            List<ProductDTO> availableProducts, Map<Long, List<ProductDTO>> availableByCategory,
+                            List<ProductDTO> featuredProducts, List<ProductDTO> productsWithGallery,
+                            List<CategoryDTO> activeCategories, List<CategoryDTO> categoriesWithProducts,
+                            ProductSearchIndex searchIndex, SuggestionTrie suggestionTrie) {
+        this.version = version;
+        this.priceVersion = priceVersion;
+        this.builtAt = builtAt;
+        this.source = source;
+        this.productsById = productsById;
+        this.availableProducts = availableProducts;
+        this.availableByCategory = availableByCategory;
+        this.featuredProducts = featuredProducts;
+        this.productsWithGallery = productsWithGallery;
+        this.activeCategories = activeCategories;
+        this.categoriesWithProducts = categoriesWithProducts;
+        this.searchIndex = searchIndex;
+        this.suggestionTrie = suggestionTrie;
+    }
+
+    public static CatalogSnapshot empty() {
+        return new CatalogSnapshot(0, 0, LocalDateTime.now(),
+                new Source(List.of(), List.of(), Map.of(), Map.of()), Map.of(), List.of(), Map.of(),
+                List.of(), List.of(), List.of(), List.of(), ProductSearchIndex.empty(), SuggestionTrie.empty());
+    }
+
+    /**
+     * Build snapshot từ entity đã load đầy đủ (product kèm category, options gom theo productId).
+     * soldByProductId là số lượng đã bán, dùng xếp hạng gợi ý autocomplete.
+     * prices là bảng giá hiện tại của PriceTimelineService (đã build lại với products).
+     * previous là snapshot đang dùng, để search index tái sử dụng phần không đổi.
+     */
+    public static CatalogSnapshot build(long version, List<Category> categories, List<Product> products,
+                                        Map<Long, List<ProductOption>> optionsByProductId,
+                                        Map<Long, Long> soldByProductId, PriceTimelineService.PriceTable prices,
+                                        CatalogSnapshot previous) {
+        LocalDateTime builtAt = LocalDateTime.now();
+        Map<Long, ProductDTO> byId = new LinkedHashMap<>();
+        List<ProductDTO> available = new ArrayList<>();
+        Map<Long, List<ProductDTO>> byCategory = new LinkedHashMap<>();
+        List<ProductDTO> featured = new ArrayList<>();
+        List<ProductDTO> withGallery = new ArrayList<>();
+        Set<Long> categoryIdsWithProducts = new LinkedHashSet<>();
+
+        for (Product product : products) {
+            PricePoint price = prices.points().get(product.getProductId());
+            ProductDTO dto = toProductDTO(product, optionsByProductId.getOrDefault(product.getProductId(), List.of()),
+                    price != null ? price : product.getPricePointAt(builtAt));
+            byId.put(dto.getProductId(), dto);
+            if (!Boolean.TRUE.equals(dto.getIsAvailable())) {
+                continue;
+            }
+            available.add(dto);
+            if (dto.getCategory() != null) {
+                byCategory.computeIfAbsent(dto.getCategory().getCategoryId(), id -> new ArrayList<>()).add(dto);
+                categoryIdsWithProducts.add(dto.getCategory().getCategoryId());
+            }
+            if (Boolean.TRUE.equals(dto.getIsFeatured())) {
+                featured.add(dto);
+            }
+            if (dto.getGalleryUrls() != null && !dto.getGalleryUrls().isEmpty()) {
+                withGallery.add(dto);
+            }
+        }
+
+        List<CategoryDTO> active = categories.stream()
+                .filter(category -> Boolean.TRUE.equals(category.getIsActive()))
+                .sorted(Comparator.comparing(Category::getSortOrder, Comparator.nullsLast(Comparator.naturalOrder())))
+                .map(CatalogSnapshot::toCategoryDTO)
+                .collect(Collectors.toList());
+        List<CategoryDTO> withProducts = active.stream()
+                .filter(category -> categoryIdsWithProducts.contains(category.getCategoryId()))
+                .collect(Collectors.toList());
+
+        Map<Long, List<ProductDTO>> frozenByCategory = new LinkedHashMap<>();
+        byCategory.forEach((categoryId, list) -> frozenByCategory.put(categoryId, List.copyOf(list)));
+
+        return new CatalogSnapshot(version, prices.version(), builtAt,
+                new Source(categories, products, optionsByProductId, soldByProductId),
+                Collections.unmodifiableMap(byId),
+                List.copyOf(available),
+                Collections.unmodifiableMap(frozenByCategory),
+                List.copyOf(featured),
+                List.copyOf(withGallery),
+                List.copyOf(active),
+                List.copyOf(withProducts),
+                ProductSearchIndex.build(byId.values(), previous != null ? previous.searchIndex : null),
+                SuggestionTrie.build(toSuggestions(available, withProducts, soldByProductId)));
+    }
+
+    /**
+     * Gợi ý cho sản phẩm đang bán và danh mục đang có hàng; độ phổ biến của danh mục là tổng các sản phẩm
+     */
+    private static List<SuggestionDTO> toSuggestions(List<ProductDTO> available, List<CategoryDTO> categories,
+                                                     Map<Long, Long> soldByProductId) {
+        List<SuggestionDTO> suggestions = new ArrayList<>();
+        Map<Long, Long> soldByCategoryId = new LinkedHashMap<>();
+        for (ProductDTO product : available) {
+            long sold = soldByProductId.getOrDefault(product.getProductId(), 0L);
+            if (product.getCategory() != null) {
+                soldByCategoryId.merge(product.getCategory().getCategoryId(), sold, Long::sum);
+            }
+            suggestions.add(SuggestionDTO.builder()
+                    .type("PRODUCT")
+                    .id(product.getProductId())
+                    .name(product.getName())
+                    .imageUrl(product.getImageUrl())
+                    .popularity(sold)
+                    .build());
+        }
+        for (CategoryDTO category : categories) {
+            suggestions.add(SuggestionDTO.builder()
+                    .type("CATEGORY")
+                    .id(category.getCategoryId())
+                    .name(category.getCategoryName())
+                    .imageUrl(category.getCategoryImageUrl())
+                    .popularity(soldByCategoryId.getOrDefault(category.getCategoryId(), 0L))
+                    .build());
+        }
+        return suggestions;
+    }
+
+    /**
+     * Snapshot cùng menu, định giá lại theo bảng giá mới (sale vừa bắt đầu / kết thúc)
+     */
+    public CatalogSnapshot withPrices(PriceTimelineService.PriceTable prices) {
+        return build(version, source.categories(), source.products(), source.optionsByProductId(),
+                source.soldByProductId(), prices, this);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Version của bảng giá dùng khi build
+     */
+    public long getPriceVersion() {
+        return priceVersion;
+    }
+
+    public LocalDateTime getBuiltAt() {
+        return builtAt;
+    }
+
+    public Optional<ProductDTO> getProduct(Long productId) {
+        return Optional.ofNullable(productsById.get(productId)).map(CatalogSnapshot::copyOf);
+    }
+
+    public List<ProductDTO> getAvailableProducts() {
+        return copyAll(availableProducts);
+    }
+
+    /**
+     * Sản phẩm đang bán đã sắp xếp theo sortBy (name, price, preparationTime, createdAt, updatedAt, productId)
+     */
+    public List<ProductDTO> getAvailableProducts(String sortBy, boolean descending) {
+        return copyAll(sort(availableProducts, sortBy, descending));
+    }
+
+    /**
+     * Sắp xếp bản sao của products theo sortBy (cùng tập cột với getAvailableProducts)
+     */
+    public static List<ProductDTO> sort(List<ProductDTO> products, String sortBy, boolean descending) {
+        Comparator<ProductDTO> comparator = SORTS.get(sortBy);
+        if (comparator == null) {
+            throw new IllegalArgumentException("Không hỗ trợ sắp xếp theo: " + sortBy);
+        }
+        List<ProductDTO> sorted = new ArrayList<>(products);
+        sorted.sort(descending ? comparator.reversed() : comparator);
+        return sorted;
+    }
+
+    public List<ProductDTO> getProductsByCategory(Long categoryId) {
+        return copyAll(availableByCategory.getOrDefault(categoryId, List.of()));
+    }
+
+    public List<ProductDTO> getFeaturedProducts() {
+        return copyAll(featuredProducts);
+    }
+
+    public List<ProductDTO> getProductsWithGallery() {
+        return copyAll(productsWithGallery);
+    }
+
+    public List<CategoryDTO> getActiveCategories() {
+        return activeCategories.stream().map(category -> category.toBuilder().build()).collect(Collectors.toList());
+    }
+
+    public List<CategoryDTO> getCategoriesWithProducts() {
+        return categoriesWithProducts.stream().map(category -> category.toBuilder().build()).collect(Collectors.toList());
+    }
+
+    /**
+     * Tìm kiếm full-text (không dấu) trên các sản phẩm thỏa filter, theo độ liên quan
+     */
+    public List<ProductDTO> search(String query, Predicate<ProductDTO> filter) {
+        return copyAll(searchIndex.search(query, filter));
+    }
+
+    /**
+     * Lọc sản phẩm đang bán theo facet kèm số đếm từng giá trị facet (giá / sale theo prices)
+     */
+    public ProductFacetIndex.FilterResult filter(Map<String, Set<String>> selections,
+                                                 PriceTimelineService.PriceTable prices) {
+        ProductFacetIndex index = facetIndex;
+        if (index == null || index.getPriceVersion() != prices.version()) {
+            index = ProductFacetIndex.build(availableProducts, prices);
+            facetIndex = index;
+        }
+        ProductFacetIndex.FilterResult result = index.filter(selections);
+        return new ProductFacetIndex.FilterResult(copyAll(result.products()), result.facets());
+    }
+
+    /**
+     * Gợi ý autocomplete theo tiền tố (không dấu), phổ biến nhất trước
+     */
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        return suggestionTrie.suggest(prefix, limit).stream()
+                .map(suggestion -> suggestion.toBuilder().build())
+                .collect(Collectors.toList());
+    }
+
+    public int getProductCount() {
+        return productsById.size();
+    }
+
+    // ===============================
+    // CONVERTERS
+    // ===============================
+
+    /**
+     * Bản sao sâu của ProductDTO (category, options, galleryUrls cũng sao chép)
+     */
+    public static ProductDTO copyOf(ProductDTO product) {
+        return product.toBuilder()
+                .galleryUrls(product.getGalleryUrls() != null ? new ArrayList<>(product.getGalleryUrls()) : null)
+                .category(product.getCategory() != null ? product.getCategory().toBuilder().build() : null)
+                .options(product.getOptions() != null
+                        ? product.getOptions().stream().map(option -> option.toBuilder().build()).collect(Collectors.toList())
+                        : null)
+                .build();
+    }
+
+    private static List<ProductDTO> copyAll(List<ProductDTO> products) {
+        return products.stream().map(CatalogSnapshot::copyOf).collect(Collectors.toList());
+    }
+
+    /**
+     * price là giá hiện tại từ PriceTimelineService: salePrice / isOnSale theo khung sale đang chạy
+     * (field sale của product hoặc bảng sales), không theo cờ isOnSale của entity
+     */
+    public static ProductDTO toProductDTO(Product product, List<ProductOption> options, PricePoint price) {
+        CategoryDTO categoryDTO = null;
+        if (product.getCategory() != null) {
+            categoryDTO = toCategoryDTO(product.getCategory());
+        }
+
+        List<ProductOptionDTO> optionDTOs = null;
+        if (options != null && !options.isEmpty()) {
+            optionDTOs = options.stream()
+                    .map(CatalogSnapshot::toOptionDTO)
+                    .collect(Collectors.toList());
+        }
+
+        return ProductDTO.builder()
+                .productId(product.getProductId())
+                .name(product.getName())
+                .description(product.getDescription())
+                .price(product.getPrice())
+                .imageUrl(product.getImageUrl())
+                .galleryUrls(product.getGalleryUrlsList())
+                .hasOptions(product.getHasOptions())
+                .isAvailable(product.getIsAvailable())
+                .isFeatured(product.getIsFeatured())
+                .preparationTime(product.getPreparationTime())
+                .category(categoryDTO)
+                .options(optionDTOs)
+                .salePrice(price.isSaleActive() ? price.getCurrentPrice() : null)
+                .salePercentage(price.isSaleActive() ? price.getDiscountPercentage() : null)
+                .isOnSale(price.isSaleActive())
+                .saleStartDate(product.getSaleStartDate() != null ? product.getSaleStartDate().toString() : null)
+                .saleEndDate(product.getSaleEndDate() != null ? product.getSaleEndDate().toString() : null)
+                .createdAt(product.getCreatedAt())
+                .updatedAt(product.getUpdatedAt())
+                .build();
+    }
+
+    public static CategoryDTO toCategoryDTO(Category category) {
+        return CategoryDTO.builder()
+                .categoryId(category.getCategoryId())
+                .categoryName(category.getCategoryName())
+                .categoryImageUrl(category.getCategoryImageUrl())
+                .description(category.getDescription())
+                .isActive(category.getIsActive())
+                .sortOrder(category.getSortOrder())
+                .createdAt(category.getCreatedAt())
+                .updatedAt(category.getUpdatedAt())
+                .build();
+    }
+
+    public static ProductOptionDTO toOptionDTO(ProductOption option) {
+        return ProductOptionDTO.builder()
+                .optionId(option.getOptionId())
+                .productId(option.getProductId())
+                .optionName(option.getOptionName())
+                .optionType(option.getOptionType().toString())
+                .price(option.getPrice())
+                .isRequired(option.getIsRequired())
+                .isActive(option.getIsActive())
+                .maxSelections(option.getMaxSelections())
+                .createdAt(option.getCreatedAt())
+                .updatedAt(option.getUpdatedAt())
+                .build();
+    }
+
+    private record Source(List<Category> categories, List<Product> products,
+                          Map<Long, List<ProductOption>> optionsByProductId, Map<Long, Long> soldByProductId) {
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.food.service;
+
+import com.example.food.model.User;
+import com.example.food.repository.ConversationParticipantRepository;
+import com.example.food.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Kiểm tra quyền và thông tin người gửi cho kênh chat STOMP, có cache trong bộ nhớ
+ * để mỗi tin nhắn / SUBSCRIBE không phải query DB:
+ * - Chỉ cache kết quả "có quyền" (participant của conversation), admin luôn có quyền
+ * - Mọi mục cache hết hạn sau ttlSeconds, nên user bị khóa / mất quyền admin / bị xóa khỏi conversation
+ *   chậm nhất ttlSeconds là bị chặn (canAccess luôn đi qua getSender, tức là kiểm tra lại isActive)
+ * - Sửa user qua UserService.saveUser thì xóa ngay cache của user đó (evictUser)
+ */
+@Service
+public class ChatAccessService {
+
+    private static final int MAX_CACHED_ACCESS = 10_000;
+    private static final int MAX_CACHED_SENDERS = 2_000;
+
+    private final UserRepository userRepository;
+    private final ConversationParticipantRepository participantRepository;
+    private final long ttlMillis;
+
+    // "conversationId:userId" đã xác nhận là participant -> hết hạn lúc (epoch ms)
+    private final Map<String, Long> grantedAccess = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                    return size() > MAX_CACHED_ACCESS;
+                }
+            });
+
+    private final Map<Long, CachedSender> senders = Collections.synchronizedMap(
+            new LinkedHashMap<>(256, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, CachedSender> eldest) {
+                    return size() > MAX_CACHED_SENDERS;
+                }
+            });
+
+    public ChatAccessService(UserRepository userRepository,
+                             ConversationParticipantRepository participantRepository,
+                             @Value("${app.chat.access-cache-ttl-seconds:60}") long ttlSeconds) {
+        this.userRepository = userRepository;
+        this.participantRepository = participantRepository;
+        this.ttlMillis = ttlSeconds * 1000;
+    }
+
+    /**
+     * User (đang hoạt động) có được đọc / gửi tin trong conversation không
+     */
+    public boolean canAccess(Long conversationId, Long userId) {
+        if (conversationId == null || userId == null) {
+            return false;
+        }
+        Optional<Sender> sender = getSender(userId);
+        if (sender.isEmpty()) {
+            return false;
+        }
+        if (sender.get().admin()) {
+            return true;
+        }
+        String key = conversationId + ":" + userId;
+        long now = System.currentTimeMillis();
+        Long expiresAt = grantedAccess.get(key);
+        if (expiresAt != null && expiresAt > now) {
+            return true;
+        }
+        boolean participant = participantRepository.existsByConversationIdAndUserId(conversationId, userId);
+        if (participant) {
+            grantedAccess.put(key, now + ttlMillis);
+        } else if (expiresAt != null) {
+            grantedAccess.remove(key);
+        }
+        return participant;
+    }
+
+    /**
+     * Thông tin người gửi (rỗng nếu user không tồn tại hoặc đã bị khóa)
+     */
+    public Optional<Sender> getSender(Long userId) {
+        long now = System.currentTimeMillis();
+        CachedSender cached = senders.get(userId);
+        if (cached != null && cached.expiresAt() > now) {
+            return Optional.of(cached.sender());
+        }
+        Optional<Sender> loaded = userRepository.findById(userId)
+                .filter(user -> !Boolean.FALSE.equals(user.getIsActive()))
+                .map(Sender::of);
+        if (loaded.isPresent()) {
+            senders.put(userId, new CachedSender(loaded.get(), now + ttlMillis));
+        } else {
+            evictUser(userId);
+        }
+        return loaded;
+    }
+
+    /**
+     * Bỏ cache của user (đổi hồ sơ, role, trạng thái khóa)
+     */
+    public void evictUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        senders.remove(userId);
+        String suffix = ":" + userId;
+        synchronized (grantedAccess) {
+            grantedAccess.keySet().removeIf(key -> key.endsWith(suffix));
+        }
+    }
+
+    public record Sender(Long userId, String email, String fullName, String avatarUrl, boolean admin) {
+        static Sender of(User user) {
+            return new Sender(user.getUserId(), user.getEmail(), user.getFullName(), user.getAvatarUrl(), user.isAdmin());
+        }
+    }
+
+    private record CachedSender(Sender sender, long expiresAt) {
+    }
+}
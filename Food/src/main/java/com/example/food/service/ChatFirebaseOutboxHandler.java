@@ -0,0 +1,50 @@
+package com.example.food.service;
+
+import com.example.food.dto.MessageDTO;
+import com.example.food.model.OutboxEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Đồng bộ tin nhắn chat lên Firebase Realtime Database từ outbox
+ */
+@Component
+@Slf4j
+public class ChatFirebaseOutboxHandler implements OutboxEventHandler {
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired(required = false)
+    private FirebaseService firebaseService;
+
+    @Override
+    public Set<OutboxEvent.EventType> supportedTypes() {
+        return EnumSet.of(OutboxEvent.EventType.CHAT_MESSAGE_CREATED);
+    }
+
+    @Override
+    public void handle(OutboxEvent event) throws Exception {
+        handleAsync(event).get();
+    }
+
+    /**
+     * Không chặn worker chờ flush: FirebaseSyncQueue gom các message của cả batch outbox vào một lần ghi,
+     * event xong khi lần ghi đó thành công (queue đầy / ghi lỗi thì outbox retry với backoff)
+     */
+    @Override
+    public CompletableFuture<Void> handleAsync(OutboxEvent event) throws Exception {
+        if (firebaseService == null) {
+            log.warn("⚠️ FirebaseService is NULL - message {} will NOT be sent to Firebase!", event.getAggregateId());
+            return CompletableFuture.completedFuture(null);
+        }
+        MessageDTO message = objectMapper.readValue(event.getPayload(), MessageDTO.class);
+        return firebaseService.sendMessageToFirebase(message.getConversationId(), message);
+    }
+}
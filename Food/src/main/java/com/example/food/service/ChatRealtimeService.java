@@ -0,0 +1,517 @@
+package com.example.food.service;
+
+import com.example.food.dto.ApiResponse;
+import com.example.food.dto.ChatSendRequest;
+import com.example.food.dto.MessageDTO;
+import com.example.food.model.Conversation;
+import com.example.food.model.Message;
+import com.example.food.model.OutboxEvent;
+import com.example.food.repository.ConversationRepository;
+import com.example.food.repository.MessageRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Kênh chat STOMP (/app/chat.send -> /topic/conversations/{id}):
+ * - Kiểm tra quyền / người gửi từ cache (ChatAccessService), id cấp trước (MessageIdAllocator)
+ * - Fan-out ngay trong process tới subscriber, không chờ DB hay Firebase
+ * - Ghi DB write-behind: một thread gom message theo batch (insert JDBC batch, cập nhật tin nhắn cuối
+ *   của conversation, outbox Firebase) trong một transaction; notification gửi sau commit
+ * - Queue có giới hạn: đầy quá OFFER_TIMEOUT_MS thì từ chối tin nhắn (client gửi lại), không phát đi
+ * - Ghi lỗi: tin đã phát nên không bỏ batch, thử lại với backoff (queue đầy thì chặn tin mới).
+ *   Lỗi liên tiếp NOTIFY_AFTER_ATTEMPTS lần thì báo người gửi qua /user/queue/chat.errors (data = clientMessageIds)
+ * - Cứ ISOLATE_AFTER_ATTEMPTS lần lỗi thì ghi từng message riêng: message vẫn lỗi trong khi DB còn trả lời
+ *   (vi phạm ràng buộc, conversation đã xóa...) chuyển sang dead-letter file, báo người gửi, writer chạy tiếp.
+ *   DB không trả lời thì lỗi không do message, tiếp tục thử lại các message đó
+ * - Tắt ứng dụng: chờ ghi hết trong SHUTDOWN_DRAIN_SECONDS, phần còn lại (kể cả batch đang thử lại)
+ *   ghi ra spill file, lần khởi động sau ghi vào DB trước khi nhận batch mới
+ *
+ * Giới hạn:
+ * - Tin đã phát nhưng chưa tới lượt flush (thường dưới một giây) mất nếu process chết đột ngột (kill -9, OOM).
+ *   Client đối chiếu clientMessageId với lịch sử (GET messages?afterId=, theo thứ tự ghi) sau khi kết nối lại
+ *   và gửi lại tin thiếu.
+ * - Broker STOMP là simple broker trong process: chỉ subscriber nối vào cùng instance nhận được tin.
+ *   Chạy nhiều instance cần broker relay (RabbitMQ / ActiveMQ STOMP) thay cho enableSimpleBroker.
+ */
+@Service
+@Slf4j
+public class ChatRealtimeService {
+
+    public static final String CONVERSATION_TOPIC_PREFIX = "/topic/conversations/";
+    public static final String CHAT_ERRORS_QUEUE = "/queue/chat.errors";
+
+    private static final long OFFER_TIMEOUT_MS = 200;
+    private static final int NOTIFY_AFTER_ATTEMPTS = 3;
+    private static final int ISOLATE_AFTER_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MS = 500;
+    private static final long MAX_RETRY_DELAY_MS = 30_000;
+    private static final long SHUTDOWN_DRAIN_SECONDS = 10;
+    private static final long SHUTDOWN_INTERRUPT_WAIT_SECONDS = 5;
+    private static final int MAX_CONTENT_LENGTH = 5000;
+
+    private final ChatService chatService;
+    private final ChatAccessService chatAccessService;
+    private final MessageIdAllocator messageIdAllocator;
+    private final MessageSequencer messageSequencer;
+    private final MessageRepository messageRepository;
+    private final ConversationRepository conversationRepository;
+    private final OutboxService outboxService;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private final int batchSize;
+    private final Path spillFile;
+    private final Path deadLetterFile;
+    private final BlockingQueue<PendingMessage> queue;
+    private final Thread writer = new Thread(this::run, "chat-write-behind");
+    private volatile boolean accepting = true;
+
+    private final AtomicLong persistedCount = new AtomicLong();
+    private final AtomicLong failedFlushCount = new AtomicLong();
+    private final AtomicLong spilledCount = new AtomicLong();
+    private final AtomicLong deadLetteredCount = new AtomicLong();
+
+    public ChatRealtimeService(ChatService chatService,
+                               ChatAccessService chatAccessService,
+                               MessageIdAllocator messageIdAllocator,
+                               MessageSequencer messageSequencer,
+                               MessageRepository messageRepository,
+                               ConversationRepository conversationRepository,
+                               OutboxService outboxService,
+                               SimpMessagingTemplate messagingTemplate,
+                               ObjectMapper objectMapper,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.chat.write-behind.batch-size:100}") int batchSize,
+                               @Value("${app.chat.write-behind.queue-capacity:10000}") int queueCapacity,
+                               @Value("${app.chat.write-behind.spill-file:chat-spill/pending-messages.jsonl}") String spillFile,
+                               @Value("${app.chat.write-behind.dead-letter-file:chat-spill/dead-letter.jsonl}") String deadLetterFile) {
+        this.chatService = chatService;
+        this.chatAccessService = chatAccessService;
+        this.messageIdAllocator = messageIdAllocator;
+        this.messageSequencer = messageSequencer;
+        this.messageRepository = messageRepository;
+        this.conversationRepository = conversationRepository;
+        this.outboxService = outboxService;
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.spillFile = Paths.get(spillFile);
+        this.deadLetterFile = Paths.get(deadLetterFile);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writer.setDaemon(true);
+    }
+
+    public static String conversationTopic(Long conversationId) {
+        return CONVERSATION_TOPIC_PREFIX + conversationId;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        writer.start();
+    }
+
+    /**
+     * Nhận tin nhắn từ STOMP: phát ngay tới subscriber, ghi DB sau (write-behind)
+     */
+    public MessageDTO send(Long senderId, ChatSendRequest request) {
+        if (request == null || request.getConversationId() == null) {
+            throw new IllegalArgumentException("Thiếu conversationId");
+        }
+        String content = request.getContent() != null ? request.getContent().trim() : "";
+        if (content.isEmpty()) {
+            throw new IllegalArgumentException("Nội dung tin nhắn không được để trống");
+        }
+        if (content.length() > MAX_CONTENT_LENGTH) {
+            throw new IllegalArgumentException("Tin nhắn quá dài (tối đa " + MAX_CONTENT_LENGTH + " ký tự)");
+        }
+        ChatAccessService.Sender sender = chatAccessService.getSender(senderId)
+                .orElseThrow(() -> new IllegalArgumentException("Người gửi không hợp lệ"));
+        if (!chatAccessService.canAccess(request.getConversationId(), senderId)) {
+            throw new IllegalArgumentException("You are not a participant of this conversation");
+        }
+        if (!accepting) {
+            throw new IllegalStateException("Chat đang tạm dừng, vui lòng thử lại");
+        }
+
+        MessageDTO messageDTO = MessageDTO.builder()
+                .messageId(messageIdAllocator.nextId())
+                .conversationId(request.getConversationId())
+                .senderUserId(senderId)
+                .senderName(sender.fullName())
+                .senderAvatarUrl(sender.avatarUrl())
+                .content(content)
+                .attachmentUrls(request.getAttachmentUrls() != null ? request.getAttachmentUrls() : new ArrayList<>())
+                .isRead(false)
+                .createdAt(LocalDateTime.now())
+                .isOwnMessage(true) // Theo góc nhìn người gửi, giống payload Firebase
+                .clientMessageId(request.getClientMessageId())
+                .build();
+
+        // Xếp hàng ghi trước rồi mới phát: tin đã phát chắc chắn nằm trong queue
+        try {
+            if (!queue.offer(new PendingMessage(messageDTO, sender), OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Chat đang quá tải, vui lòng thử lại");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Chat đang quá tải, vui lòng thử lại");
+        }
+
+        chatService.publish(messageDTO);
+        return messageDTO;
+    }
+
+    public int getPendingCount() {
+        return queue.size();
+    }
+
+    public long getPersistedCount() {
+        return persistedCount.get();
+    }
+
+    public long getFailedFlushCount() {
+        return failedFlushCount.get();
+    }
+
+    public long getSpilledCount() {
+        return spilledCount.get();
+    }
+
+    public long getDeadLetteredCount() {
+        return deadLetteredCount.get();
+    }
+
+    /**
+     * Ngừng nhận tin mới, chờ writer ghi hết queue; quá hạn thì ngắt writer để nó ghi phần còn lại ra spill file
+     */
+    @PreDestroy
+    public void shutdown() {
+        accepting = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(SHUTDOWN_DRAIN_SECONDS));
+            if (writer.isAlive()) {
+                writer.interrupt();
+                writer.join(TimeUnit.SECONDS.toMillis(SHUTDOWN_INTERRUPT_WAIT_SECONDS));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            // Writer kẹt trong JDBC không ngắt được: giữ phần còn trong queue, batch writer đang giữ không lấy được
+            List<PendingMessage> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            spill(remaining);
+            log.error("Chat write-behind did not stop; its in-flight batch may be lost");
+        }
+    }
+
+    private void run() {
+        List<PendingMessage> batch = new ArrayList<>();
+        boolean interrupted = !replaySpill();
+        while (!interrupted && (accepting || !queue.isEmpty())) {
+            try {
+                PendingMessage first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (!flushWithRetry(batch, false)) {
+                interrupted = true;
+                break;
+            }
+            batch = new ArrayList<>();
+        }
+        // Bị ngắt khi tắt ứng dụng: batch đang thử lại và phần còn trong queue ra spill file
+        queue.drainTo(batch);
+        spill(batch);
+    }
+
+    /**
+     * Ghi batch, lỗi thì thử lại với backoff (tin đã phát, không được bỏ); cứ ISOLATE_AFTER_ATTEMPTS lần lỗi
+     * thì tách message hỏng ra (isolate) để một message không ghi được không chặn cả kênh chat.
+     * Trả về false nếu thread bị ngắt (tắt ứng dụng); batch khi đó có thể chưa được ghi hết, nơi gọi giữ lại
+     * (ghi lại sau sẽ bỏ qua message đã có trong DB).
+     */
+    boolean flushWithRetry(List<PendingMessage> batch, boolean replay) {
+        long delay = RETRY_DELAY_MS;
+        List<PendingMessage> pending = batch;
+        for (int attempt = 1; ; attempt++) {
+            try {
+                flush(pending, replay || attempt > 1);
+                persistedCount.addAndGet(pending.size());
+                if (attempt > NOTIFY_AFTER_ATTEMPTS) {
+                    log.info("Chat write-behind recovered after {} attempts ({} messages)", attempt, pending.size());
+                }
+                return true;
+            } catch (Exception e) {
+                failedFlushCount.incrementAndGet();
+                log.warn("Chat write-behind flush failed (attempt {}, {} messages, retry in {}ms): {}",
+                        attempt, pending.size(), delay, e.getMessage());
+                if (attempt == NOTIFY_AFTER_ATTEMPTS) {
+                    notifySenders(pending, "Tin nhắn chưa được lưu, hệ thống đang thử lại");
+                }
+            }
+            if (attempt % ISOLATE_AFTER_ATTEMPTS == 0) {
+                pending = isolate(pending);
+                if (pending.isEmpty()) {
+                    return true;
+                }
+            }
+            if (Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+            delay = Math.min(MAX_RETRY_DELAY_MS, delay * 2);
+        }
+    }
+
+    /**
+     * Ghi từng message trong transaction riêng. Message vẫn lỗi mà DB còn trả lời là message hỏng:
+     * chuyển sang dead-letter file (không ghi lại tự động) và báo người gửi. Trả về các message cần thử lại
+     * (rỗng nếu đã xử lý hết); DB không trả lời thì đó là sự cố chung, trả lại mọi message lỗi
+     */
+    private List<PendingMessage> isolate(List<PendingMessage> batch) {
+        List<PendingMessage> failed = new ArrayList<>();
+        for (PendingMessage pending : batch) {
+            if (Thread.currentThread().isInterrupted()) {
+                return batch;
+            }
+            try {
+                flush(List.of(pending), true);
+                persistedCount.incrementAndGet();
+            } catch (Exception e) {
+                log.warn("Chat message {} cannot be written on its own: {}", pending.dto().getMessageId(), e.getMessage());
+                failed.add(pending);
+            }
+        }
+        if (failed.isEmpty() || !databaseAvailable()) {
+            return failed;
+        }
+        if (append(deadLetterFile, failed)) {
+            deadLetteredCount.addAndGet(failed.size());
+            log.error("Chat write-behind moved {} unwritable messages to {}, ids {}", failed.size(),
+                    deadLetterFile.toAbsolutePath(), failed.stream().map(p -> p.dto().getMessageId()).toList());
+        }
+        notifySenders(failed, "Tin nhắn không lưu được, vui lòng gửi lại");
+        return List.of();
+    }
+
+    private boolean databaseAvailable() {
+        try {
+            transactionTemplate.execute(status -> messageRepository.existsById(0L));
+            return true;
+        } catch (Exception e) {
+            log.warn("Chat database unavailable: {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Một transaction cho cả batch. Lần thử lại (hoặc ghi lại từ spill file) bỏ qua message đã có trong DB,
+     * vì lần trước có thể đã commit rồi mới báo lỗi
+     */
+    private void flush(List<PendingMessage> batch, boolean skipPersisted) {
+        Map<Long, Conversation> conversations = new LinkedHashMap<>();
+        List<PendingMessage> saved = transactionTemplate.execute(status -> {
+            List<PendingMessage> toSave = batch;
+            if (skipPersisted) {
+                Set<Long> existing = messageRepository.findAllById(batch.stream()
+                                .map(pending -> pending.dto().getMessageId()).toList()).stream()
+                        .map(Message::getMessageId)
+                        .collect(Collectors.toSet());
+                toSave = batch.stream().filter(pending -> !existing.contains(pending.dto().getMessageId())).toList();
+            }
+            if (toSave.isEmpty()) {
+                return toSave;
+            }
+            // Entity dựng mới mỗi lần thử: entity của lần thử đã rollback vẫn mang cờ persisted
+            List<Message> messages = toSave.stream().map(PendingMessage::toMessage).toList();
+            messageSequencer.assign(messages);
+            messageRepository.saveAll(messages);
+
+            // Tin nhắn cuối: Conversation.recordLastMessage giữ tin mới nhất theo createdAt
+            Map<Long, List<Message>> byConversation = new LinkedHashMap<>();
+            messages.forEach(message -> byConversation
+                    .computeIfAbsent(message.getConversationId(), id -> new ArrayList<>())
+                    .add(message));
+            for (Conversation conversation : conversationRepository.findAllById(byConversation.keySet())) {
+                byConversation.get(conversation.getConversationId()).forEach(conversation::recordLastMessage);
+                conversation.setUpdatedAt(LocalDateTime.now());
+                conversations.put(conversation.getConversationId(), conversation);
+            }
+            conversationRepository.saveAll(conversations.values());
+
+            // Đồng bộ Firebase cho app Android như đường REST
+            for (PendingMessage pending : toSave) {
+                outboxService.enqueue(OutboxEvent.EventType.CHAT_MESSAGE_CREATED,
+                        pending.dto().getMessageId(), pending.dto());
+            }
+            return toSave;
+        });
+
+        for (PendingMessage pending : saved != null ? saved : List.<PendingMessage>of()) {
+            Conversation conversation = conversations.get(pending.dto().getConversationId());
+            if (conversation != null) {
+                chatService.notifyNewMessage(conversation, pending.sender().userId(), pending.sender().fullName(),
+                        pending.sender().admin(), pending.dto().getContent());
+            }
+        }
+    }
+
+    /**
+     * Báo từng người gửi các clientMessageId bị ảnh hưởng (tin đã hiện trong chat nhưng chưa lưu)
+     */
+    private void notifySenders(List<PendingMessage> batch, String message) {
+        Map<String, List<String>> clientIdsBySender = batch.stream()
+                .filter(pending -> pending.sender().email() != null && pending.dto().getClientMessageId() != null)
+                .collect(Collectors.groupingBy(pending -> pending.sender().email(), LinkedHashMap::new,
+                        Collectors.mapping(pending -> pending.dto().getClientMessageId(), Collectors.toList())));
+        clientIdsBySender.forEach((email, clientMessageIds) -> {
+            try {
+                messagingTemplate.convertAndSendToUser(email, CHAT_ERRORS_QUEUE, ApiResponse.<List<String>>builder()
+                        .success(false)
+                        .message(message)
+                        .data(clientMessageIds)
+                        .build());
+            } catch (Exception e) {
+                log.warn("Cannot send chat error to {}: {}", email, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Ghi nối các message chưa lưu ra spill file (mỗi dòng một JSON)
+     */
+    synchronized void spill(List<PendingMessage> pending) {
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (append(spillFile, pending)) {
+            spilledCount.addAndGet(pending.size());
+            log.warn("Chat write-behind parked {} unsaved messages in {}", pending.size(), spillFile.toAbsolutePath());
+        } else {
+            notifySenders(pending, "Tin nhắn không lưu được, vui lòng gửi lại");
+        }
+    }
+
+    /**
+     * Ghi nối message ra file (mỗi dòng một JSON); false nếu không ghi được
+     */
+    private synchronized boolean append(Path file, List<PendingMessage> pending) {
+        try {
+            if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                for (PendingMessage message : pending) {
+                    out.write(objectMapper.writeValueAsString(message));
+                    out.newLine();
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            log.error("Cannot write {} unsaved chat messages to {}, ids {}: {}", pending.size(), file.toAbsolutePath(),
+                    pending.stream().map(p -> p.dto().getMessageId()).toList(), e.getMessage(), e);
+            return false;
+        }
+    }
+
+    /**
+     * Ghi vào DB các message lần chạy trước để lại trong spill file, xong thì xóa file.
+     * Trả về false nếu bị ngắt giữa chừng (file giữ nguyên, message đã ghi được bỏ qua ở lần sau).
+     */
+    boolean replaySpill() {
+        if (!Files.exists(spillFile)) {
+            return true;
+        }
+        List<PendingMessage> parked;
+        try {
+            parked = Files.readAllLines(spillFile, StandardCharsets.UTF_8).stream()
+                    .filter(line -> !line.isBlank())
+                    .map(this::readPending)
+                    .filter(Objects::nonNull)
+                    .toList();
+        } catch (IOException e) {
+            log.error("Cannot read chat spill file {}: {}", spillFile.toAbsolutePath(), e.getMessage(), e);
+            return true;
+        }
+        log.info("Replaying {} parked chat messages from {}", parked.size(), spillFile.toAbsolutePath());
+        for (int from = 0; from < parked.size(); from += batchSize) {
+            if (!flushWithRetry(parked.subList(from, Math.min(from + batchSize, parked.size())), true)) {
+                return false;
+            }
+        }
+        try {
+            Files.delete(spillFile);
+        } catch (IOException e) {
+            log.error("Cannot delete chat spill file {}: {}", spillFile.toAbsolutePath(), e.getMessage());
+        }
+        return true;
+    }
+
+    private PendingMessage readPending(String line) {
+        try {
+            return objectMapper.readValue(line, PendingMessage.class);
+        } catch (IOException e) {
+            log.error("Skipping unreadable parked chat message: {}", line, e);
+            return null;
+        }
+    }
+
+    record PendingMessage(MessageDTO dto, ChatAccessService.Sender sender) {
+
+        Message toMessage() {
+            return Message.builder()
+                    .messageId(dto.getMessageId())
+                    .conversationId(dto.getConversationId())
+                    .senderUserId(dto.getSenderUserId())
+                    .content(dto.getContent())
+                    .attachmentUrls(dto.getAttachmentUrls() != null && !dto.getAttachmentUrls().isEmpty()
+                            ? String.join(",", dto.getAttachmentUrls()) : null)
+                    .isRead(false)
+                    .createdAt(dto.getCreatedAt())
+                    .build();
+        }
+    }
+}
@@ -2,24 +2,51 @@ package com.example.food.service;
 
 import com.example.food.dto.*;
 import com.example.food.model.*;
+import com.example.food.repository.AdminReadCursorRepository;
 import com.example.food.repository.ConversationRepository;
 import com.example.food.repository.ConversationParticipantRepository;
+import com.example.food.repository.DataMigrationRepository;
 import com.example.food.repository.MessageRepository;
 import com.example.food.repository.UserRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class ChatService {
 
+    public static final int DEFAULT_MESSAGE_PAGE_SIZE = 50;
+    public static final int MAX_MESSAGE_PAGE_SIZE = 100;
+    public static final int DEFAULT_CONVERSATION_PAGE_SIZE = 20;
+    public static final int MAX_CONVERSATION_PAGE_SIZE = 100;
+
+    private static final int BACKFILL_CHUNK_SIZE = 500;
+    private static final String READ_FLAGS_MIGRATION = "message_read_flags_to_cursors";
+
     @Autowired
     private ConversationRepository conversationRepository;
 
@@ -32,12 +59,81 @@ public class ChatService {
     @Autowired
     private UserRepository userRepository;
 
-    @Autowired(required = false)
-    private FirebaseService firebaseService;
+    @Autowired
+    private OutboxService outboxService;
 
     @Autowired(required = false)
     private NotificationService notificationService;
 
+    @Autowired
+    private MessageIdAllocator messageIdAllocator;
+
+    @Autowired
+    private MessageSequencer messageSequencer;
+
+    @Autowired
+    private SimpMessagingTemplate messagingTemplate;
+
+    @Autowired
+    private AdminReadCursorRepository adminReadCursorRepository;
+
+    @Autowired
+    private DataMigrationRepository dataMigrationRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * Điền cột tin nhắn cuối cho các conversation tạo trước khi có cột này (chỉ dòng còn trống).
+     * Mỗi BACKFILL_CHUNK_SIZE conversation một transaction riêng; khi đã điền xong chỉ còn một query rỗng.
+     * Chunk lỗi thì dừng (các chunk trước đã commit), lần khởi động sau chạy tiếp.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillLastMessages() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long afterId = 0;
+        int filled = 0;
+        try {
+            while (true) {
+                List<Long> ids = conversationRepository.findIdsMissingLastMessage(afterId,
+                        PageRequest.of(0, BACKFILL_CHUNK_SIZE));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                Integer details = transactionTemplate.execute(status -> {
+                    conversationRepository.backfillLastMessageIds(ids);
+                    return conversationRepository.backfillLastMessageDetails(ids);
+                });
+                filled += details != null ? details : 0;
+                afterId = ids.get(ids.size() - 1);
+            }
+        } catch (Exception e) {
+            log.error("Error backfilling conversation last messages after id {}: {}", afterId, e.getMessage(), e);
+        }
+        if (filled > 0) {
+            log.info("Backfilled last message for {} conversations", filled);
+        }
+    }
+
+    /**
+     * Chuyển cờ Message.isRead cũ sang cursor lastReadSeq của participant, chỉ chạy một lần:
+     * dấu READ_FLAGS_MIGRATION trong data_migrations ghi cùng transaction với bước chuyển
+     * (lỗi thì rollback cả hai, lần khởi động sau chạy lại)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateReadFlags() {
+        try {
+            Integer migrated = new TransactionTemplate(transactionManager).execute(status ->
+                    dataMigrationRepository.markApplied(READ_FLAGS_MIGRATION) > 0
+                            ? participantRepository.migrateReadFlags() : null);
+            if (migrated != null) {
+                log.info("Read cursors initialised from message read flags for {} participants", migrated);
+            }
+        } catch (Exception e) {
+            log.error("Error migrating message read flags: {}", e.getMessage(), e);
+        }
+    }
+
     /**
      * Tạo conversation mới cho user với admin
      */
@@ -84,23 +180,21 @@ public class ChatService {
     /**
      * Lấy danh sách conversations của user
      */
+    @Transactional(readOnly = true)
     public List<ConversationDTO> getUserConversations(Long userId) {
-        List<Conversation> conversations = conversationRepository.findByUserId(userId);
-        return conversations.stream()
-                .map(conv -> convertToConversationDTO(conv, userId))
-                .collect(Collectors.toList());
+        return convertToConversationDTOs(conversationRepository.findByUserId(userId), userId);
     }
 
     /**
-     * Lấy tất cả conversations cho admin (có thể thấy tất cả conversations của users)
+     * Lấy conversations cho admin theo trang (có thể thấy tất cả conversations của users), mới cập nhật trước.
+     * Số query cố định mỗi trang: conversations, count, unread đếm theo nhóm, participants, users.
      */
-    public List<ConversationDTO> getAllConversationsForAdmin(Long adminId) {
-        List<Conversation> allConversations = conversationRepository.findAll();
-        return allConversations.stream()
-                .filter(conv -> !conv.getCreatedByUserId().equals(adminId) || conv.getCreatedByUserId().equals(adminId))
-                .map(conv -> convertToConversationDTO(conv, adminId))
-                .sorted((a, b) -> b.getUpdatedAt().compareTo(a.getUpdatedAt()))
-                .collect(Collectors.toList());
+    @Transactional(readOnly = true)
+    public Page<ConversationDTO> getAllConversationsForAdmin(Long adminId, int page, int size) {
+        Pageable pageable = PageRequest.of(Math.max(0, page), Math.max(1, Math.min(size, MAX_CONVERSATION_PAGE_SIZE)));
+        Page<Conversation> conversations = conversationRepository.findAllByOrderByUpdatedAtDescConversationIdDesc(pageable);
+        return new PageImpl<>(convertToConversationDTOs(conversations.getContent(), adminId),
+                pageable, conversations.getTotalElements());
     }
 
     /**
@@ -151,104 +245,165 @@ public class ChatService {
 
         // Tạo message
         Message message = Message.builder()
+                .messageId(messageIdAllocator.nextId())
                 .conversationId(conversationId)
                 .senderUserId(senderId)
                 .content(request.getContent())
                 .attachmentUrls(request.getAttachmentUrls() != null ?
                         String.join(",", request.getAttachmentUrls()) : null)
                 .isRead(false)
+                .createdAt(LocalDateTime.now())
                 .build();
+        messageSequencer.assign(List.of(message));
         message = messageRepository.save(message);
 
-        // Cập nhật updated_at của conversation
+        // Cập nhật tin nhắn cuối + updated_at của conversation
+        conversation.recordLastMessage(message);
         conversation.setUpdatedAt(LocalDateTime.now());
         conversationRepository.save(conversation);
 
-        MessageDTO messageDTO = convertToMessageDTO(message, senderId);
-
-        // Gửi message lên Firebase để real-time sync với app Android
-        if (firebaseService != null) {
-            log.info("🔥 ChatService: FirebaseService is available, sending message to Firebase");
-            try {
-                firebaseService.sendMessageToFirebase(conversationId, messageDTO);
-                log.info("✅ ChatService: FirebaseService.sendMessageToFirebase completed");
-            } catch (Exception e) {
-                // Log error nhưng không throw để không làm gián đoạn flow
-                log.error("❌ ChatService: Error sending message to Firebase: {}", e.getMessage(), e);
-            }
-        } else {
-            log.warn("⚠️ ChatService: FirebaseService is NULL - message will NOT be sent to Firebase!");
-        }
+        MessageDTO messageDTO = convertToMessageDTO(message, senderId, false, user);
+
+        // Gửi message lên Firebase để real-time sync với app Android (qua outbox, sau khi commit)
+        outboxService.enqueue(OutboxEvent.EventType.CHAT_MESSAGE_CREATED, message.getMessageId(), messageDTO);
 
-        // Gửi notification
-        if (notificationService != null) {
-            try {
-                // Lấy thông tin conversation participants để biết người nhận
-                List<ConversationParticipant> participants = participantRepository.findByConversationId(conversationId);
-                String senderName = user != null ? user.getFullName() : "Người dùng";
-
-                if (isAdmin) {
-                    // Admin gửi message -> notify user (người tạo conversation)
-                    Long recipientId = conversation.getCreatedByUserId();
-                    if (recipientId != null && !recipientId.equals(senderId)) {
-                        notificationService.notifyAdminMessage(
-                                recipientId,
-                                conversationId,
-                                senderName,
-                                request.getContent()
-                        );
-                    }
-                } else {
-                    // User gửi message -> notify tất cả admin
-                    notificationService.notifyUserMessage(
-                            conversationId,
-                            senderId,
-                            senderName,
-                            request.getContent()
-                    );
+        // Phát tới subscriber STOMP của conversation sau khi commit
+        afterCommit(() -> publish(messageDTO));
+
+        // Notification ghi sau commit, transaction riêng: lỗi notify không làm rollback message
+        Conversation notifiedConversation = conversation;
+        String senderName = user != null ? user.getFullName() : null;
+        afterCommit(() -> notifyNewMessage(notifiedConversation, senderId, senderName, isAdmin, request.getContent()));
+
+        return messageDTO;
+    }
+
+    /**
+     * Gửi notification cho phía bên kia của conversation (admin gửi -> người tạo, user gửi -> các admin)
+     */
+    public void notifyNewMessage(Conversation conversation, Long senderId, String senderName,
+                                 boolean senderIsAdmin, String content) {
+        if (notificationService == null) {
+            return;
+        }
+        try {
+            String name = senderName != null ? senderName : "Người dùng";
+            if (senderIsAdmin) {
+                // Admin gửi message -> notify user (người tạo conversation)
+                Long recipientId = conversation.getCreatedByUserId();
+                if (recipientId != null && !recipientId.equals(senderId)) {
+                    notificationService.notifyAdminMessage(recipientId, conversation.getConversationId(), name, content);
                 }
-            } catch (Exception e) {
-                log.error("Error sending notification for chat message: {}", e.getMessage(), e);
+            } else {
+                // User gửi message -> notify tất cả admin
+                notificationService.notifyUserMessage(conversation.getConversationId(), senderId, name, content);
             }
+        } catch (Exception e) {
+            log.error("Error sending notification for chat message: {}", e.getMessage(), e);
         }
+    }
 
-        return messageDTO;
+    /**
+     * Phát message tới /topic/conversations/{id} (subscriber STOMP trên instance này)
+     */
+    public void publish(MessageDTO message) {
+        try {
+            messagingTemplate.convertAndSend(ChatRealtimeService.conversationTopic(message.getConversationId()), message);
+        } catch (Exception e) {
+            log.warn("Cannot publish chat message {}: {}", message.getMessageId(), e.getMessage());
+        }
     }
 
     /**
-     * Lấy messages của conversation
+     * Lấy trang messages mới nhất của conversation
      */
     public List<MessageDTO> getMessages(Long conversationId, Long userId) {
+        return getMessages(conversationId, userId, null, null, DEFAULT_MESSAGE_PAGE_SIZE);
+    }
+
+    /**
+     * Lấy một trang messages theo cursor là một message client đã có, luôn trả về theo thứ tự cũ -> mới.
+     * So theo Message.seq (thứ tự ghi) của message làm mốc, không theo message_id:
+     * - không có cursor: {@code size} tin mới nhất
+     * - beforeId: {@code size} tin ghi ngay trước beforeId (cuộn lên xem lịch sử); mốc không có trong
+     *   conversation thì trả trang rỗng, không quay về trang mới nhất (client phân trang sẽ lặp lại mãi)
+     * - afterId: {@code size} tin ghi ngay sau afterId (bắt kịp tin mới); mốc chưa được ghi (tin STOMP còn
+     *   trong write-behind) thì trả trang rỗng, client hỏi lại sau
+     * Trang đủ {@code size} phần tử nghĩa là có thể còn tin tiếp theo.
+     */
+    public List<MessageDTO> getMessages(Long conversationId, Long userId, Long beforeId, Long afterId, int size) {
         // Kiểm tra quyền truy cập
         // Admin có quyền truy cập tất cả conversations
         User user = userRepository.findById(userId).orElse(null);
         boolean isAdmin = user != null && user.isAdmin();
 
+        // Participants dùng cho cả kiểm tra quyền và trạng thái đã đọc (cursor)
+        List<ConversationParticipant> participants = participantRepository.findByConversationId(conversationId);
         if (!isAdmin) {
             // Chỉ check participant nếu không phải admin
-            List<ConversationParticipant> participants = participantRepository.findByConversationId(conversationId);
             boolean hasAccess = participants.stream().anyMatch(p -> p.getUserId().equals(userId));
             if (!hasAccess) {
                 throw new RuntimeException("Access denied");
             }
         }
 
-        List<Message> messages = messageRepository.findByConversationIdOrderByCreatedAtAsc(conversationId);
+        PageRequest limit = PageRequest.of(0, Math.max(1, Math.min(size, MAX_MESSAGE_PAGE_SIZE)));
+        List<Message> messages;
+        if (afterId != null) {
+            Long afterSeq = findSeq(conversationId, afterId);
+            messages = afterSeq != null
+                    ? messageRepository.findMessagesAfter(conversationId, afterSeq, limit)
+                    : List.of();
+        } else if (beforeId != null) {
+            Long beforeSeq = findSeq(conversationId, beforeId);
+            messages = beforeSeq != null
+                    ? new ArrayList<>(messageRepository.findMessagesBefore(conversationId, beforeSeq, limit))
+                    : new ArrayList<>();
+            Collections.reverse(messages);
+        } else {
+            messages = new ArrayList<>(messageRepository.findLatestMessages(conversationId, limit));
+            Collections.reverse(messages);
+        }
+        if (messages.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        // Thông tin người gửi của cả trang: một query
+        Set<Long> senderIds = messages.stream().map(Message::getSenderUserId).collect(Collectors.toSet());
+        Map<Long, User> senders = userRepository.findAllById(senderIds).stream()
+                .collect(Collectors.toMap(User::getUserId, Function.identity()));
+
+        // Cursor đọc theo user: participant, cộng admin đã mở xem mà không là participant
+        Map<Long, Long> readCursors = new HashMap<>();
+        participants.stream()
+                .filter(p -> p.getLastReadSeq() != null)
+                .forEach(p -> readCursors.merge(p.getUserId(), p.getLastReadSeq(), Math::max));
+        adminReadCursorRepository.findByConversationId(conversationId)
+                .forEach(c -> readCursors.merge(c.getUserId(), c.getLastReadSeq(), Math::max));
+
         return messages.stream()
-                .map(msg -> convertToMessageDTO(msg, userId))
+                .map(msg -> convertToMessageDTO(msg, userId, isReadByOthers(msg, readCursors),
+                        senders.get(msg.getSenderUserId())))
                 .collect(Collectors.toList());
     }
 
     /**
-     * Đánh dấu messages đã đọc
+     * Đánh dấu messages đã đọc: đẩy cursor của participant lên seq lớn nhất của conversation (một UPDATE).
+     * Admin không là participant thì dùng AdminReadCursor, không thêm admin vào conversation.
      */
     @Transactional
     public void markMessagesAsRead(Long conversationId, Long userId) {
-        List<Message> messages = messageRepository.findByConversationIdOrderByCreatedAtAsc(conversationId);
-        for (Message msg : messages) {
-            if (!msg.getSenderUserId().equals(userId) && !msg.getIsRead()) {
-                msg.setIsRead(true);
-                messageRepository.save(msg);
+        // Đọc đến message ghi sau cùng (seq lớn nhất), không theo tin nhắn cuối (chọn theo createdAt)
+        Long maxSeq = messageRepository.findMaxSeq(conversationId);
+        if (maxSeq == null) {
+            return;
+        }
+        int updated = participantRepository.advanceReadCursor(conversationId, userId, maxSeq);
+        if (updated == 0 && !conversationRepository.existsByConversationIdAndUserId(conversationId, userId)) {
+            // Admin không là participant: giữ cursor riêng, không thêm admin vào conversation
+            User user = userRepository.findById(userId).orElse(null);
+            if (user != null && user.isAdmin()) {
+                adminReadCursorRepository.advanceReadCursor(conversationId, userId, maxSeq);
             }
         }
     }
@@ -264,59 +419,100 @@ public class ChatService {
      * Convert Conversation to DTO
      */
     private ConversationDTO convertToConversationDTO(Conversation conversation, Long currentUserId) {
-        User creator = userRepository.findById(conversation.getCreatedByUserId())
-                .orElse(null);
+        return convertToConversationDTOs(List.of(conversation), currentUserId).get(0);
+    }
 
-        // Lấy last message
-        List<Message> messages = messageRepository.findByConversationIdOrderByCreatedAtAsc(conversation.getConversationId());
-        MessageDTO lastMessage = null;
-        if (!messages.isEmpty()) {
-            lastMessage = convertToMessageDTO(messages.get(messages.size() - 1), currentUserId);
+    /**
+     * Convert nhiều conversation cùng lúc: tin nhắn cuối lấy từ cột denormalize, unread đếm theo nhóm,
+     * participants và users load theo batch (3 query bất kể số conversation)
+     */
+    private List<ConversationDTO> convertToConversationDTOs(List<Conversation> conversations, Long currentUserId) {
+        if (conversations.isEmpty()) {
+            return List.of();
         }
-
-        // Lấy participants
-        List<ConversationParticipant> participants = participantRepository.findByConversationId(conversation.getConversationId());
-        List<ParticipantDTO> participantDTOs = participants.stream()
-                .map(p -> {
-                    User user = userRepository.findById(p.getUserId()).orElse(null);
-                    if (user != null) {
-                        return ParticipantDTO.builder()
-                                .userId(user.getUserId())
-                                .userName(user.getFullName())
-                                .userAvatarUrl(user.getAvatarUrl())
-                                .isAdmin(user.isAdmin())
-                                .joinedAt(p.getJoinedAt())
-                                .build();
-                    }
-                    return null;
-                })
-                .filter(p -> p != null)
+        List<Long> conversationIds = conversations.stream()
+                .map(Conversation::getConversationId)
                 .collect(Collectors.toList());
 
-        // Đếm unread
-        Long unreadCount = getUnreadCount(conversation.getConversationId(), currentUserId);
+        Map<Long, Long> unreadCounts = new HashMap<>();
+        for (Object[] row : messageRepository.countUnreadByConversation(conversationIds, currentUserId)) {
+            unreadCounts.put((Long) row[0], ((Number) row[1]).longValue());
+        }
 
-        return ConversationDTO.builder()
-                .conversationId(conversation.getConversationId())
-                .subject(conversation.getSubject())
-                .createdByUserId(conversation.getCreatedByUserId())
-                .createdByName(creator != null ? creator.getFullName() : null)
-                .createdByAvatarUrl(creator != null ? creator.getAvatarUrl() : null)
-                .status(conversation.getStatus().name())
-                .createdAt(conversation.getCreatedAt())
-                .updatedAt(conversation.getUpdatedAt())
-                .lastMessage(lastMessage)
-                .participants(participantDTOs)
-                .unreadCount(unreadCount)
-                .build();
+        Map<Long, List<ConversationParticipant>> participantsByConversation = participantRepository
+                .findByConversationIdIn(conversationIds).stream()
+                .collect(Collectors.groupingBy(ConversationParticipant::getConversationId));
+
+        Set<Long> userIds = new HashSet<>();
+        participantsByConversation.values().forEach(list -> list.forEach(p -> userIds.add(p.getUserId())));
+        for (Conversation conversation : conversations) {
+            userIds.add(conversation.getCreatedByUserId());
+            if (conversation.getLastMessageSenderId() != null) {
+                userIds.add(conversation.getLastMessageSenderId());
+            }
+        }
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getUserId, Function.identity()));
+
+        List<ConversationDTO> result = new ArrayList<>(conversations.size());
+        for (Conversation conversation : conversations) {
+            User creator = users.get(conversation.getCreatedByUserId());
+
+            MessageDTO lastMessage = null;
+            if (conversation.getLastMessageId() != null) {
+                User sender = users.get(conversation.getLastMessageSenderId());
+                lastMessage = MessageDTO.builder()
+                        .messageId(conversation.getLastMessageId())
+                        .conversationId(conversation.getConversationId())
+                        .senderUserId(conversation.getLastMessageSenderId())
+                        .senderName(sender != null ? sender.getFullName() : null)
+                        .senderAvatarUrl(sender != null ? sender.getAvatarUrl() : null)
+                        .content(conversation.getLastMessageContent())
+                        .attachmentUrls(List.of())
+                        .createdAt(conversation.getLastMessageAt())
+                        .isOwnMessage(currentUserId.equals(conversation.getLastMessageSenderId()))
+                        .build();
+            }
+
+            List<ParticipantDTO> participantDTOs = participantsByConversation
+                    .getOrDefault(conversation.getConversationId(), List.of()).stream()
+                    .map(p -> {
+                        User user = users.get(p.getUserId());
+                        if (user != null) {
+                            return ParticipantDTO.builder()
+                                    .userId(user.getUserId())
+                                    .userName(user.getFullName())
+                                    .userAvatarUrl(user.getAvatarUrl())
+                                    .isAdmin(user.isAdmin())
+                                    .joinedAt(p.getJoinedAt())
+                                    .build();
+                        }
+                        return null;
+                    })
+                    .filter(p -> p != null)
+                    .collect(Collectors.toList());
+
+            result.add(ConversationDTO.builder()
+                    .conversationId(conversation.getConversationId())
+                    .subject(conversation.getSubject())
+                    .createdByUserId(conversation.getCreatedByUserId())
+                    .createdByName(creator != null ? creator.getFullName() : null)
+                    .createdByAvatarUrl(creator != null ? creator.getAvatarUrl() : null)
+                    .status(conversation.getStatus().name())
+                    .createdAt(conversation.getCreatedAt())
+                    .updatedAt(conversation.getUpdatedAt())
+                    .lastMessage(lastMessage)
+                    .participants(participantDTOs)
+                    .unreadCount(unreadCounts.getOrDefault(conversation.getConversationId(), 0L))
+                    .build());
+        }
+        return result;
     }
 
     /**
      * Convert Message to DTO
      */
-    private MessageDTO convertToMessageDTO(Message message, Long currentUserId) {
-        User sender = userRepository.findById(message.getSenderUserId()).orElse(null);
-
+    private MessageDTO convertToMessageDTO(Message message, Long currentUserId, boolean read, User sender) {
         List<String> attachmentUrls = new ArrayList<>();
         if (message.getAttachmentUrls() != null && !message.getAttachmentUrls().isEmpty()) {
             attachmentUrls = List.of(message.getAttachmentUrls().split(","));
@@ -330,10 +526,48 @@ public class ChatService {
                 .senderAvatarUrl(sender != null ? sender.getAvatarUrl() : null)
                 .content(message.getContent())
                 .attachmentUrls(attachmentUrls)
-                .isRead(message.getIsRead())
+                .isRead(read)
                 .createdAt(message.getCreatedAt())
                 .isOwnMessage(message.getSenderUserId().equals(currentUserId))
                 .build();
     }
-}
 
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    /**
+     * Seq của message làm mốc phân trang (null nếu chưa ghi hoặc không thuộc conversation)
+     */
+    private Long findSeq(Long conversationId, Long messageId) {
+        return messageRepository.findById(messageId)
+                .filter(message -> message.getConversationId().equals(conversationId))
+                .map(Message::getSeq)
+                .orElse(null);
+    }
+
+    /**
+     * Message đã được người khác (không phải người gửi) đọc: cursor (userId -> lastReadSeq)
+     * của một người khác đã vượt qua nó
+     */
+    private static boolean isReadByOthers(Message message, Map<Long, Long> readCursors) {
+        if (message.getSeq() == null) {
+            return false;
+        }
+        for (Map.Entry<Long, Long> cursor : readCursors.entrySet()) {
+            if (!cursor.getKey().equals(message.getSenderUserId()) && cursor.getValue() >= message.getSeq()) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
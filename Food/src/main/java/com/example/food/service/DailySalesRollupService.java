@@ -0,0 +1,268 @@
+package com.example.food.service;
+
+import com.example.food.model.DailySalesRollup;
+import com.example.food.model.DailySalesRollupDelta;
+import com.example.food.model.Order;
+import com.example.food.repository.DailySalesRollupDeltaRepository;
+import com.example.food.repository.DailySalesRollupRepository;
+import com.example.food.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+
+/**
+ * Duy trì bảng daily_sales_rollup:
+ * - Transaction của order chỉ INSERT delta vào daily_sales_rollup_deltas (không khóa dòng rollup nào,
+ *   checkout không phải chờ nhau)
+ * - Mỗi FOLD_INTERVAL_MS, gom delta theo (ngày, trạng thái) rồi upsert vào rollup theo thứ tự cố định (không deadlock),
+ *   xóa delta đã gom trong cùng transaction; số liệu dashboard trễ tối đa vài giây
+ * - Rebuild (backfill) từ bảng orders khi bảng rollup trống, theo lịch hằng đêm cho vài ngày gần nhất, hoặc theo yêu cầu.
+ *   Rebuild chạy REPEATABLE READ: orders và delta cùng một snapshot, nên delta đã nằm trong snapshot bị xóa,
+ *   delta commit sau snapshot được gom sau (không đếm hai lần)
+ */
+@Service
+@Slf4j
+public class DailySalesRollupService {
+
+    private static final int NIGHTLY_REBUILD_DAYS = 3;
+    private static final long FOLD_INTERVAL_MS = 2000;
+    private static final int FOLD_BATCH_SIZE = 1000;
+    private static final int MAX_REBUILD_ATTEMPTS = 3;
+
+    private final DailySalesRollupRepository rollupRepository;
+    private final DailySalesRollupDeltaRepository deltaRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate foldTemplate;
+    private final TransactionTemplate rebuildTemplate;
+
+    public DailySalesRollupService(DailySalesRollupRepository rollupRepository,
+                                   DailySalesRollupDeltaRepository deltaRepository,
+                                   OrderRepository orderRepository,
+                                   PlatformTransactionManager transactionManager) {
+        this.rollupRepository = rollupRepository;
+        this.deltaRepository = deltaRepository;
+        this.orderRepository = orderRepository;
+        this.foldTemplate = new TransactionTemplate(transactionManager);
+        this.foldTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.rebuildTemplate = new TransactionTemplate(transactionManager);
+        this.rebuildTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.rebuildTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+    }
+
+    /**
+     * Ghi delta cho một lần chuyển trạng thái, chạy trong transaction của order (chỉ INSERT)
+     */
+    @EventListener
+    @Transactional
+    public void onOrderTransition(OrderTransitionEvent event) {
+        if (event.getFromStatus() == event.getToStatus()) {
+            return;
+        }
+        LocalDate day = event.getOrderCreatedAt().toLocalDate();
+        BigDecimal amount = event.getFinalAmount();
+        List<DailySalesRollupDelta> deltas = new ArrayList<>();
+        if (event.getFromStatus() != null) {
+            deltas.add(DailySalesRollupDelta.builder()
+                    .saleDate(day).status(event.getFromStatus()).countDelta(-1L).revenueDelta(amount.negate())
+                    .build());
+        }
+        deltas.add(DailySalesRollupDelta.builder()
+                .saleDate(day).status(event.getToStatus()).countDelta(1L).revenueDelta(amount)
+                .build());
+        deltaRepository.saveAll(deltas);
+    }
+
+    /**
+     * Gom delta đang chờ vào rollup, mỗi batch một transaction
+     */
+    @Scheduled(fixedDelay = FOLD_INTERVAL_MS)
+    public void foldDeltas() {
+        try {
+            Integer folded;
+            do {
+                folded = foldTemplate.execute(status -> foldBatch());
+            } while (folded != null && folded == FOLD_BATCH_SIZE);
+        } catch (Exception e) {
+            log.error("Error folding daily sales rollup deltas: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Số đơn và doanh thu theo ngày trong khoảng (1 query). Ngày không có đơn trả về 0.
+     */
+    @Transactional(readOnly = true)
+    public Map<LocalDate, DayTotals> getDailyTotals(LocalDate startDate, LocalDate endDate) {
+        Map<LocalDate, DayTotals> result = new LinkedHashMap<>();
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            result.put(day, new DayTotals(0, BigDecimal.ZERO));
+        }
+        for (Object[] row : rollupRepository.sumByDay(startDate, endDate, Order.OrderStatus.DONE)) {
+            result.put((LocalDate) row[0], new DayTotals(((Number) row[1]).longValue(), toBigDecimal(row[2])));
+        }
+        return result;
+    }
+
+    /**
+     * Tổng số đơn và doanh thu trong khoảng (1 query)
+     */
+    @Transactional(readOnly = true)
+    public DayTotals getTotals(LocalDate startDate, LocalDate endDate) {
+        List<Object[]> rows = rollupRepository.sumRange(startDate, endDate, Order.OrderStatus.DONE);
+        if (rows.isEmpty()) {
+            return new DayTotals(0, BigDecimal.ZERO);
+        }
+        Object[] row = rows.get(0);
+        return new DayTotals(((Number) row[0]).longValue(), toBigDecimal(row[1]));
+    }
+
+    /**
+     * Tính lại rollup cho khoảng ngày từ bảng orders, trong transaction REPEATABLE READ riêng.
+     * Xung đột với lần gom delta chạy cùng lúc thì thử lại
+     */
+    public int rebuild(LocalDate startDate, LocalDate endDate) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Integer days = rebuildTemplate.execute(status -> rebuildInSnapshot(startDate, endDate));
+                return days != null ? days : 0;
+            } catch (ConcurrencyFailureException | DataIntegrityViolationException e) {
+                if (attempt >= MAX_REBUILD_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("Daily sales rollup rebuild conflicted with delta folding, retrying: {}", e.getMessage());
+            }
+        }
+    }
+
+    private int rebuildInSnapshot(LocalDate startDate, LocalDate endDate) {
+        log.info("Rebuilding daily sales rollup from {} to {}", startDate, endDate);
+        // Khóa dòng rollup theo cùng thứ tự với foldBatch rồi mới xóa
+        rollupRepository.lockRange(startDate, endDate);
+        rollupRepository.deleteRange(startDate, endDate);
+        // Delta nhìn thấy trong snapshot này đã được tính trong aggregate bên dưới
+        deltaRepository.deleteRange(startDate, endDate);
+        rollupRepository.flush();
+
+        Map<LocalDate, Map<Order.OrderStatus, DailySalesRollup>> rows = new LinkedHashMap<>();
+        for (LocalDate day = startDate; !day.isAfter(endDate); day = day.plusDays(1)) {
+            Map<Order.OrderStatus, DailySalesRollup> dayRows = new LinkedHashMap<>();
+            for (Order.OrderStatus status : Order.OrderStatus.values()) {
+                dayRows.put(status, DailySalesRollup.builder().saleDate(day).status(status).build());
+            }
+            rows.put(day, dayRows);
+        }
+
+        List<Object[]> aggregates = orderRepository.aggregateByDayAndStatus(
+                startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay());
+        for (Object[] aggregate : aggregates) {
+            LocalDate day = (LocalDate) aggregate[0];
+            Order.OrderStatus status = (Order.OrderStatus) aggregate[1];
+            if (day == null || status == null || !rows.containsKey(day)) {
+                continue;
+            }
+            DailySalesRollup row = rows.get(day).get(status);
+            row.setOrderCount(((Number) aggregate[2]).longValue());
+            row.setRevenue(toBigDecimal(aggregate[3]));
+        }
+
+        List<DailySalesRollup> toSave = rows.values().stream()
+                .flatMap(dayRows -> dayRows.values().stream())
+                .collect(Collectors.toList());
+        rollupRepository.saveAll(toSave);
+
+        log.info("Rebuilt daily sales rollup: {} days, {} rows", rows.size(), toSave.size());
+        return rows.size();
+    }
+
+    /**
+     * Rebuild toàn bộ lịch sử đơn hàng
+     */
+    public int rebuildAll() {
+        LocalDateTime first = orderRepository.findFirstCreatedAt();
+        if (first == null) {
+            return 0;
+        }
+        return rebuild(first.toLocalDate(), LocalDate.now());
+    }
+
+    /**
+     * Backfill lần đầu khi bảng rollup còn trống
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        try {
+            if (rollupRepository.count() == 0) {
+                rebuildAll();
+            }
+        } catch (Exception e) {
+            log.error("Error backfilling daily sales rollup: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Đối soát hằng đêm cho vài ngày gần nhất
+     */
+    @Scheduled(cron = "0 15 2 * * *")
+    public void nightlyRebuild() {
+        LocalDate today = LocalDate.now();
+        rebuild(today.minusDays(NIGHTLY_REBUILD_DAYS), today);
+    }
+
+    /**
+     * Gom một batch delta theo (ngày, trạng thái), upsert theo thứ tự (ngày, tên trạng thái) - cùng thứ tự với
+     * lockRange - rồi xóa các delta đã gom. Trả về số delta đã xử lý
+     */
+    private int foldBatch() {
+        List<DailySalesRollupDelta> batch = deltaRepository.claimBatch(PageRequest.of(0, FOLD_BATCH_SIZE));
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        Map<RollupKey, DayTotals> totals = new TreeMap<>();
+        for (DailySalesRollupDelta delta : batch) {
+            totals.merge(new RollupKey(delta.getSaleDate(), delta.getStatus().name()),
+                    new DayTotals(delta.getCountDelta(), delta.getRevenueDelta()),
+                    (a, b) -> new DayTotals(a.orderCount() + b.orderCount(), a.revenue().add(b.revenue())));
+        }
+        totals.forEach((key, delta) ->
+                rollupRepository.upsertDelta(key.saleDate(), key.status(), delta.orderCount(), delta.revenue()));
+        deltaRepository.deleteAllInBatch(batch);
+        log.debug("Folded {} rollup deltas into {} rows", batch.size(), totals.size());
+        return batch.size();
+    }
+
+    private BigDecimal toBigDecimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+    }
+
+    public record DayTotals(long orderCount, BigDecimal revenue) {
+    }
+
+    private record RollupKey(LocalDate saleDate, String status) implements Comparable<RollupKey> {
+        @Override
+        public int compareTo(RollupKey other) {
+            int byDate = saleDate.compareTo(other.saleDate);
+            return byDate != 0 ? byDate : status.compareTo(other.status);
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.food.service;
+
+import com.example.food.model.DeliveryZone;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Index không gian bất biến cho các vùng giao hàng (lưới đều theo độ):
+ * - Mỗi vùng được đăng ký vào các ô lưới mà bounding box của nó phủ lên
+ * - Tra cứu: một lần hash ô chứa điểm -> vài vùng ứng viên -> kiểm tra bounding box -> point-in-polygon (ray casting)
+ * - Ứng viên trong ô đã sắp theo priority giảm dần, diện tích tăng dần (vùng nhỏ, cụ thể hơn thắng)
+ */
+public final class DeliveryZoneIndex {
+
+    private static final double MIN_CELL_DEGREES = 0.01;       // ~1.1 km
+    private static final int MAX_CELLS_PER_AXIS = 32;          // Vùng lớn không đăng ký quá nhiều ô
+
+    private final double cellDegrees;
+    private final Map<Long, Zone[]> cells;
+    private final int zoneCount;
+
+    private DeliveryZoneIndex(double cellDegrees, Map<Long, Zone[]> cells, int zoneCount) {
+        this.cellDegrees = cellDegrees;
+        this.cells = cells;
+        this.zoneCount = zoneCount;
+    }
+
+    public static DeliveryZoneIndex empty() {
+        return new DeliveryZoneIndex(MIN_CELL_DEGREES, Map.of(), 0);
+    }
+
+    public static DeliveryZoneIndex build(List<DeliveryZone> deliveryZones) {
+        List<Zone> zones = new ArrayList<>();
+        double maxSpan = 0;
+        for (DeliveryZone deliveryZone : deliveryZones) {
+            Zone zone = Zone.of(deliveryZone);
+            zones.add(zone);
+            maxSpan = Math.max(maxSpan, Math.max(zone.maxLat - zone.minLat, zone.maxLng - zone.minLng));
+        }
+        double cellDegrees = Math.max(MIN_CELL_DEGREES, maxSpan / MAX_CELLS_PER_AXIS);
+
+        Map<Long, List<Zone>> building = new HashMap<>();
+        for (Zone zone : zones) {
+            long minRow = cell(zone.minLat, cellDegrees);
+            long maxRow = cell(zone.maxLat, cellDegrees);
+            long minCol = cell(zone.minLng, cellDegrees);
+            long maxCol = cell(zone.maxLng, cellDegrees);
+            for (long row = minRow; row <= maxRow; row++) {
+                for (long col = minCol; col <= maxCol; col++) {
+                    building.computeIfAbsent(key(row, col), k -> new ArrayList<>()).add(zone);
+                }
+            }
+        }
+
+        Comparator<Zone> order = Comparator.comparingInt((Zone zone) -> zone.match.priority()).reversed()
+                .thenComparingDouble(zone -> zone.area);
+        Map<Long, Zone[]> cells = new HashMap<>();
+        building.forEach((key, candidates) -> {
+            candidates.sort(order);
+            cells.put(key, candidates.toArray(new Zone[0]));
+        });
+        return new DeliveryZoneIndex(cellDegrees, cells, zones.size());
+    }
+
+    /**
+     * Vùng chứa điểm (ưu tiên cao nhất); rỗng nếu điểm nằm ngoài mọi vùng
+     */
+    public Optional<Match> locate(double latitude, double longitude) {
+        Zone[] candidates = cells.get(key(cell(latitude, cellDegrees), cell(longitude, cellDegrees)));
+        if (candidates == null) {
+            return Optional.empty();
+        }
+        for (Zone zone : candidates) {
+            if (zone.contains(latitude, longitude)) {
+                return Optional.of(zone.match);
+            }
+        }
+        return Optional.empty();
+    }
+
+    public boolean isEmpty() {
+        return zoneCount == 0;
+    }
+
+    public int getZoneCount() {
+        return zoneCount;
+    }
+
+    /**
+     * Parse "lat,lng;lat,lng;..." thành mảng {lats, lngs}; lỗi định dạng ném IllegalArgumentException
+     */
+    public static double[][] parsePolygon(String polygon) {
+        if (polygon == null || polygon.isBlank()) {
+            throw new IllegalArgumentException("Đa giác vùng giao hàng không được để trống");
+        }
+        String[] vertices = polygon.trim().split("\\s*;\\s*");
+        List<double[]> points = new ArrayList<>();
+        for (String vertex : vertices) {
+            if (vertex.isBlank()) {
+                continue;
+            }
+            String[] parts = vertex.split("\\s*,\\s*");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Đỉnh không hợp lệ: " + vertex);
+            }
+            double lat = Double.parseDouble(parts[0].trim());
+            double lng = Double.parseDouble(parts[1].trim());
+            if (lat < -90 || lat > 90 || lng < -180 || lng > 180) {
+                throw new IllegalArgumentException("Tọa độ ngoài phạm vi: " + vertex);
+            }
+            points.add(new double[]{lat, lng});
+        }
+        // Bỏ đỉnh cuối nếu lặp lại đỉnh đầu (định dạng GeoJSON)
+        if (points.size() > 1 && Arrays.equals(points.get(0), points.get(points.size() - 1))) {
+            points.remove(points.size() - 1);
+        }
+        if (points.size() < 3) {
+            throw new IllegalArgumentException("Đa giác cần tối thiểu 3 đỉnh");
+        }
+        double[] lats = new double[points.size()];
+        double[] lngs = new double[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            lats[i] = points.get(i)[0];
+            lngs[i] = points.get(i)[1];
+        }
+        return new double[][]{lats, lngs};
+    }
+
+    private static long cell(double degrees, double cellDegrees) {
+        return (long) Math.floor(degrees / cellDegrees);
+    }
+
+    private static long key(long row, long col) {
+        return (row << 32) ^ (col & 0xFFFFFFFFL);
+    }
+
+    public record Match(Long zoneId, String zoneName, BigDecimal shippingFee, BigDecimal minOrderAmount,
+                        int estimatedMinutes, int priority) {
+    }
+
+    private static final class Zone {
+        private final Match match;
+        private final double[] lats;
+        private final double[] lngs;
+        private final double minLat;
+        private final double maxLat;
+        private final double minLng;
+        private final double maxLng;
+        private final double area;
+
+        private Zone(Match match, double[] lats, double[] lngs) {
+            this.match = match;
+            this.lats = lats;
+            this.lngs = lngs;
+            this.minLat = Arrays.stream(lats).min().orElseThrow();
+            this.maxLat = Arrays.stream(lats).max().orElseThrow();
+            this.minLng = Arrays.stream(lngs).min().orElseThrow();
+            this.maxLng = Arrays.stream(lngs).max().orElseThrow();
+            double twiceArea = 0;
+            for (int i = 0, j = lats.length - 1; i < lats.length; j = i++) {
+                twiceArea += lngs[j] * lats[i] - lngs[i] * lats[j];
+            }
+            this.area = Math.abs(twiceArea) / 2;
+        }
+
+        static Zone of(DeliveryZone zone) {
+            double[][] polygon = parsePolygon(zone.getPolygon());
+            Match match = new Match(zone.getZoneId(), zone.getZoneName(), zone.getShippingFee(),
+                    zone.getMinOrderAmount() != null ? zone.getMinOrderAmount() : BigDecimal.ZERO,
+                    zone.getEstimatedMinutes() != null ? zone.getEstimatedMinutes() : 30,
+                    zone.getPriority() != null ? zone.getPriority() : 0);
+            return new Zone(match, polygon[0], polygon[1]);
+        }
+
+        boolean contains(double lat, double lng) {
+            if (lat < minLat || lat > maxLat || lng < minLng || lng > maxLng) {
+                return false;
+            }
+            boolean inside = false;
+            for (int i = 0, j = lats.length - 1; i < lats.length; j = i++) {
+                if ((lats[i] > lat) != (lats[j] > lat)
+                        && lng < (lngs[j] - lngs[i]) * (lat - lats[i]) / (lats[j] - lats[i]) + lngs[i]) {
+                    inside = !inside;
+                }
+            }
+            return inside;
+        }
+    }
+}
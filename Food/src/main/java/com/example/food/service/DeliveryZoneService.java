@@ -0,0 +1,146 @@
+package com.example.food.service;
+
+import com.example.food.dto.DeliveryZoneDTO;
+import com.example.food.model.DeliveryZone;
+import com.example.food.repository.DeliveryZoneRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Quản lý vùng giao hàng và giữ DeliveryZoneIndex trong bộ nhớ:
+ * index nạp khi khởi động và build lại sau khi admin thêm / sửa / xóa vùng (sau commit)
+ */
+@Service
+@Slf4j
+public class DeliveryZoneService {
+
+    private final DeliveryZoneRepository deliveryZoneRepository;
+
+    private volatile DeliveryZoneIndex index = DeliveryZoneIndex.empty();
+
+    public DeliveryZoneService(DeliveryZoneRepository deliveryZoneRepository) {
+        this.deliveryZoneRepository = deliveryZoneRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadIndex() {
+        try {
+            reload();
+        } catch (Exception e) {
+            log.error("Error loading delivery zones: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Vùng giao hàng chứa tọa độ (không query DB)
+     */
+    public Optional<DeliveryZoneIndex.Match> locate(double latitude, double longitude) {
+        return index.locate(latitude, longitude);
+    }
+
+    /**
+     * Có vùng nào đang bật không (không có thì giao hàng theo phí cố định / theo khoảng cách như trước)
+     */
+    public boolean hasZones() {
+        return !index.isEmpty();
+    }
+
+    @Transactional(readOnly = true)
+    public List<DeliveryZoneDTO> getAllZones() {
+        return deliveryZoneRepository.findAllByOrderByPriorityDescZoneIdAsc().stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    @Transactional
+    public DeliveryZoneDTO createZone(DeliveryZoneDTO zoneDTO) {
+        DeliveryZone zone = new DeliveryZone();
+        applyFields(zoneDTO, zone);
+        DeliveryZone saved = deliveryZoneRepository.save(zone);
+        reloadAfterCommit();
+        log.info("Created delivery zone {} ({})", saved.getZoneId(), saved.getZoneName());
+        return convertToDTO(saved);
+    }
+
+    @Transactional
+    public DeliveryZoneDTO updateZone(Long zoneId, DeliveryZoneDTO zoneDTO) {
+        DeliveryZone zone = deliveryZoneRepository.findById(zoneId)
+                .orElseThrow(() -> new RuntimeException("Không tìm thấy vùng giao hàng với ID: " + zoneId));
+        applyFields(zoneDTO, zone);
+        DeliveryZone saved = deliveryZoneRepository.save(zone);
+        reloadAfterCommit();
+        return convertToDTO(saved);
+    }
+
+    @Transactional
+    public void deleteZone(Long zoneId) {
+        if (!deliveryZoneRepository.existsById(zoneId)) {
+            throw new RuntimeException("Không tìm thấy vùng giao hàng với ID: " + zoneId);
+        }
+        deliveryZoneRepository.deleteById(zoneId);
+        reloadAfterCommit();
+    }
+
+    private void applyFields(DeliveryZoneDTO zoneDTO, DeliveryZone zone) {
+        if (zoneDTO.getZoneName() == null || zoneDTO.getZoneName().trim().isEmpty()) {
+            throw new IllegalArgumentException("Tên vùng giao hàng không được để trống");
+        }
+        if (zoneDTO.getShippingFee() == null || zoneDTO.getShippingFee().compareTo(BigDecimal.ZERO) < 0) {
+            throw new IllegalArgumentException("Phí ship của vùng không hợp lệ");
+        }
+        // Kiểm tra định dạng đa giác trước khi lưu (index build lại sẽ không lỗi)
+        DeliveryZoneIndex.parsePolygon(zoneDTO.getPolygon());
+
+        zone.setZoneName(zoneDTO.getZoneName().trim());
+        zone.setPolygon(zoneDTO.getPolygon().trim());
+        zone.setShippingFee(zoneDTO.getShippingFee());
+        zone.setMinOrderAmount(zoneDTO.getMinOrderAmount() != null ? zoneDTO.getMinOrderAmount() : BigDecimal.ZERO);
+        zone.setEstimatedMinutes(zoneDTO.getEstimatedMinutes() != null ? zoneDTO.getEstimatedMinutes() : 30);
+        zone.setPriority(zoneDTO.getPriority() != null ? zoneDTO.getPriority() : 0);
+        zone.setEnabled(zoneDTO.getEnabled() == null || zoneDTO.getEnabled());
+    }
+
+    private void reload() {
+        List<DeliveryZone> zones = deliveryZoneRepository.findByEnabledTrue();
+        index = DeliveryZoneIndex.build(zones);
+        log.info("Delivery zone index built with {} zones", zones.size());
+    }
+
+    private void reloadAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reload();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reload();
+            }
+        });
+    }
+
+    private DeliveryZoneDTO convertToDTO(DeliveryZone zone) {
+        return DeliveryZoneDTO.builder()
+                .zoneId(zone.getZoneId())
+                .zoneName(zone.getZoneName())
+                .polygon(zone.getPolygon())
+                .shippingFee(zone.getShippingFee())
+                .minOrderAmount(zone.getMinOrderAmount())
+                .estimatedMinutes(zone.getEstimatedMinutes())
+                .priority(zone.getPriority())
+                .enabled(zone.getEnabled())
+                .createdAt(zone.getCreatedAt())
+                .updatedAt(zone.getUpdatedAt())
+                .build();
+    }
+}
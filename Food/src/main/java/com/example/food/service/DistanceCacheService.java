@@ -0,0 +1,165 @@
+package com.example.food.service;
+
+import com.example.food.config.ShippingConfig;
+import com.example.food.model.DistanceCache;
+import com.example.food.repository.DistanceCacheRepository;
+import com.example.food.util.GeoHashUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Khoảng cách giao hàng qua cache hai tầng:
+ * - Tọa độ được lượng tử hóa theo ô geohash (tính khoảng cách giữa tâm các ô), nên mọi địa chỉ
+ *   trong cùng khu dùng chung một kết quả
+ * - Tầng 1: LRU trong bộ nhớ theo khóa "geohash gốc:geohash đích"
+ * - Tầng 2: bảng distance_cache (tọa độ tâm ô, expiresAt); chỉ khi cả hai tầng trượt mới gọi DistanceProvider
+ * - Dòng hết hạn được xóa theo batch mỗi đêm
+ * - persist = false (báo giá từ endpoint công khai): chỉ đọc tầng 2, kết quả mới chỉ giữ trong LRU
+ */
+@Service
+@Slf4j
+public class DistanceCacheService {
+
+    private static final int COORDINATE_SCALE = 8;   // Khớp scale cột origin_lat / destination_lat...
+    private static final int PURGE_BATCH_SIZE = 500;
+
+    private final DistanceCacheRepository distanceCacheRepository;
+    private final ShippingConfig shippingConfig;
+    private final DistanceProvider distanceProvider;
+    private final Map<String, CachedDistance> memoryCache;
+    private final TransactionTemplate requiresNew;
+
+    public DistanceCacheService(DistanceCacheRepository distanceCacheRepository,
+                                ShippingConfig shippingConfig,
+                                List<DistanceProvider> providers,
+                                PlatformTransactionManager transactionManager) {
+        this.distanceCacheRepository = distanceCacheRepository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.shippingConfig = shippingConfig;
+        this.distanceProvider = providers.stream()
+                .filter(provider -> provider.getName().equals(shippingConfig.getDistanceProvider()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException(
+                        "Unknown shipping.distance-provider: " + shippingConfig.getDistanceProvider()));
+        int maxEntries = shippingConfig.getDistanceCacheSize();
+        this.memoryCache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedDistance> eldest) {
+                return size() > maxEntries;
+            }
+        });
+        log.info("Distance provider: {}", distanceProvider.getName());
+    }
+
+    /**
+     * Khoảng cách từ cửa hàng tới tọa độ giao hàng
+     */
+    public Result getDistanceFromStore(double destinationLat, double destinationLng, boolean persist) {
+        return getDistance(shippingConfig.getStoreLatitude(), shippingConfig.getStoreLongitude(),
+                destinationLat, destinationLng, persist);
+    }
+
+    public Result getDistance(double originLat, double originLng, double destinationLat, double destinationLng,
+                              boolean persist) {
+        int precision = shippingConfig.getGeohashPrecision();
+        String originHash = GeoHashUtil.encode(originLat, originLng, precision);
+        String destinationHash = GeoHashUtil.encode(destinationLat, destinationLng, precision);
+        String key = originHash + ":" + destinationHash;
+        LocalDateTime now = LocalDateTime.now();
+
+        CachedDistance cached = memoryCache.get(key);
+        if (cached != null && cached.expiresAt().isAfter(now)) {
+            return new Result(cached.distance(), true);
+        }
+
+        double[] origin = GeoHashUtil.decodeCenter(originHash);
+        double[] destination = GeoHashUtil.decodeCenter(destinationHash);
+        BigDecimal oLat = coordinate(origin[0]);
+        BigDecimal oLng = coordinate(origin[1]);
+        BigDecimal dLat = coordinate(destination[0]);
+        BigDecimal dLng = coordinate(destination[1]);
+
+        List<DistanceCache> rows = distanceCacheRepository.findByCoordinates(oLat, oLng, dLat, dLng, now);
+        if (!rows.isEmpty()) {
+            DistanceCache row = rows.get(0);
+            DistanceProvider.Distance distance = new DistanceProvider.Distance(
+                    row.getDistanceMeters(), row.getDurationSeconds());
+            memoryCache.put(key, new CachedDistance(distance, row.getExpiresAt()));
+            return new Result(distance, true);
+        }
+
+        DistanceProvider.Distance distance = distanceProvider.measure(
+                origin[0], origin[1], destination[0], destination[1]);
+        LocalDateTime expiresAt = now.plusDays(shippingConfig.getDistanceCacheTtlDays());
+        if (persist) {
+            saveRow(key, oLat, oLng, dLat, dLng, distance, expiresAt);
+        }
+        memoryCache.put(key, new CachedDistance(distance, expiresAt));
+        return new Result(distance, false);
+    }
+
+    private void saveRow(String key, BigDecimal oLat, BigDecimal oLng, BigDecimal dLat, BigDecimal dLng,
+                         DistanceProvider.Distance distance, LocalDateTime expiresAt) {
+        try {
+            // Transaction riêng: được gọi trong transaction tạo đơn, lỗi ghi cache không được làm nó rollback-only
+            requiresNew.executeWithoutResult(status -> distanceCacheRepository.save(DistanceCache.builder()
+                    .originLat(oLat)
+                    .originLng(oLng)
+                    .destinationLat(dLat)
+                    .destinationLng(dLng)
+                    .distanceMeters(distance.distanceMeters())
+                    .durationSeconds(distance.durationSeconds())
+                    .expiresAt(expiresAt)
+                    .build()));
+        } catch (Exception e) {
+            // Lỗi ghi cache không được làm hỏng việc báo giá
+            log.warn("Error saving distance cache for {}: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Xóa các dòng distance_cache đã hết hạn, mỗi batch PURGE_BATCH_SIZE dòng
+     */
+    @Scheduled(cron = "0 30 4 * * *")
+    public int purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted = 0;
+        List<Long> ids;
+        do {
+            ids = distanceCacheRepository.findExpiredIds(now, PageRequest.of(0, PURGE_BATCH_SIZE));
+            if (!ids.isEmpty()) {
+                deleted += distanceCacheRepository.deleteExpiredCache(ids, now);
+            }
+        } while (ids.size() == PURGE_BATCH_SIZE);
+        log.info("Purged {} expired distance cache rows", deleted);
+        return deleted;
+    }
+
+    public int getMemoryCacheSize() {
+        return memoryCache.size();
+    }
+
+    private static BigDecimal coordinate(double value) {
+        return BigDecimal.valueOf(value).setScale(COORDINATE_SCALE, RoundingMode.HALF_UP);
+    }
+
+    public record Result(DistanceProvider.Distance distance, boolean fromCache) {
+    }
+
+    private record CachedDistance(DistanceProvider.Distance distance, LocalDateTime expiresAt) {
+    }
+}
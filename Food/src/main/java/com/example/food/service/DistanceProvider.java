@@ -0,0 +1,15 @@
+package com.example.food.service;
+
+/**
+ * Nguồn tính khoảng cách / thời gian giao hàng giữa hai tọa độ.
+ * Chọn provider bằng cấu hình shipping.distance-provider (theo getName()).
+ */
+public interface DistanceProvider {
+
+    String getName();
+
+    Distance measure(double originLat, double originLng, double destinationLat, double destinationLng);
+
+    record Distance(int distanceMeters, int durationSeconds) {
+    }
+}
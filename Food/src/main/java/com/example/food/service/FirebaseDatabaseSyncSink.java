@@ -0,0 +1,47 @@
+package com.example.food.service;
+
+import com.google.firebase.database.FirebaseDatabase;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ghi lên Firebase Realtime Database qua Admin SDK (updateChildrenAsync ở gốc).
+ * Chạy với Firebase emulator: đặt biến môi trường FIREBASE_DATABASE_EMULATOR_HOST (SDK tự trỏ tới emulator).
+ */
+@Component
+public class FirebaseDatabaseSyncSink implements FirebaseSyncSink {
+
+    public static final String NAME = "firebase";
+
+    private final ObjectProvider<FirebaseDatabase> firebaseDatabase;
+    private final long writeTimeoutMs;
+
+    public FirebaseDatabaseSyncSink(ObjectProvider<FirebaseDatabase> firebaseDatabase,
+                                    @Value("${app.firebase.sync.write-timeout-ms:10000}") long writeTimeoutMs) {
+        this.firebaseDatabase = firebaseDatabase;
+        this.writeTimeoutMs = writeTimeoutMs;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public boolean isAvailable() {
+        return firebaseDatabase.getIfAvailable() != null;
+    }
+
+    @Override
+    public void updateChildren(Map<String, Object> updates) throws Exception {
+        FirebaseDatabase database = firebaseDatabase.getIfAvailable();
+        if (database == null) {
+            throw new IllegalStateException("FirebaseDatabase chưa được cấu hình");
+        }
+        database.getReference().updateChildrenAsync(updates).get(writeTimeoutMs, TimeUnit.MILLISECONDS);
+    }
+}
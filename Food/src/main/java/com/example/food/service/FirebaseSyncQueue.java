@@ -0,0 +1,337 @@
+package com.example.food.service;
+
+import com.example.food.dto.FirebaseSyncStatsDTO;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hàng đợi đồng bộ Firebase có giới hạn, gom ghi theo path:
+ * - enqueue(path, value): path đang chờ thì ghi đè giá trị (coalesce), path mới chiếm một chỗ trong queue
+ * - Trả về future hoàn tất khi giá trị (hoặc giá trị mới hơn của cùng path) đã ghi xong lên sink,
+ *   lỗi khi bị từ chối / bỏ: nơi gọi (outbox) chỉ đánh dấu xong sau khi ghi thật, lỗi thì retry theo backoff của nó
+ * - Đầy: chờ tối đa offerTimeoutMs rồi từ chối, không chặn vô hạn
+ * - Một thread flush mỗi flushIntervalMs: lấy tối đa maxBatchPaths path -> một lần multi-path updateChildren
+ * - Flush lỗi: đưa các path về queue (trừ khi đã có giá trị mới hơn), backoff theo số lần lỗi liên tiếp,
+ *   path lỗi quá MAX_ATTEMPTS lần thì bỏ (future lỗi)
+ * - Tắt ứng dụng: ngừng nhận, flush nốt phần còn lại trong SHUTDOWN_DRAIN_SECONDS, path còn sót thì future lỗi
+ * - Sink cấu hình không dùng được thì không khởi động (sink "local" trong bộ nhớ phải chọn rõ ràng)
+ * Các path phải là node không lồng nhau (Firebase không cho multi-path update có path cha - con).
+ */
+@Service
+@Slf4j
+public class FirebaseSyncQueue {
+
+    private static final int MAX_ATTEMPTS = 5;
+    private static final long MAX_BACKOFF_MS = 30_000;
+    private static final long SHUTDOWN_DRAIN_SECONDS = 10;
+    private static final int LATENCY_WINDOW = 512;
+
+    private final FirebaseSyncSink sink;
+    private final int capacity;
+    private final int maxBatchPaths;
+    private final long offerTimeoutMs;
+    private final long flushIntervalMs;
+
+    private final Object lock = new Object();
+    private final LinkedHashMap<String, PendingWrite> pending = new LinkedHashMap<>();
+    private boolean accepting = true;
+
+    private final ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "firebase-sync");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private int consecutiveFailures = 0;
+    private long retryNotBefore = 0;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong flushes = new AtomicLong();
+    private final AtomicLong flushedPaths = new AtomicLong();
+    private final AtomicLong failedFlushes = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile int lastBatchSize = 0;
+
+    private final long[] latenciesNanos = new long[LATENCY_WINDOW];
+    private long latencySamples = 0;
+
+    public FirebaseSyncQueue(List<FirebaseSyncSink> sinks,
+                             @Value("${app.firebase.sync.sink:firebase}") String sinkName,
+                             @Value("${app.firebase.sync.capacity:5000}") int capacity,
+                             @Value("${app.firebase.sync.max-batch-paths:500}") int maxBatchPaths,
+                             @Value("${app.firebase.sync.offer-timeout-ms:50}") long offerTimeoutMs,
+                             @Value("${app.firebase.sync.flush-interval-ms:100}") long flushIntervalMs) {
+        FirebaseSyncSink selected = sinks.stream()
+                .filter(sink -> sink.getName().equals(sinkName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown app.firebase.sync.sink: " + sinkName));
+        if (!selected.isAvailable()) {
+            // Không tự chuyển sang sink trong bộ nhớ: tin nhắn sẽ "đồng bộ" mà không tới được Firebase
+            throw new IllegalStateException("Firebase sync sink '" + selected.getName() + "' is not available; "
+                    + "configure Firebase or set app.firebase.sync.sink=" + LocalFirebaseSyncSink.NAME);
+        }
+        this.sink = selected;
+        this.capacity = capacity;
+        this.maxBatchPaths = maxBatchPaths;
+        this.offerTimeoutMs = offerTimeoutMs;
+        this.flushIntervalMs = flushIntervalMs;
+        this.flusher.scheduleWithFixedDelay(this::flushDue, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        log.info("Firebase sync sink: {} (capacity {}, batch {}, interval {}ms)",
+                sink.getName(), capacity, maxBatchPaths, flushIntervalMs);
+    }
+
+    /**
+     * Đưa một ghi (path -> value) vào queue. Future hoàn tất khi đã ghi lên sink; lỗi (RejectedExecutionException)
+     * ngay nếu queue đầy quá offerTimeoutMs hoặc đang tắt, lỗi sau này nếu path bị bỏ
+     */
+    public CompletableFuture<Void> enqueue(String path, Object value) {
+        CompletableFuture<Void> written = new CompletableFuture<>();
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(offerTimeoutMs);
+        synchronized (lock) {
+            while (true) {
+                if (!accepting) {
+                    return reject(written, "Firebase sync queue is shutting down");
+                }
+                PendingWrite existing = pending.get(path);
+                if (existing != null) {
+                    // Giá trị mới thay giá trị cũ: ghi xong giá trị mới cũng là xong cho các ghi cũ
+                    pending.put(path, new PendingWrite(value, 0, existing.waitersWith(written)));
+                    coalesced.incrementAndGet();
+                    return written;
+                }
+                if (pending.size() < capacity) {
+                    pending.put(path, new PendingWrite(value, 0, List.of(written)));
+                    enqueued.incrementAndGet();
+                    return written;
+                }
+                long remainingNanos = deadline - System.nanoTime();
+                if (remainingNanos <= 0) {
+                    return reject(written, "Firebase sync queue is full");
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(lock, remainingNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return reject(written, "Interrupted while waiting for Firebase sync queue");
+                }
+            }
+        }
+    }
+
+    private CompletableFuture<Void> reject(CompletableFuture<Void> written, String reason) {
+        rejected.incrementAndGet();
+        written.completeExceptionally(new RejectedExecutionException(reason));
+        return written;
+    }
+
+    public int getQueueDepth() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    public FirebaseSyncStatsDTO getStats() {
+        long[] sorted;
+        synchronized (latenciesNanos) {
+            sorted = Arrays.copyOf(latenciesNanos, (int) Math.min(latencySamples, LATENCY_WINDOW));
+        }
+        Arrays.sort(sorted);
+        return FirebaseSyncStatsDTO.builder()
+                .sink(sink.getName())
+                .queueDepth(getQueueDepth())
+                .capacity(capacity)
+                .enqueued(enqueued.get())
+                .coalesced(coalesced.get())
+                .rejected(rejected.get())
+                .flushes(flushes.get())
+                .flushedPaths(flushedPaths.get())
+                .failedFlushes(failedFlushes.get())
+                .dropped(dropped.get())
+                .lastBatchSize(lastBatchSize)
+                .p50FlushLatencyMs(percentile(sorted, 0.50) / 1_000_000.0)
+                .p99FlushLatencyMs(percentile(sorted, 0.99) / 1_000_000.0)
+                .build();
+    }
+
+    /**
+     * Ngừng nhận ghi mới, chờ lần flush đang chạy rồi flush hết phần còn lại (bỏ qua backoff)
+     */
+    @PreDestroy
+    public void shutdown() {
+        synchronized (lock) {
+            accepting = false;
+            lock.notifyAll();
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(SHUTDOWN_DRAIN_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SHUTDOWN_DRAIN_SECONDS);
+        while (getQueueDepth() > 0 && System.nanoTime() < deadline) {
+            Map<String, PendingWrite> batch = takeBatch();
+            if (!write(batch)) {
+                break;
+            }
+        }
+        Map<String, PendingWrite> remaining = new LinkedHashMap<>();
+        synchronized (lock) {
+            remaining.putAll(pending);
+            pending.clear();
+        }
+        if (!remaining.isEmpty()) {
+            // Nơi gọi (outbox) giữ event ở trạng thái chờ, lần chạy sau gửi lại
+            log.error("Firebase sync stopped with {} unsynced paths", remaining.size());
+            RejectedExecutionException stopped = new RejectedExecutionException("Firebase sync queue stopped");
+            remaining.values().forEach(write -> write.fail(stopped));
+        }
+    }
+
+    private void flushDue() {
+        try {
+            if (System.currentTimeMillis() < retryNotBefore) {
+                return;
+            }
+            // Queue còn nhiều thì flush liên tiếp các batch đầy, không chờ hết interval
+            while (true) {
+                Map<String, PendingWrite> batch = takeBatch();
+                if (batch.isEmpty() || !write(batch) || batch.size() < maxBatchPaths) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.error("Error flushing Firebase sync queue: {}", e.getMessage(), e);
+        }
+    }
+
+    private Map<String, PendingWrite> takeBatch() {
+        Map<String, PendingWrite> batch = new LinkedHashMap<>();
+        synchronized (lock) {
+            Iterator<Map.Entry<String, PendingWrite>> iterator = pending.entrySet().iterator();
+            while (iterator.hasNext() && batch.size() < maxBatchPaths) {
+                Map.Entry<String, PendingWrite> entry = iterator.next();
+                batch.put(entry.getKey(), entry.getValue());
+                iterator.remove();
+            }
+            if (!batch.isEmpty()) {
+                lock.notifyAll();
+            }
+        }
+        return batch;
+    }
+
+    /**
+     * Ghi một batch; lỗi thì đưa lại queue và hẹn backoff. Trả về true nếu ghi thành công
+     */
+    private boolean write(Map<String, PendingWrite> batch) {
+        if (batch.isEmpty()) {
+            return true;
+        }
+        Map<String, Object> updates = new LinkedHashMap<>();
+        batch.forEach((path, write) -> updates.put(path, write.value()));
+
+        long started = System.nanoTime();
+        try {
+            sink.updateChildren(updates);
+        } catch (Exception e) {
+            failedFlushes.incrementAndGet();
+            requeue(batch, e);
+            consecutiveFailures++;
+            long backoff = Math.min(MAX_BACKOFF_MS, flushIntervalMs << Math.min(consecutiveFailures, 16));
+            retryNotBefore = System.currentTimeMillis() + backoff;
+            log.warn("Firebase sync flush of {} paths failed (retry in {}ms): {}", batch.size(), backoff, e.getMessage());
+            return false;
+        }
+        recordLatency(System.nanoTime() - started);
+        consecutiveFailures = 0;
+        retryNotBefore = 0;
+        flushes.incrementAndGet();
+        flushedPaths.addAndGet(batch.size());
+        lastBatchSize = batch.size();
+        batch.values().forEach(PendingWrite::complete);
+        log.debug("Flushed {} paths to Firebase sink {}", batch.size(), sink.getName());
+        return true;
+    }
+
+    private void requeue(Map<String, PendingWrite> batch, Exception cause) {
+        List<PendingWrite> droppedWrites = new ArrayList<>();
+        synchronized (lock) {
+            batch.forEach((path, write) -> {
+                PendingWrite newer = pending.get(path);
+                if (newer != null) {
+                    // Giá trị mới hơn đã vào queue trong lúc ghi: giữ giá trị mới, chờ cùng nó
+                    pending.put(path, new PendingWrite(newer.value(), newer.attempts(), newer.waitersWith(write.waiters())));
+                    return;
+                }
+                int attempts = write.attempts() + 1;
+                if (attempts >= MAX_ATTEMPTS) {
+                    dropped.incrementAndGet();
+                    droppedWrites.add(write);
+                    log.error("Dropping Firebase write for {} after {} attempts", path, attempts);
+                    return;
+                }
+                // Có thể vượt capacity một batch
+                pending.put(path, new PendingWrite(write.value(), attempts, write.waiters()));
+            });
+        }
+        droppedWrites.forEach(write -> write.fail(cause));
+    }
+
+    private void recordLatency(long latencyNanos) {
+        synchronized (latenciesNanos) {
+            latenciesNanos[(int) (latencySamples % LATENCY_WINDOW)] = latencyNanos;
+            latencySamples++;
+        }
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+    }
+
+    /**
+     * Giá trị chờ ghi của một path và các future đang chờ nó (gồm cả các ghi cũ đã bị coalesce)
+     */
+    private record PendingWrite(Object value, int attempts, List<CompletableFuture<Void>> waiters) {
+
+        List<CompletableFuture<Void>> waitersWith(CompletableFuture<Void> waiter) {
+            return waitersWith(List.of(waiter));
+        }
+
+        List<CompletableFuture<Void>> waitersWith(List<CompletableFuture<Void>> more) {
+            List<CompletableFuture<Void>> merged = new ArrayList<>(waiters.size() + more.size());
+            merged.addAll(waiters);
+            merged.addAll(more);
+            return merged;
+        }
+
+        void complete() {
+            waiters.forEach(waiter -> waiter.complete(null));
+        }
+
+        void fail(Throwable cause) {
+            waiters.forEach(waiter -> waiter.completeExceptionally(cause));
+        }
+    }
+}
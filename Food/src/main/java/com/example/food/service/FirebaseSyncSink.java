@@ -0,0 +1,24 @@
+package com.example.food.service;
+
+import java.util.Map;
+
+/**
+ * Đích ghi của FirebaseSyncQueue: một lần multi-path update (path -> giá trị) ở gốc database.
+ * Chọn sink bằng cấu hình app.firebase.sync.sink (theo getName()).
+ */
+public interface FirebaseSyncSink {
+
+    String getName();
+
+    /**
+     * Sink có dùng được không (ví dụ đã cấu hình Firebase chưa)
+     */
+    default boolean isAvailable() {
+        return true;
+    }
+
+    /**
+     * Ghi tất cả path trong một lần (atomic phía Firebase), chờ tới khi xong; lỗi thì ném exception
+     */
+    void updateChildren(Map<String, Object> updates) throws Exception;
+}
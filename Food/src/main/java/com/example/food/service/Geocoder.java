@@ -0,0 +1,17 @@
+package com.example.food.service;
+
+import java.util.Optional;
+
+/**
+ * Nguồn chuyển địa chỉ (khóa chuẩn của AddressKeyUtil) thành tọa độ.
+ * Chọn geocoder bằng cấu hình shipping.geocoder (theo getName()).
+ */
+public interface Geocoder {
+
+    String getName();
+
+    Optional<Coordinates> geocode(String addressKey);
+
+    record Coordinates(double latitude, double longitude) {
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.food.service;
+
+import com.example.food.config.ShippingConfig;
+import com.example.food.model.GeocodeCache;
+import com.example.food.repository.GeocodeCacheRepository;
+import com.example.food.util.AddressKeyUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Geocode địa chỉ giao hàng qua cache theo khóa chuẩn (AddressKeyUtil):
+ * - Tầng 1: LRU trong bộ nhớ (giới hạn shipping.geocode-cache-size)
+ * - Tầng 2: bảng geocode_cache, hết hạn sau shipping.geocode-cache-ttl-days (dòng hết hạn được geocode lại
+ *   và ghi đè, không tạo dòng mới); dòng hết hạn được xóa theo batch mỗi đêm
+ * - Chỉ khi cả hai tầng trượt mới gọi Geocoder; khách quen luôn trúng cache
+ * - Ghi cache trong transaction riêng (REQUIRES_NEW) vì được gọi từ trong transaction tạo đơn
+ * - persist = false (báo giá từ endpoint công khai): chỉ đọc tầng 2, kết quả mới chỉ giữ trong LRU
+ */
+@Service
+@Slf4j
+public class GeocodingService {
+
+    private static final int COORDINATE_SCALE = 8;
+    private static final int PURGE_BATCH_SIZE = 500;
+
+    private final GeocodeCacheRepository geocodeCacheRepository;
+    private final Geocoder geocoder;
+    private final int ttlDays;
+    private final TransactionTemplate requiresNew;
+    private final Map<String, CachedCoordinates> memoryCache;
+
+    public GeocodingService(GeocodeCacheRepository geocodeCacheRepository,
+                            ShippingConfig shippingConfig,
+                            List<Geocoder> geocoders,
+                            PlatformTransactionManager transactionManager) {
+        this.geocodeCacheRepository = geocodeCacheRepository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.geocoder = geocoders.stream()
+                .filter(candidate -> candidate.getName().equals(shippingConfig.getGeocoder()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException(
+                        "Unknown shipping.geocoder: " + shippingConfig.getGeocoder()));
+        this.ttlDays = shippingConfig.getGeocodeCacheTtlDays();
+        int maxEntries = shippingConfig.getGeocodeCacheSize();
+        this.memoryCache = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedCoordinates> eldest) {
+                return size() > maxEntries;
+            }
+        });
+        log.info("Geocoder: {}", geocoder.getName());
+    }
+
+    /**
+     * Tọa độ theo các thành phần địa chỉ; rỗng nếu thiếu quận / thành phố hoặc không geocode được
+     */
+    public Optional<Geocoder.Coordinates> geocode(String street, String ward, String district, String city,
+                                                  boolean persist) {
+        return geocodeKey(AddressKeyUtil.key(street, ward, district, city), persist);
+    }
+
+    /**
+     * Tọa độ theo địa chỉ dạng text (Order.deliveryAddress, User.address)
+     */
+    public Optional<Geocoder.Coordinates> geocode(String address, boolean persist) {
+        return geocodeKey(AddressKeyUtil.keyFromText(address), persist);
+    }
+
+    public int getMemoryCacheSize() {
+        return memoryCache.size();
+    }
+
+    /**
+     * Xóa các dòng geocode_cache đã hết hạn, mỗi batch PURGE_BATCH_SIZE dòng
+     */
+    @Scheduled(cron = "0 45 4 * * *")
+    public int purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        int deleted = 0;
+        List<Long> ids;
+        do {
+            ids = geocodeCacheRepository.findExpiredIds(now, PageRequest.of(0, PURGE_BATCH_SIZE));
+            if (!ids.isEmpty()) {
+                deleted += geocodeCacheRepository.deleteExpiredCache(ids, now);
+            }
+        } while (ids.size() == PURGE_BATCH_SIZE);
+        log.info("Purged {} expired geocode cache rows", deleted);
+        return deleted;
+    }
+
+    private Optional<Geocoder.Coordinates> geocodeKey(String key, boolean persist) {
+        if (key == null) {
+            return Optional.empty();
+        }
+        LocalDateTime now = LocalDateTime.now();
+        CachedCoordinates cached = memoryCache.get(key);
+        if (cached != null && cached.expiresAt().isAfter(now)) {
+            return Optional.of(cached.coordinates());
+        }
+
+        Optional<GeocodeCache> row = geocodeCacheRepository.findByAddressKey(key);
+        if (row.isPresent() && !row.get().isExpired()) {
+            Geocoder.Coordinates coordinates = new Geocoder.Coordinates(
+                    row.get().getLatitude().doubleValue(), row.get().getLongitude().doubleValue());
+            memoryCache.put(key, new CachedCoordinates(coordinates, row.get().getExpiresAt()));
+            return Optional.of(coordinates);
+        }
+
+        Optional<Geocoder.Coordinates> resolved = geocoder.geocode(key);
+        if (resolved.isEmpty()) {
+            log.debug("Could not geocode address key {}", key);
+            return Optional.empty();
+        }
+        LocalDateTime expiresAt = now.plusDays(ttlDays);
+        if (!persist) {
+            memoryCache.put(key, new CachedCoordinates(resolved.get(), expiresAt));
+            return resolved;
+        }
+        // Dòng hết hạn thì ghi đè tại chỗ (address_key là unique). Bản sao tách rời, không sửa entity
+        // đang được quản lý trong transaction của người gọi
+        GeocodeCache entry = GeocodeCache.builder()
+                .geocodeId(row.map(GeocodeCache::getGeocodeId).orElse(null))
+                .addressKey(key)
+                .latitude(coordinate(resolved.get().latitude()))
+                .longitude(coordinate(resolved.get().longitude()))
+                .provider(geocoder.getName())
+                .createdAt(row.map(GeocodeCache::getCreatedAt).orElse(null))
+                .expiresAt(expiresAt)
+                .build();
+        try {
+            // Transaction riêng: lỗi trùng khóa không làm transaction checkout bị rollback-only
+            requiresNew.executeWithoutResult(status -> geocodeCacheRepository.save(entry));
+        } catch (Exception e) {
+            // Request khác vừa lưu cùng khóa (unique) hoặc lỗi DB: vẫn trả kết quả vừa geocode
+            log.warn("Error saving geocode cache for {}: {}", key, e.getMessage());
+        }
+        memoryCache.put(key, new CachedCoordinates(resolved.get(), expiresAt));
+        return resolved;
+    }
+
+    private static BigDecimal coordinate(double value) {
+        return BigDecimal.valueOf(value).setScale(COORDINATE_SCALE, RoundingMode.HALF_UP);
+    }
+
+    private record CachedCoordinates(Geocoder.Coordinates coordinates, LocalDateTime expiresAt) {
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.food.service;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Khoảng cách đường chim bay (haversine) nhân hệ số đường vòng, thời gian theo tốc độ xe máy trung bình
+ */
+@Component
+public class HaversineDistanceProvider implements DistanceProvider {
+
+    public static final String NAME = "haversine";
+
+    static final double EARTH_RADIUS_METERS = 6_371_000;
+    private static final double DETOUR_FACTOR = 1.3;            // Đường đi thực tế dài hơn đường thẳng
+    private static final double AVERAGE_SPEED_METERS_PER_SECOND = 25_000 / 3600.0;   // 25 km/h
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Distance measure(double originLat, double originLng, double destinationLat, double destinationLng) {
+        double meters = greatCircleMeters(originLat, originLng, destinationLat, destinationLng) * DETOUR_FACTOR;
+        return new Distance((int) Math.round(meters), (int) Math.round(meters / AVERAGE_SPEED_METERS_PER_SECOND));
+    }
+
+    static double greatCircleMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+}
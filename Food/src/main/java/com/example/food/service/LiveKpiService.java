@@ -0,0 +1,216 @@
+package com.example.food.service;
+
+import com.example.food.dto.LiveKpiDTO;
+import com.example.food.model.Order;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * KPI trực tiếp cho dashboard admin theo cửa sổ trượt WINDOW_MINUTES phút:
+ * - Ring buffer mỗi phút một bucket (số đơn mới, tổng giá trị đơn mới, doanh thu DONE, số đơn hủy)
+ * - Cập nhật từ OrderTransitionEvent sau commit, không query DB
+ * - Định kỳ đẩy delta (tổng cửa sổ + các bucket thay đổi) tới /topic/admin/kpis
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class LiveKpiService {
+
+    public static final String KPI_DESTINATION = "/topic/admin/kpis";
+
+    private static final int WINDOW_MINUTES = 60;
+
+    private final SimpMessagingTemplate messagingTemplate;
+
+    private final Bucket[] ring = createRing();
+    private long version = 0;
+    private long publishedVersion = 0;
+    private boolean windowSlid = false;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderTransition(OrderTransitionEvent event) {
+        if (event.getFromStatus() == event.getToStatus()) {
+            return;
+        }
+        long amountCents = toCents(event.getFinalAmount());
+        synchronized (this) {
+            long minute = toEpochMinute(event.getOccurredAt());
+            if (minute <= toEpochMinute(LocalDateTime.now()) - WINDOW_MINUTES) {
+                return;
+            }
+            Bucket bucket = bucketFor(minute);
+            if (event.isCreation()) {
+                bucket.orders++;
+                bucket.basketCents += amountCents;
+            }
+            if (event.getToStatus() == Order.OrderStatus.DONE) {
+                bucket.revenueCents += amountCents;
+            } else if (event.getFromStatus() == Order.OrderStatus.DONE) {
+                bucket.revenueCents -= amountCents;
+            }
+            if (event.getToStatus() == Order.OrderStatus.CANCELLED) {
+                bucket.cancellations++;
+            } else if (event.getFromStatus() == Order.OrderStatus.CANCELLED) {
+                bucket.cancellations--;
+            }
+            bucket.version = ++version;
+        }
+    }
+
+    /**
+     * Snapshot đầy đủ của cửa sổ (dùng khi client mới mở dashboard)
+     */
+    public synchronized LiveKpiDTO getSnapshot() {
+        return buildDto(0);
+    }
+
+    /**
+     * Đẩy delta nếu có thay đổi kể từ lần đẩy trước, hoặc khi cửa sổ trượt qua phút mới
+     */
+    @Scheduled(fixedDelay = 3000)
+    public void publishDelta() {
+        LiveKpiDTO delta;
+        synchronized (this) {
+            expireOldBuckets(toEpochMinute(LocalDateTime.now()));
+            if (version == publishedVersion && !windowSlid) {
+                return;
+            }
+            delta = buildDto(publishedVersion);
+            publishedVersion = version;
+            windowSlid = false;
+        }
+        try {
+            messagingTemplate.convertAndSend(KPI_DESTINATION, delta);
+        } catch (Exception e) {
+            log.warn("Cannot publish live KPIs: {}", e.getMessage());
+        }
+    }
+
+    private LiveKpiDTO buildDto(long sinceVersion) {
+        long currentMinute = toEpochMinute(LocalDateTime.now());
+        expireOldBuckets(currentMinute);
+
+        long orders = 0;
+        long basketCents = 0;
+        long revenueCents = 0;
+        long cancellations = 0;
+        List<LiveKpiDTO.MinuteBucket> buckets = new ArrayList<>();
+        for (long minute = currentMinute - WINDOW_MINUTES + 1; minute <= currentMinute; minute++) {
+            Bucket bucket = ring[slot(minute)];
+            if (bucket.minute != minute) {
+                continue;
+            }
+            orders += bucket.orders;
+            basketCents += bucket.basketCents;
+            revenueCents += bucket.revenueCents;
+            cancellations += bucket.cancellations;
+            if (bucket.version > sinceVersion) {
+                buckets.add(LiveKpiDTO.MinuteBucket.builder()
+                        .minute(toLocalDateTime(minute))
+                        .orders(bucket.orders)
+                        .basketTotal(fromCents(bucket.basketCents))
+                        .revenue(fromCents(bucket.revenueCents))
+                        .cancellations(bucket.cancellations)
+                        .build());
+            }
+        }
+
+        BigDecimal averageBasket = orders == 0 ? BigDecimal.ZERO
+                : fromCents(basketCents).divide(BigDecimal.valueOf(orders), 2, RoundingMode.HALF_UP);
+        return LiveKpiDTO.builder()
+                .version(version)
+                .generatedAt(LocalDateTime.now())
+                .windowMinutes(WINDOW_MINUTES)
+                .orders(orders)
+                .revenue(fromCents(revenueCents))
+                .cancellations(cancellations)
+                .averageBasket(averageBasket)
+                .buckets(buckets)
+                .build();
+    }
+
+    /**
+     * Xóa các bucket đã ra khỏi cửa sổ; nếu bucket bị loại có dữ liệu thì tổng cửa sổ đổi -> cần đẩy lại
+     */
+    private void expireOldBuckets(long currentMinute) {
+        for (Bucket bucket : ring) {
+            if (bucket.minute != Long.MIN_VALUE && bucket.minute <= currentMinute - WINDOW_MINUTES) {
+                windowSlid |= !bucket.isEmpty();
+                bucket.reset(Long.MIN_VALUE);
+            }
+        }
+    }
+
+    private Bucket bucketFor(long minute) {
+        Bucket bucket = ring[slot(minute)];
+        if (bucket.minute != minute) {
+            bucket.reset(minute);
+        }
+        return bucket;
+    }
+
+    private static int slot(long minute) {
+        return (int) Math.floorMod(minute, (long) WINDOW_MINUTES);
+    }
+
+    private static long toEpochMinute(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toEpochSecond() / 60;
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMinute) {
+        return ZonedDateTime.ofInstant(Instant.ofEpochSecond(epochMinute * 60), ZoneId.systemDefault())
+                .toLocalDateTime();
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    private static Bucket[] createRing() {
+        Bucket[] buckets = new Bucket[WINDOW_MINUTES];
+        for (int i = 0; i < WINDOW_MINUTES; i++) {
+            buckets[i] = new Bucket();
+        }
+        return buckets;
+    }
+
+    private static final class Bucket {
+        private long minute = Long.MIN_VALUE;
+        private long orders;
+        private long basketCents;
+        private long revenueCents;
+        private long cancellations;
+        private long version;
+
+        void reset(long minute) {
+            this.minute = minute;
+            orders = 0;
+            basketCents = 0;
+            revenueCents = 0;
+            cancellations = 0;
+            version = 0;
+        }
+
+        boolean isEmpty() {
+            return orders == 0 && basketCents == 0 && revenueCents == 0 && cancellations == 0;
+        }
+    }
+}
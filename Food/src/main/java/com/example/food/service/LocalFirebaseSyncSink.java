@@ -0,0 +1,65 @@
+package com.example.food.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sink giả lập Firebase trong bộ nhớ (chạy local / kiểm thử khi không có Firebase hay emulator):
+ * giữ giá trị cuối của tối đa maxPaths path gần nhất (bỏ path cũ nhất khi đầy), đếm số lần ghi;
+ * có thể giả lập độ trễ mỗi lần ghi
+ */
+@Component
+public class LocalFirebaseSyncSink implements FirebaseSyncSink {
+
+    public static final String NAME = "local";
+
+    private final long simulatedLatencyMs;
+    private final Map<String, Object> values;
+    private final AtomicLong batches = new AtomicLong();
+
+    public LocalFirebaseSyncSink(@Value("${app.firebase.sync.local.latency-ms:0}") long simulatedLatencyMs,
+                                 @Value("${app.firebase.sync.local.max-paths:10000}") int maxPaths) {
+        this.simulatedLatencyMs = simulatedLatencyMs;
+        this.values = Collections.synchronizedMap(new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+                return size() > maxPaths;
+            }
+        });
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public void updateChildren(Map<String, Object> updates) throws Exception {
+        if (simulatedLatencyMs > 0) {
+            Thread.sleep(simulatedLatencyMs);
+        }
+        values.putAll(updates);
+        batches.incrementAndGet();
+    }
+
+    public Object getValue(String path) {
+        return values.get(path);
+    }
+
+    public int getPathCount() {
+        return values.size();
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    public void clear() {
+        values.clear();
+    }
+}
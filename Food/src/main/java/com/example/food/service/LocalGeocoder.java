@@ -0,0 +1,74 @@
+package com.example.food.service;
+
+import com.example.food.util.AddressKeyUtil;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Geocoder thay thế dịch vụ bên ngoài (dùng khi dev / test, không gọi mạng):
+ * tọa độ tâm quận (TP.HCM) hoặc tâm thành phố, lệch trong khoảng ~500m theo hash của phường + đường.
+ * Kết quả xác định, cùng khóa luôn cùng tọa độ; không nhận ra quận / thành phố thì trả về rỗng.
+ */
+@Component
+public class LocalGeocoder implements Geocoder {
+
+    public static final String NAME = "local";
+
+    private static final double MAX_OFFSET_DEGREES = 0.005;
+
+    private static final Map<String, Coordinates> HCM_DISTRICTS = Map.ofEntries(
+            Map.entry("1", new Coordinates(10.7769, 106.7009)),
+            Map.entry("3", new Coordinates(10.7843, 106.6844)),
+            Map.entry("4", new Coordinates(10.7578, 106.7013)),
+            Map.entry("5", new Coordinates(10.7540, 106.6634)),
+            Map.entry("6", new Coordinates(10.7480, 106.6352)),
+            Map.entry("7", new Coordinates(10.7340, 106.7218)),
+            Map.entry("8", new Coordinates(10.7240, 106.6286)),
+            Map.entry("10", new Coordinates(10.7746, 106.6679)),
+            Map.entry("11", new Coordinates(10.7629, 106.6503)),
+            Map.entry("12", new Coordinates(10.8672, 106.6413)),
+            Map.entry("binh thanh", new Coordinates(10.8106, 106.7091)),
+            Map.entry("phu nhuan", new Coordinates(10.7991, 106.6802)),
+            Map.entry("go vap", new Coordinates(10.8387, 106.6653)),
+            Map.entry("tan binh", new Coordinates(10.8014, 106.6526)),
+            Map.entry("tan phu", new Coordinates(10.7900, 106.6282)),
+            Map.entry("binh tan", new Coordinates(10.7653, 106.6039)),
+            Map.entry("thu duc", new Coordinates(10.8494, 106.7537)));
+
+    private static final Map<String, Coordinates> CITIES = Map.of(
+            "ho chi minh", new Coordinates(10.7769, 106.7009),
+            "ha noi", new Coordinates(21.0278, 105.8342),
+            "da nang", new Coordinates(16.0544, 108.2022));
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Optional<Coordinates> geocode(String addressKey) {
+        String[] parts = AddressKeyUtil.split(addressKey);
+        if (parts.length != 4) {
+            return Optional.empty();
+        }
+        String street = parts[0];
+        String ward = parts[1];
+        String district = parts[2];
+        String city = parts[3];
+
+        Coordinates center = "ho chi minh".equals(city) ? HCM_DISTRICTS.get(district) : null;
+        if (center == null) {
+            center = CITIES.get(city);
+        }
+        if (center == null) {
+            return Optional.empty();
+        }
+
+        int hash = (ward + "|" + street).hashCode();
+        double latOffset = ((hash & 0xFFFF) / 65535.0 - 0.5) * 2 * MAX_OFFSET_DEGREES;
+        double lngOffset = (((hash >>> 16) & 0xFFFF) / 65535.0 - 0.5) * 2 * MAX_OFFSET_DEGREES;
+        return Optional.of(new Coordinates(center.latitude() + latOffset, center.longitude() + lngOffset));
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.food.service;
+
+import org.springframework.stereotype.Component;
+
+/**
+ * Provider thay thế dịch vụ chỉ đường (dùng khi dev / test, không gọi mạng):
+ * đi theo lưới đường phố (khoảng cách Manhattan theo bắc-nam + đông-tây), tốc độ nội thành chậm hơn,
+ * cộng thời gian cố định lấy hàng. Kết quả xác định, cùng input luôn cùng output.
+ */
+@Component
+public class LocalRoutingDistanceProvider implements DistanceProvider {
+
+    public static final String NAME = "local-routing";
+
+    private static final double CITY_SPEED_METERS_PER_SECOND = 20_000 / 3600.0;   // 20 km/h
+    private static final int PICKUP_SECONDS = 120;
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Distance measure(double originLat, double originLng, double destinationLat, double destinationLng) {
+        double northSouth = HaversineDistanceProvider.greatCircleMeters(originLat, originLng, destinationLat, originLng);
+        double eastWest = HaversineDistanceProvider.greatCircleMeters(destinationLat, originLng, destinationLat, destinationLng);
+        double meters = northSouth + eastWest;
+        return new Distance((int) Math.round(meters),
+                (int) Math.round(meters / CITY_SPEED_METERS_PER_SECOND) + PICKUP_SECONDS);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.food.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Cấp message_id trước khi ghi DB, theo block từ bảng id_generators (dòng "messages"):
+ * - Cùng quy ước pooled với @TableGenerator của order: đọc gen_value = v thì được các id (v - ALLOCATION_SIZE, v]
+ *   và ghi lại v + ALLOCATION_SIZE (IdGeneratorAligner căn gen_value theo MAX(message_id) khi khởi động)
+ * - Mỗi block lấy trong transaction riêng, khóa dòng nên nhiều instance không trùng id
+ * - Id cấp trong bộ nhớ tăng dần, nên thứ tự id vẫn là thứ tự gửi trên một instance
+ */
+@Component
+@Slf4j
+public class MessageIdAllocator {
+
+    private static final String GENERATOR_NAME = "messages";
+    private static final int ALLOCATION_SIZE = 50;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final TransactionTemplate requiresNew;
+
+    private long nextId = 1;
+    private long maxId = 0;
+
+    public MessageIdAllocator(PlatformTransactionManager transactionManager) {
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    public synchronized long nextId() {
+        if (nextId > maxId) {
+            Long hi = requiresNew.execute(status -> reserveBlock());
+            if (hi == null) {
+                throw new IllegalStateException("Không cấp được message id");
+            }
+            nextId = hi - ALLOCATION_SIZE + 1;
+            maxId = hi;
+            log.debug("Reserved message ids {}..{}", nextId, maxId);
+        }
+        return nextId++;
+    }
+
+    private Long reserveBlock() {
+        List<?> current = entityManager
+                .createNativeQuery("SELECT gen_value FROM id_generators WHERE gen_name = :name FOR UPDATE")
+                .setParameter("name", GENERATOR_NAME)
+                .getResultList();
+
+        long value;
+        if (current.isEmpty()) {
+            // Chưa được IdGeneratorAligner khởi tạo: bắt đầu sau id lớn nhất hiện có
+            Long maxExisting = entityManager.createQuery("SELECT MAX(m.messageId) FROM Message m", Long.class)
+                    .getSingleResult();
+            value = (maxExisting != null ? maxExisting : 0L) + ALLOCATION_SIZE;
+            entityManager.createNativeQuery("INSERT INTO id_generators (gen_name, gen_value) VALUES (:name, :value)")
+                    .setParameter("name", GENERATOR_NAME)
+                    .setParameter("value", value + ALLOCATION_SIZE)
+                    .executeUpdate();
+        } else {
+            value = ((Number) current.get(0)).longValue();
+            entityManager.createNativeQuery("UPDATE id_generators SET gen_value = :value WHERE gen_name = :name")
+                    .setParameter("name", GENERATOR_NAME)
+                    .setParameter("value", value + ALLOCATION_SIZE)
+                    .executeUpdate();
+        }
+        return value;
+    }
+}
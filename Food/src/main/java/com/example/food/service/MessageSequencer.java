@@ -0,0 +1,97 @@
+package com.example.food.service;
+
+import com.example.food.model.Message;
+import com.example.food.repository.DataMigrationRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Cấp Message.seq (thứ tự ghi) trong transaction ghi message, dùng cho lịch sử và cursor đã đọc.
+ * message_id cấp lúc gửi theo block của từng instance và có thể ghi muộn (write-behind), nên không theo thứ tự ghi.
+ * - Khóa advisory theo conversation (giữ tới hết transaction, khóa theo id tăng dần để không deadlock),
+ *   rồi mới lấy nextval: trong một conversation seq tăng theo đúng thứ tự commit,
+ *   nên client đọc "sau seq X" không bao giờ bỏ sót dòng commit muộn với seq nhỏ hơn
+ * - Trong một batch: seq theo thứ tự gửi (createdAt, messageId)
+ * Khi khởi động (trước khi nhận request): tạo sequence nếu chưa có; một lần duy nhất (dấu trong data_migrations)
+ * điền seq = message_id cho message cũ và đẩy sequence qua giá trị lớn nhất. Lỗi thì dừng khởi động.
+ */
+@Component
+@Slf4j
+public class MessageSequencer implements SmartInitializingSingleton {
+
+    public static final String SEQUENCE_NAME = "message_seq";
+
+    // Không gian khóa advisory riêng cho ghi message (tham số đầu của pg_advisory_xact_lock(int, int))
+    private static final int LOCK_CLASS = 7301;
+    private static final String BACKFILL_MIGRATION = "messages_seq_backfill";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final DataMigrationRepository dataMigrationRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public MessageSequencer(DataMigrationRepository dataMigrationRepository,
+                            PlatformTransactionManager transactionManager) {
+        this.dataMigrationRepository = dataMigrationRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        transactionTemplate.executeWithoutResult(status -> {
+            entityManager.createNativeQuery("CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE_NAME).executeUpdate();
+            if (dataMigrationRepository.markApplied(BACKFILL_MIGRATION) == 0) {
+                return;
+            }
+            // Message cũ ghi theo message_id tăng dần nên message_id chính là thứ tự ghi của chúng
+            int filled = entityManager.createNativeQuery("UPDATE messages SET seq = message_id WHERE seq IS NULL")
+                    .executeUpdate();
+            entityManager.createNativeQuery("SELECT setval('" + SEQUENCE_NAME + "', "
+                            + "GREATEST((SELECT COALESCE(MAX(seq), 0) FROM messages), 1))")
+                    .getSingleResult();
+            log.info("Backfilled message seq for {} messages", filled);
+        });
+    }
+
+    /**
+     * Gán seq cho các message sắp ghi; phải gọi trong transaction sẽ insert chúng
+     */
+    public void assign(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        messages.stream()
+                .map(Message::getConversationId)
+                .distinct()
+                .sorted()
+                .forEach(conversationId -> entityManager
+                        .createNativeQuery("SELECT 1 FROM (SELECT pg_advisory_xact_lock(:lockClass, :lockKey)) locked")
+                        .setParameter("lockClass", LOCK_CLASS)
+                        .setParameter("lockKey", (int) (conversationId ^ (conversationId >>> 32)))
+                        .getSingleResult());
+
+        List<?> values = entityManager
+                .createNativeQuery("SELECT nextval('" + SEQUENCE_NAME + "') FROM generate_series(1, :count)")
+                .setParameter("count", messages.size())
+                .getResultList();
+        List<Long> seqs = values.stream().map(value -> ((Number) value).longValue()).sorted().toList();
+
+        List<Message> inSendOrder = messages.stream()
+                .sorted(Comparator.comparing(Message::getCreatedAt, Comparator.nullsLast(Comparator.<LocalDateTime>naturalOrder()))
+                        .thenComparing(Message::getMessageId, Comparator.nullsLast(Comparator.<Long>naturalOrder())))
+                .toList();
+        for (int i = 0; i < inSendOrder.size(); i++) {
+            inSendOrder.get(i).setSeq(seqs.get(i));
+        }
+    }
+}
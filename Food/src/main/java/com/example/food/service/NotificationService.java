@@ -10,7 +10,10 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.List;
 
@@ -28,73 +31,64 @@ public class NotificationService {
     // ===============================
 
     /**
-     * Gửi thông báo order mới cho tất cả admin
+     * Gửi thông báo order mới cho tất cả admin.
+     * Các hàm notify không nuốt lỗi: gọi từ outbox handler, lỗi thì event được retry với backoff
      */
     @Transactional
     public void notifyNewOrder(OrderDTO order) {
-        try {
-            String message = "Có đơn hàng mới từ " + order.getUserFullName() + " - " + order.getOrderNumber();
-            String title = "Đơn hàng mới";
-
-            // Lấy tất cả admin
-            List<User> admins = userRepository.findByRoleIdAndIsActiveTrue(1); // role_id = 1 là admin
+        String message = "Có đơn hàng mới từ " + order.getUserFullName() + " - " + order.getOrderNumber();
+        String title = "Đơn hàng mới";
 
-            for (User admin : admins) {
-                // Tạo notification trong database
-                Notification notification = Notification.builder()
-                        .userId(admin.getUserId())
-                        .type(Notification.NotificationType.NEW_ORDER)
-                        .title(title)
-                        .message(message)
-                        .isRead(false)
-                        .relatedId(order.getOrderId())
-                        .relatedType("ORDER")
-                        .build();
-
-                notification = notificationRepository.save(notification);
-
-                // Gửi qua WebSocket
-                sendNotificationToUser(admin.getUserId(), notification);
-            }
-
-            log.info("Sent new order notification to {} admins for order: {}", admins.size(), order.getOrderNumber());
-
-        } catch (Exception e) {
-            log.error("Error sending new order notification: ", e);
-        }
-    }
-
-    /**
-     * Gửi thông báo cập nhật trạng thái order cho user
-     */
-    @Transactional
-    public void notifyOrderStatusUpdate(Long userId, Long orderId, String orderNumber, Order.OrderStatus newStatus) {
-        try {
-            String statusName = getOrderStatusDisplayName(newStatus);
-            String title = "Cập nhật đơn hàng";
-            String message = "Đơn hàng " + orderNumber + " đã được cập nhật thành: " + statusName;
+        // Lấy tất cả admin
+        List<User> admins = userRepository.findByRoleIdAndIsActiveTrue(1); // role_id = 1 là admin
 
-            // Tạo notification cho user
+        for (User admin : admins) {
+            // Tạo notification trong database
             Notification notification = Notification.builder()
-                    .userId(userId)
-                    .type(Notification.NotificationType.ORDER_STATUS_UPDATED)
+                    .userId(admin.getUserId())
+                    .type(Notification.NotificationType.NEW_ORDER)
                     .title(title)
                     .message(message)
                     .isRead(false)
-                    .relatedId(orderId)
+                    .relatedId(order.getOrderId())
                     .relatedType("ORDER")
                     .build();
 
             notification = notificationRepository.save(notification);
 
             // Gửi qua WebSocket
-            sendNotificationToUser(userId, notification);
+            sendNotificationToUser(admin.getUserId(), notification);
+        }
 
-            log.info("Sent order status update notification to user {} for order: {}", userId, orderNumber);
+        log.info("Sent new order notification to {} admins for order: {}", admins.size(), order.getOrderNumber());
+    }
 
-        } catch (Exception e) {
-            log.error("Error sending order status update notification: ", e);
-        }
+    /**
+     * Gửi thông báo cập nhật trạng thái order cho user
+     */
+    @Transactional
+    public void notifyOrderStatusUpdate(Long userId, Long orderId, String orderNumber, Order.OrderStatus newStatus) {
+        String statusName = getOrderStatusDisplayName(newStatus);
+        String title = "Cập nhật đơn hàng";
+        String message = "Đơn hàng " + orderNumber + " đã được cập nhật thành: " + statusName;
+
+        // Tạo notification cho user
+        Notification notification = Notification.builder()
+                .userId(userId)
+                .type(Notification.NotificationType.ORDER_STATUS_UPDATED)
+                .title(title)
+                .message(message)
+                .isRead(false)
+                .relatedId(orderId)
+                .relatedType("ORDER")
+                .build();
+
+        notification = notificationRepository.save(notification);
+
+        // Gửi qua WebSocket
+        sendNotificationToUser(userId, notification);
+
+        log.info("Sent order status update notification to user {} for order: {}", userId, orderNumber);
     }
 
     // ===============================
@@ -102,9 +96,11 @@ public class NotificationService {
     // ===============================
 
     /**
-     * Gửi thông báo khi admin nhắn tin đến user
+     * Gửi thông báo khi admin nhắn tin đến user.
+     * Notify chat chạy transaction riêng (REQUIRES_NEW) và không ném lỗi: được gọi sau commit message,
+     * lỗi ghi notification chỉ log, không ảnh hưởng tới message đã lưu
      */
-    @Transactional
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void notifyAdminMessage(Long userId, Long conversationId, String adminName, String messageContent) {
         try {
             String title = "Tin nhắn mới từ admin";
@@ -129,16 +125,15 @@ public class NotificationService {
             sendNotificationToUser(userId, notification);
 
             log.info("Sent admin message notification to user {} for conversation: {}", userId, conversationId);
-
         } catch (Exception e) {
-            log.error("Error sending admin message notification: ", e);
+            log.error("Error sending admin message notification for conversation {}: {}", conversationId, e.getMessage(), e);
         }
     }
 
     /**
-     * Gửi thông báo khi user nhắn tin đến admin
+     * Gửi thông báo khi user nhắn tin đến admin (transaction riêng, không ném lỗi)
      */
-    @Transactional
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void notifyUserMessage(Long conversationId, Long senderUserId, String userName, String messageContent) {
         try {
             String title = "Tin nhắn mới từ khách hàng";
@@ -168,9 +163,8 @@ public class NotificationService {
             }
 
             log.info("Sent user message notification to {} admins for conversation: {}", admins.size(), conversationId);
-
         } catch (Exception e) {
-            log.error("Error sending user message notification: ", e);
+            log.error("Error sending user message notification for conversation {}: {}", conversationId, e.getMessage(), e);
         }
     }
 
@@ -220,22 +214,38 @@ public class NotificationService {
     // ===============================
 
     /**
-     * Gửi notification qua WebSocket đến user
+     * Gửi notification qua WebSocket đến user, sau khi transaction lưu notification commit
+     * (lỗi lưu DB thì outbox retry, không đẩy trùng thông báo)
      */
     private void sendNotificationToUser(Long userId, Notification notification) {
-        try {
-            // Gửi đến topic "/topic/user/{userId}/notifications"
-            messagingTemplate.convertAndSend("/topic/user/" + userId + "/notifications", notification);
-
-            // Nếu là admin, cũng gửi đến topic chung của admin
-            User user = userRepository.findById(userId).orElse(null);
-            if (user != null && user.isAdmin()) {
-                messagingTemplate.convertAndSend("/topic/admin/notifications", notification);
+        // Nếu là admin, cũng gửi đến topic chung của admin
+        User user = userRepository.findById(userId).orElse(null);
+        boolean admin = user != null && user.isAdmin();
+
+        afterCommit(() -> {
+            try {
+                // Gửi đến topic "/topic/user/{userId}/notifications"
+                messagingTemplate.convertAndSend("/topic/user/" + userId + "/notifications", notification);
+                if (admin) {
+                    messagingTemplate.convertAndSend("/topic/admin/notifications", notification);
+                }
+            } catch (Exception e) {
+                log.error("Error sending notification via WebSocket: ", e);
             }
+        });
+    }
 
-        } catch (Exception e) {
-            log.error("Error sending notification via WebSocket: ", e);
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
         }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
 
     // ===============================
@@ -0,0 +1,186 @@
+package com.example.food.service;
+
+import com.example.food.dto.OrderDTO;
+import com.example.food.model.OrderIdempotencyKey;
+import com.example.food.repository.OrderIdempotencyKeyRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Chống tạo trùng đơn hàng khi client retry POST /api/orders với cùng Idempotency-Key.
+ * - Request đầu tiên chạy createOrder, các request trùng đồng thời chờ kết quả của request đó
+ * - Kết quả (orderId) được lưu trong bộ nhớ (LRU có TTL) và trong bảng order_idempotency_keys
+ * - Replay đọc lại order theo orderId nên trả về trạng thái hiện tại của đơn, không phải response lúc tạo
+ */
+@Service
+@Slf4j
+public class OrderIdempotencyService {
+
+    public static final int MAX_KEY_LENGTH = 100;
+
+    private static final Duration KEY_TTL = Duration.ofHours(24);
+    private static final int MAX_CACHED_RESULTS = 10_000;
+    private static final long WAIT_TIMEOUT_SECONDS = 30;
+
+    private final OrderIdempotencyKeyRepository idempotencyKeyRepository;
+    private final OrderService orderService;
+    private final TransactionTemplate transactionTemplate;
+
+    // Request đang chạy theo key
+    private final ConcurrentHashMap<String, CompletableFuture<Long>> inFlight = new ConcurrentHashMap<>();
+
+    // Kết quả đã hoàn thành gần đây (LRU)
+    private final Map<String, CachedResult> completed = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResult> eldest) {
+            return size() > MAX_CACHED_RESULTS;
+        }
+    };
+
+    public OrderIdempotencyService(OrderIdempotencyKeyRepository idempotencyKeyRepository,
+                                   OrderService orderService,
+                                   PlatformTransactionManager transactionManager) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.orderService = orderService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Chạy createOrder đúng một lần cho mỗi (userId, idempotencyKey)
+     */
+    public OrderDTO execute(Long userId, String idempotencyKey, Supplier<OrderDTO> createOrder) {
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key quá dài (tối đa " + MAX_KEY_LENGTH + " ký tự)");
+        }
+        String key = userId + ":" + idempotencyKey;
+
+        Long cachedOrderId = getCachedOrderId(key);
+        if (cachedOrderId != null) {
+            log.info("Idempotent replay (memory) for key {}", key);
+            return reload(cachedOrderId);
+        }
+
+        CompletableFuture<Long> mine = new CompletableFuture<>();
+        CompletableFuture<Long> existing = inFlight.putIfAbsent(key, mine);
+        if (existing != null) {
+            log.info("Waiting for in-flight order request with key {}", key);
+            return reload(await(existing));
+        }
+
+        try {
+            OrderDTO result = findPersisted(key).orElseGet(() -> createAndRecord(key, userId, createOrder));
+            cacheResult(key, result.getOrderId());
+            mine.complete(result.getOrderId());
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * Dọn các key hết hạn trong DB
+     */
+    @Scheduled(fixedDelay = 60 * 60 * 1000)
+    public void purgeExpiredKeys() {
+        int deleted = idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minus(KEY_TTL));
+        if (deleted > 0) {
+            log.info("Purged {} expired order idempotency keys", deleted);
+        }
+    }
+
+    private OrderDTO createAndRecord(String key, Long userId, Supplier<OrderDTO> createOrder) {
+        try {
+            // Tạo order và ghi key trong cùng một transaction
+            return transactionTemplate.execute(status -> {
+                OrderDTO order = createOrder.get();
+                // Key hết hạn nhưng chưa được dọn: dùng lại dòng cũ thay vì insert (tránh vi phạm unique)
+                LocalDateTime now = LocalDateTime.now();
+                int reclaimed = idempotencyKeyRepository.reclaimExpired(key, userId, order.getOrderId(),
+                        now, now.minus(KEY_TTL));
+                if (reclaimed == 0) {
+                    idempotencyKeyRepository.saveAndFlush(OrderIdempotencyKey.builder()
+                            .idempotencyKey(key)
+                            .userId(userId)
+                            .orderId(order.getOrderId())
+                            .build());
+                }
+                return order;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Instance khác đã xử lý cùng key trước -> transaction này đã rollback, trả về order đã có
+            log.warn("Idempotency key {} was recorded concurrently, returning existing order", key);
+            return findPersisted(key)
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    private Optional<OrderDTO> findPersisted(String key) {
+        return idempotencyKeyRepository.findByIdempotencyKey(key)
+                .filter(record -> record.getCreatedAt() == null
+                        || record.getCreatedAt().isAfter(LocalDateTime.now().minus(KEY_TTL)))
+                .flatMap(record -> {
+                    log.info("Idempotent replay (database) for key {}", key);
+                    return orderService.getOrderById(record.getOrderId());
+                });
+    }
+
+    private OrderDTO reload(Long orderId) {
+        return orderService.getOrderById(orderId)
+                .orElseThrow(() -> new IllegalStateException("Đơn hàng của Idempotency-Key này không còn tồn tại"));
+    }
+
+    private Long await(CompletableFuture<Long> future) {
+        try {
+            return future.get(WAIT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IllegalStateException(cause);
+        } catch (TimeoutException e) {
+            throw new IllegalStateException("Yêu cầu tạo đơn hàng với cùng Idempotency-Key đang được xử lý");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for in-flight order request");
+        }
+    }
+
+    private synchronized Long getCachedOrderId(String key) {
+        CachedResult result = completed.get(key);
+        if (result == null) {
+            return null;
+        }
+        if (result.expiresAt().isBefore(LocalDateTime.now())) {
+            completed.remove(key);
+            return null;
+        }
+        return result.orderId();
+    }
+
+    private synchronized void cacheResult(String key, Long orderId) {
+        completed.put(key, new CachedResult(orderId, LocalDateTime.now().plus(KEY_TTL)));
+    }
+
+    private record CachedResult(Long orderId, LocalDateTime expiresAt) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.example.food.service;
+
+import com.example.food.dto.OrderDTO;
+import com.example.food.dto.OrderEventPayload;
+import com.example.food.model.OutboxEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Gửi thông báo đơn hàng (DB notification + WebSocket) từ outbox
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderNotificationOutboxHandler implements OutboxEventHandler {
+
+    private final NotificationService notificationService;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public Set<OutboxEvent.EventType> supportedTypes() {
+        return EnumSet.of(OutboxEvent.EventType.ORDER_CREATED, OutboxEvent.EventType.ORDER_STATUS_UPDATED);
+    }
+
+    @Override
+    public void handle(OutboxEvent event) throws Exception {
+        OrderEventPayload payload = objectMapper.readValue(event.getPayload(), OrderEventPayload.class);
+
+        if (event.getEventType() == OutboxEvent.EventType.ORDER_CREATED) {
+            notificationService.notifyNewOrder(OrderDTO.builder()
+                    .orderId(payload.getOrderId())
+                    .orderNumber(payload.getOrderNumber())
+                    .userId(payload.getUserId())
+                    .userFullName(payload.getUserFullName())
+                    .build());
+        } else {
+            notificationService.notifyOrderStatusUpdate(
+                    payload.getUserId(),
+                    payload.getOrderId(),
+                    payload.getOrderNumber(),
+                    payload.getOrderStatus()
+            );
+        }
+    }
+}
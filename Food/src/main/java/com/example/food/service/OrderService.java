@@ -3,15 +3,22 @@ package com.example.food.service;
 import com.example.food.dto.*;
 import com.example.food.model.*;
 import com.example.food.repository.*;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.LocalDate;
+import java.util.Base64;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -24,19 +31,26 @@ import java.util.ArrayList;
 @Slf4j
 public class OrderService {
 
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int LIST_CHUNK_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
     private final OrderRepository orderRepository;
-    private final OrderItemRepository orderItemRepository;
-    private final OrderItemOptionRepository orderItemOptionRepository;
     private final PaymentRepository paymentRepository;
-    private final ProductRepository productRepository;
-    private final ProductOptionRepository productOptionRepository;
     private final CouponService couponService;
     private final CouponRepository couponRepository;
     private final UserRepository userRepository;
-    private final ShippingFeeSettingsService shippingFeeSettingsService;
-
-    @Autowired(required = false)
-    private com.example.food.service.NotificationService notificationService;
+    private final ShippingCalculatorService shippingCalculatorService;
+    private final OrderItemRepository orderItemRepository;
+    private final OrderItemOptionRepository orderItemOptionRepository;
+    private final CartPricingService cartPricingService;
+    private final ObjectProvider<OrderWriteStats> orderWriteStats; // Chỉ có khi bật profile "benchmark"
+    private final OutboxService outboxService;
+    private final DailySalesRollupService dailySalesRollupService;
+    private final OrderStatsService orderStatsService;
+    private final ApplicationEventPublisher eventPublisher;
 
     // ===============================
     // ORDER MANAGEMENT
@@ -70,8 +84,11 @@ public class OrderService {
             throw new IllegalArgumentException("Bạn phải chọn phương thức thanh toán!");
         }
 
+        // Tính giá toàn bộ giỏ hàng trong một lần (batch load products + options)
+        PricedCart pricedCart = cartPricingService.price(request.getOrderItems());
+
         List<String> couponCodes = request.getCouponCodes();
-        BigDecimal baseSubtotal = calculateTotalAmount(request.getOrderItems());
+        BigDecimal baseSubtotal = pricedCart.getBaseSubtotal();
         BigDecimal couponDiscount = BigDecimal.ZERO;
         List<String> appliedCoupons = new ArrayList<>();
         if (couponCodes != null && !couponCodes.isEmpty()) {
@@ -106,59 +123,47 @@ public class OrderService {
                 .appliedCouponCodes(appliedCoupons)
                 .build();
 
-        // Calculate order items and total
-        BigDecimal totalAmount = BigDecimal.ZERO;
-        List<OrderItem> orderItems = request.getOrderItems().stream()
-                .map(itemRequest -> {
-                    Product product = productRepository.findById(itemRequest.getProductId())
-                            .orElseThrow(() -> new IllegalArgumentException("Product not found: " + itemRequest.getProductId()));
-
+        // Build order items from priced lines
+        List<OrderItem> orderItems = pricedCart.getLines().stream()
+                .map(line -> {
                     OrderItem orderItem = OrderItem.builder()
                             .order(order)
-                            .product(product)
-                            .quantity(itemRequest.getQuantity())
-                            .unitPrice(product.getPrice())
-                            .salePrice(product.getCurrentPrice())
-                            .specialInstructions(itemRequest.getSpecialInstructions())
+                            .product(line.getProduct())
+                            .quantity(line.getQuantity())
+                            .unitPrice(line.getUnitPrice())
+                            .salePrice(line.getSalePrice())
+                            .totalPrice(line.getTotalPrice())
+                            .specialInstructions(line.getSpecialInstructions())
                             .build();
 
-                    // Calculate total price with options
-                    orderItem.calculateTotalPrice();
-
-                    // Add selected options
-                    if (itemRequest.getSelectedOptionIds() != null) {
-                        List<OrderItemOption> options = itemRequest.getSelectedOptionIds().stream()
-                                .map(optionId -> {
-                                    ProductOption productOption = productOptionRepository.findById(optionId)
-                                            .orElseThrow(() -> new IllegalArgumentException("Product option not found: " + optionId));
-
-                                    return OrderItemOption.builder()
-                                            .orderItem(orderItem)
-                                            .productOption(productOption)
-                                            .optionName(productOption.getOptionName())
-                                            .optionType(productOption.getOptionType())
-                                            .price(productOption.getPrice())
-                                            .build();
-                                })
+                    if (!line.getOptions().isEmpty()) {
+                        List<OrderItemOption> options = line.getOptions().stream()
+                                .map(productOption -> OrderItemOption.builder()
+                                        .orderItem(orderItem)
+                                        .productOption(productOption)
+                                        .optionName(productOption.getOptionName())
+                                        .optionType(productOption.getOptionType())
+                                        .price(productOption.getPrice())
+                                        .build())
                                 .collect(Collectors.toList());
 
                         orderItem.setOrderItemOptions(options);
-                        orderItem.calculateTotalPrice(); // Recalculate with options
                     }
 
                     return orderItem;
                 })
                 .collect(Collectors.toList());
 
-        // Calculate total amount
-        totalAmount = orderItems.stream()
-                .map(OrderItem::getTotalPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
+        BigDecimal totalAmount = pricedCart.getSubtotal();
         order.setTotalAmount(totalAmount);
 
-        // Calculate shipping fee using ShippingFeeSettingsService
-        BigDecimal shippingFee = shippingFeeSettingsService.calculateShippingFee(totalAmount);
+        // Phí ship theo vùng giao hàng / bậc khoảng cách (cùng cách tính với báo giá)
+        ShippingCalculatorService.DeliveryQuote delivery = shippingCalculatorService.quoteDelivery(totalAmount,
+                request.getDeliveryLatitude(), request.getDeliveryLongitude(), deliveryAddress);
+        if (!delivery.deliverable()) {
+            throw new IllegalArgumentException(delivery.message());
+        }
+        BigDecimal shippingFee = delivery.shippingFee();
         order.setShippingFee(shippingFee);
 
         // Calculate final amount
@@ -169,73 +174,132 @@ public class OrderService {
         order.setFinalAmount(finalAmount);
 
         // Set estimated delivery time
-        order.setEstimatedDeliveryTime(LocalDateTime.now().plusMinutes(30));
-
-        // Save order
-        Order savedOrder = orderRepository.save(order);
-
-        // Ensure finalAmount is calculated after save
-        if (savedOrder.getFinalAmount() == null) {
-            savedOrder.calculateFinalAmount();
-            savedOrder = orderRepository.save(savedOrder);
-        }
-
-        // Create final reference for lambda
-        final Order finalSavedOrder = savedOrder;
-
-        // Save order items
-        orderItems.forEach(item -> {
-            item.setOrder(finalSavedOrder);
-            OrderItem savedItem = orderItemRepository.save(item);
-
-            // Save order item options
-            if (item.getOrderItemOptions() != null) {
-                item.getOrderItemOptions().forEach(option -> {
-                    option.setOrderItem(savedItem);
-                    orderItemOptionRepository.save(option);
-                });
-            }
-        });
+        order.setEstimatedDeliveryTime(LocalDateTime.now().plusMinutes(
+                delivery.estimatedMinutes() != null ? delivery.estimatedMinutes() : 30));
 
         // Create payment record
         Payment payment = Payment.builder()
-                .order(finalSavedOrder)
+                .order(order)
                 .paymentMethod(request.getPaymentMethod())
-                .paymentAmount(finalSavedOrder.getFinalAmount())
+                .paymentAmount(order.getFinalAmount())
                 .paymentStatus(Payment.PaymentStatus.PENDING)
                 .paymentDate(LocalDateTime.now())
                 .build();
 
-        paymentRepository.save(payment);
+        order.setOrderItems(orderItems);
+        order.setPayments(new ArrayList<>(List.of(payment)));
+
+        // Persist cả order graph một lần (cascade) - insert được batch theo từng bảng khi flush
+        // Profile "benchmark": đo lần ghi, có thể chuyển sang đường ghi cũ (PER_ENTITY) để so sánh
+        OrderWriteStats writeStats = orderWriteStats.getIfAvailable();
+        Order finalSavedOrder;
+        if (writeStats == null) {
+            finalSavedOrder = orderRepository.saveAndFlush(order);
+        } else {
+            OrderWriteStats.WritePath path = writeStats.getWritePath();
+            finalSavedOrder = writeStats.measure(path, () -> path == OrderWriteStats.WritePath.PER_ENTITY
+                    ? saveOrderPerEntity(order, orderItems, payment)
+                    : orderRepository.saveAndFlush(order));
+        }
 
         // Convert to DTO for response
         OrderDTO orderDTO = convertToDTO(finalSavedOrder);
 
-        // Gửi notification cho admin về đơn hàng mới
-        if (notificationService != null) {
-            try {
-                notificationService.notifyNewOrder(orderDTO);
-            } catch (Exception e) {
-                log.error("Error sending new order notification: {}", e.getMessage(), e);
-            }
-        }
+        eventPublisher.publishEvent(OrderTransitionEvent.of(finalSavedOrder, null, finalSavedOrder.getOrderStatus()));
+
+        // Thông báo cho admin được ghi vào outbox, gửi sau khi commit
+        outboxService.enqueue(OutboxEvent.EventType.ORDER_CREATED, finalSavedOrder.getOrderId(),
+                OrderEventPayload.builder()
+                        .orderId(finalSavedOrder.getOrderId())
+                        .orderNumber(finalSavedOrder.getOrderNumber())
+                        .userId(user.getUserId())
+                        .userFullName(user.getFullName())
+                        .orderStatus(finalSavedOrder.getOrderStatus())
+                        .finalAmount(finalSavedOrder.getFinalAmount())
+                        .createdAt(finalSavedOrder.getCreatedAt())
+                        .occurredAt(LocalDateTime.now())
+                        .build());
 
         log.info("Order created successfully: {}", finalSavedOrder.getOrderNumber());
         return orderDTO;
     }
 
+    /**
+     * Đường ghi cũ trước khi gom order graph (chỉ dùng để benchmark): save + flush từng entity,
+     * mỗi dòng một INSERT riêng như khi id còn là IDENTITY
+     */
+    private Order saveOrderPerEntity(Order order, List<OrderItem> orderItems, Payment payment) {
+        order.setOrderItems(new ArrayList<>());
+        order.setPayments(new ArrayList<>());
+        Order savedOrder = orderRepository.saveAndFlush(order);
+
+        for (OrderItem item : orderItems) {
+            List<OrderItemOption> options = item.getOrderItemOptions();
+            item.setOrderItemOptions(new ArrayList<>());
+            OrderItem savedItem = orderItemRepository.saveAndFlush(item);
+            if (options != null) {
+                for (OrderItemOption option : options) {
+                    savedItem.getOrderItemOptions().add(orderItemOptionRepository.saveAndFlush(option));
+                }
+            }
+            savedOrder.getOrderItems().add(savedItem);
+        }
+
+        savedOrder.getPayments().add(paymentRepository.saveAndFlush(payment));
+        return savedOrder;
+    }
+
+    /**
+     * Toàn bộ đơn của user (API cũ, trả list). Đi qua từng trang keyset LIST_CHUNK_SIZE đơn
+     * nên IN list luôn có giới hạn; client mới nên dùng getOrdersPage
+     */
+    @Transactional(readOnly = true)
     public List<OrderDTO> getOrdersByUserId(Long userId) {
-        List<Order> orders = orderRepository.findByUserIdOrderByCreatedAtDesc(userId);
-        return orders.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return loadAllOrderDTOs(userId);
     }
 
+    @Transactional(readOnly = true)
     public List<OrderDTO> getAllOrders() {
-        List<Order> orders = orderRepository.findAllOrdersOrderByCreatedAtDesc();
-        return orders.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return loadAllOrderDTOs(null);
+    }
+
+    /**
+     * Lấy một trang đơn hàng theo cursor (createdAt, orderId), mới nhất trước.
+     * userId = null để lấy đơn của tất cả user (admin).
+     * Mỗi trang tốn đúng 3 query: id của trang, orders + items + product, options.
+     */
+    @Transactional(readOnly = true)
+    public CursorPageDTO<OrderDTO> getOrdersPage(Long userId, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+
+        List<Long> ids;
+        if (cursor == null || cursor.isBlank()) {
+            ids = userId == null
+                    ? orderRepository.findFirstPageIds(limit)
+                    : orderRepository.findFirstPageIdsByUserId(userId, limit);
+        } else {
+            OrderCursor after = OrderCursor.decode(cursor);
+            ids = userId == null
+                    ? orderRepository.findPageIdsAfter(after.createdAt(), after.orderId(), limit)
+                    : orderRepository.findPageIdsAfterByUserId(userId, after.createdAt(), after.orderId(), limit);
+        }
+
+        boolean hasMore = ids.size() > pageSize;
+        List<OrderDTO> orders = loadOrderDTOs(hasMore ? ids.subList(0, pageSize) : ids);
+
+        String nextCursor = null;
+        if (hasMore && !orders.isEmpty()) {
+            OrderDTO last = orders.get(orders.size() - 1);
+            nextCursor = new OrderCursor(last.getCreatedAt(), last.getOrderId()).encode();
+        }
+
+        return CursorPageDTO.<OrderDTO>builder()
+                .items(orders)
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .size(orders.size())
+                .build();
     }
 
     public List<OrderDTO> getOrdersByStatus(Order.OrderStatus status) {
@@ -260,6 +324,7 @@ public class OrderService {
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new IllegalArgumentException("Order not found"));
 
+        Order.OrderStatus previousStatus = order.getOrderStatus();
         order.setOrderStatus(newStatus);
 
         // Update actual delivery time if done
@@ -298,21 +363,23 @@ public class OrderService {
         Order savedOrder = orderRepository.save(order);
         log.info("Order status updated: {} -> {}", orderId, newStatus);
 
-        // Gửi notification cho user về cập nhật trạng thái
-        if (notificationService != null) {
-            try {
-                Long userId = savedOrder.getUser().getUserId();
-                notificationService.notifyOrderStatusUpdate(
-                        userId,
-                        orderId,
-                        savedOrder.getOrderNumber(),
-                        newStatus
-                );
-            } catch (Exception e) {
-                log.error("Error sending order status update notification: {}", e.getMessage(), e);
-            }
+        if (previousStatus != newStatus) {
+            eventPublisher.publishEvent(OrderTransitionEvent.of(savedOrder, previousStatus, newStatus));
         }
 
+        // Thông báo cho user được ghi vào outbox, gửi sau khi commit
+        outboxService.enqueue(OutboxEvent.EventType.ORDER_STATUS_UPDATED, orderId,
+                OrderEventPayload.builder()
+                        .orderId(orderId)
+                        .orderNumber(savedOrder.getOrderNumber())
+                        .userId(savedOrder.getUser().getUserId())
+                        .previousStatus(previousStatus)
+                        .orderStatus(newStatus)
+                        .finalAmount(savedOrder.getFinalAmount())
+                        .createdAt(savedOrder.getCreatedAt())
+                        .occurredAt(LocalDateTime.now())
+                        .build());
+
         return convertToDTO(savedOrder);
     }
 
@@ -325,6 +392,8 @@ public class OrderService {
             throw new IllegalStateException("Order cannot be cancelled");
         }
 
+        Order.OrderStatus previousStatus = order.getOrderStatus();
+
         // Set order status to CANCELLED
         order.setOrderStatus(Order.OrderStatus.CANCELLED);
         // Also set payment status to FAILED
@@ -339,34 +408,19 @@ public class OrderService {
             paymentRepository.save(payment);
         }
         Order savedOrder = orderRepository.save(order);
+        if (previousStatus != Order.OrderStatus.CANCELLED) {
+            eventPublisher.publishEvent(OrderTransitionEvent.of(savedOrder, previousStatus, Order.OrderStatus.CANCELLED));
+        }
 
         log.info("Order cancelled: {}", orderId);
         return convertToDTO(savedOrder);
     }
 
+    /**
+     * Thống kê đơn hàng theo trạng thái + doanh thu (đọc từ bộ đếm trong bộ nhớ)
+     */
     public OrderStatsDTO getOrderStats() {
-        // Get counts by status
-        Long totalOrders = orderRepository.count();
-        Long pendingOrders = orderRepository.countByOrderStatus(Order.OrderStatus.PENDING);
-        Long confirmedOrders = orderRepository.countByOrderStatus(Order.OrderStatus.CONFIRMED);
-        Long deliveringOrders = orderRepository.countByOrderStatus(Order.OrderStatus.DELIVERING);
-        Long completedOrders = orderRepository.countByOrderStatus(Order.OrderStatus.DONE);
-
-        // Calculate revenue (simplified - you can enhance this)
-        BigDecimal totalRevenue = BigDecimal.ZERO; // TODO: Calculate from orders
-        BigDecimal todayRevenue = BigDecimal.ZERO; // TODO: Calculate from today's orders
-        BigDecimal thisMonthRevenue = BigDecimal.ZERO; // TODO: Calculate from this month's orders
-
-        return OrderStatsDTO.builder()
-                .totalOrders(totalOrders)
-                .pendingOrders(pendingOrders)
-                .confirmedOrders(confirmedOrders)
-                .deliveringOrders(deliveringOrders)
-                .completedOrders(completedOrders)
-                .totalRevenue(totalRevenue)
-                .todayRevenue(todayRevenue)
-                .thisMonthRevenue(thisMonthRevenue)
-                .build();
+        return orderStatsService.getStats();
     }
 
     // ===============================
@@ -374,44 +428,26 @@ public class OrderService {
     // ===============================
 
     /**
-     * Lấy số lượng order theo khoảng thời gian
+     * Lấy số lượng order theo khoảng thời gian (đọc từ daily_sales_rollup)
      */
     public long getOrderCountByDateRange(LocalDate startDate, LocalDate endDate) {
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-
-        return orderRepository.countByCreatedAtBetween(startDateTime, endDateTime);
+        return dailySalesRollupService.getTotals(startDate, endDate).orderCount();
     }
 
     /**
-     * Lấy tổng doanh thu theo khoảng thời gian
+     * Lấy tổng doanh thu (đơn DONE) theo khoảng thời gian (đọc từ daily_sales_rollup)
      */
-    public double getRevenueByDateRange(LocalDate startDate, LocalDate endDate) {
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-
-        List<Order> orders = orderRepository.findByCreatedAtBetweenAndOrderStatus(
-                startDateTime, endDateTime, Order.OrderStatus.DONE);
-
-        return orders.stream()
-                .mapToDouble(order -> order.getFinalAmount().doubleValue())
-                .sum();
+    public BigDecimal getRevenueByDateRange(LocalDate startDate, LocalDate endDate) {
+        return dailySalesRollupService.getTotals(startDate, endDate).revenue();
     }
 
     /**
      * Lấy thống kê order theo trạng thái trong khoảng thời gian
      */
     public Map<Order.OrderStatus, Long> getOrderCountByStatusInDateRange(LocalDate startDate, LocalDate endDate) {
-        LocalDateTime startDateTime = startDate.atStartOfDay();
-        LocalDateTime endDateTime = endDate.atTime(23, 59, 59);
-
-        Map<Order.OrderStatus, Long> statusCounts = new java.util.HashMap<>();
-
-        for (Order.OrderStatus status : Order.OrderStatus.values()) {
-            long count = orderRepository.countByCreatedAtBetweenAndOrderStatus(startDateTime, endDateTime, status);
-            statusCounts.put(status, count);
-        }
-
+        Map<Order.OrderStatus, Long> statusCounts = new java.util.EnumMap<>(Order.OrderStatus.class);
+        orderStatsService.aggregateByStatus(startDate, endDate)
+                .forEach((status, aggregate) -> statusCounts.put(status, aggregate.orderCount()));
         return statusCounts;
     }
 
@@ -419,6 +455,72 @@ public class OrderService {
     // HELPER METHODS
     // ===============================
 
+    /**
+     * Gom tất cả đơn (userId = null: mọi user) theo từng trang keyset; mỗi trang xong thì clear
+     * persistence context để chỉ giữ lại DTO trong bộ nhớ
+     */
+    private List<OrderDTO> loadAllOrderDTOs(Long userId) {
+        Pageable chunk = PageRequest.of(0, LIST_CHUNK_SIZE);
+        List<OrderDTO> result = new ArrayList<>();
+        List<Long> ids = userId == null
+                ? orderRepository.findFirstPageIds(chunk)
+                : orderRepository.findFirstPageIdsByUserId(userId, chunk);
+        while (!ids.isEmpty()) {
+            List<OrderDTO> page = loadOrderDTOs(ids);
+            result.addAll(page);
+            entityManager.clear();
+            if (ids.size() < LIST_CHUNK_SIZE || page.isEmpty()) {
+                break;
+            }
+            OrderDTO last = page.get(page.size() - 1);
+            ids = userId == null
+                    ? orderRepository.findPageIdsAfter(last.getCreatedAt(), last.getOrderId(), chunk)
+                    : orderRepository.findPageIdsAfterByUserId(userId, last.getCreatedAt(), last.getOrderId(), chunk);
+        }
+        return result;
+    }
+
+    /**
+     * Load đầy đủ order graph cho danh sách id với số query cố định, giữ nguyên thứ tự id
+     */
+    private List<OrderDTO> loadOrderDTOs(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, Order> ordersById = orderRepository.findWithItemsByOrderIdIn(orderIds).stream()
+                .collect(Collectors.toMap(Order::getOrderId, o -> o));
+        // Khởi tạo collection options của các item đã load ở trên (cùng persistence context)
+        orderItemRepository.findWithOptionsByOrderIdIn(orderIds);
+
+        return orderIds.stream()
+                .map(ordersById::get)
+                .filter(java.util.Objects::nonNull)
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Cursor phân trang đơn hàng: base64url("createdAt|orderId")
+     */
+    private record OrderCursor(LocalDateTime createdAt, Long orderId) {
+
+        String encode() {
+            String raw = createdAt + "|" + orderId;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static OrderCursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int separator = raw.lastIndexOf('|');
+                return new OrderCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                        Long.parseLong(raw.substring(separator + 1)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Cursor không hợp lệ");
+            }
+        }
+    }
+
     private String generateOrderNumber() {
         return "ORD-" + System.currentTimeMillis() + "-" + UUID.randomUUID().toString().substring(0, 4).toUpperCase();
     }
@@ -484,39 +586,7 @@ public class OrderService {
                 .build();
     }
 
-    private BigDecimal calculateTotalAmount(List<CreateOrderRequest.OrderItemRequest> orderItems) {
-        return orderItems.stream()
-                .map(itemRequest -> {
-                    Product product = productRepository.findById(itemRequest.getProductId())
-                            .orElseThrow(() -> new IllegalArgumentException("Product not found: " + itemRequest.getProductId()));
-
-                    // Use original unit price (giá gốc) for coupon base subtotal
-                    BigDecimal itemTotal = product.getPrice().multiply(BigDecimal.valueOf(itemRequest.getQuantity()));
-
-                    // Add option prices
-                    if (itemRequest.getSelectedOptionIds() != null) {
-                        BigDecimal optionsPrice = itemRequest.getSelectedOptionIds().stream()
-                                .map(optionId -> {
-                                    ProductOption option = productOptionRepository.findById(optionId)
-                                            .orElseThrow(() -> new IllegalArgumentException("Product option not found: " + optionId));
-                                    return option.getPrice();
-                                })
-                                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-                        // Options áp dụng cho mỗi đơn vị sản phẩm
-                        itemTotal = itemTotal.add(optionsPrice.multiply(BigDecimal.valueOf(itemRequest.getQuantity())));
-                    }
-
-                    return itemTotal;
-                })
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-    }
-
     // Public helpers for quoting from controller
-    public BigDecimal getOrderItemsSubtotal(List<CreateOrderRequest.OrderItemRequest> orderItems) {
-        return calculateTotalAmount(orderItems);
-    }
-
     public BigDecimal previewCouponDiscount(String couponCode, BigDecimal subtotal) {
         java.util.Optional<Coupon> c = couponRepository.findValidCoupon(couponCode, java.time.LocalDateTime.now());
         return c.map(coupon -> coupon.calculateDiscount(subtotal)).orElse(BigDecimal.ZERO);
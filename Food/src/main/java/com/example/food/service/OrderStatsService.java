@@ -0,0 +1,239 @@
+package com.example.food.service;
+
+import com.example.food.dto.OrderStatsDTO;
+import com.example.food.model.Order;
+import com.example.food.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Thống kê đơn hàng theo trạng thái:
+ * - Một đường aggregate duy nhất (GROUP BY status) cho mọi truy vấn thống kê từ DB
+ * - Bộ đếm trong bộ nhớ (LongAdder, theo trạng thái + doanh thu) cập nhật sau commit mỗi lần order
+ *   đổi trạng thái, đối soát định kỳ với DB. /admin/orders/api/stats đọc trực tiếp từ bộ đếm.
+ * Doanh thu = tổng finalAmount của đơn DONE, tính theo ngày tạo đơn (giống daily_sales_rollup).
+ */
+@Service
+@Slf4j
+public class OrderStatsService {
+
+    private static final LocalDateTime ALL_TIME_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final int MAX_DEFERRED_RECONCILES = 3;
+
+    private final OrderRepository orderRepository;
+
+    // Đọc/cập nhật bộ đếm dùng read lock (song song); đối soát thay bộ đếm mới dùng write lock
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock();
+    private final AtomicLong transitionSequence = new AtomicLong();
+    private volatile Counters counters;
+    private int deferredReconciles = 0;
+
+    public OrderStatsService(OrderRepository orderRepository) {
+        this.orderRepository = orderRepository;
+    }
+
+    /**
+     * Số đơn, doanh thu theo trạng thái trong khoảng ngày (1 query GROUP BY)
+     */
+    public Map<Order.OrderStatus, StatusAggregate> aggregateByStatus(LocalDate startDate, LocalDate endDate) {
+        LocalDate today = LocalDate.now();
+        return aggregate(startDate.atStartOfDay(), endDate.plusDays(1).atStartOfDay(),
+                today.atStartOfDay(), today.withDayOfMonth(1).atStartOfDay());
+    }
+
+    /**
+     * Thống kê hiện tại, đọc từ bộ nhớ
+     */
+    public OrderStatsDTO getStats() {
+        Counters current = counters;
+        if (current == null || !current.day.equals(LocalDate.now())) {
+            reconcile();
+            current = counters;
+        }
+        return current.toDTO();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderTransition(OrderTransitionEvent event) {
+        if (event.getFromStatus() == event.getToStatus()) {
+            return;
+        }
+        swapLock.readLock().lock();
+        try {
+            transitionSequence.incrementAndGet();
+            Counters current = counters;
+            if (current == null) {
+                return;
+            }
+            if (event.isCreation()) {
+                current.total.increment();
+            } else {
+                current.apply(event.getFromStatus(), event.getOrderCreatedAt(), event.getFinalAmount(), -1);
+            }
+            current.apply(event.getToStatus(), event.getOrderCreatedAt(), event.getFinalAmount(), 1);
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        try {
+            reconcile();
+        } catch (Exception e) {
+            log.error("Error initializing order stats counters: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Đối soát bộ đếm với DB. Nếu có order đổi trạng thái trong lúc query đang chạy thì
+     * kết quả có thể lệch -> giữ bộ đếm cũ, đối soát lại lần sau (tối đa MAX_DEFERRED_RECONCILES lần).
+     */
+    @Scheduled(fixedDelay = 5 * 60 * 1000, initialDelay = 5 * 60 * 1000)
+    public synchronized void reconcile() {
+        long sequenceBefore = transitionSequence.get();
+        LocalDate today = LocalDate.now();
+        Counters fresh = new Counters(today, aggregate(ALL_TIME_START, today.plusDays(1).atStartOfDay(),
+                today.atStartOfDay(), today.withDayOfMonth(1).atStartOfDay()));
+
+        swapLock.writeLock().lock();
+        try {
+            Counters current = counters;
+            boolean changedMeanwhile = transitionSequence.get() != sequenceBefore;
+            boolean periodRolled = current != null && !current.day.equals(today);
+            if (current != null && changedMeanwhile && !periodRolled
+                    && deferredReconciles < MAX_DEFERRED_RECONCILES) {
+                deferredReconciles++;
+                log.debug("Order stats reconcile deferred: orders changed during aggregation");
+                return;
+            }
+            if (current != null && !periodRolled) {
+                long drift = current.total.sum() - fresh.total.sum();
+                if (drift != 0) {
+                    log.warn("Order stats counters drifted by {} orders, resetting from database", drift);
+                }
+            }
+            counters = fresh;
+            deferredReconciles = 0;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    private Map<Order.OrderStatus, StatusAggregate> aggregate(LocalDateTime start, LocalDateTime end,
+                                                              LocalDateTime todayStart, LocalDateTime monthStart) {
+        Map<Order.OrderStatus, StatusAggregate> result = new EnumMap<>(Order.OrderStatus.class);
+        for (Order.OrderStatus status : Order.OrderStatus.values()) {
+            result.put(status, new StatusAggregate(0, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO));
+        }
+        List<Object[]> rows = orderRepository.aggregateByStatus(start, end, todayStart, monthStart);
+        for (Object[] row : rows) {
+            Order.OrderStatus status = (Order.OrderStatus) row[0];
+            if (status == null) {
+                continue;
+            }
+            result.put(status, new StatusAggregate(((Number) row[1]).longValue(),
+                    toBigDecimal(row[2]), toBigDecimal(row[3]), toBigDecimal(row[4])));
+        }
+        return result;
+    }
+
+    private static BigDecimal toBigDecimal(Object value) {
+        if (value == null) {
+            return BigDecimal.ZERO;
+        }
+        return value instanceof BigDecimal decimal ? decimal : new BigDecimal(value.toString());
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValue();
+    }
+
+    private static BigDecimal fromCents(long cents) {
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    public record StatusAggregate(long orderCount, BigDecimal revenue, BigDecimal todayRevenue,
+                                  BigDecimal thisMonthRevenue) {
+    }
+
+    /**
+     * Bộ đếm cho một ngày; sang ngày mới thì được thay bằng bộ đếm đối soát lại từ DB
+     */
+    private static final class Counters {
+
+        private final LocalDate day;
+        private final LongAdder total = new LongAdder();
+        private final Map<Order.OrderStatus, LongAdder> byStatus = new EnumMap<>(Order.OrderStatus.class);
+        private final LongAdder revenueCents = new LongAdder();
+        private final LongAdder todayRevenueCents = new LongAdder();
+        private final LongAdder monthRevenueCents = new LongAdder();
+
+        Counters(LocalDate day, Map<Order.OrderStatus, StatusAggregate> aggregates) {
+            this.day = day;
+            for (Order.OrderStatus status : Order.OrderStatus.values()) {
+                LongAdder adder = new LongAdder();
+                StatusAggregate aggregate = aggregates.get(status);
+                adder.add(aggregate.orderCount());
+                total.add(aggregate.orderCount());
+                byStatus.put(status, adder);
+            }
+            StatusAggregate done = aggregates.get(Order.OrderStatus.DONE);
+            revenueCents.add(toCents(done.revenue()));
+            todayRevenueCents.add(toCents(done.todayRevenue()));
+            monthRevenueCents.add(toCents(done.thisMonthRevenue()));
+        }
+
+        void apply(Order.OrderStatus status, LocalDateTime orderCreatedAt, BigDecimal amount, int sign) {
+            byStatus.get(status).add(sign);
+            if (orderCreatedAt == null) {
+                return;
+            }
+            if (status == Order.OrderStatus.DONE) {
+                long cents = sign * toCents(amount);
+                revenueCents.add(cents);
+                LocalDate createdDay = orderCreatedAt.toLocalDate();
+                if (createdDay.equals(day)) {
+                    todayRevenueCents.add(cents);
+                }
+                if (YearMonth.from(createdDay).equals(YearMonth.from(day))) {
+                    monthRevenueCents.add(cents);
+                }
+            }
+        }
+
+        OrderStatsDTO toDTO() {
+            Map<String, Long> ordersByStatus = new LinkedHashMap<>();
+            byStatus.forEach((status, adder) -> ordersByStatus.put(status.name(), adder.sum()));
+            return OrderStatsDTO.builder()
+                    .totalOrders(total.sum())
+                    .pendingOrders(ordersByStatus.get(Order.OrderStatus.PENDING.name()))
+                    .confirmedOrders(ordersByStatus.get(Order.OrderStatus.CONFIRMED.name()))
+                    .deliveringOrders(ordersByStatus.get(Order.OrderStatus.DELIVERING.name()))
+                    .completedOrders(ordersByStatus.get(Order.OrderStatus.DONE.name()))
+                    .ordersByStatus(ordersByStatus)
+                    .totalRevenue(fromCents(revenueCents.sum()))
+                    .todayRevenue(fromCents(todayRevenueCents.sum()))
+                    .thisMonthRevenue(fromCents(monthRevenueCents.sum()))
+                    .build();
+        }
+    }
+}
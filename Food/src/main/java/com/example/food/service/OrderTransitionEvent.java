@@ -0,0 +1,36 @@
+package com.example.food.service;
+
+import com.example.food.model.Order;
+import lombok.Value;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Event nội bộ phát ra (đồng bộ, trong transaction) mỗi khi order được tạo hoặc đổi trạng thái.
+ * fromStatus = null nghĩa là order vừa được tạo.
+ */
+@Value
+public class OrderTransitionEvent {
+
+    Long orderId;
+    LocalDateTime orderCreatedAt;
+    BigDecimal finalAmount;
+    Order.OrderStatus fromStatus;
+    Order.OrderStatus toStatus;
+    LocalDateTime occurredAt;
+
+    public static OrderTransitionEvent of(Order order, Order.OrderStatus fromStatus, Order.OrderStatus toStatus) {
+        return new OrderTransitionEvent(
+                order.getOrderId(),
+                order.getCreatedAt() != null ? order.getCreatedAt() : LocalDateTime.now(),
+                order.getFinalAmount() != null ? order.getFinalAmount() : BigDecimal.ZERO,
+                fromStatus,
+                toStatus,
+                LocalDateTime.now());
+    }
+
+    public boolean isCreation() {
+        return fromStatus == null;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.food.service;
+
+import com.example.food.config.StatementCountingInspector;
+import com.example.food.dto.OrderWriteStatsDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Benchmark đơn giản cho đường ghi order: giữ N mẫu gần nhất
+ * (số statement + độ trễ persist/flush) trong ring buffer để tính p50/p99, riêng cho từng đường ghi.
+ * writePath chọn đường ghi của createOrder: GRAPH (cascade một lần, insert batch) hoặc PER_ENTITY
+ * (đường cũ: save + flush từng entity) để so sánh trước / sau trên cùng instance.
+ * Chỉ bật với profile "benchmark" (cùng StatementCountingInspector và endpoint /admin/orders/api/write-stats).
+ */
+@Component
+@Profile("benchmark")
+public class OrderWriteStats {
+
+    private static final int WINDOW = 1024;
+
+    public enum WritePath {
+        GRAPH,
+        PER_ENTITY
+    }
+
+    private final Map<WritePath, Window> windows = new EnumMap<>(WritePath.class);
+    private volatile WritePath writePath;
+
+    public OrderWriteStats(@Value("${app.benchmark.order-write-path:GRAPH}") WritePath writePath) {
+        this.writePath = writePath;
+        for (WritePath path : WritePath.values()) {
+            windows.put(path, new Window());
+        }
+    }
+
+    public WritePath getWritePath() {
+        return writePath;
+    }
+
+    public void setWritePath(WritePath writePath) {
+        this.writePath = writePath;
+    }
+
+    /**
+     * Chạy lần ghi order theo path và ghi nhận số statement + độ trễ của nó
+     */
+    public <T> T measure(WritePath path, Supplier<T> write) {
+        long started = System.nanoTime();
+        StatementCountingInspector.start();
+        try {
+            return write.get();
+        } finally {
+            record(path, StatementCountingInspector.stop(), System.nanoTime() - started);
+        }
+    }
+
+    public synchronized void record(WritePath path, int statementCount, long latencyNanos) {
+        Window window = windows.get(path);
+        int slot = (int) (window.recorded % WINDOW);
+        window.statements[slot] = statementCount;
+        window.latenciesNanos[slot] = latencyNanos;
+        window.recorded++;
+    }
+
+    /**
+     * Thống kê của từng đường ghi (path chưa có mẫu thì samples = 0)
+     */
+    public synchronized List<OrderWriteStatsDTO> snapshot() {
+        List<OrderWriteStatsDTO> result = new ArrayList<>();
+        windows.forEach((path, window) -> result.add(window.snapshot(path, path == writePath)));
+        return result;
+    }
+
+    private static final class Window {
+        private final int[] statements = new int[WINDOW];
+        private final long[] latenciesNanos = new long[WINDOW];
+        private long recorded = 0;
+
+        private OrderWriteStatsDTO snapshot(WritePath path, boolean active) {
+            int size = (int) Math.min(recorded, WINDOW);
+            if (size == 0) {
+                return OrderWriteStatsDTO.builder()
+                        .writePath(path.name())
+                        .active(active)
+                        .samples(0)
+                        .avgStatementsPerOrder(0.0)
+                        .maxStatementsPerOrder(0)
+                        .p50LatencyMs(0.0)
+                        .p99LatencyMs(0.0)
+                        .build();
+            }
+
+            long totalStatements = 0;
+            int maxStatements = 0;
+            for (int i = 0; i < size; i++) {
+                totalStatements += statements[i];
+                maxStatements = Math.max(maxStatements, statements[i]);
+            }
+
+            long[] sorted = Arrays.copyOf(latenciesNanos, size);
+            Arrays.sort(sorted);
+
+            return OrderWriteStatsDTO.builder()
+                    .writePath(path.name())
+                    .active(active)
+                    .samples(size)
+                    .avgStatementsPerOrder((double) totalStatements / size)
+                    .maxStatementsPerOrder(maxStatements)
+                    .p50LatencyMs(percentile(sorted, 0.50) / 1_000_000.0)
+                    .p99LatencyMs(percentile(sorted, 0.99) / 1_000_000.0)
+                    .build();
+        }
+
+        private static long percentile(long[] sorted, double p) {
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, Math.min(index, sorted.length - 1))];
+        }
+    }
+}
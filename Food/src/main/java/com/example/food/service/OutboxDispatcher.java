@@ -0,0 +1,373 @@
+package com.example.food.service;
+
+import com.example.food.model.OutboxEvent;
+import com.example.food.repository.OutboxEventRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drain bảng outbox_events sau commit:
+ * - Claim batch event đến hạn (FOR UPDATE SKIP LOCKED, đẩy next_attempt_at thêm CLAIM_LEASE_SECONDS) trong
+ *   transaction ngắn, nên nhiều instance không gửi trùng; instance chết giữa chừng thì hết lease event được claim lại
+ * - Gom theo aggregate để giữ thứ tự event của cùng một order; aggregate chỉ được dispatch khi mọi event PENDING
+ *   trước đó của nó đều nằm trong batch vừa claim (event trước đang bị instance khác giữ thì chờ)
+ * - Xử lý song song với số worker cố định (bounded queue, caller-runs khi đầy)
+ * - Handler async (handleAsync) chỉ được tính là gửi xong khi future của nó hoàn tất; chưa xong sau ASYNC_WAIT_SECONDS
+ *   thì giữ claim (gia hạn lease, không tính là lần thử lỗi) và ghi kết quả khi future hoàn tất
+ * - Lỗi thì retry với exponential backoff, quá MAX_ATTEMPTS thì đánh dấu FAILED; các event sau của cùng aggregate
+ *   dừng lại chờ event lỗi (không claim khi aggregate còn event trước đang chờ retry)
+ */
+@Service
+@Slf4j
+public class OutboxDispatcher {
+
+    private static final int BATCH_SIZE = 100;
+    private static final int WORKER_THREADS = 4;
+    private static final int MAX_ATTEMPTS = 8;
+    private static final long MAX_BACKOFF_SECONDS = 300;
+    private static final long CLAIM_LEASE_SECONDS = 120;
+    // Chờ handler async (nhỏ hơn lease để event chưa xong không bị instance khác claim trong lúc chờ)
+    private static final long ASYNC_WAIT_SECONDS = 60;
+    private static final Set<OutboxEvent.EventType> ORDER_EVENT_TYPES =
+            EnumSet.of(OutboxEvent.EventType.ORDER_CREATED, OutboxEvent.EventType.ORDER_STATUS_UPDATED);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Map<OutboxEvent.EventType, OutboxEventHandler> handlers = new EnumMap<>(OutboxEvent.EventType.class);
+
+    private final ExecutorService coordinator;
+    private final ThreadPoolExecutor workers;
+    private final AtomicBoolean drainScheduled = new AtomicBoolean(false);
+    // Event đang chạy quá ASYNC_WAIT_SECONDS trên instance này: chỉ gia hạn lease, không dispatch lại
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+
+    public OutboxDispatcher(OutboxEventRepository outboxEventRepository, List<OutboxEventHandler> handlerBeans,
+                            PlatformTransactionManager transactionManager) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        for (OutboxEventHandler handler : handlerBeans) {
+            for (OutboxEvent.EventType type : handler.supportedTypes()) {
+                handlers.put(type, handler);
+            }
+        }
+
+        this.coordinator = Executors.newSingleThreadExecutor(namedThreads("outbox-coordinator"));
+        this.workers = new ThreadPoolExecutor(WORKER_THREADS, WORKER_THREADS, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(BATCH_SIZE), namedThreads("outbox-worker"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    /**
+     * Yêu cầu drain ngay (gọi sau commit). Nhiều lần gọi liên tiếp chỉ tạo một lần drain.
+     */
+    public void wakeUp() {
+        if (drainScheduled.compareAndSet(false, true)) {
+            try {
+                coordinator.submit(() -> {
+                    drainScheduled.set(false);
+                    drain();
+                });
+            } catch (Exception e) {
+                drainScheduled.set(false);
+                log.warn("Cannot schedule outbox drain: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Poll định kỳ để xử lý retry và các event bị bỏ lỡ (ví dụ sau khi restart)
+     */
+    @Scheduled(fixedDelay = 2000)
+    public void poll() {
+        wakeUp();
+    }
+
+    /**
+     * Dọn các event đã gửi quá 7 ngày
+     */
+    @Scheduled(cron = "0 30 3 * * *")
+    public void purgeSentEvents() {
+        int deleted = outboxEventRepository.deleteProcessedBefore(OutboxEvent.EventStatus.SENT,
+                LocalDateTime.now().minusDays(7));
+        log.info("Purged {} sent outbox events", deleted);
+    }
+
+    public long getPendingCount() {
+        return outboxEventRepository.countByStatus(OutboxEvent.EventStatus.PENDING);
+    }
+
+    private void drain() {
+        try {
+            List<OutboxEvent> batch;
+            do {
+                batch = claimBatch();
+                if (!batch.isEmpty()) {
+                    dispatchBatch(batch);
+                }
+            } while (batch.size() == BATCH_SIZE);
+        } catch (Exception e) {
+            log.error("Error draining outbox: {}", e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Khóa batch event đến hạn và đẩy next_attempt_at ra sau lease rồi commit ngay:
+     * instance khác bỏ qua các dòng đang khóa, sau commit thì bỏ qua vì chưa đến hạn
+     */
+    private List<OutboxEvent> claimBatch() {
+        List<OutboxEvent> claimed = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxEvent> due = outboxEventRepository.claimDue(OutboxEvent.EventStatus.PENDING, now,
+                    ORDER_EVENT_TYPES, PageRequest.of(0, BATCH_SIZE));
+            LocalDateTime leaseUntil = now.plusSeconds(CLAIM_LEASE_SECONDS);
+            List<OutboxEvent> dispatchable = new ArrayList<>();
+            for (OutboxEvent event : withoutBlockedAggregates(due)) {
+                // Lease luôn được gia hạn; event đang in-flight thì chờ future cũ, không gửi lần nữa
+                event.setNextAttemptAt(leaseUntil);
+                if (!inFlight.contains(event.getEventId())) {
+                    dispatchable.add(event);
+                }
+            }
+            return dispatchable;
+        });
+        return claimed != null ? claimed : List.of();
+    }
+
+    /**
+     * Bỏ các event mà aggregate còn event PENDING trước đó không nằm trong batch: SKIP LOCKED bỏ qua event đang bị
+     * instance khác claim (chưa commit lease) nên claimDue không thấy nó; dòng bị bỏ được nhả khóa khi commit
+     */
+    private List<OutboxEvent> withoutBlockedAggregates(List<OutboxEvent> due) {
+        Set<Long> aggregateIds = new HashSet<>();
+        long maxEventId = 0;
+        for (OutboxEvent event : due) {
+            if (event.getAggregateId() != null) {
+                aggregateIds.add(event.getAggregateId());
+                maxEventId = Math.max(maxEventId, event.getEventId());
+            }
+        }
+        if (aggregateIds.isEmpty()) {
+            return due;
+        }
+
+        Set<Long> claimedIds = new HashSet<>();
+        due.forEach(event -> claimedIds.add(event.getEventId()));
+        // Event nhỏ nhất chưa claim được của mỗi aggregate: mọi event sau nó phải chờ
+        Map<String, Long> firstBlocked = new LinkedHashMap<>();
+        for (Object[] row : outboxEventRepository.findPendingBefore(OutboxEvent.EventStatus.PENDING,
+                aggregateIds, maxEventId)) {
+            Long eventId = (Long) row[0];
+            if (!claimedIds.contains(eventId)) {
+                firstBlocked.merge(aggregateKey((OutboxEvent.EventType) row[1], (Long) row[2]), eventId, Math::min);
+            }
+        }
+        if (firstBlocked.isEmpty()) {
+            return due;
+        }
+
+        List<OutboxEvent> result = new ArrayList<>();
+        for (OutboxEvent event : due) {
+            Long blocker = firstBlocked.get(aggregateKey(event.getEventType(), event.getAggregateId()));
+            if (blocker == null || event.getEventId() < blocker) {
+                result.add(event);
+            }
+        }
+        return result;
+    }
+
+    private static String aggregateKey(OutboxEvent.EventType type, Long aggregateId) {
+        return ORDER_EVENT_TYPES.contains(type) ? "ORDER:" + aggregateId : type.name() + ":" + aggregateId;
+    }
+
+    private void dispatchBatch(List<OutboxEvent> batch) {
+        // Gom theo aggregate: event cùng order được xử lý tuần tự, khác order thì song song
+        Map<String, List<OutboxEvent>> byAggregate = new LinkedHashMap<>();
+        for (OutboxEvent event : batch) {
+            byAggregate.computeIfAbsent(aggregateKey(event.getEventType(), event.getAggregateId()),
+                    k -> new ArrayList<>()).add(event);
+        }
+
+        // Mỗi event một future kết quả; handler async (FirebaseSyncQueue) hoàn tất sau khi flush nên cả batch
+        // được gom vào một lần ghi. Entity chỉ được cập nhật ở thread này, sau khi chờ xong.
+        Map<OutboxEvent, CompletableFuture<Attempt>> attempts = new IdentityHashMap<>();
+        for (List<OutboxEvent> group : byAggregate.values()) {
+            CompletableFuture<Boolean> canRun = CompletableFuture.completedFuture(true);
+            for (OutboxEvent event : group) {
+                CompletableFuture<Attempt> attempt = canRun.thenComposeAsync(run -> run
+                        ? runHandler(event)
+                        : CompletableFuture.completedFuture(Attempt.SKIPPED), workers);
+                attempts.put(event, attempt);
+                // Event lỗi còn retry chặn các event sau của aggregate; lỗi hẳn (FAILED) thì không chặn
+                boolean lastAttempt = event.getAttempts() + 1 >= MAX_ATTEMPTS;
+                canRun = attempt.thenApply(result -> !result.skipped() && (result.error() == null || lastAttempt));
+            }
+        }
+        try {
+            CompletableFuture.allOf(attempts.values().toArray(new CompletableFuture<?>[0]))
+                    .get(ASYNC_WAIT_SECONDS, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Outbox batch not completed within {}s, unfinished events stay claimed", ASYNC_WAIT_SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Không xảy ra: lỗi của handler nằm trong Attempt
+            log.error("Unexpected outbox dispatch error: {}", e.getMessage(), e);
+        }
+
+        int sent = 0;
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> unfinished = new ArrayList<>();
+        for (OutboxEvent event : batch) {
+            Attempt result = attempts.get(event).getNow(null);
+            if (result == null) {
+                // Handler vẫn đang chạy: không tính là lỗi, giữ claim cho tới khi future hoàn tất
+                event.setNextAttemptAt(now.plusSeconds(CLAIM_LEASE_SECONDS));
+                inFlight.add(event.getEventId());
+                unfinished.add(event);
+            } else if (applyResult(event, result, now)) {
+                sent++;
+            }
+        }
+
+        outboxEventRepository.saveAll(batch);
+        log.debug("Dispatched outbox batch: {} events, {} sent, {} in flight", batch.size(), sent, unfinished.size());
+
+        // Đăng ký sau saveAll để kết quả muộn không bị lần lưu ở trên ghi đè
+        for (OutboxEvent event : unfinished) {
+            Long eventId = event.getEventId();
+            attempts.get(event).whenComplete((result, error) ->
+                    completeLate(eventId, result != null ? result : new Attempt(false, error)));
+        }
+    }
+
+    /**
+     * Áp dụng kết quả vào entity; trả về true nếu event đã gửi xong
+     */
+    private boolean applyResult(OutboxEvent event, Attempt result, LocalDateTime now) {
+        if (result.skipped()) {
+            // Event trước của aggregate đang chờ retry: trả lease, claimDue sẽ bỏ qua cho đến khi nó xong
+            event.setNextAttemptAt(now);
+            return false;
+        }
+        if (result.error() != null) {
+            recordFailure(event, result.error());
+            return false;
+        }
+        event.setAttempts(event.getAttempts() + 1);
+        event.setStatus(OutboxEvent.EventStatus.SENT);
+        event.setProcessedAt(now);
+        event.setLastError(null);
+        return true;
+    }
+
+    /**
+     * Ghi kết quả của event đã hoàn tất sau thời gian chờ batch
+     */
+    private void completeLate(Long eventId, Attempt result) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> outboxEventRepository.findById(eventId)
+                    .filter(event -> event.getStatus() == OutboxEvent.EventStatus.PENDING)
+                    .ifPresent(event -> {
+                        applyResult(event, result, LocalDateTime.now());
+                        outboxEventRepository.save(event);
+                    }));
+        } catch (Exception e) {
+            // Không ghi được: lease hết hạn thì event được claim lại
+            log.error("Cannot record late outbox result for event {}: {}", eventId, e.getMessage(), e);
+        } finally {
+            inFlight.remove(eventId);
+        }
+        wakeUp();
+    }
+
+    private CompletableFuture<Attempt> runHandler(OutboxEvent event) {
+        OutboxEventHandler handler = handlers.get(event.getEventType());
+        try {
+            if (handler == null) {
+                throw new IllegalStateException("No outbox handler for " + event.getEventType());
+            }
+            return handler.handleAsync(event).handle((result, error) -> new Attempt(false,
+                    error instanceof CompletionException && error.getCause() != null ? error.getCause() : error));
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(new Attempt(false, e));
+        }
+    }
+
+    private void recordFailure(OutboxEvent event, Throwable error) {
+        event.setAttempts(event.getAttempts() + 1);
+        event.setLastError(error.getClass().getSimpleName() + ": " + error.getMessage());
+        if (event.getAttempts() >= MAX_ATTEMPTS) {
+            event.setStatus(OutboxEvent.EventStatus.FAILED);
+            event.setProcessedAt(LocalDateTime.now());
+            log.error("Outbox event {} ({}) failed permanently after {} attempts",
+                    event.getEventId(), event.getEventType(), event.getAttempts(), error);
+        } else {
+            long backoff = Math.min(MAX_BACKOFF_SECONDS, 1L << event.getAttempts());
+            event.setNextAttemptAt(LocalDateTime.now().plusSeconds(backoff));
+            log.warn("Outbox event {} ({}) failed, retry in {}s: {}",
+                    event.getEventId(), event.getEventType(), backoff, error.getMessage());
+        }
+    }
+
+    /**
+     * Kết quả xử lý một event: bỏ qua (aggregate đang bị chặn), hoặc xong với error (null = thành công)
+     */
+    private record Attempt(boolean skipped, Throwable error) {
+        static final Attempt SKIPPED = new Attempt(true, null);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        coordinator.shutdown();
+        workers.shutdown();
+        try {
+            if (!coordinator.awaitTermination(10, TimeUnit.SECONDS)) {
+                coordinator.shutdownNow();
+            }
+            if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+                workers.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            coordinator.shutdownNow();
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static java.util.concurrent.ThreadFactory namedThreads(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.food.service;
+
+import com.example.food.model.OutboxEvent;
+
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Xử lý một loại event trong outbox sau khi transaction gốc đã commit.
+ * Ném exception để OutboxDispatcher retry event với backoff.
+ * Thêm webhook / kênh mới chỉ cần khai báo thêm một bean implement interface này.
+ */
+public interface OutboxEventHandler {
+
+    Set<OutboxEvent.EventType> supportedTypes();
+
+    void handle(OutboxEvent event) throws Exception;
+
+    /**
+     * Handler chỉ xếp việc vào hàng đợi (ví dụ gom ghi Firebase) trả về future hoàn tất khi việc xong thật;
+     * event chỉ được đánh dấu SENT khi future hoàn tất, future lỗi thì retry như exception
+     */
+    default CompletableFuture<Void> handleAsync(OutboxEvent event) throws Exception {
+        handle(event);
+        return CompletableFuture.completedFuture(null);
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.food.service;
+
+import com.example.food.model.OutboxEvent;
+import com.example.food.repository.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OutboxService {
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final ObjectMapper objectMapper;
+    private final OutboxDispatcher outboxDispatcher;
+
+    /**
+     * Ghi event vào outbox trong cùng transaction với thay đổi nghiệp vụ.
+     * Sau khi commit, dispatcher được đánh thức để gửi ngay thay vì chờ lần poll kế tiếp.
+     */
+    @Transactional
+    public OutboxEvent enqueue(OutboxEvent.EventType type, Long aggregateId, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Cannot serialize outbox payload for " + type, e);
+        }
+
+        OutboxEvent event = outboxEventRepository.save(OutboxEvent.builder()
+                .eventType(type)
+                .aggregateId(aggregateId)
+                .payload(json)
+                .status(OutboxEvent.EventStatus.PENDING)
+                .attempts(0)
+                .nextAttemptAt(LocalDateTime.now())
+                .build());
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    outboxDispatcher.wakeUp();
+                }
+            });
+        } else {
+            outboxDispatcher.wakeUp();
+        }
+
+        log.debug("Enqueued outbox event {} for aggregate {}", type, aggregateId);
+        return event;
+    }
+}
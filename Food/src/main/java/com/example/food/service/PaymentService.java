@@ -8,6 +8,7 @@ import com.example.food.repository.OrderRepository;
 import com.example.food.repository.PaymentRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -25,6 +26,7 @@ public class PaymentService {
 
     private final PaymentRepository paymentRepository;
     private final OrderRepository orderRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Tạo thanh toán cho đơn hàng
@@ -141,7 +143,9 @@ public class PaymentService {
             if (order.getOrderStatus() != Order.OrderStatus.PENDING) {
                 log.warn("Order {} had status {} but should be PENDING for e-wallet payment. Resetting to PENDING.",
                         order.getOrderId(), order.getOrderStatus());
+                Order.OrderStatus previousStatus = order.getOrderStatus();
                 order.setOrderStatus(Order.OrderStatus.PENDING);
+                eventPublisher.publishEvent(OrderTransitionEvent.of(order, previousStatus, Order.OrderStatus.PENDING));
             }
 
             orderRepository.save(order);
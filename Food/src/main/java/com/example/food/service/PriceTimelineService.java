@@ -0,0 +1,201 @@
+package com.example.food.service;
+
+import com.example.food.model.PricePoint;
+import com.example.food.model.Product;
+import com.example.food.model.Sale;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dòng thời gian giá của từng sản phẩm (giá gốc + các khung sale từ field sale của product và bảng sales):
+ * - getPrice() tra bảng giá hiện tại đã tính sẵn, O(1), không gọi LocalDateTime.now() hay tính BigDecimal
+ * - Bảng giá được tính lại đúng tại mốc sale bắt đầu / kết thúc gần nhất bằng một timer, rồi hẹn mốc kế tiếp
+ * - Timeline build lại cùng catalog (CatalogService.rebuild) khi admin sửa sản phẩm / sale
+ */
+@Service
+@Slf4j
+public class PriceTimelineService {
+
+    private final ScheduledExecutorService transitionTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "price-timeline");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private Map<Long, ProductTimeline> timelines = Map.of();   // Chỉ đổi trong synchronized
+    private ScheduledFuture<?> nextTransition;
+    private volatile PriceTable priceTable = new PriceTable(0, Map.of(), LocalDateTime.MAX);
+
+    /**
+     * Giá hiện tại của sản phẩm; null nếu sản phẩm chưa có trong timeline
+     */
+    public PricePoint getPrice(Long productId) {
+        return priceTable.points().get(productId);
+    }
+
+    /**
+     * Giá hiện tại của entity. Nếu giá gốc trong timeline khác entity (vừa sửa, catalog chưa build lại)
+     * thì tính trực tiếp từ entity để không bán sai giá.
+     */
+    public PricePoint getPrice(Product product) {
+        PricePoint point = priceTable.points().get(product.getProductId());
+        if (point != null && point.getBasePrice() != null && product.getPrice() != null
+                && point.getBasePrice().compareTo(product.getPrice()) == 0) {
+            return point;
+        }
+        return product.getPricePointAt(LocalDateTime.now());
+    }
+
+    /**
+     * Bảng giá hiện tại (bất biến); version tăng mỗi lần timeline build lại hoặc qua một mốc sale
+     */
+    public PriceTable getPriceTable() {
+        return priceTable;
+    }
+
+    /**
+     * Build lại timeline từ sản phẩm và các sale còn hiệu lực / sắp diễn ra
+     */
+    public synchronized void rebuild(Collection<Product> products, Collection<Sale> sales) {
+        Map<Long, List<Sale>> salesByProductId = new HashMap<>();
+        for (Sale sale : sales) {
+            salesByProductId.computeIfAbsent(sale.getProductId(), id -> new ArrayList<>()).add(sale);
+        }
+
+        Map<Long, ProductTimeline> next = new HashMap<>();
+        for (Product product : products) {
+            next.put(product.getProductId(),
+                    ProductTimeline.of(product, salesByProductId.getOrDefault(product.getProductId(), List.of())));
+        }
+        timelines = next;
+        advance();
+    }
+
+    /**
+     * Tính bảng giá tại thời điểm hiện tại và hẹn lần tính tiếp theo ở mốc sale gần nhất
+     */
+    private synchronized void advance() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, PricePoint> points = new HashMap<>();
+        LocalDateTime validUntil = LocalDateTime.MAX;
+        for (Map.Entry<Long, ProductTimeline> entry : timelines.entrySet()) {
+            points.put(entry.getKey(), entry.getValue().at(now));
+            LocalDateTime boundary = entry.getValue().nextBoundaryAfter(now);
+            if (boundary.isBefore(validUntil)) {
+                validUntil = boundary;
+            }
+        }
+        priceTable = new PriceTable(priceTable.version() + 1, Map.copyOf(points), validUntil);
+
+        if (nextTransition != null) {
+            nextTransition.cancel(false);
+            nextTransition = null;
+        }
+        if (!validUntil.equals(LocalDateTime.MAX)) {
+            // Làm tròn lên để timer không chạy sớm hơn mốc (sẽ phải hẹn lại)
+            long delayMillis = Math.max(0, Duration.between(LocalDateTime.now(), validUntil).toMillis() + 1);
+            nextTransition = transitionTimer.schedule(this::transition, delayMillis, TimeUnit.MILLISECONDS);
+            log.debug("Next price transition at {}", validUntil);
+        }
+    }
+
+    private void transition() {
+        try {
+            advance();
+            log.info("Price table v{} applied, next transition at {}", priceTable.version(), priceTable.validUntil());
+        } catch (Exception e) {
+            log.error("Error applying price transition: {}", e.getMessage(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        transitionTimer.shutdownNow();
+    }
+
+    /**
+     * points: productId -> giá hiện tại; validUntil: mốc sale kế tiếp (LocalDateTime.MAX nếu không có)
+     */
+    public record PriceTable(long version, Map<Long, PricePoint> points, LocalDateTime validUntil) {
+    }
+
+    private record Segment(LocalDateTime start, LocalDateTime end, PricePoint point) {
+
+        boolean contains(LocalDateTime time) {
+            return !time.isBefore(start) && time.isBefore(end);
+        }
+    }
+
+    /**
+     * Các khung sale của một sản phẩm theo thứ tự ưu tiên (field sale trên product trước, rồi các Sale khác)
+     */
+    private static final class ProductTimeline {
+        private final PricePoint regular;
+        private final List<Segment> segments;
+
+        private ProductTimeline(PricePoint regular, List<Segment> segments) {
+            this.regular = regular;
+            this.segments = segments;
+        }
+
+        static ProductTimeline of(Product product, List<Sale> sales) {
+            List<Segment> segments = new ArrayList<>();
+            if (Boolean.TRUE.equals(product.getIsOnSale())) {
+                segments.add(new Segment(
+                        product.getSaleStartDate() != null ? product.getSaleStartDate() : LocalDateTime.MIN,
+                        product.getSaleEndDate() != null ? product.getSaleEndDate() : LocalDateTime.MAX,
+                        PricePoint.onSale(product.getPrice(), product.getSalePrice(), product.getSalePercentage())));
+            }
+            for (Sale sale : sales) {
+                if (sale.getStartDate() == null || sale.getEndDate() == null || product.getPrice() == null) {
+                    continue;
+                }
+                Integer percentage = sale.getDiscountType() == Sale.DiscountType.PERCENTAGE
+                        && sale.getDiscountValue() != null ? sale.getDiscountValue().intValue() : null;
+                BigDecimal salePrice = sale.getSalePrice();
+                if (salePrice == null && sale.getDiscountValue() != null) {
+                    salePrice = sale.calculateSalePrice(product.getPrice());
+                }
+                segments.add(new Segment(sale.getStartDate(), sale.getEndDate(),
+                        PricePoint.onSale(product.getPrice(), salePrice, percentage)));
+            }
+            return new ProductTimeline(PricePoint.regular(product.getPrice()), List.copyOf(segments));
+        }
+
+        PricePoint at(LocalDateTime time) {
+            for (Segment segment : segments) {
+                if (segment.contains(time)) {
+                    return segment.point();
+                }
+            }
+            return regular;
+        }
+
+        LocalDateTime nextBoundaryAfter(LocalDateTime time) {
+            LocalDateTime next = LocalDateTime.MAX;
+            for (Segment segment : segments) {
+                if (segment.start().isAfter(time) && segment.start().isBefore(next)) {
+                    next = segment.start();
+                }
+                if (segment.end().isAfter(time) && segment.end().isBefore(next)) {
+                    next = segment.end();
+                }
+            }
+            return next;
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.example.food.service;
+
+import com.example.food.dto.ProductDTO;
+import com.example.food.dto.ProductFilterResultDTO;
+import com.example.food.model.PricePoint;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Lọc sản phẩm đang bán theo facet bằng bitset (mỗi giá trị facet một BitSet trên vị trí sản phẩm):
+ * - Trong cùng facet các giá trị được chọn là OR, giữa các facet là AND
+ * - Số đếm của mỗi giá trị = |AND các facet khác & bitset giá trị|, không query DB
+ * Facet giá và onSale lấy từ bảng giá của PriceTimelineService; index ghi version bảng giá đã dùng,
+ * bảng giá đổi (qua mốc sale) thì phải build lại.
+ */
+public final class ProductFacetIndex {
+
+    public static final String CATEGORY = "category";
+    public static final String PRICE = "price";
+    public static final String FEATURED = "featured";
+    public static final String ON_SALE = "onSale";
+    public static final String HAS_OPTIONS = "hasOptions";
+    public static final String PREP_TIME = "prepTime";
+
+    // Khoảng [min, max) theo giá hiện tại (đã tính sale), đơn vị VND
+    private static final List<Range> PRICE_BUCKETS = List.of(
+            new Range("0-30000", "Dưới 30.000đ", 0, 30_000),
+            new Range("30000-50000", "30.000đ - 50.000đ", 30_000, 50_000),
+            new Range("50000-100000", "50.000đ - 100.000đ", 50_000, 100_000),
+            new Range("100000-200000", "100.000đ - 200.000đ", 100_000, 200_000),
+            new Range("200000+", "Từ 200.000đ", 200_000, Long.MAX_VALUE));
+
+    // Khoảng [min, max) theo phút chuẩn bị
+    private static final List<Range> PREP_TIME_BUCKETS = List.of(
+            new Range("0-10", "Dưới 10 phút", 0, 10),
+            new Range("10-20", "10 - 20 phút", 10, 20),
+            new Range("20-30", "20 - 30 phút", 20, 30),
+            new Range("30+", "Từ 30 phút", 30, Long.MAX_VALUE));
+
+    private final ProductDTO[] products;
+    private final Map<String, List<FacetValue>> facets;
+    private final long priceVersion;
+
+    private ProductFacetIndex(ProductDTO[] products, Map<String, List<FacetValue>> facets, long priceVersion) {
+        this.products = products;
+        this.facets = facets;
+        this.priceVersion = priceVersion;
+    }
+
+    /**
+     * Build index cho danh sách sản phẩm (giữ nguyên thứ tự) theo bảng giá prices
+     */
+    public static ProductFacetIndex build(List<ProductDTO> available, PriceTimelineService.PriceTable prices) {
+        ProductDTO[] products = available.toArray(new ProductDTO[0]);
+        Map<String, FacetValue> categories = new LinkedHashMap<>();
+        List<FacetValue> priceBuckets = rangeValues(PRICE_BUCKETS);
+        List<FacetValue> featured = booleanValues();
+        List<FacetValue> onSale = booleanValues();
+        List<FacetValue> hasOptions = booleanValues();
+        List<FacetValue> prepTimes = rangeValues(PREP_TIME_BUCKETS);
+
+        for (int doc = 0; doc < products.length; doc++) {
+            ProductDTO product = products[doc];
+            if (product.getCategory() != null) {
+                String categoryId = String.valueOf(product.getCategory().getCategoryId());
+                categories.computeIfAbsent(categoryId,
+                        id -> new FacetValue(id, product.getCategory().getCategoryName(), new BitSet())).docs.set(doc);
+            }
+
+            PricePoint point = prices.points().get(product.getProductId());
+            boolean saleActive = point != null && point.isSaleActive();
+            BigDecimal price = point != null ? point.getCurrentPrice() : product.getPrice();
+            if (price != null) {
+                setRange(priceBuckets, PRICE_BUCKETS, price.longValue(), doc);
+            }
+            if (product.getPreparationTime() != null) {
+                setRange(prepTimes, PREP_TIME_BUCKETS, product.getPreparationTime(), doc);
+            }
+            booleanValue(featured, Boolean.TRUE.equals(product.getIsFeatured())).docs.set(doc);
+            booleanValue(onSale, saleActive).docs.set(doc);
+            booleanValue(hasOptions, Boolean.TRUE.equals(product.getHasOptions())).docs.set(doc);
+        }
+
+        Map<String, List<FacetValue>> facets = new LinkedHashMap<>();
+        facets.put(CATEGORY, List.copyOf(categories.values()));
+        facets.put(PRICE, priceBuckets);
+        facets.put(FEATURED, featured);
+        facets.put(ON_SALE, onSale);
+        facets.put(HAS_OPTIONS, hasOptions);
+        facets.put(PREP_TIME, prepTimes);
+        return new ProductFacetIndex(products, facets, prices.version());
+    }
+
+    /**
+     * Version của bảng giá dùng khi build
+     */
+    public long getPriceVersion() {
+        return priceVersion;
+    }
+
+    /**
+     * Lọc theo selections (facet -> các giá trị được chọn; facet không có hoặc rỗng = không lọc).
+     * Khoảng price / prepTime không có trong danh sách khoảng thì IllegalArgumentException
+     */
+    public FilterResult filter(Map<String, Set<String>> selections) {
+        requireKnownRanges(PRICE, selections.get(PRICE), PRICE_BUCKETS);
+        requireKnownRanges(PREP_TIME, selections.get(PREP_TIME), PREP_TIME_BUCKETS);
+
+        Map<String, BitSet> masks = new LinkedHashMap<>();
+        for (Map.Entry<String, List<FacetValue>> facet : facets.entrySet()) {
+            Set<String> selected = selections.get(facet.getKey());
+            if (selected == null || selected.isEmpty()) {
+                continue;
+            }
+            BitSet mask = new BitSet(products.length);
+            for (FacetValue value : facet.getValue()) {
+                if (selected.contains(value.value)) {
+                    mask.or(value.docs);
+                }
+            }
+            masks.put(facet.getKey(), mask);
+        }
+
+        BitSet matches = allExcept(masks, null);
+        List<ProductDTO> matched = new ArrayList<>(matches.cardinality());
+        for (int doc = matches.nextSetBit(0); doc >= 0; doc = matches.nextSetBit(doc + 1)) {
+            matched.add(products[doc]);
+        }
+
+        Map<String, List<ProductFilterResultDTO.FacetCount>> counts = new LinkedHashMap<>();
+        for (Map.Entry<String, List<FacetValue>> facet : facets.entrySet()) {
+            BitSet base = allExcept(masks, facet.getKey());
+            Set<String> selected = selections.getOrDefault(facet.getKey(), Set.of());
+            List<ProductFilterResultDTO.FacetCount> values = new ArrayList<>();
+            for (FacetValue value : facet.getValue()) {
+                BitSet hits = (BitSet) base.clone();
+                hits.and(value.docs);
+                values.add(ProductFilterResultDTO.FacetCount.builder()
+                        .value(value.value)
+                        .label(value.label)
+                        .count((long) hits.cardinality())
+                        .selected(selected.contains(value.value))
+                        .build());
+            }
+            counts.put(facet.getKey(), values);
+        }
+        return new FilterResult(matched, counts);
+    }
+
+    private static void requireKnownRanges(String facet, Set<String> selected, List<Range> buckets) {
+        if (selected == null) {
+            return;
+        }
+        for (String value : selected) {
+            if (buckets.stream().noneMatch(range -> range.key().equals(value))) {
+                throw new IllegalArgumentException("Không hỗ trợ khoảng " + facet + ": " + value);
+            }
+        }
+    }
+
+    /**
+     * AND mask của mọi facet trừ excludedFacet (null = tất cả)
+     */
+    private BitSet allExcept(Map<String, BitSet> masks, String excludedFacet) {
+        BitSet result = new BitSet(products.length);
+        result.set(0, products.length);
+        masks.forEach((facet, mask) -> {
+            if (!facet.equals(excludedFacet)) {
+                result.and(mask);
+            }
+        });
+        return result;
+    }
+
+    // ===============================
+    // FACET VALUES
+    // ===============================
+
+    private static List<FacetValue> rangeValues(List<Range> ranges) {
+        List<FacetValue> values = new ArrayList<>();
+        for (Range range : ranges) {
+            values.add(new FacetValue(range.key(), range.label(), new BitSet()));
+        }
+        return values;
+    }
+
+    private static void setRange(List<FacetValue> values, List<Range> ranges, long amount, int doc) {
+        for (int i = 0; i < ranges.size(); i++) {
+            if (amount >= ranges.get(i).min() && amount < ranges.get(i).max()) {
+                values.get(i).docs.set(doc);
+                return;
+            }
+        }
+    }
+
+    private static List<FacetValue> booleanValues() {
+        return List.of(new FacetValue("true", "Có", new BitSet()), new FacetValue("false", "Không", new BitSet()));
+    }
+
+    private static FacetValue booleanValue(List<FacetValue> values, boolean flag) {
+        return values.get(flag ? 0 : 1);
+    }
+
+    public record FilterResult(List<ProductDTO> products, Map<String, List<ProductFilterResultDTO.FacetCount>> facets) {
+    }
+
+    private record Range(String key, String label, long min, long max) {
+    }
+
+    private static final class FacetValue {
+        private final String value;
+        private final String label;
+        private final BitSet docs;
+
+        private FacetValue(String value, String label, BitSet docs) {
+            this.value = value;
+            this.label = label;
+            this.docs = docs;
+        }
+    }
+}
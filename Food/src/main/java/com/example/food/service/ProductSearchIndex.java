@@ -0,0 +1,215 @@
+package com.example.food.service;
+
+import com.example.food.dto.ProductDTO;
+import com.example.food.util.VietnameseTextUtil;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Inverted index bất biến trên tên, mô tả và tên danh mục của sản phẩm (đã bỏ dấu tiếng Việt).
+ * - Mỗi query token phải khớp (AND); token khớp đúng được điểm đủ, khớp tiền tố ("ph" -> "pho") được giảm điểm
+ * - Điểm = tổng (trọng số field x idf), cộng thêm nếu tên chứa nguyên cụm query
+ * - Build lại cùng catalog snapshot; sản phẩm không đổi nội dung dùng lại term đã tách từ index cũ
+ */
+public final class ProductSearchIndex {
+
+    private static final float NAME_WEIGHT = 3.0f;
+    private static final float CATEGORY_WEIGHT = 1.5f;
+    private static final float DESCRIPTION_WEIGHT = 1.0f;
+    private static final float REPEAT_WEIGHT = 0.2f;
+    private static final double PREFIX_FACTOR = 0.6;
+    private static final double PHRASE_BONUS = 2.0;
+
+    private final ProductDTO[] documents;
+    private final String[] foldedNames;
+    private final NavigableMap<String, Postings> postings;
+    private final Map<Long, DocumentTerms> termsByProductId;
+
+    private ProductSearchIndex(ProductDTO[] documents, String[] foldedNames,
+                               NavigableMap<String, Postings> postings, Map<Long, DocumentTerms> termsByProductId) {
+        this.documents = documents;
+        this.foldedNames = foldedNames;
+        this.postings = postings;
+        this.termsByProductId = termsByProductId;
+    }
+
+    public static ProductSearchIndex empty() {
+        return new ProductSearchIndex(new ProductDTO[0], new String[0], new TreeMap<>(), Map.of());
+    }
+
+    /**
+     * Build index cho toàn bộ sản phẩm; previous (có thể null) để tái sử dụng term của sản phẩm không đổi
+     */
+    public static ProductSearchIndex build(Collection<ProductDTO> products, ProductSearchIndex previous) {
+        ProductDTO[] documents = products.toArray(new ProductDTO[0]);
+        String[] foldedNames = new String[documents.length];
+        Map<Long, DocumentTerms> termsByProductId = new HashMap<>();
+        Map<String, PostingsBuilder> builders = new HashMap<>();
+
+        for (int doc = 0; doc < documents.length; doc++) {
+            ProductDTO product = documents[doc];
+            String categoryName = product.getCategory() != null ? product.getCategory().getCategoryName() : null;
+
+            DocumentTerms terms = previous != null ? previous.termsByProductId.get(product.getProductId()) : null;
+            if (terms == null || !terms.matches(product.getName(), product.getDescription(), categoryName)) {
+                terms = DocumentTerms.of(product.getName(), product.getDescription(), categoryName);
+            }
+            termsByProductId.put(product.getProductId(), terms);
+            foldedNames[doc] = VietnameseTextUtil.normalizePhrase(product.getName());
+
+            for (Map.Entry<String, Float> term : terms.weights.entrySet()) {
+                builders.computeIfAbsent(term.getKey(), key -> new PostingsBuilder()).add(doc, term.getValue());
+            }
+        }
+
+        NavigableMap<String, Postings> postings = new TreeMap<>();
+        builders.forEach((term, builder) -> postings.put(term, builder.build(documents.length)));
+        return new ProductSearchIndex(documents, foldedNames, postings, termsByProductId);
+    }
+
+    /**
+     * Tìm sản phẩm theo query, lọc bằng filter, trả về theo điểm giảm dần
+     */
+    public List<ProductDTO> search(String query, Predicate<ProductDTO> filter) {
+        List<String> tokens = VietnameseTextUtil.tokenize(query);
+        if (tokens.isEmpty() || documents.length == 0) {
+            return List.of();
+        }
+
+        double[] scores = null;
+        for (String token : tokens) {
+            double[] tokenScores = scoreToken(token);
+            if (scores == null) {
+                scores = tokenScores;
+            } else {
+                for (int doc = 0; doc < scores.length; doc++) {
+                    scores[doc] = scores[doc] > 0 && tokenScores[doc] > 0 ? scores[doc] + tokenScores[doc] : 0;
+                }
+            }
+        }
+
+        String phrase = String.join(" ", tokens);
+        List<ScoredDocument> hits = new ArrayList<>();
+        for (int doc = 0; doc < scores.length; doc++) {
+            if (scores[doc] <= 0 || !filter.test(documents[doc])) {
+                continue;
+            }
+            double score = scores[doc];
+            if (foldedNames[doc].contains(phrase)) {
+                score += PHRASE_BONUS;
+            }
+            hits.add(new ScoredDocument(documents[doc], score));
+        }
+
+        hits.sort(Comparator.comparingDouble(ScoredDocument::score).reversed()
+                .thenComparing(hit -> hit.product().getName(), Comparator.nullsLast(String.CASE_INSENSITIVE_ORDER)));
+        return hits.stream().map(ScoredDocument::product).toList();
+    }
+
+    public int getTermCount() {
+        return postings.size();
+    }
+
+    /**
+     * Điểm của một query token cho từng document: max trên các term khớp đúng / khớp tiền tố
+     */
+    private double[] scoreToken(String token) {
+        double[] scores = new double[documents.length];
+        for (Map.Entry<String, Postings> entry : postings.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+            double factor = entry.getKey().equals(token) ? 1.0 : PREFIX_FACTOR;
+            Postings list = entry.getValue();
+            for (int i = 0; i < list.docs.length; i++) {
+                double score = list.weights[i] * list.idf * factor;
+                if (score > scores[list.docs[i]]) {
+                    scores[list.docs[i]] = score;
+                }
+            }
+        }
+        return scores;
+    }
+
+    private record ScoredDocument(ProductDTO product, double score) {
+    }
+
+    private static final class Postings {
+        private final int[] docs;
+        private final float[] weights;
+        private final double idf;
+
+        private Postings(int[] docs, float[] weights, int documentCount) {
+            this.docs = docs;
+            this.weights = weights;
+            this.idf = Math.log(1 + (documentCount - docs.length + 0.5) / (docs.length + 0.5));
+        }
+    }
+
+    private static final class PostingsBuilder {
+        private final List<Integer> docs = new ArrayList<>();
+        private final List<Float> weights = new ArrayList<>();
+
+        void add(int doc, float weight) {
+            docs.add(doc);
+            weights.add(weight);
+        }
+
+        Postings build(int documentCount) {
+            int[] docArray = new int[docs.size()];
+            float[] weightArray = new float[weights.size()];
+            for (int i = 0; i < docArray.length; i++) {
+                docArray[i] = docs.get(i);
+                weightArray[i] = weights.get(i);
+            }
+            return new Postings(docArray, weightArray, documentCount);
+        }
+    }
+
+    /**
+     * Term và trọng số của một sản phẩm, kèm nội dung gốc để biết có cần tách lại không
+     */
+    private static final class DocumentTerms {
+        private final String name;
+        private final String description;
+        private final String categoryName;
+        private final Map<String, Float> weights;
+
+        private DocumentTerms(String name, String description, String categoryName, Map<String, Float> weights) {
+            this.name = name;
+            this.description = description;
+            this.categoryName = categoryName;
+            this.weights = weights;
+        }
+
+        static DocumentTerms of(String name, String description, String categoryName) {
+            Map<String, Float> weights = new LinkedHashMap<>();
+            addField(weights, name, NAME_WEIGHT);
+            addField(weights, categoryName, CATEGORY_WEIGHT);
+            addField(weights, description, DESCRIPTION_WEIGHT);
+            return new DocumentTerms(name, description, categoryName, Map.copyOf(weights));
+        }
+
+        boolean matches(String name, String description, String categoryName) {
+            return Objects.equals(this.name, name)
+                    && Objects.equals(this.description, description)
+                    && Objects.equals(this.categoryName, categoryName);
+        }
+
+        private static void addField(Map<String, Float> weights, String text, float fieldWeight) {
+            Map<String, Integer> counts = new HashMap<>();
+            for (String token : VietnameseTextUtil.tokenize(text)) {
+                counts.merge(token, 1, Integer::sum);
+            }
+            counts.forEach((token, count) ->
+                    weights.merge(token, fieldWeight + REPEAT_WEIGHT * (count - 1), Float::sum));
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.food.service;
 
+import com.example.food.dto.ProductDTO;
 import com.example.food.model.Product;
 import com.example.food.model.Category;
 import com.example.food.repository.ProductRepository;
@@ -7,12 +8,18 @@ import com.example.food.repository.CategoryRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -22,6 +29,7 @@ public class ProductService {
 
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
+    private final CatalogService catalogService;
 
     // ===============================
     // PRODUCT OPERATIONS
@@ -105,7 +113,7 @@ public class ProductService {
     @Transactional(readOnly = true)
     public Page<Product> searchProductsByName(String keyword, Pageable pageable) {
         log.info("Searching products by name: {} with pagination: {}", keyword, pageable);
-        return productRepository.searchByName(keyword, pageable);
+        return searchIndexed(keyword, null, true, pageable);
     }
 
     /**
@@ -114,7 +122,7 @@ public class ProductService {
     @Transactional(readOnly = true)
     public Page<Product> searchInactiveProductsByName(String keyword, Pageable pageable) {
         log.info("Searching inactive products by name: {} with pagination: {}", keyword, pageable);
-        return productRepository.searchInactiveByName(keyword, pageable);
+        return searchIndexed(keyword, null, false, pageable);
     }
 
     /**
@@ -123,7 +131,7 @@ public class ProductService {
     @Transactional(readOnly = true)
     public Page<Product> searchProductsByNameAndCategory(String keyword, Long categoryId, Pageable pageable) {
         log.info("Searching products by name: {} and category: {} with pagination: {}", keyword, categoryId, pageable);
-        return productRepository.searchByNameAndCategory(keyword, categoryId, pageable);
+        return searchIndexed(keyword, categoryId, true, pageable);
     }
 
     /**
@@ -132,7 +140,7 @@ public class ProductService {
     @Transactional(readOnly = true)
     public Page<Product> searchInactiveProductsByNameAndCategory(String keyword, Long categoryId, Pageable pageable) {
         log.info("Searching inactive products by name: {} and category: {} with pagination: {}", keyword, categoryId, pageable);
-        return productRepository.searchInactiveByNameAndCategory(keyword, categoryId, pageable);
+        return searchIndexed(keyword, categoryId, false, pageable);
     }
 
     /**
@@ -168,7 +176,9 @@ public class ProductService {
             product.setCategory(category.get());
         }
 
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        catalogService.markChanged();
+        return saved;
     }
 
     /**
@@ -200,7 +210,9 @@ public class ProductService {
             product.setCategory(category.get());
         }
 
-        return productRepository.save(product);
+        Product saved = productRepository.save(product);
+        catalogService.markChanged();
+        return saved;
     }
 
     /**
@@ -214,6 +226,7 @@ public class ProductService {
 
         product.setIsAvailable(false);
         productRepository.save(product);
+        catalogService.markChanged();
     }
 
     /**
@@ -225,6 +238,38 @@ public class ProductService {
         return productRepository.countByCategoryCategoryIdAndIsAvailableTrue(categoryId);
     }
 
+    /**
+     * Tìm qua search index của catalog snapshot (không dấu), chỉ load entity của trang kết quả (1 query).
+     * Pageable không có sort thì giữ thứ tự độ liên quan; có sort thì sắp theo sort đó (cùng tập cột với
+     * CatalogSnapshot.sort, trùng giá trị vẫn theo độ liên quan), cột không hỗ trợ thì IllegalArgumentException
+     */
+    private Page<Product> searchIndexed(String keyword, Long categoryId, boolean available, Pageable pageable) {
+        List<ProductDTO> matches = catalogService.getSnapshot()
+                .search(keyword, product -> available == Boolean.TRUE.equals(product.getIsAvailable())
+                        && (categoryId == null || (product.getCategory() != null
+                        && categoryId.equals(product.getCategory().getCategoryId()))));
+        // Sort ổn định: sắp theo cột phụ trước, cột chính sau cùng
+        List<Sort.Order> orders = pageable.getSort().toList();
+        for (int i = orders.size() - 1; i >= 0; i--) {
+            matches = CatalogSnapshot.sort(matches, orders.get(i).getProperty(), orders.get(i).isDescending());
+        }
+        List<Long> ids = matches.stream()
+                .map(ProductDTO::getProductId)
+                .collect(Collectors.toList());
+
+        int from = (int) Math.min(pageable.getOffset(), ids.size());
+        int to = Math.min(from + pageable.getPageSize(), ids.size());
+        List<Long> pageIds = ids.subList(from, to);
+
+        Map<Long, Product> byId = productRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(Product::getProductId, Function.identity()));
+        List<Product> content = pageIds.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PageImpl<>(content, pageable, ids.size());
+    }
+
     // ===============================
     // CATEGORY OPERATIONS
     // ===============================
@@ -268,7 +313,9 @@ public class ProductService {
             throw new IllegalArgumentException("Danh mục '" + category.getCategoryName() + "' đã tồn tại!");
         }
 
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        catalogService.markChanged();
+        return saved;
     }
 
     /**
@@ -286,7 +333,9 @@ public class ProductService {
         category.setIsActive(categoryDetails.getIsActive());
         category.setSortOrder(categoryDetails.getSortOrder());
 
-        return categoryRepository.save(category);
+        Category saved = categoryRepository.save(category);
+        catalogService.markChanged();
+        return saved;
     }
 
     /**
@@ -306,6 +355,7 @@ public class ProductService {
 
         category.setIsActive(false);
         categoryRepository.save(category);
+        catalogService.markChanged();
 
         log.info("Category '{}' soft deleted successfully", category.getCategoryName());
     }
@@ -326,6 +376,7 @@ public class ProductService {
         }
 
         categoryRepository.delete(category);
+        catalogService.markChanged();
         log.info("Category '{}' hard deleted successfully", category.getCategoryName());
     }
 }
@@ -0,0 +1,256 @@
+package com.example.food.service;
+
+import com.example.food.model.Product;
+import com.example.food.model.Sale;
+import com.example.food.repository.ProductRepository;
+import com.example.food.repository.SaleRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Bật / tắt sale đúng thời điểm bắt đầu và kết thúc:
+ * - Mỗi sale có các mốc (startDate, endDate) trong một DelayQueue; một thread chờ mốc gần nhất
+ * - Các mốc đến hạn cùng lúc được xử lý chung một transaction: sale hết hạn tắt bằng một UPDATE,
+ *   field sale của sản phẩm được gán / xóa theo batch
+ * - Khởi động: nạp lại hàng đợi từ các sale đang bật (kể cả sale đã hết hạn khi server tắt)
+ * Giá bán không phụ thuộc thread này (PriceTimelineService tự chuyển giá), đây là đồng bộ dữ liệu trong DB.
+ */
+@Service
+@Slf4j
+public class SaleScheduler {
+
+    private static final long RETRY_DELAY_SECONDS = 30;
+    private static final int OLD_SALE_RETENTION_DAYS = 30;
+
+    private final SaleRepository saleRepository;
+    private final ProductRepository productRepository;
+    private final CatalogService catalogService;
+    private final TransactionTemplate transactionTemplate;
+
+    private final DelayQueue<Transition> queue = new DelayQueue<>();
+    private final Thread worker = new Thread(this::run, "sale-scheduler");
+
+    public SaleScheduler(SaleRepository saleRepository,
+                         ProductRepository productRepository,
+                         CatalogService catalogService,
+                         PlatformTransactionManager transactionManager) {
+        this.saleRepository = saleRepository;
+        this.productRepository = productRepository;
+        this.catalogService = catalogService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.worker.setDaemon(true);
+    }
+
+    /**
+     * Nạp lại các mốc từ DB (chỉ sale đang bật) rồi chạy thread xử lý
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            List<Sale> pending = saleRepository.findByIsActiveTrueAndEndDateAfter(now);
+            List<Sale> missed = saleRepository.findByIsActiveTrueAndEndDateLessThanEqual(now);
+            pending.forEach(this::enqueue);
+            missed.forEach(this::enqueue);
+            log.info("Sale scheduler recovered {} pending and {} expired sales", pending.size(), missed.size());
+        } catch (Exception e) {
+            log.error("Error recovering sale schedule: {}", e.getMessage(), e);
+        }
+        worker.start();
+    }
+
+    /**
+     * Hẹn lại các mốc của sale sau khi transaction hiện tại commit (sale tắt thì chỉ hủy mốc cũ)
+     */
+    public void reschedule(Sale sale) {
+        afterCommit(() -> enqueue(sale));
+    }
+
+    /**
+     * Như reschedule, cho nhiều sale (một synchronization cho cả batch)
+     */
+    public void rescheduleAll(List<Sale> sales) {
+        afterCommit(() -> sales.forEach(this::enqueue));
+    }
+
+    /**
+     * Hủy các mốc của sale đã xóa sau khi transaction hiện tại commit
+     */
+    public void cancel(Long saleId) {
+        afterCommit(() -> queue.removeIf(transition -> transition.saleId() == saleId));
+    }
+
+    /**
+     * Tắt ngay các sale đã hết hạn nhưng còn bật (không cần chờ thread)
+     */
+    public int expireEndedSales() {
+        List<Sale> ended = saleRepository.findByIsActiveTrueAndEndDateLessThanEqual(LocalDateTime.now());
+        if (ended.isEmpty()) {
+            return 0;
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                apply(ended.stream().map(Sale::getSaleId).collect(Collectors.toSet())));
+        return ended.size();
+    }
+
+    /**
+     * Xóa các sale đã tắt và kết thúc quá OLD_SALE_RETENTION_DAYS ngày.
+     * Lịch chạy tự động tắt mặc định ("-"): lịch sử sale dùng cho thống kê (SaleRepository.aggregateStatistics),
+     * chỉ bật bằng app.sale.purge-cron (ví dụ "0 45 3 * * *") khi chấp nhận mất thống kê của sale cũ
+     */
+    @Scheduled(cron = "${app.sale.purge-cron:-}")
+    public int purgeOldSales() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(OLD_SALE_RETENTION_DAYS);
+        Integer deleted = transactionTemplate.execute(status -> saleRepository.deleteInactiveEndedBefore(cutoff));
+        log.info("Purged {} old expired sales", deleted);
+        return deleted != null ? deleted : 0;
+    }
+
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        worker.interrupt();
+    }
+
+    private void enqueue(Sale sale) {
+        long saleId = sale.getSaleId();
+        queue.removeIf(transition -> transition.saleId() == saleId);
+        if (!Boolean.TRUE.equals(sale.getIsActive()) || sale.getStartDate() == null || sale.getEndDate() == null) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        if (sale.getStartDate().isAfter(now)) {
+            queue.add(Transition.at(saleId, sale.getStartDate()));
+        } else if (sale.getEndDate().isAfter(now)) {
+            // Đã bắt đầu: áp lại field sale ngay (không đổi gì nếu sản phẩm đã đúng)
+            queue.add(Transition.at(saleId, now));
+        }
+        queue.add(Transition.at(saleId, sale.getEndDate()));
+    }
+
+    private void run() {
+        while (!Thread.currentThread().isInterrupted()) {
+            List<Transition> due = new ArrayList<>();
+            try {
+                due.add(queue.take());
+                queue.drainTo(due);
+                Set<Long> saleIds = due.stream().map(Transition::saleId).collect(Collectors.toSet());
+                transactionTemplate.executeWithoutResult(status -> apply(saleIds));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (Exception e) {
+                log.error("Error applying sale transitions, retrying in {}s: {}", RETRY_DELAY_SECONDS, e.getMessage(), e);
+                LocalDateTime retryAt = LocalDateTime.now().plusSeconds(RETRY_DELAY_SECONDS);
+                due.forEach(transition -> queue.add(Transition.at(transition.saleId(), retryAt)));
+            }
+        }
+    }
+
+    /**
+     * Đưa sale và sản phẩm về đúng trạng thái tại thời điểm hiện tại (đọc lại sale, không tin dữ liệu trong queue)
+     */
+    private void apply(Set<Long> saleIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Sale> ending = new ArrayList<>();
+        List<Sale> starting = new ArrayList<>();
+        for (Sale sale : saleRepository.findAllById(saleIds)) {
+            if (!Boolean.TRUE.equals(sale.getIsActive())) {
+                continue;
+            }
+            if (!sale.getEndDate().isAfter(now)) {
+                ending.add(sale);
+            } else if (!sale.getStartDate().isAfter(now)) {
+                starting.add(sale);
+            }
+            // Sale bị dời sang mốc sau: mốc mới đã được reschedule khi sửa
+        }
+
+        int cleared = 0;
+        if (!ending.isEmpty()) {
+            saleRepository.deactivateByIds(ending.stream().map(Sale::getSaleId).toList(), now);
+            cleared = productRepository.clearEndedSales(
+                    ending.stream().map(Sale::getProductId).collect(Collectors.toSet()), now);
+        }
+
+        int applied = 0;
+        if (!starting.isEmpty()) {
+            // Cùng sản phẩm có nhiều sale đang chạy: sale bắt đầu sau cùng được áp
+            starting.sort(Comparator.comparing(Sale::getStartDate));
+            Map<Long, Product> products = productRepository.findAllById(
+                            starting.stream().map(Sale::getProductId).collect(Collectors.toSet())).stream()
+                    .collect(Collectors.toMap(Product::getProductId, Function.identity()));
+            for (Sale sale : starting) {
+                Product product = products.get(sale.getProductId());
+                if (product != null) {
+                    SaleService.copySaleFields(sale, product);
+                    applied++;
+                }
+            }
+            // Dirty checking + JDBC batching: chỉ sản phẩm thực sự đổi mới sinh UPDATE, gom batch khi commit
+        }
+
+        if (!ending.isEmpty() || !starting.isEmpty()) {
+            catalogService.markChanged();
+            log.info("Sale transitions: {} sales ended ({} products cleared), {} sales started",
+                    ending.size(), cleared, applied);
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record Transition(long saleId, long dueEpochMillis) implements Delayed {
+
+        // Làm tròn lên mili giây: mốc kết thúc không được chạy trước endDate (sẽ bị coi là sale vẫn đang chạy)
+        static Transition at(long saleId, LocalDateTime time) {
+            Instant instant = time.atZone(ZoneId.systemDefault()).toInstant();
+            long millis = instant.toEpochMilli() + (instant.getNano() % 1_000_000 == 0 ? 0 : 1);
+            return new Transition(saleId, millis);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueEpochMillis - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+}
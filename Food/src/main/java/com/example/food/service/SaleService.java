@@ -1,37 +1,68 @@
 package com.example.food.service;
 
+import com.example.food.dto.CreateSaleCampaignRequest;
 import com.example.food.dto.CreateSaleRequest;
+import com.example.food.dto.SaleCampaignResultDTO;
 import com.example.food.dto.SaleDTO;
 import com.example.food.model.Product;
 import com.example.food.model.Sale;
+import com.example.food.repository.ProductRepository;
 import com.example.food.repository.SaleRepository;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class SaleService {
 
     private final SaleRepository saleRepository;
     private final ProductService productService;
+    private final ProductRepository productRepository;
+    private final SaleScheduler saleScheduler;
+    private final CatalogService catalogService;
 
+    @Transactional(readOnly = true)
     public List<SaleDTO> getAllSales() {
-        return saleRepository.findAll().stream()
+        return saleRepository.findAllWithProduct().stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Một trang sale (mới nhất trước), product + category join sẵn: 2 query bất kể số sale
+     */
+    @Transactional(readOnly = true)
+    public Page<SaleDTO> getSalesPage(int page, int size) {
+        Pageable pageable = PageRequest.of(page, size, Sort.by(Sort.Direction.DESC, "saleId"));
+        return saleRepository.findPageWithProduct(pageable).map(this::convertToDTO);
+    }
+
+    @Transactional(readOnly = true)
     public List<SaleDTO> getActiveSales() {
-        return saleRepository.findAllActiveSales(LocalDateTime.now()).stream()
+        return saleRepository.findAllActiveWithProduct(LocalDateTime.now()).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
 
+    @Transactional(readOnly = true)
     public SaleDTO getSaleById(Long saleId) {
         Sale sale = saleRepository.findById(saleId)
                 .orElseThrow(() -> new RuntimeException("Sale not found"));
@@ -65,16 +96,111 @@ public class SaleService {
 
         Sale savedSale = saleRepository.save(sale);
 
-        // Update product sale fields
-        updateProductSaleFields(savedSale);
+        // Sale đang chạy thì gán field sale cho sản phẩm ngay, sale tương lai do SaleScheduler gán đúng giờ
+        if (isRunning(savedSale, now)) {
+            updateProductSaleFields(savedSale);
+        }
+        saleScheduler.reschedule(savedSale);
+        // Sale tương lai cũng đổi timeline giá của sản phẩm, không chỉ sale đang chạy
+        catalogService.markChanged();
 
         return convertToDTO(savedSale);
     }
 
+    /**
+     * Tạo cùng một sale cho cả danh mục và / hoặc danh sách sản phẩm trong một transaction:
+     * - Sản phẩm load bằng tối đa 2 query, trùng khung giờ kiểm tra bằng 1 query cho cả campaign
+     * - Sale insert theo batch (table generator), field sale của sản phẩm gán qua dirty checking (batch UPDATE)
+     * - Trùng khung giờ: skipConflicts = true thì bỏ qua sản phẩm đó, ngược lại hủy cả campaign
+     */
+    @Transactional
+    public SaleCampaignResultDTO createCampaign(CreateSaleCampaignRequest request) {
+        long started = System.nanoTime();
+        Sale.DiscountType discountType = validateCampaign(request);
+
+        Map<Long, Product> products = new LinkedHashMap<>();
+        if (request.getCategoryId() != null) {
+            productRepository.findByCategoryCategoryIdAndIsAvailableTrue(request.getCategoryId())
+                    .forEach(product -> products.put(product.getProductId(), product));
+        }
+        if (request.getProductIds() != null) {
+            List<Long> missing = request.getProductIds().stream()
+                    .filter(Objects::nonNull)
+                    .filter(productId -> !products.containsKey(productId))
+                    .distinct()
+                    .toList();
+            if (!missing.isEmpty()) {
+                productRepository.findAllById(missing).forEach(product -> products.put(product.getProductId(), product));
+                List<Long> notFound = missing.stream().filter(productId -> !products.containsKey(productId)).toList();
+                if (!notFound.isEmpty()) {
+                    throw new RuntimeException("Product not found: " + notFound);
+                }
+            }
+        }
+        if (products.isEmpty()) {
+            throw new RuntimeException("Campaign không có sản phẩm nào");
+        }
+
+        Set<Long> conflictProductIds = saleRepository
+                .findOverlapping(products.keySet(), request.getStartDate(), request.getEndDate()).stream()
+                .map(Sale::getProductId)
+                .collect(Collectors.toCollection(TreeSet::new));
+        if (!conflictProductIds.isEmpty() && !Boolean.TRUE.equals(request.getSkipConflicts())) {
+            throw new RuntimeException("Các sản phẩm đã có sale trong khung giờ này: " + conflictProductIds);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<Sale> sales = new ArrayList<>();
+        for (Product product : products.values()) {
+            if (conflictProductIds.contains(product.getProductId())) {
+                continue;
+            }
+            Sale sale = Sale.builder()
+                    .productId(product.getProductId())
+                    .saleName(request.getSaleName())
+                    .saleDescription(request.getSaleDescription())
+                    .discountType(discountType)
+                    .discountValue(request.getDiscountValue())
+                    .startDate(request.getStartDate())
+                    .endDate(request.getEndDate())
+                    .isActive(true)
+                    .build();
+            sale.setSalePrice(sale.calculateSalePrice(product.getPrice()));
+            sales.add(sale);
+        }
+        saleRepository.saveAll(sales);
+
+        int appliedNow = 0;
+        for (Sale sale : sales) {
+            if (isRunning(sale, now)) {
+                copySaleFields(sale, products.get(sale.getProductId()));
+                appliedNow++;
+            }
+        }
+        saleScheduler.rescheduleAll(sales);
+        catalogService.markChanged();
+
+        long durationMs = (System.nanoTime() - started) / 1_000_000;
+        log.info("Sale campaign '{}': {} sales created ({} applied now), {} products skipped in {} ms",
+                request.getSaleName(), sales.size(), appliedNow, conflictProductIds.size(), durationMs);
+
+        return SaleCampaignResultDTO.builder()
+                .saleName(request.getSaleName())
+                .targetedProducts(products.size())
+                .createdSales(sales.size())
+                .appliedNow(appliedNow)
+                .saleIds(sales.stream().map(Sale::getSaleId).toList())
+                .skippedProductIds(new ArrayList<>(conflictProductIds))
+                .durationMs(durationMs)
+                .build();
+    }
+
     @Transactional
     public SaleDTO updateSale(Long saleId, CreateSaleRequest request) {
         Sale sale = saleRepository.findById(saleId)
                 .orElseThrow(() -> new RuntimeException("Sale not found"));
+        LocalDateTime previousStart = sale.getStartDate();
+        LocalDateTime previousEnd = sale.getEndDate();
 
         sale.setSaleName(request.getSaleName());
         sale.setSaleDescription(request.getSaleDescription());
@@ -86,8 +212,14 @@ public class SaleService {
 
         Sale savedSale = saleRepository.save(sale);
 
-        // Update product sale fields
-        updateProductSaleFields(savedSale);
+        if (Boolean.TRUE.equals(savedSale.getIsActive()) && isRunning(savedSale, LocalDateTime.now())) {
+            updateProductSaleFields(savedSale);
+        } else {
+            // Sale bị dời sang khung giờ khác: gỡ field sale cũ nếu sản phẩm đang mang khung cũ của sale này
+            clearProductSaleFieldsIfWindow(savedSale.getProductId(), previousStart, previousEnd);
+        }
+        saleScheduler.reschedule(savedSale);
+        catalogService.markChanged();
 
         return convertToDTO(savedSale);
     }
@@ -101,6 +233,8 @@ public class SaleService {
 
         // Clear product sale fields
         clearProductSaleFields(sale.getProductId());
+        saleScheduler.cancel(saleId);
+        catalogService.markChanged();
     }
 
     @Transactional
@@ -113,65 +247,45 @@ public class SaleService {
 
         // Update product sale fields
         if (savedSale.getIsActive()) {
-            updateProductSaleFields(savedSale);
+            if (isRunning(savedSale, LocalDateTime.now())) {
+                updateProductSaleFields(savedSale);
+            }
         } else {
             clearProductSaleFields(savedSale.getProductId());
         }
+        saleScheduler.reschedule(savedSale);
+        catalogService.markChanged();
 
         return convertToDTO(savedSale);
     }
 
     /**
-     * Deactivate expired sales (sales that have passed their endDate)
+     * Deactivate expired sales (sales that have passed their endDate).
+     * SaleScheduler tắt sale đúng giờ; hàm này chỉ xử lý ngay các sale hết hạn còn sót (query theo endDate).
      */
-    @Transactional
     public int deactivateExpiredSales() {
-        LocalDateTime now = LocalDateTime.now();
-        List<Sale> expiredSales = saleRepository.findAll().stream()
-                .filter(s -> s.getIsActive() && s.getEndDate() != null && now.isAfter(s.getEndDate()))
-                .collect(Collectors.toList());
-
-        for (Sale sale : expiredSales) {
-            sale.setIsActive(false);
-            // Clear product sale fields for expired sales
-            clearProductSaleFields(sale.getProductId());
-        }
-
-        saleRepository.saveAll(expiredSales);
-        return expiredSales.size();
+        return saleScheduler.expireEndedSales();
     }
 
     /**
      * Cleanup old expired sales (delete sales that have been expired for more than a certain period)
-     * This method deletes sales that ended more than 30 days ago
+     * This method deletes sales that ended more than 30 days ago (một câu DELETE; lịch chạy tự động mặc định tắt, xem SaleScheduler.purgeOldSales)
      */
-    @Transactional
     public int cleanupOldExpiredSales() {
-        LocalDateTime cutoffDate = LocalDateTime.now().minusDays(30);
-        List<Sale> oldExpiredSales = saleRepository.findAll().stream()
-                .filter(s -> !s.getIsActive() && s.getEndDate() != null && s.getEndDate().isBefore(cutoffDate))
-                .collect(Collectors.toList());
-
-        saleRepository.deleteAll(oldExpiredSales);
-        return oldExpiredSales.size();
+        return saleScheduler.purgeOldSales();
     }
 
     /**
      * Get sale statistics
      */
     public SaleStatistics getSaleStatistics() {
-        List<Sale> allSales = saleRepository.findAll();
-        LocalDateTime now = LocalDateTime.now();
-
-        long totalSales = allSales.size();
-        long activeSales = allSales.stream()
-                .filter(s -> s.getIsActive() && s.getEndDate() != null && now.isBefore(s.getEndDate()))
-                .count();
-        long expiredSales = allSales.stream()
-                .filter(s -> !s.getIsActive() || (s.getEndDate() != null && now.isAfter(s.getEndDate())))
-                .count();
-
-        return new SaleStatistics(totalSales, activeSales, expiredSales);
+        List<Object[]> rows = saleRepository.aggregateStatistics(LocalDateTime.now());
+        if (rows.isEmpty()) {
+            return new SaleStatistics(0, 0, 0);
+        }
+        Object[] row = rows.get(0);
+        return new SaleStatistics(((Number) row[0]).longValue(), ((Number) row[1]).longValue(),
+                ((Number) row[2]).longValue());
     }
 
     /**
@@ -201,20 +315,77 @@ public class SaleService {
         }
     }
 
-    private void updateProductSaleFields(Sale sale) {
-        Product product = productService.getProductById(sale.getProductId())
-                .orElseThrow(() -> new RuntimeException("Product not found"));
-
+    /**
+     * Gán field sale của sản phẩm theo sale (dùng chung với SaleScheduler)
+     */
+    static void copySaleFields(Sale sale, Product product) {
         product.setIsOnSale(true);
         product.setSalePrice(sale.getSalePrice());
         product.setSalePercentage(sale.getDiscountType() == Sale.DiscountType.PERCENTAGE ?
                 sale.getDiscountValue().intValue() : null);
         product.setSaleStartDate(sale.getStartDate());
         product.setSaleEndDate(sale.getEndDate());
+    }
+
+    /**
+     * Kiểm tra request campaign, trả về loại giảm giá. PERCENTAGE phải trong (0, 100]:
+     * Sale.calculateSalePrice chỉ chặn giá âm cho FIXED_AMOUNT
+     */
+    private static Sale.DiscountType validateCampaign(CreateSaleCampaignRequest request) {
+        if (request.getSaleName() == null || request.getSaleName().isBlank()) {
+            throw new RuntimeException("Tên sale không được để trống");
+        }
+        Sale.DiscountType discountType = parseDiscountType(request.getDiscountType());
+        if (discountType == null || request.getDiscountValue() == null
+                || request.getDiscountValue().signum() <= 0) {
+            throw new RuntimeException("Loại và giá trị giảm giá không hợp lệ");
+        }
+        if (discountType == Sale.DiscountType.PERCENTAGE
+                && request.getDiscountValue().compareTo(BigDecimal.valueOf(100)) > 0) {
+            throw new RuntimeException("Phần trăm giảm giá phải lớn hơn 0 và không quá 100");
+        }
+        if (request.getStartDate() == null || request.getEndDate() == null
+                || !request.getStartDate().isBefore(request.getEndDate())) {
+            throw new RuntimeException("Thời gian bắt đầu phải trước thời gian kết thúc");
+        }
+        if (request.getCategoryId() == null && (request.getProductIds() == null || request.getProductIds().isEmpty())) {
+            throw new RuntimeException("Cần chọn danh mục hoặc danh sách sản phẩm");
+        }
+        return discountType;
+    }
+
+    private static Sale.DiscountType parseDiscountType(String discountType) {
+        if (discountType == null) {
+            return null;
+        }
+        try {
+            return Sale.DiscountType.valueOf(discountType);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static boolean isRunning(Sale sale, LocalDateTime now) {
+        return !now.isBefore(sale.getStartDate()) && now.isBefore(sale.getEndDate());
+    }
+
+    private void updateProductSaleFields(Sale sale) {
+        Product product = productService.getProductById(sale.getProductId())
+                .orElseThrow(() -> new RuntimeException("Product not found"));
+
+        copySaleFields(sale, product);
 
         productService.updateProduct(product.getProductId(), product);
     }
 
+    private void clearProductSaleFieldsIfWindow(Long productId, LocalDateTime start, LocalDateTime end) {
+        Product product = productService.getProductById(productId).orElse(null);
+        if (product != null && Boolean.TRUE.equals(product.getIsOnSale())
+                && Objects.equals(product.getSaleStartDate(), start) && Objects.equals(product.getSaleEndDate(), end)) {
+            clearProductSaleFields(productId);
+        }
+    }
+
     private void clearProductSaleFields(Long productId) {
         Product product = productService.getProductById(productId)
                 .orElseThrow(() -> new RuntimeException("Product not found"));
@@ -243,10 +414,12 @@ public class SaleService {
                 .createdAt(sale.getCreatedAt())
                 .updatedAt(sale.getUpdatedAt());
 
-        // Populate product information if productId exists
+        // Populate product information: danh sách dùng product đã join sẵn, sale vừa lưu thì load theo productId
         if (sale.getProductId() != null) {
             try {
-                Product product = productService.getProductById(sale.getProductId()).orElse(null);
+                Product product = sale.getProduct() != null
+                        ? sale.getProduct()
+                        : productRepository.findById(sale.getProductId()).orElse(null);
                 if (product != null) {
                     builder.productName(product.getName())
                             .productImageUrl(product.getImageUrl())
@@ -0,0 +1,149 @@
+package com.example.food.service;
+
+import com.example.food.model.ShippingFeeSettings;
+import com.example.food.model.StoreSettings;
+import com.example.food.repository.ShippingFeeSettingsRepository;
+import com.example.food.repository.StoreSettingsRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache cài đặt phí ship và thông tin cửa hàng (các dòng này chỉ đổi vài lần mỗi năm):
+ * - Giữ bản bất biến của dòng đang bật, nạp từ DB ở lần đọc đầu tiên
+ * - Ghi xuyên (write-through): updateSettings lưu DB rồi thay bản trong cache sau khi commit
+ * - Mỗi bản có version tăng dần, dùng làm ETag cho GET có điều kiện (If-None-Match)
+ */
+@Service
+@Slf4j
+public class SettingsCache {
+
+    private final ShippingFeeSettingsRepository shippingFeeSettingsRepository;
+    private final StoreSettingsRepository storeSettingsRepository;
+
+    // Bắt đầu từ thời điểm khởi động để ETag của lần chạy trước không trùng version mới
+    private final AtomicLong versions = new AtomicLong(System.currentTimeMillis());
+
+    private volatile Versioned<ShippingFees> shippingFees;
+    private volatile Versioned<StoreInfo> storeInfo;
+
+    public SettingsCache(ShippingFeeSettingsRepository shippingFeeSettingsRepository,
+                         StoreSettingsRepository storeSettingsRepository) {
+        this.shippingFeeSettingsRepository = shippingFeeSettingsRepository;
+        this.storeSettingsRepository = storeSettingsRepository;
+    }
+
+    /**
+     * Cài đặt phí ship hiện tại (value null nếu chưa có dòng nào bật)
+     */
+    public Versioned<ShippingFees> getShippingFees() {
+        Versioned<ShippingFees> current = shippingFees;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (shippingFees == null) {
+                shippingFees = new Versioned<>(versions.incrementAndGet(),
+                        shippingFeeSettingsRepository.findByEnabledTrue().map(ShippingFees::of).orElse(null));
+                log.info("Loaded shipping fee settings into cache (v{})", shippingFees.version());
+            }
+            return shippingFees;
+        }
+    }
+
+    /**
+     * Thông tin cửa hàng hiện tại (value null nếu chưa có dòng nào bật)
+     */
+    public Versioned<StoreInfo> getStoreInfo() {
+        Versioned<StoreInfo> current = storeInfo;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (storeInfo == null) {
+                storeInfo = new Versioned<>(versions.incrementAndGet(),
+                        storeSettingsRepository.findByEnabledTrue().map(StoreInfo::of).orElse(null));
+                log.info("Loaded store settings into cache (v{})", storeInfo.version());
+            }
+            return storeInfo;
+        }
+    }
+
+    /**
+     * Thay cài đặt phí ship trong cache sau khi transaction hiện tại commit
+     */
+    public void putShippingFees(ShippingFeeSettings saved) {
+        afterCommit(() -> {
+            synchronized (this) {
+                shippingFees = new Versioned<>(versions.incrementAndGet(), ShippingFees.of(saved));
+            }
+            log.info("Shipping fee settings cache updated (v{})", shippingFees.version());
+        });
+    }
+
+    /**
+     * Thay thông tin cửa hàng trong cache sau khi transaction hiện tại commit
+     */
+    public void putStoreSettings(StoreSettings saved) {
+        afterCommit(() -> {
+            synchronized (this) {
+                storeInfo = new Versioned<>(versions.incrementAndGet(), StoreInfo.of(saved));
+            }
+            log.info("Store settings cache updated (v{})", storeInfo.version());
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    public record Versioned<T>(long version, T value) {
+
+        public String eTag() {
+            return "\"" + version + "\"";
+        }
+    }
+
+    public record ShippingFees(Long id, BigDecimal fixedShippingFee, BigDecimal freeShippingThreshold,
+                               LocalDateTime createdAt, LocalDateTime updatedAt) {
+
+        static ShippingFees of(ShippingFeeSettings settings) {
+            return new ShippingFees(settings.getId(), settings.getFixedShippingFee(),
+                    settings.getFreeShippingThreshold(), settings.getCreatedAt(), settings.getUpdatedAt());
+        }
+
+        /**
+         * Cùng quy tắc với ShippingFeeSettings.calculateShippingFee (chỉ dòng đang bật được cache)
+         */
+        public BigDecimal calculate(BigDecimal orderAmount) {
+            if (orderAmount.compareTo(freeShippingThreshold) >= 0) {
+                return BigDecimal.ZERO;
+            }
+            return fixedShippingFee;
+        }
+    }
+
+    public record StoreInfo(Long id, String storeName, String phoneNumber, String email, String address,
+                            String description, LocalDateTime createdAt, LocalDateTime updatedAt) {
+
+        static StoreInfo of(StoreSettings settings) {
+            return new StoreInfo(settings.getId(), settings.getStoreName(), settings.getPhoneNumber(),
+                    settings.getEmail(), settings.getAddress(), settings.getDescription(),
+                    settings.getCreatedAt(), settings.getUpdatedAt());
+        }
+    }
+}
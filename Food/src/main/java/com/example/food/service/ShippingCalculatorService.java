@@ -0,0 +1,184 @@
+package com.example.food.service;
+
+import com.example.food.config.ShippingConfig;
+import com.example.food.dto.ShippingCalculationRequest;
+import com.example.food.dto.ShippingCalculationResponse;
+import com.example.food.dto.ShippingFeeSettingsDTO;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Tính phí ship - một hàm quyết định phí (resolve) dùng chung cho checkout (quoteDelivery),
+ * báo giá (previewDelivery) và /calculate-shipping (calculate):
+ * - Xác định điểm giao từ tọa độ, không có thì geocode địa chỉ (GeocodingService), chỉ khi phí phụ thuộc vị trí;
+ *   phí phụ thuộc vị trí (có vùng / bậc) mà không xác định được điểm giao thì không nhận đơn (yêu cầu tọa độ),
+ *   để không bỏ qua giới hạn vùng / phạm vi giao
+ * - Không có vùng và không có bậc: phí cố định như trước (ShippingFeeSettingsService)
+ * - Có vùng giao hàng (DeliveryZoneService): vùng chứa điểm giao quyết định phí, đơn tối thiểu, thời gian giao
+ * - Không có vùng: phí theo bậc khoảng cách (ShippingConfig.distanceTiers) qua DistanceCacheService,
+ *   xa hơn bậc cuối = ngoài phạm vi; cấu hình bậc rỗng thì phí cố định
+ * - Ngưỡng miễn phí ship của ShippingFeeSettings áp dụng cho mọi trường hợp
+ * Báo giá từ endpoint công khai chỉ dùng cache khoảng cách / geocode trong bộ nhớ, không ghi
+ * distance_cache hay geocode_cache; chỉ checkout mới ghi.
+ */
+@Service
+public class ShippingCalculatorService {
+
+    private final DistanceCacheService distanceCacheService;
+    private final ShippingFeeSettingsService shippingFeeSettingsService;
+    private final GeocodingService geocodingService;
+    private final DeliveryZoneService deliveryZoneService;
+    private final List<ShippingConfig.DistanceTier> tiers;
+
+    public ShippingCalculatorService(ShippingConfig shippingConfig,
+                                     DistanceCacheService distanceCacheService,
+                                     ShippingFeeSettingsService shippingFeeSettingsService,
+                                     GeocodingService geocodingService,
+                                     DeliveryZoneService deliveryZoneService) {
+        this.distanceCacheService = distanceCacheService;
+        this.shippingFeeSettingsService = shippingFeeSettingsService;
+        this.geocodingService = geocodingService;
+        this.deliveryZoneService = deliveryZoneService;
+        this.tiers = shippingConfig.getTiers();
+    }
+
+    public ShippingCalculationResponse calculate(ShippingCalculationRequest request) {
+        Optional<Geocoder.Coordinates> point;
+        if (!isDistanceBased()) {
+            point = Optional.empty();
+        } else if (request.getDeliveryLatitude() != null && request.getDeliveryLongitude() != null) {
+            point = Optional.of(new Geocoder.Coordinates(request.getDeliveryLatitude().doubleValue(),
+                    request.getDeliveryLongitude().doubleValue()));
+        } else {
+            point = geocodingService.geocode(request.getDeliveryStreet(), request.getDeliveryWard(),
+                    request.getDeliveryDistrict(), request.getDeliveryCity(), false);
+        }
+        DeliveryQuote quote = resolve(request.getOrderAmount(), point, false);
+        return ShippingCalculationResponse.builder()
+                .shippingFee(quote.shippingFee())
+                .distanceKm(quote.distanceKm())
+                .estimatedDurationMinutes(quote.estimatedMinutes())
+                .fromCache(quote.fromCache())
+                .description(quote.message())
+                .build();
+    }
+
+    /**
+     * Phí ship khi tạo đơn (có ghi cache khoảng cách). Điểm ngoài mọi vùng / quá bậc khoảng cách cuối,
+     * hoặc đơn dưới mức tối thiểu của vùng thì không giao được.
+     */
+    public DeliveryQuote quoteDelivery(BigDecimal orderAmount, BigDecimal latitude, BigDecimal longitude,
+                                       String deliveryAddress) {
+        return resolve(orderAmount, locate(latitude, longitude, deliveryAddress, true), true);
+    }
+
+    /**
+     * Như quoteDelivery nhưng cho báo giá từ endpoint công khai: không ghi distance_cache / geocode_cache
+     */
+    public DeliveryQuote previewDelivery(BigDecimal orderAmount, BigDecimal latitude, BigDecimal longitude,
+                                         String deliveryAddress) {
+        return resolve(orderAmount, locate(latitude, longitude, deliveryAddress, false), false);
+    }
+
+    /**
+     * Điểm giao; phí cố định thì không cần vị trí nên không geocode (không ghi geocode_cache vô ích)
+     */
+    private Optional<Geocoder.Coordinates> locate(BigDecimal latitude, BigDecimal longitude, String deliveryAddress,
+                                                  boolean persist) {
+        if (!isDistanceBased()) {
+            return Optional.empty();
+        }
+        return latitude != null && longitude != null
+                ? Optional.of(new Geocoder.Coordinates(latitude.doubleValue(), longitude.doubleValue()))
+                : geocodingService.geocode(deliveryAddress, persist);
+    }
+
+    private boolean isDistanceBased() {
+        return deliveryZoneService.hasZones() || !tiers.isEmpty();
+    }
+
+    private DeliveryQuote resolve(BigDecimal orderAmount, Optional<Geocoder.Coordinates> point, boolean persist) {
+        BigDecimal amount = orderAmount != null ? orderAmount : BigDecimal.ZERO;
+        if (!isDistanceBased()) {
+            return DeliveryQuote.flat(shippingFeeSettingsService.calculateShippingFee(amount));
+        }
+        if (point.isEmpty()) {
+            return DeliveryQuote.rejected("Không xác định được vị trí giao hàng, vui lòng chọn vị trí trên bản đồ");
+        }
+
+        double latitude = point.get().latitude();
+        double longitude = point.get().longitude();
+        if (latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new IllegalArgumentException("Tọa độ giao hàng không hợp lệ");
+        }
+
+        if (deliveryZoneService.hasZones()) {
+            Optional<DeliveryZoneIndex.Match> zone = deliveryZoneService.locate(latitude, longitude);
+            if (zone.isEmpty()) {
+                return DeliveryQuote.rejected("Địa chỉ nằm ngoài vùng giao hàng");
+            }
+            DeliveryZoneIndex.Match match = zone.get();
+            if (amount.compareTo(match.minOrderAmount()) < 0) {
+                return new DeliveryQuote(null, false, match.zoneName(), match.minOrderAmount(),
+                        match.estimatedMinutes(), null, false,
+                        "Đơn tối thiểu cho vùng " + match.zoneName() + " là " + match.minOrderAmount().toPlainString() + "đ");
+            }
+            BigDecimal fee = applyFreeShipping(match.shippingFee(), amount);
+            return new DeliveryQuote(fee, true, match.zoneName(), match.minOrderAmount(), match.estimatedMinutes(),
+                    null, false, "Vùng giao hàng: " + match.zoneName());
+        }
+
+        DistanceCacheService.Result result = distanceCacheService.getDistanceFromStore(latitude, longitude, persist);
+        BigDecimal distanceKm = BigDecimal.valueOf(result.distance().distanceMeters())
+                .divide(BigDecimal.valueOf(1000), 2, RoundingMode.HALF_UP);
+        int durationMinutes = (result.distance().durationSeconds() + 59) / 60;
+
+        Optional<ShippingConfig.DistanceTier> tier = tiers.stream()
+                .filter(candidate -> distanceKm.compareTo(candidate.maxKm()) <= 0)
+                .findFirst();
+        if (tier.isEmpty()) {
+            return new DeliveryQuote(null, false, null, null, durationMinutes, distanceKm, result.fromCache(),
+                    "Ngoài phạm vi giao hàng (tối đa " + tiers.get(tiers.size() - 1).maxKm().toPlainString() + " km)");
+        }
+        BigDecimal fee = applyFreeShipping(tier.get().fee(), amount);
+        String description = fee.signum() == 0 && tier.get().fee().signum() > 0
+                ? "Miễn phí ship cho đơn từ " + freeShippingThreshold().toPlainString() + "đ"
+                : "Phí ship cho quãng đường đến " + tier.get().maxKm().toPlainString() + " km";
+        return new DeliveryQuote(fee, true, null, null, durationMinutes, distanceKm, result.fromCache(), description);
+    }
+
+    private BigDecimal applyFreeShipping(BigDecimal fee, BigDecimal orderAmount) {
+        BigDecimal freeShippingThreshold = freeShippingThreshold();
+        if (freeShippingThreshold != null && orderAmount.compareTo(freeShippingThreshold) >= 0) {
+            return BigDecimal.ZERO;
+        }
+        return fee;
+    }
+
+    private BigDecimal freeShippingThreshold() {
+        return shippingFeeSettingsService.getCurrentSettings()
+                .map(ShippingFeeSettingsDTO::getFreeShippingThreshold)
+                .orElse(null);
+    }
+
+    /**
+     * shippingFee null khi không giao được (deliverable = false, message là lý do);
+     * zoneName / distanceKm / estimatedMinutes null khi không áp dụng (ví dụ phí cố định)
+     */
+    public record DeliveryQuote(BigDecimal shippingFee, boolean deliverable, String zoneName,
+                                BigDecimal minOrderAmount, Integer estimatedMinutes, BigDecimal distanceKm,
+                                boolean fromCache, String message) {
+
+        static DeliveryQuote flat(BigDecimal shippingFee) {
+            return new DeliveryQuote(shippingFee, true, null, null, null, null, false, "Phí ship cố định");
+        }
+
+        static DeliveryQuote rejected(String message) {
+            return new DeliveryQuote(null, false, null, null, null, null, false, message);
+        }
+    }
+}
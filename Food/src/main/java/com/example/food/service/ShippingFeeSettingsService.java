@@ -14,35 +14,37 @@ import java.util.Optional;
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@Transactional
 public class ShippingFeeSettingsService {
 
     private final ShippingFeeSettingsRepository shippingFeeSettingsRepository;
+    private final SettingsCache settingsCache;
 
     /**
-     * Lấy cài đặt phí ship hiện tại
+     * Lấy cài đặt phí ship hiện tại (từ cache)
      */
-    @Transactional(readOnly = true)
     public Optional<ShippingFeeSettingsDTO> getCurrentSettings() {
-        log.info("Fetching current shipping fee settings");
-        return shippingFeeSettingsRepository.findByEnabledTrue()
+        return Optional.ofNullable(settingsCache.getShippingFees().value())
                 .map(this::convertToDTO);
     }
 
     /**
-     * Tính phí ship cho đơn hàng
+     * Version cài đặt phí ship hiện tại (ETag cho GET có điều kiện)
      */
-    @Transactional(readOnly = true)
-    public BigDecimal calculateShippingFee(BigDecimal orderAmount) {
-        log.info("Calculating shipping fee for order amount: {}", orderAmount);
+    public String getSettingsETag() {
+        return settingsCache.getShippingFees().eTag();
+    }
 
-        Optional<ShippingFeeSettings> settings = shippingFeeSettingsRepository.findByEnabledTrue();
-        if (settings.isEmpty()) {
+    /**
+     * Tính phí ship cho đơn hàng (tính trong bộ nhớ, không query DB)
+     */
+    public BigDecimal calculateShippingFee(BigDecimal orderAmount) {
+        SettingsCache.ShippingFees settings = settingsCache.getShippingFees().value();
+        if (settings == null) {
             // Nếu không có cài đặt, trả về 0
             return BigDecimal.ZERO;
         }
 
-        return settings.get().calculateShippingFee(orderAmount);
+        return settings.calculate(orderAmount);
     }
 
     /**
@@ -70,9 +72,21 @@ public class ShippingFeeSettingsService {
         }
 
         ShippingFeeSettings savedSettings = shippingFeeSettingsRepository.save(settings);
+        settingsCache.putShippingFees(savedSettings);
         return convertToDTO(savedSettings);
     }
 
+    private ShippingFeeSettingsDTO convertToDTO(SettingsCache.ShippingFees settings) {
+        return ShippingFeeSettingsDTO.builder()
+                .id(settings.id())
+                .fixedShippingFee(settings.fixedShippingFee())
+                .freeShippingThreshold(settings.freeShippingThreshold())
+                .enabled(true)
+                .createdAt(settings.createdAt())
+                .updatedAt(settings.updatedAt())
+                .build();
+    }
+
     /**
      * Chuyển đổi entity sang DTO
      */
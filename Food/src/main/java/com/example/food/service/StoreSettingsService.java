@@ -13,21 +13,26 @@ import java.util.Optional;
 @Service
 @RequiredArgsConstructor
 @Slf4j
-@Transactional
 public class StoreSettingsService {
 
     private final StoreSettingsRepository storeSettingsRepository;
+    private final SettingsCache settingsCache;
 
     /**
-     * Lấy thông tin cửa hàng hiện tại
+     * Lấy thông tin cửa hàng hiện tại (từ cache)
      */
-    @Transactional(readOnly = true)
     public Optional<StoreSettingsDTO> getCurrentSettings() {
-        log.info("Fetching current store settings");
-        return storeSettingsRepository.findByEnabledTrue()
+        return Optional.ofNullable(settingsCache.getStoreInfo().value())
                 .map(this::convertToDTO);
     }
 
+    /**
+     * Version thông tin cửa hàng hiện tại (ETag cho GET có điều kiện)
+     */
+    public String getSettingsETag() {
+        return settingsCache.getStoreInfo().eTag();
+    }
+
     /**
      * Cập nhật thông tin cửa hàng
      */
@@ -59,17 +64,15 @@ public class StoreSettingsService {
         }
 
         StoreSettings savedSettings = storeSettingsRepository.save(settings);
+        settingsCache.putStoreSettings(savedSettings);
         return convertToDTO(savedSettings);
     }
 
     /**
      * Lấy thông tin cửa hàng cho API
      */
-    @Transactional(readOnly = true)
     public StoreSettingsDTO getStoreInfo() {
-        log.info("Fetching store info for API");
-        return storeSettingsRepository.findByEnabledTrue()
-                .map(this::convertToDTO)
+        return getCurrentSettings()
                 .orElse(StoreSettingsDTO.builder()
                         .storeName("FoodieExpress")
                         .phoneNumber("0123456789")
@@ -79,6 +82,20 @@ public class StoreSettingsService {
                         .build());
     }
 
+    private StoreSettingsDTO convertToDTO(SettingsCache.StoreInfo settings) {
+        return StoreSettingsDTO.builder()
+                .id(settings.id())
+                .storeName(settings.storeName())
+                .phoneNumber(settings.phoneNumber())
+                .email(settings.email())
+                .address(settings.address())
+                .description(settings.description())
+                .enabled(true)
+                .createdAt(settings.createdAt())
+                .updatedAt(settings.updatedAt())
+                .build();
+    }
+
     /**
      * Chuyển đổi entity sang DTO
      */
@@ -0,0 +1,156 @@
+package com.example.food.service;
+
+import com.example.food.dto.SuggestionDTO;
+import com.example.food.util.VietnameseTextUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Trie tiền tố bất biến cho autocomplete trên tên sản phẩm / danh mục (đã bỏ dấu).
+ * - Mỗi tên được chèn từ đầu mỗi từ ("pho bo tai", "bo tai", "tai") để gõ "bo" vẫn ra "Phở Bò Tái"
+ * - Mỗi node lưu sẵn MAX_SUGGESTIONS gợi ý phổ biến nhất của cả cây con,
+ *   nên tra cứu chỉ tốn O(độ dài prefix), không duyệt cây con
+ * - Con của node lưu dạng mảng ký tự đã sắp xếp, tìm bằng binary search
+ */
+public final class SuggestionTrie {
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private static final Comparator<Entry> BY_POPULARITY = Comparator.comparingLong(Entry::popularity).reversed()
+            .thenComparing(Entry::sortKey);
+
+    private final Node root;
+    private final int entryCount;
+
+    private SuggestionTrie(Node root, int entryCount) {
+        this.root = root;
+        this.entryCount = entryCount;
+    }
+
+    public static SuggestionTrie empty() {
+        return new SuggestionTrie(new Node(new char[0], new Node[0], new SuggestionDTO[0]), 0);
+    }
+
+    /**
+     * Build trie từ danh sách gợi ý (name là tên hiển thị có dấu)
+     */
+    public static SuggestionTrie build(List<SuggestionDTO> suggestions) {
+        BuilderNode root = new BuilderNode();
+        for (SuggestionDTO suggestion : suggestions) {
+            List<String> tokens = VietnameseTextUtil.tokenize(suggestion.getName());
+            if (tokens.isEmpty()) {
+                continue;
+            }
+            Entry entry = new Entry(suggestion, suggestion.getPopularity(), String.join(" ", tokens));
+            for (int start = 0; start < tokens.size(); start++) {
+                root.insert(String.join(" ", tokens.subList(start, tokens.size())), entry);
+            }
+        }
+        return new SuggestionTrie(root.freeze(), suggestions.size());
+    }
+
+    /**
+     * Tối đa limit gợi ý cho prefix (không phân biệt dấu), phổ biến nhất trước
+     */
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        String key = VietnameseTextUtil.normalizePhrase(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        Node node = root;
+        for (int i = 0; i < key.length() && node != null; i++) {
+            node = node.child(key.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        SuggestionDTO[] top = node.top;
+        return Arrays.asList(top).subList(0, Math.min(limit, top.length));
+    }
+
+    public int getEntryCount() {
+        return entryCount;
+    }
+
+    private record Entry(SuggestionDTO suggestion, long popularity, String sortKey) {
+    }
+
+    private static final class Node {
+        private final char[] labels;
+        private final Node[] children;
+        private final SuggestionDTO[] top;
+
+        private Node(char[] labels, Node[] children, SuggestionDTO[] top) {
+            this.labels = labels;
+            this.children = children;
+            this.top = top;
+        }
+
+        Node child(char label) {
+            int index = Arrays.binarySearch(labels, label);
+            return index >= 0 ? children[index] : null;
+        }
+    }
+
+    /**
+     * Node tạm khi build; freeze() chuyển sang Node mảng và tính top-k từ dưới lên
+     */
+    private static final class BuilderNode {
+        private final TreeMap<Character, BuilderNode> children = new TreeMap<>();
+        private final List<Entry> terminals = new ArrayList<>();
+        private List<Entry> topEntries = List.of();
+
+        void insert(String key, Entry entry) {
+            BuilderNode node = this;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.children.computeIfAbsent(key.charAt(i), c -> new BuilderNode());
+            }
+            node.terminals.add(entry);
+        }
+
+        Node freeze() {
+            char[] labels = new char[children.size()];
+            Node[] frozen = new Node[children.size()];
+            List<Entry> candidates = new ArrayList<>(terminals);
+            int i = 0;
+            for (Map.Entry<Character, BuilderNode> child : children.entrySet()) {
+                labels[i] = child.getKey();
+                frozen[i] = child.getValue().freeze();
+                candidates.addAll(child.getValue().topEntries);
+                i++;
+            }
+            topEntries = selectTop(candidates);
+            SuggestionDTO[] top = topEntries.stream().map(Entry::suggestion).toArray(SuggestionDTO[]::new);
+            return new Node(labels, frozen, top);
+        }
+
+        /**
+         * Cùng một gợi ý có thể tới từ nhiều nhánh (tên có từ lặp) -> bỏ trùng theo instance
+         */
+        private static List<Entry> selectTop(List<Entry> candidates) {
+            candidates.sort(BY_POPULARITY);
+            List<Entry> top = new ArrayList<>(Math.min(candidates.size(), MAX_SUGGESTIONS));
+            for (Entry candidate : candidates) {
+                if (top.size() == MAX_SUGGESTIONS) {
+                    break;
+                }
+                boolean duplicate = false;
+                for (Entry selected : top) {
+                    if (selected.suggestion() == candidate.suggestion()) {
+                        duplicate = true;
+                        break;
+                    }
+                }
+                if (!duplicate) {
+                    top.add(candidate);
+                }
+            }
+            return top;
+        }
+    }
+}
@@ -20,6 +20,9 @@ public class UserService implements UserDetailsService {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private ChatAccessService chatAccessService;
+
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         User user = userRepository.findByEmail(email)
@@ -41,7 +44,10 @@ public class UserService implements UserDetailsService {
     }
 
     public User saveUser(User user) {
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        // Kênh chat STOMP cache tên / avatar / quyền admin của người gửi
+        chatAccessService.evictUser(saved.getUserId());
+        return saved;
     }
 
     public UserDTO convertToDTO(User user) {
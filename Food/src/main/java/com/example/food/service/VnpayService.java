@@ -11,6 +11,7 @@ import com.example.food.repository.PaymentRepository;
 import com.example.food.util.VnpayUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -28,6 +29,7 @@ public class VnpayService {
     private final VnpayConfig vnpayConfig;
     private final PaymentRepository paymentRepository;
     private final OrderRepository orderRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Tạo URL thanh toán VNPay
@@ -201,7 +203,9 @@ public class VnpayService {
                     if (order.getOrderStatus() != Order.OrderStatus.PENDING) {
                         log.warn("Order {} had status {} but should be PENDING for VNPay payment. Resetting to PENDING.",
                                 order.getOrderId(), order.getOrderStatus());
+                        Order.OrderStatus previousStatus = order.getOrderStatus();
                         order.setOrderStatus(Order.OrderStatus.PENDING);
+                        eventPublisher.publishEvent(OrderTransitionEvent.of(order, previousStatus, Order.OrderStatus.PENDING));
                     }
                 } else {
                     payment.setPaymentStatus(Payment.PaymentStatus.FAILED);
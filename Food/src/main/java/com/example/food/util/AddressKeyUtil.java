@@ -0,0 +1,128 @@
+package com.example.food.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Khóa chuẩn cho địa chỉ giao hàng: "đường|phường|quận|thành phố" đã bỏ dấu, bỏ tiền tố hành chính
+ * ("Phường 5" / "P.05" -> "5", "Quận 1" / "Q1" -> "1", "TP.HCM" / "Sài Gòn" -> "ho chi minh"),
+ * để các cách viết khác nhau của cùng một địa chỉ dùng chung kết quả geocode.
+ * Tiền tố viết tắt một chữ cái (p, q, h) chỉ bị bỏ khi ngay sau là số và luôn giữ lại số;
+ * tên đường như "D2" giữ nguyên (không trùng khóa với số nhà "2").
+ */
+public final class AddressKeyUtil {
+
+    private static final Set<String> STREET_PREFIXES = Set.of("duong");
+    private static final Set<String> WARD_PREFIXES = Set.of("phuong", "p", "xa", "thi tran", "tt");
+    private static final Set<String> DISTRICT_PREFIXES = Set.of("quan", "q", "huyen", "h", "thi xa", "tx", "thanh pho", "tp");
+    private static final Set<String> CITY_PREFIXES = Set.of("thanh pho", "tp", "tinh");
+
+    private static final Pattern GLUED_PREFIX = Pattern.compile("([a-z]{1,2})(\\d+)");
+    private static final Pattern NUMBER = Pattern.compile("\\d+");
+
+    private static final Map<String, String> CITY_ALIASES = Map.of(
+            "hcm", "ho chi minh",
+            "tphcm", "ho chi minh",
+            "hcmc", "ho chi minh",
+            "sai gon", "ho chi minh",
+            "hn", "ha noi",
+            "hanoi", "ha noi",
+            "dn", "da nang");
+
+    private AddressKeyUtil() {
+    }
+
+    /**
+     * Khóa từ các thành phần (cùng field với ShippingCalculationRequest); null nếu thiếu quận / thành phố
+     */
+    public static String key(String street, String ward, String district, String city) {
+        String normalizedDistrict = normalizePart(district, DISTRICT_PREFIXES);
+        String normalizedCity = normalizeCity(city);
+        if (normalizedDistrict.isEmpty() || normalizedCity.isEmpty()) {
+            return null;
+        }
+        return String.join("|", normalizeStreet(street), normalizePart(ward, WARD_PREFIXES),
+                normalizedDistrict, normalizedCity);
+    }
+
+    /**
+     * Khóa từ địa chỉ dạng text "số nhà đường, phường, quận, thành phố" (như Order.deliveryAddress);
+     * lấy các thành phần từ cuối chuỗi
+     */
+    public static String keyFromText(String address) {
+        if (address == null || address.isBlank()) {
+            return null;
+        }
+        List<String> parts = new ArrayList<>();
+        for (String part : address.split(",")) {
+            if (!part.isBlank()) {
+                parts.add(part.trim());
+            }
+        }
+        int n = parts.size();
+        if (n < 2) {
+            return null;
+        }
+        String city = parts.get(n - 1);
+        String district = parts.get(n - 2);
+        String ward = n >= 3 ? parts.get(n - 3) : null;
+        String street = n >= 4 ? String.join(" ", parts.subList(0, n - 3)) : null;
+        return key(street, ward, district, city);
+    }
+
+    /**
+     * Tách khóa thành [đường, phường, quận, thành phố]
+     */
+    public static String[] split(String key) {
+        return key.split("\\|", -1);
+    }
+
+    /**
+     * "12 Đường Lê Lợi" và "12 Lê Lợi" cùng khóa: bỏ chữ "đường" ở bất kỳ vị trí nào sau số nhà
+     * (không bỏ chữ viết tắt "d": "D2" là tên đường)
+     */
+    private static String normalizeStreet(String street) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : normalizePart(street, STREET_PREFIXES).split(" ")) {
+            if (!token.isEmpty() && !STREET_PREFIXES.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return String.join(" ", tokens);
+    }
+
+    private static String normalizeCity(String city) {
+        String normalized = normalizePart(city, CITY_PREFIXES);
+        return CITY_ALIASES.getOrDefault(normalized, normalized);
+    }
+
+    private static String normalizePart(String part, Set<String> prefixes) {
+        List<String> tokens = new ArrayList<>(VietnameseTextUtil.tokenize(part));
+        if (!tokens.isEmpty()) {
+            String first = tokens.get(0);
+            Matcher glued = GLUED_PREFIX.matcher(first);
+            if (glued.matches()) {
+                // Tiền tố dính số: "q1", "p05" -> giữ số
+                if (prefixes.contains(glued.group(1))) {
+                    tokens.set(0, glued.group(2));
+                }
+            } else if (tokens.size() >= 3 && prefixes.contains(first + " " + tokens.get(1))) {
+                tokens = tokens.subList(2, tokens.size());
+            } else if (tokens.size() >= 2 && prefixes.contains(first)
+                    && (first.length() > 1 || NUMBER.matcher(tokens.get(1)).matches())) {
+                // "quan tan binh" -> "tan binh"; "q 1" -> "1" nhưng "q tan binh" giữ nguyên
+                tokens = tokens.subList(1, tokens.size());
+            }
+        }
+        List<String> normalized = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            // "05" -> "5"
+            normalized.add(token.matches("0+\\d+") ? token.replaceFirst("^0+", "") : token);
+        }
+        return String.join(" ", normalized);
+    }
+}
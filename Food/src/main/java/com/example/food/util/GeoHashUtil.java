@@ -0,0 +1,81 @@
+package com.example.food.util;
+
+import java.util.Arrays;
+
+/**
+ * Geohash (base32) cho tọa độ: các điểm trong cùng một ô có cùng chuỗi hash
+ * (độ chính xác 7 ký tự ~ ô 150m x 150m), dùng để gom tọa độ gần nhau về một khóa cache.
+ */
+public final class GeoHashUtil {
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+    private static final int[] DECODE = new int[128];
+
+    static {
+        Arrays.fill(DECODE, -1);
+        for (int i = 0; i < BASE32.length; i++) {
+            DECODE[BASE32[i]] = i;
+        }
+    }
+
+    private GeoHashUtil() {
+    }
+
+    /**
+     * Geohash của tọa độ với precision ký tự
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        double[] lat = {-90.0, 90.0};
+        double[] lng = {-180.0, 180.0};
+        StringBuilder hash = new StringBuilder(precision);
+        boolean evenBit = true;   // Bit chẵn chia kinh độ, bit lẻ chia vĩ độ
+        int bit = 0;
+        int index = 0;
+        while (hash.length() < precision) {
+            double[] range = evenBit ? lng : lat;
+            double value = evenBit ? longitude : latitude;
+            double mid = (range[0] + range[1]) / 2;
+            if (value >= mid) {
+                index = (index << 1) | 1;
+                range[0] = mid;
+            } else {
+                index <<= 1;
+                range[1] = mid;
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                hash.append(BASE32[index]);
+                bit = 0;
+                index = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Tâm của ô geohash: {latitude, longitude}
+     */
+    public static double[] decodeCenter(String hash) {
+        double[] lat = {-90.0, 90.0};
+        double[] lng = {-180.0, 180.0};
+        boolean evenBit = true;
+        for (int i = 0; i < hash.length(); i++) {
+            char c = hash.charAt(i);
+            int value = c < DECODE.length ? DECODE[c] : -1;
+            if (value < 0) {
+                throw new IllegalArgumentException("Invalid geohash: " + hash);
+            }
+            for (int mask = 16; mask > 0; mask >>= 1) {
+                double[] range = evenBit ? lng : lat;
+                double mid = (range[0] + range[1]) / 2;
+                if ((value & mask) != 0) {
+                    range[0] = mid;
+                } else {
+                    range[1] = mid;
+                }
+                evenBit = !evenBit;
+            }
+        }
+        return new double[]{(lat[0] + lat[1]) / 2, (lng[0] + lng[1]) / 2};
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.food.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Chuẩn hóa chuỗi tiếng Việt cho tìm kiếm: bỏ dấu, đ -> d, chữ thường, tách token
+ * ("Phở Bò Tái" -> "pho bo tai" -> [pho, bo, tai])
+ */
+public final class VietnameseTextUtil {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^a-z0-9]+");
+
+    private VietnameseTextUtil() {
+    }
+
+    /**
+     * Bỏ dấu và chuyển về chữ thường
+     */
+    public static String fold(String text) {
+        if (text == null || text.isEmpty()) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String stripped = COMBINING_MARKS.matcher(decomposed).replaceAll("");
+        return stripped.replace('đ', 'd').replace('Đ', 'D').toLowerCase();
+    }
+
+    /**
+     * Bỏ dấu rồi tách thành các token chữ/số
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : NON_ALPHANUMERIC.split(fold(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Bỏ dấu và gộp khoảng trắng, dùng so khớp cả cụm
+     */
+    public static String normalizePhrase(String text) {
+        return String.join(" ", tokenize(text));
+    }
+}
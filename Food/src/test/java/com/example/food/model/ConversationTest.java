@@ -0,0 +1,58 @@
+package com.example.food.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tin nhắn cuối của conversation không lùi về tin cũ hơn khi REST và kênh STOMP ghi lệch thứ tự
+ */
+class ConversationTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 17, 9, 30);
+
+    @Test
+    void olderMessageDoesNotReplaceLastMessage() {
+        Conversation conversation = new Conversation();
+        conversation.recordLastMessage(message(5L, NOW, "mới"));
+        conversation.recordLastMessage(message(9L, NOW.minusSeconds(1), "cũ"));
+
+        assertThat(conversation.getLastMessageId()).isEqualTo(5L);
+        assertThat(conversation.getLastMessageContent()).isEqualTo("mới");
+        assertThat(conversation.getLastMessageAt()).isEqualTo(NOW);
+    }
+
+    @Test
+    void newerMessageReplacesLastMessageEvenWithLowerId() {
+        // Id cấp theo block của từng instance: tin sau có thể mang id nhỏ hơn
+        Conversation conversation = new Conversation();
+        conversation.recordLastMessage(message(100L, NOW, "trước"));
+        conversation.recordLastMessage(message(3L, NOW.plusSeconds(1), "sau"));
+
+        assertThat(conversation.getLastMessageId()).isEqualTo(3L);
+        assertThat(conversation.getLastMessageSenderId()).isEqualTo(7L);
+    }
+
+    @Test
+    void sameTimestampKeepsHigherId() {
+        Conversation conversation = new Conversation();
+        conversation.recordLastMessage(message(8L, NOW, "a"));
+        conversation.recordLastMessage(message(4L, NOW, "b"));
+        assertThat(conversation.getLastMessageId()).isEqualTo(8L);
+
+        conversation.recordLastMessage(message(12L, NOW, "c"));
+        assertThat(conversation.getLastMessageId()).isEqualTo(12L);
+    }
+
+    private static Message message(Long id, LocalDateTime createdAt, String content) {
+        return Message.builder()
+                .messageId(id)
+                .conversationId(1L)
+                .senderUserId(7L)
+                .content(content)
+                .createdAt(createdAt)
+                .build();
+    }
+}
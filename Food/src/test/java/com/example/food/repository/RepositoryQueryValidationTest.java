@@ -0,0 +1,108 @@
+package com.example.food.repository;
+
+import jakarta.persistence.Entity;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.AnnotatedBeanDefinition;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.ClassPathScanningCandidateComponentProvider;
+import org.springframework.core.type.filter.AnnotationTypeFilter;
+import org.springframework.core.type.filter.AssignableTypeFilter;
+import org.springframework.core.type.filter.TypeFilter;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.Repository;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Kiểm tra mọi JPQL @Query trong repository với metadata entity thật (dialect PostgreSQL, không cần DB):
+ * query sai tên thuộc tính làm build fail thay vì lỗi lúc khởi động ứng dụng
+ */
+class RepositoryQueryValidationTest {
+
+    private static final String BASE_PACKAGE = "com.example.food";
+    private static final Pattern MUTATION = Pattern.compile("(?i)(UPDATE|DELETE|INSERT)\\s");
+
+    private static StandardServiceRegistry registry;
+    private static SessionFactory sessionFactory;
+
+    @BeforeAll
+    static void buildSessionFactory() throws ClassNotFoundException {
+        registry = new StandardServiceRegistryBuilder()
+                .applySettings(Map.of(
+                        "hibernate.dialect", "org.hibernate.dialect.PostgreSQLDialect",
+                        "hibernate.temp.use_jdbc_metadata_defaults", "false",
+                        "hibernate.hbm2ddl.auto", "none"))
+                .build();
+        MetadataSources sources = new MetadataSources(registry);
+        for (Class<?> entity : scan(BASE_PACKAGE + ".model", new AnnotationTypeFilter(Entity.class))) {
+            sources.addAnnotatedClass(entity);
+        }
+        sessionFactory = sources.buildMetadata().buildSessionFactory();
+    }
+
+    @AfterAll
+    static void close() {
+        if (sessionFactory != null) {
+            sessionFactory.close();
+        }
+        StandardServiceRegistryBuilder.destroy(registry);
+    }
+
+    @Test
+    void allJpqlQueriesAreValid() throws ClassNotFoundException {
+        List<String> failures = new ArrayList<>();
+        int checked = 0;
+        try (Session session = sessionFactory.openSession()) {
+            for (Class<?> repository : scan(BASE_PACKAGE + ".repository", new AssignableTypeFilter(Repository.class))) {
+                for (Method method : repository.getDeclaredMethods()) {
+                    Query query = method.getAnnotation(Query.class);
+                    if (query == null || query.nativeQuery()) {
+                        continue;
+                    }
+                    checked++;
+                    try {
+                        String hql = query.value().trim();
+                        if (MUTATION.matcher(hql).lookingAt()) {
+                            session.createMutationQuery(hql);
+                        } else {
+                            session.createSelectionQuery(hql, Object.class);
+                        }
+                    } catch (RuntimeException e) {
+                        failures.add(repository.getSimpleName() + "." + method.getName() + ": " + e.getMessage());
+                    }
+                }
+            }
+        }
+        assertThat(checked).isPositive();
+        assertThat(failures).isEmpty();
+    }
+
+    private static List<Class<?>> scan(String basePackage, TypeFilter filter)
+            throws ClassNotFoundException {
+        ClassPathScanningCandidateComponentProvider scanner = new ClassPathScanningCandidateComponentProvider(false) {
+            @Override
+            protected boolean isCandidateComponent(AnnotatedBeanDefinition beanDefinition) {
+                return true;
+            }
+        };
+        scanner.addIncludeFilter(filter);
+        List<Class<?>> classes = new ArrayList<>();
+        for (BeanDefinition candidate : scanner.findCandidateComponents(basePackage)) {
+            classes.add(Class.forName(candidate.getBeanClassName()));
+        }
+        return classes;
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.food.security;
+
+import com.example.food.model.User;
+import com.example.food.repository.UserRepository;
+import com.example.food.service.ChatAccessService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.BadCredentialsException;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Xác thực CONNECT và phân quyền SUBSCRIBE / SEND của kênh STOMP (JWT, repository, quyền chat đều mock)
+ */
+class StompAuthChannelInterceptorTest {
+
+    private static final long MEMBER_ID = 7L;
+    private static final long ADMIN_ID = 1L;
+    private static final long CONVERSATION_ID = 42L;
+
+    private JwtTokenProvider jwtTokenProvider;
+    private UserRepository userRepository;
+    private ChatAccessService chatAccessService;
+    private StompAuthChannelInterceptor interceptor;
+    private final MessageChannel channel = mock(MessageChannel.class);
+
+    @BeforeEach
+    void setUp() {
+        jwtTokenProvider = mock(JwtTokenProvider.class);
+        userRepository = mock(UserRepository.class);
+        chatAccessService = mock(ChatAccessService.class);
+        interceptor = new StompAuthChannelInterceptor(jwtTokenProvider, userRepository, chatAccessService);
+
+        when(chatAccessService.getSender(anyLong())).thenReturn(Optional.empty());
+        when(chatAccessService.getSender(MEMBER_ID)).thenReturn(Optional.of(
+                new ChatAccessService.Sender(MEMBER_ID, "member@test.vn", "Member", null, false)));
+        when(chatAccessService.getSender(ADMIN_ID)).thenReturn(Optional.of(
+                new ChatAccessService.Sender(ADMIN_ID, "admin@test.vn", "Admin", null, true)));
+        when(chatAccessService.canAccess(any(), any())).thenReturn(false);
+        when(chatAccessService.canAccess(CONVERSATION_ID, MEMBER_ID)).thenReturn(true);
+        when(chatAccessService.canAccess(CONVERSATION_ID, ADMIN_ID)).thenReturn(true);
+    }
+
+    @Test
+    void connectWithInvalidJwtIsRejected() {
+        when(jwtTokenProvider.validateToken("bad")).thenReturn(false);
+
+        assertThatThrownBy(() -> interceptor.preSend(connect("Bearer bad"), channel))
+                .isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    void connectWithValidJwtStoresUserIdInSession() {
+        when(jwtTokenProvider.validateToken("good")).thenReturn(true);
+        when(jwtTokenProvider.getEmailFromToken("good")).thenReturn("member@test.vn");
+        when(userRepository.findByEmail("member@test.vn")).thenReturn(Optional.of(
+                User.builder().userId(MEMBER_ID).email("member@test.vn").build()));
+        Message<?> message = connect("Bearer good");
+
+        interceptor.preSend(message, channel);
+
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+        assertThat(StompAuthChannelInterceptor.getUserId(accessor)).isEqualTo(MEMBER_ID);
+    }
+
+    @Test
+    void connectWithInactiveUserIsRejected() {
+        when(jwtTokenProvider.validateToken("good")).thenReturn(true);
+        when(jwtTokenProvider.getEmailFromToken("good")).thenReturn("member@test.vn");
+        when(userRepository.findByEmail("member@test.vn")).thenReturn(Optional.of(
+                User.builder().userId(MEMBER_ID).email("member@test.vn").isActive(false).build()));
+
+        assertThatThrownBy(() -> interceptor.preSend(connect("Bearer good"), channel))
+                .isInstanceOf(BadCredentialsException.class);
+    }
+
+    @Test
+    void anonymousConnectIsAllowedButCannotSubscribeToTopics() {
+        Message<?> message = connect(null);
+        interceptor.preSend(message, channel);
+        assertThat(StompAuthChannelInterceptor.getUserId(StompHeaderAccessor.wrap(message))).isNull();
+
+        assertDenied(subscribe("/topic/conversations/" + CONVERSATION_ID, null));
+        assertDenied(subscribe("/topic/admin/kpis", null));
+        assertDenied(subscribe("/topic/user/" + MEMBER_ID + "/notifications", null));
+        assertDenied(subscribe("/topic/orders", null));
+    }
+
+    @Test
+    void patternSubscriptionsAreRejectedEvenForAdmins() {
+        for (String destination : new String[] {"/topic/**", "/topic/*", "/topic/conversation?/42",
+                "/topic/conversations/*", "/topic/admin/**", "/topic/conversations/{id}", "/queue/**"}) {
+            assertDenied(subscribe(destination, null));
+            assertDenied(subscribe(destination, MEMBER_ID));
+            assertDenied(subscribe(destination, ADMIN_ID));
+        }
+    }
+
+    @Test
+    void conversationTopicRequiresMembership() {
+        assertAllowed(subscribe("/topic/conversations/" + CONVERSATION_ID, MEMBER_ID));
+        assertDenied(subscribe("/topic/conversations/99", MEMBER_ID));
+        assertDenied(subscribe("/topic/conversations/abc", MEMBER_ID));
+        assertAllowed(subscribe("/topic/conversations/" + CONVERSATION_ID, ADMIN_ID));
+    }
+
+    @Test
+    void adminTopicsRequireAdmin() {
+        assertDenied(subscribe("/topic/admin/kpis", MEMBER_ID));
+        assertAllowed(subscribe("/topic/admin/kpis", ADMIN_ID));
+        assertAllowed(subscribe("/topic/admin/notifications", ADMIN_ID));
+    }
+
+    @Test
+    void notificationTopicIsOnlyForItsOwnerOrAdmin() {
+        assertAllowed(subscribe("/topic/user/" + MEMBER_ID + "/notifications", MEMBER_ID));
+        assertDenied(subscribe("/topic/user/8/notifications", MEMBER_ID));
+        assertAllowed(subscribe("/topic/user/8/notifications", ADMIN_ID));
+    }
+
+    @Test
+    void unknownAndBrokerQueueDestinationsAreDenied() {
+        assertDenied(subscribe("/topic/anything", MEMBER_ID));
+        assertDenied(subscribe("/queue/chat.errors-user123", MEMBER_ID));
+        assertAllowed(subscribe("/user/queue/chat.errors", MEMBER_ID));
+    }
+
+    @Test
+    void sendIsOnlyAllowedToApplicationDestinations() {
+        assertAllowed(send("/app/chat.send"));
+        assertDenied(send("/topic/conversations/" + CONVERSATION_ID));
+        assertDenied(send("/queue/chat.errors"));
+        assertDenied(send(null));
+    }
+
+    private Message<?> connect(String authorization) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        if (authorization != null) {
+            accessor.setNativeHeader("Authorization", authorization);
+        }
+        accessor.setSessionAttributes(new HashMap<>());
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private Message<?> subscribe(String destination, Long userId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+        accessor.setDestination(destination);
+        Map<String, Object> attributes = new HashMap<>();
+        if (userId != null) {
+            attributes.put(StompAuthChannelInterceptor.USER_ID_ATTRIBUTE, userId);
+        }
+        accessor.setSessionAttributes(attributes);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private Message<?> send(String destination) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.SEND);
+        if (destination != null) {
+            accessor.setDestination(destination);
+        }
+        accessor.setSessionAttributes(new HashMap<>(Map.of(StompAuthChannelInterceptor.USER_ID_ATTRIBUTE, MEMBER_ID)));
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private void assertAllowed(Message<?> message) {
+        assertThatCode(() -> interceptor.preSend(message, channel)).doesNotThrowAnyException();
+    }
+
+    private void assertDenied(Message<?> message) {
+        assertThatThrownBy(() -> interceptor.preSend(message, channel)).isInstanceOf(AccessDeniedException.class);
+    }
+}
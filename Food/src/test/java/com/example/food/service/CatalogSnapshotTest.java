@@ -0,0 +1,44 @@
+package com.example.food.service;
+
+import com.example.food.dto.ProductDTO;
+import com.example.food.model.Category;
+import com.example.food.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Kiểm tra snapshot không để lộ DTO dùng chung ra ngoài
+ */
+class CatalogSnapshotTest {
+
+    @Test
+    void callersGetCopiesTheyCanChangeSafely() {
+        Category category = Category.builder().categoryId(7L).categoryName("Cơm").isActive(true).build();
+        Product product = Product.builder()
+                .productId(1L)
+                .name("Cơm tấm")
+                .price(BigDecimal.valueOf(40_000))
+                .isAvailable(true)
+                .category(category)
+                .build();
+        CatalogSnapshot snapshot = CatalogSnapshot.build(1L, List.of(category), List.of(product), Map.of(), Map.of(),
+                new PriceTimelineService.PriceTable(1L, Map.of(), LocalDateTime.MAX), null);
+
+        ProductDTO first = snapshot.getProduct(1L).orElseThrow();
+        first.setPrice(BigDecimal.ZERO);
+        first.getCategory().setCategoryName("Đã sửa");
+        snapshot.getProductsByCategory(7L).get(0).setName("Đã sửa");
+
+        ProductDTO again = snapshot.getAvailableProducts("name", false).get(0);
+        assertThat(again.getPrice()).isEqualByComparingTo("40000");
+        assertThat(again.getName()).isEqualTo("Cơm tấm");
+        assertThat(again.getCategory().getCategoryName()).isEqualTo("Cơm");
+        assertThat(snapshot.search("com tam", dto -> true)).extracting(ProductDTO::getName).containsExactly("Cơm tấm");
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.food.service;
+
+import com.example.food.dto.MessageDTO;
+import com.example.food.model.Message;
+import com.example.food.repository.ConversationRepository;
+import com.example.food.repository.MessageRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Ghi write-behind của kênh chat STOMP với repository mock: thử lại bỏ qua message đã lưu,
+ * spill file ghi / đọc lại qua Jackson
+ */
+class ChatRealtimeServiceTest {
+
+    private static final ChatAccessService.Sender SENDER =
+            new ChatAccessService.Sender(7L, "member@test.vn", "Member", null, false);
+
+    @TempDir
+    Path tempDir;
+
+    private MessageRepository messageRepository;
+    private ConversationRepository conversationRepository;
+    private Path spillFile;
+    private Path deadLetterFile;
+    private ChatRealtimeService service;
+
+    @BeforeEach
+    void setUp() {
+        messageRepository = mock(MessageRepository.class);
+        conversationRepository = mock(ConversationRepository.class);
+        when(conversationRepository.findAllById(anyIterable())).thenReturn(List.of());
+        when(messageRepository.findAllById(anyIterable())).thenReturn(List.of());
+        spillFile = tempDir.resolve("spill/pending-messages.jsonl");
+        deadLetterFile = tempDir.resolve("spill/dead-letter.jsonl");
+
+        // ObjectMapper cấu hình như của Spring Boot (JavaTimeModule cho LocalDateTime)
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        service = new ChatRealtimeService(mock(ChatService.class), mock(ChatAccessService.class),
+                mock(MessageIdAllocator.class), mock(MessageSequencer.class), messageRepository,
+                conversationRepository, mock(OutboxService.class), mock(SimpMessagingTemplate.class),
+                objectMapper, mock(PlatformTransactionManager.class), 100, 100, spillFile.toString(),
+                deadLetterFile.toString());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void retryAfterFailedFlushSkipsMessagesAlreadyPersisted() {
+        // Lần đầu lỗi sau khi message 1 đã được ghi (ví dụ commit xong mới mất kết nối)
+        when(messageRepository.saveAll(anyIterable()))
+                .thenThrow(new RuntimeException("connection reset"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(messageRepository.findAllById(anyIterable()))
+                .thenReturn(List.of(Message.builder().messageId(1L).conversationId(10L).build()));
+
+        boolean flushed = service.flushWithRetry(List.of(pending(1L), pending(2L)), false);
+
+        assertThat(flushed).isTrue();
+        ArgumentCaptor<Iterable<Message>> saved = ArgumentCaptor.forClass(Iterable.class);
+        verify(messageRepository, times(2)).saveAll(saved.capture());
+        assertThat(ids(saved.getAllValues().get(0))).containsExactly(1L, 2L);
+        assertThat(ids(saved.getAllValues().get(1))).containsExactly(2L);
+        assertThat(service.getFailedFlushCount()).isEqualTo(1);
+        assertThat(service.getPersistedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void firstAttemptDoesNotLookUpPersistedIds() {
+        when(messageRepository.saveAll(anyIterable())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        service.flushWithRetry(List.of(pending(1L)), false);
+
+        verify(messageRepository, times(0)).findAllById(anyIterable());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void spilledMessagesAreReplayedIntoTheDatabase() throws Exception {
+        when(messageRepository.saveAll(anyIterable())).thenAnswer(invocation -> invocation.getArgument(0));
+        ChatRealtimeService.PendingMessage first = pending(1L);
+        ChatRealtimeService.PendingMessage second = pending(2L);
+        second.dto().setAttachmentUrls(List.of("a.png", "b.png"));
+
+        service.spill(List.of(first, second));
+        assertThat(Files.readAllLines(spillFile)).hasSize(2);
+        assertThat(service.getSpilledCount()).isEqualTo(2);
+
+        assertThat(service.replaySpill()).isTrue();
+
+        ArgumentCaptor<Iterable<Message>> saved = ArgumentCaptor.forClass(Iterable.class);
+        verify(messageRepository).saveAll(saved.capture());
+        List<Message> messages = new ArrayList<>();
+        saved.getValue().forEach(messages::add);
+        assertThat(messages).extracting(Message::getMessageId).containsExactly(1L, 2L);
+        assertThat(messages.get(0).getContent()).isEqualTo("hello 1");
+        assertThat(messages.get(0).getCreatedAt()).isEqualTo(first.dto().getCreatedAt());
+        assertThat(messages.get(1).getAttachmentUrls()).isEqualTo("a.png,b.png");
+        assertThat(spillFile).doesNotExist();
+    }
+
+    @Test
+    void replaySkipsMessagesAlreadyPersisted() {
+        when(messageRepository.findAllById(anyIterable()))
+                .thenReturn(List.of(Message.builder().messageId(1L).conversationId(10L).build()));
+        when(messageRepository.saveAll(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        service.spill(List.of(pending(1L)));
+        assertThat(service.replaySpill()).isTrue();
+
+        verify(messageRepository, times(0)).saveAll(any());
+        assertThat(spillFile).doesNotExist();
+    }
+
+    @Test
+    void unwritableMessageIsDeadLetteredAndTheRestOfTheBatchIsSaved() throws Exception {
+        // Message 2 không bao giờ ghi được (ví dụ conversation đã bị xóa), DB vẫn hoạt động
+        List<Long> savedIds = new ArrayList<>();
+        when(messageRepository.saveAll(anyIterable())).thenAnswer(invocation -> {
+            List<Long> ids = ids(invocation.getArgument(0));
+            if (ids.contains(2L)) {
+                throw new RuntimeException("violates foreign key constraint");
+            }
+            savedIds.addAll(ids);
+            return invocation.getArgument(0);
+        });
+
+        boolean flushed = service.flushWithRetry(List.of(pending(1L), pending(2L), pending(3L)), false);
+
+        assertThat(flushed).isTrue();
+        assertThat(savedIds).containsExactly(1L, 3L);
+        assertThat(service.getDeadLetteredCount()).isEqualTo(1);
+        assertThat(Files.readAllLines(deadLetterFile)).singleElement().asString().contains("\"messageId\":2");
+    }
+
+    @Test
+    void failuresWhileTheDatabaseIsDownAreRetriedNotDeadLettered() throws Exception {
+        when(messageRepository.saveAll(anyIterable())).thenThrow(new RuntimeException("connection refused"));
+        when(messageRepository.existsById(any())).thenThrow(new RuntimeException("connection refused"));
+
+        AtomicBoolean result = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> result.set(service.flushWithRetry(List.of(pending(1L), pending(2L)), false)));
+        writer.start();
+        // Qua một lượt tách message (3 lần lỗi cả batch + 2 lần ghi riêng) rồi dừng như lúc tắt ứng dụng
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (service.getFailedFlushCount() < 3 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        Thread.sleep(200);
+        writer.interrupt();
+        writer.join(5_000);
+
+        assertThat(result.get()).isFalse();
+        verify(messageRepository, atLeastOnce()).existsById(any());
+        assertThat(service.getDeadLetteredCount()).isZero();
+        assertThat(deadLetterFile).doesNotExist();
+    }
+
+    private static ChatRealtimeService.PendingMessage pending(long messageId) {
+        return new ChatRealtimeService.PendingMessage(MessageDTO.builder()
+                .messageId(messageId)
+                .conversationId(10L)
+                .senderUserId(SENDER.userId())
+                .senderName(SENDER.fullName())
+                .content("hello " + messageId)
+                .attachmentUrls(new ArrayList<>())
+                .isRead(false)
+                .createdAt(LocalDateTime.of(2026, 10, 17, 9, 30, 15, 123_000_000))
+                .clientMessageId("client-" + messageId)
+                .build(), SENDER);
+    }
+
+    private static List<Long> ids(Iterable<Message> messages) {
+        List<Long> ids = new ArrayList<>();
+        messages.forEach(message -> ids.add(message.getMessageId()));
+        return ids;
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.food.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Hàng đợi đồng bộ Firebase với sink trong bộ nhớ: gom path, từ chối khi đầy, retry / bỏ, flush khi tắt
+ */
+class FirebaseSyncQueueTest {
+
+    // Interval dài: không flush theo lịch trong lúc test, chỉ flush khi shutdown
+    private static final long NO_SCHEDULED_FLUSH_MS = 60_000;
+
+    private FirebaseSyncQueue queue;
+
+    @AfterEach
+    void tearDown() {
+        if (queue != null) {
+            queue.shutdown();
+        }
+    }
+
+    @Test
+    void coalescesWritesToSamePathAndCompletesAllWaitersOnFlush() throws Exception {
+        LocalFirebaseSyncSink sink = new LocalFirebaseSyncSink(0, 100);
+        queue = newQueue(sink, 10, NO_SCHEDULED_FLUSH_MS);
+
+        CompletableFuture<Void> first = queue.enqueue("conversations/1/messages/1", "v1");
+        CompletableFuture<Void> second = queue.enqueue("conversations/1/messages/1", "v2");
+        queue.enqueue("conversations/1/messages/2", "other");
+
+        assertThat(queue.getQueueDepth()).isEqualTo(2);
+        assertThat(queue.getStats().getCoalesced()).isEqualTo(1);
+        assertThat(first).isNotDone();
+
+        queue.shutdown();
+
+        assertThat(first).isCompleted();
+        assertThat(second).isCompleted();
+        assertThat(sink.getValue("conversations/1/messages/1")).isEqualTo("v2");
+        assertThat(sink.getBatchCount()).isEqualTo(1);
+    }
+
+    @Test
+    void rejectsWhenFullAfterOfferTimeout() {
+        LocalFirebaseSyncSink sink = new LocalFirebaseSyncSink(0, 100);
+        queue = newQueue(sink, 2, NO_SCHEDULED_FLUSH_MS);
+
+        queue.enqueue("a", 1);
+        queue.enqueue("b", 2);
+        CompletableFuture<Void> third = queue.enqueue("c", 3);
+
+        assertThat(third).isCompletedExceptionally();
+        assertThatThrownBy(third::get).hasCauseInstanceOf(RejectedExecutionException.class);
+        assertThat(queue.getStats().getRejected()).isEqualTo(1);
+        // Path đang chờ vẫn ghi đè được khi đầy
+        assertThat(queue.enqueue("a", 10)).isNotCompletedExceptionally();
+    }
+
+    @Test
+    void retriesFailedFlushUntilItSucceeds() throws Exception {
+        FailingSink sink = new FailingSink(2);
+        queue = newQueue(sink, 10, 10);
+
+        CompletableFuture<Void> written = queue.enqueue("a", "value");
+
+        written.get(5, TimeUnit.SECONDS);
+        assertThat(sink.getValue("a")).isEqualTo("value");
+        assertThat(queue.getStats().getFailedFlushes()).isEqualTo(2);
+        assertThat(queue.getStats().getDropped()).isZero();
+    }
+
+    @Test
+    void dropsPathAfterMaxAttemptsAndFailsItsFuture() {
+        FailingSink sink = new FailingSink(Integer.MAX_VALUE);
+        queue = newQueue(sink, 10, 10);
+
+        CompletableFuture<Void> written = queue.enqueue("a", "value");
+
+        assertThatThrownBy(() -> written.get(10, TimeUnit.SECONDS)).isInstanceOf(ExecutionException.class);
+        assertThat(queue.getStats().getDropped()).isEqualTo(1);
+        assertThat(queue.getQueueDepth()).isZero();
+        assertThat(sink.getValue("a")).isNull();
+    }
+
+    @Test
+    void shutdownDrainsPendingPathsAndRejectsNewWrites() {
+        LocalFirebaseSyncSink sink = new LocalFirebaseSyncSink(0, 100);
+        queue = newQueue(sink, 10, NO_SCHEDULED_FLUSH_MS);
+        for (int i = 0; i < 5; i++) {
+            queue.enqueue("p" + i, i);
+        }
+
+        queue.shutdown();
+
+        assertThat(queue.getQueueDepth()).isZero();
+        assertThat(sink.getPathCount()).isEqualTo(5);
+        assertThat(queue.enqueue("late", 1)).isCompletedExceptionally();
+    }
+
+    @Test
+    void localSinkKeepsOnlyMostRecentPaths() throws Exception {
+        LocalFirebaseSyncSink sink = new LocalFirebaseSyncSink(0, 2);
+        sink.updateChildren(Map.of("a", 1));
+        sink.updateChildren(Map.of("b", 2));
+        sink.updateChildren(Map.of("c", 3));
+
+        assertThat(sink.getPathCount()).isEqualTo(2);
+        assertThat(sink.getValue("a")).isNull();
+        assertThat(sink.getValue("c")).isEqualTo(3);
+    }
+
+    @Test
+    void failsAtStartupWhenConfiguredSinkIsUnavailable() {
+        FirebaseSyncSink unavailable = new FirebaseSyncSink() {
+            @Override
+            public String getName() {
+                return "firebase";
+            }
+
+            @Override
+            public boolean isAvailable() {
+                return false;
+            }
+
+            @Override
+            public void updateChildren(Map<String, Object> updates) {
+            }
+        };
+
+        assertThatThrownBy(() -> new FirebaseSyncQueue(List.of(unavailable, new LocalFirebaseSyncSink(0, 100)),
+                "firebase", 10, 10, 10, NO_SCHEDULED_FLUSH_MS))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static FirebaseSyncQueue newQueue(LocalFirebaseSyncSink sink, int capacity, long flushIntervalMs) {
+        return new FirebaseSyncQueue(List.of(sink), LocalFirebaseSyncSink.NAME, capacity, 100, 10, flushIntervalMs);
+    }
+
+    /**
+     * Sink local lỗi failures lần đầu rồi ghi bình thường
+     */
+    private static class FailingSink extends LocalFirebaseSyncSink {
+
+        private final AtomicInteger remainingFailures;
+
+        FailingSink(int failures) {
+            super(0, 100);
+            this.remainingFailures = new AtomicInteger(failures);
+        }
+
+        @Override
+        public void updateChildren(Map<String, Object> updates) throws Exception {
+            if (remainingFailures.getAndDecrement() > 0) {
+                throw new IllegalStateException("simulated Firebase outage");
+            }
+            super.updateChildren(updates);
+        }
+    }
+}
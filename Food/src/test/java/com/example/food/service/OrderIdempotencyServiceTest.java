@@ -0,0 +1,51 @@
+package com.example.food.service;
+
+import com.example.food.dto.OrderDTO;
+import com.example.food.model.Order;
+import com.example.food.repository.OrderIdempotencyKeyRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Kiểm tra replay theo Idempotency-Key đọc lại đơn thay vì trả response đã lưu
+ */
+class OrderIdempotencyServiceTest {
+
+    private final OrderIdempotencyKeyRepository keyRepository = mock(OrderIdempotencyKeyRepository.class);
+    private final OrderService orderService = mock(OrderService.class);
+    private final OrderIdempotencyService service = new OrderIdempotencyService(keyRepository, orderService,
+            mock(PlatformTransactionManager.class));
+
+    @Test
+    void replayReturnsTheCurrentOrderWithoutCreatingAgain() {
+        AtomicInteger created = new AtomicInteger();
+        Supplier<OrderDTO> createOrder = () -> {
+            created.incrementAndGet();
+            return order(Order.OrderStatus.PENDING);
+        };
+        when(keyRepository.findByIdempotencyKey("5:abc")).thenReturn(Optional.empty());
+
+        assertThat(service.execute(5L, "abc", createOrder).getOrderStatus()).isEqualTo(Order.OrderStatus.PENDING);
+
+        when(orderService.getOrderById(42L)).thenReturn(Optional.of(order(Order.OrderStatus.CANCELLED)));
+        OrderDTO replay = service.execute(5L, "abc", createOrder);
+
+        assertThat(replay.getOrderStatus()).isEqualTo(Order.OrderStatus.CANCELLED);
+        assertThat(created).hasValue(1);
+    }
+
+    private static OrderDTO order(Order.OrderStatus status) {
+        return OrderDTO.builder()
+                .orderId(42L)
+                .orderStatus(status)
+                .build();
+    }
+}
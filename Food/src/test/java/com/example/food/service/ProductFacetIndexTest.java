@@ -0,0 +1,50 @@
+package com.example.food.service;
+
+import com.example.food.dto.ProductDTO;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Kiểm tra lọc theo khoảng giá / thời gian chuẩn bị của facet index
+ */
+class ProductFacetIndexTest {
+
+    private final ProductFacetIndex index = ProductFacetIndex.build(
+            List.of(product(1L, 25_000, 5), product(2L, 45_000, 15)),
+            new PriceTimelineService.PriceTable(1L, Map.of(), LocalDateTime.MAX));
+
+    @Test
+    void knownBucketsFilterProducts() {
+        ProductFacetIndex.FilterResult result = index.filter(Map.of(
+                ProductFacetIndex.PRICE, Set.of("30000-50000"),
+                ProductFacetIndex.PREP_TIME, Set.of("10-20")));
+
+        assertThat(result.products()).extracting(ProductDTO::getProductId).containsExactly(2L);
+    }
+
+    @Test
+    void unknownBucketIsRejected() {
+        assertThatThrownBy(() -> index.filter(Map.of(ProductFacetIndex.PRICE, Set.of("0-25000"))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("0-25000");
+        assertThatThrownBy(() -> index.filter(Map.of(ProductFacetIndex.PREP_TIME, Set.of("45+"))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static ProductDTO product(Long id, long price, int preparationTime) {
+        return ProductDTO.builder()
+                .productId(id)
+                .name("Product " + id)
+                .price(BigDecimal.valueOf(price))
+                .preparationTime(preparationTime)
+                .build();
+    }
+}
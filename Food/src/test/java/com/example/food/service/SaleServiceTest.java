@@ -0,0 +1,147 @@
+package com.example.food.service;
+
+import com.example.food.dto.CreateSaleCampaignRequest;
+import com.example.food.dto.CreateSaleRequest;
+import com.example.food.dto.SaleCampaignResultDTO;
+import com.example.food.model.Product;
+import com.example.food.model.Sale;
+import com.example.food.repository.ProductRepository;
+import com.example.food.repository.SaleRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Kiểm tra request và xử lý trùng khung giờ của sale campaign (repository mock)
+ */
+class SaleServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.now();
+
+    private SaleRepository saleRepository;
+    private ProductRepository productRepository;
+    private CatalogService catalogService;
+    private SaleService saleService;
+
+    @BeforeEach
+    void setUp() {
+        saleRepository = mock(SaleRepository.class);
+        productRepository = mock(ProductRepository.class);
+        catalogService = mock(CatalogService.class);
+        saleService = new SaleService(saleRepository, mock(ProductService.class), productRepository,
+                mock(SaleScheduler.class), catalogService);
+
+        when(productRepository.findAllById(anyIterable())).thenReturn(List.of(product(1L), product(2L)));
+        when(saleRepository.findOverlapping(anyCollection(), any(), any())).thenReturn(List.of());
+        when(saleRepository.saveAll(anyIterable())).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void percentageAboveHundredIsRejected() {
+        assertRejected(request("PERCENTAGE", "150"));
+        assertRejected(request("PERCENTAGE", "100.5"));
+    }
+
+    @Test
+    void nonPositiveOrUnknownDiscountIsRejected() {
+        assertRejected(request("PERCENTAGE", "0"));
+        assertRejected(request("FIXED_AMOUNT", "-1000"));
+        assertRejected(request("BOGO", "10"));
+        assertRejected(request(null, "10"));
+    }
+
+    @Test
+    void invalidWindowOrMissingTargetIsRejected() {
+        CreateSaleCampaignRequest reversed = request("PERCENTAGE", "10");
+        reversed.setEndDate(reversed.getStartDate());
+        assertRejected(reversed);
+
+        CreateSaleCampaignRequest noTarget = request("PERCENTAGE", "10");
+        noTarget.setProductIds(null);
+        assertRejected(noTarget);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void fullPercentageDiscountIsFreeAndAppliedToRunningProducts() {
+        SaleCampaignResultDTO result = saleService.createCampaign(request("PERCENTAGE", "100"));
+
+        assertThat(result.getCreatedSales()).isEqualTo(2);
+        assertThat(result.getAppliedNow()).isEqualTo(2);
+        ArgumentCaptor<Iterable<Sale>> saved = ArgumentCaptor.forClass(Iterable.class);
+        verify(saleRepository).saveAll(saved.capture());
+        saved.getValue().forEach(sale -> assertThat(sale.getSalePrice()).isEqualByComparingTo("0"));
+    }
+
+    @Test
+    void overlappingSaleCancelsTheCampaignUnlessConflictsAreSkipped() {
+        when(saleRepository.findOverlapping(anyCollection(), any(), any())).thenReturn(List.of(
+                Sale.builder().saleId(9L).productId(2L).build()));
+
+        assertThatThrownBy(() -> saleService.createCampaign(request("FIXED_AMOUNT", "5000")))
+                .hasMessageContaining("[2]");
+        verify(saleRepository, never()).saveAll(anyIterable());
+
+        CreateSaleCampaignRequest skipping = request("FIXED_AMOUNT", "5000");
+        skipping.setSkipConflicts(true);
+        SaleCampaignResultDTO result = saleService.createCampaign(skipping);
+
+        assertThat(result.getTargetedProducts()).isEqualTo(2);
+        assertThat(result.getCreatedSales()).isEqualTo(1);
+        assertThat(result.getSkippedProductIds()).containsExactly(2L);
+    }
+
+    @Test
+    void futureSaleStillRefreshesThePriceTimeline() {
+        when(saleRepository.save(any(Sale.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        saleService.createSale(CreateSaleRequest.builder()
+                .productId(1L)
+                .saleName("Tomorrow")
+                .discountType("FIXED_AMOUNT")
+                .discountValue(BigDecimal.valueOf(5000))
+                .startDate(NOW.plusDays(1))
+                .endDate(NOW.plusDays(2))
+                .build());
+
+        verify(catalogService).markChanged();
+    }
+
+    private void assertRejected(CreateSaleCampaignRequest request) {
+        assertThatThrownBy(() -> saleService.createCampaign(request)).isInstanceOf(RuntimeException.class);
+        verify(saleRepository, never()).saveAll(anyIterable());
+    }
+
+    private static CreateSaleCampaignRequest request(String discountType, String discountValue) {
+        return CreateSaleCampaignRequest.builder()
+                .saleName("Flash sale")
+                .discountType(discountType)
+                .discountValue(new BigDecimal(discountValue))
+                .startDate(NOW.minusHours(1))
+                .endDate(NOW.plusHours(1))
+                .productIds(List.of(1L, 2L))
+                .build();
+    }
+
+    private static Product product(Long id) {
+        return Product.builder()
+                .productId(id)
+                .name("Product " + id)
+                .price(BigDecimal.valueOf(50_000))
+                .build();
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.food.service;
+
+import com.example.food.config.ShippingConfig;
+import com.example.food.dto.ShippingCalculationRequest;
+import com.example.food.dto.ShippingCalculationResponse;
+import com.example.food.dto.ShippingFeeSettingsDTO;
+import com.example.food.model.DistanceCache;
+import com.example.food.repository.DistanceCacheRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyDouble;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Phí ship theo bậc khoảng cách với provider thay thế local-routing (không gọi mạng)
+ */
+class ShippingCalculatorServiceTest {
+
+    private static final double STORE_LAT = 10.7769;
+    private static final double STORE_LNG = 106.7009;
+
+    private DistanceCacheRepository distanceCacheRepository;
+    private ShippingFeeSettingsService shippingFeeSettingsService;
+    private GeocodingService geocodingService;
+    private DeliveryZoneService deliveryZoneService;
+    private LocalRoutingDistanceProvider routing;
+    private ShippingCalculatorService calculator;
+    private ShippingConfig config;
+
+    @BeforeEach
+    void setUp() {
+        config = new ShippingConfig();
+        config.setStoreLatitude(STORE_LAT);
+        config.setStoreLongitude(STORE_LNG);
+        config.setDistanceProvider(LocalRoutingDistanceProvider.NAME);
+        config.setDistanceTiers("3:15000,5:20000,8:25000");
+        config.setGeohashPrecision(7);
+        config.setDistanceCacheSize(100);
+        config.setDistanceCacheTtlDays(30);
+
+        distanceCacheRepository = mock(DistanceCacheRepository.class);
+        shippingFeeSettingsService = mock(ShippingFeeSettingsService.class);
+        geocodingService = mock(GeocodingService.class);
+        deliveryZoneService = mock(DeliveryZoneService.class);
+        routing = spy(new LocalRoutingDistanceProvider());
+
+        DistanceCacheService distanceCacheService = new DistanceCacheService(distanceCacheRepository, config,
+                List.of(new HaversineDistanceProvider(), routing), mock(PlatformTransactionManager.class));
+        calculator = new ShippingCalculatorService(config, distanceCacheService, shippingFeeSettingsService,
+                geocodingService, deliveryZoneService);
+    }
+
+    @Test
+    void checkoutAndCalculateEndpointUseTheSameTierFee() {
+        // ~2 km về phía bắc cửa hàng
+        BigDecimal lat = BigDecimal.valueOf(STORE_LAT + 0.018);
+        BigDecimal lng = BigDecimal.valueOf(STORE_LNG);
+
+        ShippingCalculatorService.DeliveryQuote quote =
+                calculator.quoteDelivery(BigDecimal.valueOf(100_000), lat, lng, null);
+        ShippingCalculationResponse response = calculator.calculate(ShippingCalculationRequest.builder()
+                .orderAmount(BigDecimal.valueOf(100_000))
+                .deliveryLatitude(lat)
+                .deliveryLongitude(lng)
+                .build());
+
+        assertThat(quote.deliverable()).isTrue();
+        assertThat(quote.shippingFee()).isEqualByComparingTo("15000");
+        assertThat(response.getShippingFee()).isEqualByComparingTo(quote.shippingFee());
+        assertThat(response.getDistanceKm()).isEqualByComparingTo(quote.distanceKm());
+    }
+
+    @Test
+    void beyondLastTierIsNotDeliverable() {
+        ShippingCalculatorService.DeliveryQuote quote = calculator.quoteDelivery(BigDecimal.valueOf(100_000),
+                BigDecimal.valueOf(STORE_LAT + 0.2), BigDecimal.valueOf(STORE_LNG), null);
+
+        assertThat(quote.deliverable()).isFalse();
+        assertThat(quote.shippingFee()).isNull();
+    }
+
+    @Test
+    void freeShippingThresholdAppliesToTierFee() {
+        when(shippingFeeSettingsService.getCurrentSettings()).thenReturn(Optional.of(ShippingFeeSettingsDTO.builder()
+                .freeShippingThreshold(BigDecimal.valueOf(200_000))
+                .build()));
+
+        ShippingCalculatorService.DeliveryQuote quote = calculator.quoteDelivery(BigDecimal.valueOf(250_000),
+                BigDecimal.valueOf(STORE_LAT + 0.018), BigDecimal.valueOf(STORE_LNG), null);
+
+        assertThat(quote.shippingFee()).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void repeatQuotesInTheSameNeighbourhoodAreServedFromCache() {
+        BigDecimal lng = BigDecimal.valueOf(STORE_LNG);
+        ShippingCalculatorService.DeliveryQuote first = calculator.quoteDelivery(BigDecimal.valueOf(100_000),
+                BigDecimal.valueOf(STORE_LAT + 0.018), lng, null);
+        // Cách vài mét, cùng ô geohash
+        ShippingCalculatorService.DeliveryQuote second = calculator.quoteDelivery(BigDecimal.valueOf(100_000),
+                BigDecimal.valueOf(STORE_LAT + 0.01801), lng, null);
+
+        assertThat(first.fromCache()).isFalse();
+        assertThat(second.fromCache()).isTrue();
+        assertThat(second.distanceKm()).isEqualByComparingTo(first.distanceKm());
+        verify(routing, times(1)).measure(anyDouble(), anyDouble(), anyDouble(), anyDouble());
+    }
+
+    @Test
+    void addressThatCannotBeLocatedIsRejectedInsteadOfFlatFee() {
+        when(geocodingService.geocode("không rõ", true)).thenReturn(Optional.empty());
+
+        ShippingCalculatorService.DeliveryQuote quote =
+                calculator.quoteDelivery(BigDecimal.valueOf(100_000), null, null, "không rõ");
+
+        assertThat(quote.deliverable()).isFalse();
+        assertThat(quote.shippingFee()).isNull();
+    }
+
+    @Test
+    void onlyCheckoutPersistsDistanceCacheRows() {
+        calculator.previewDelivery(BigDecimal.valueOf(100_000),
+                BigDecimal.valueOf(STORE_LAT + 0.03), BigDecimal.valueOf(STORE_LNG), null);
+        verify(distanceCacheRepository, never()).save(any(DistanceCache.class));
+
+        calculator.quoteDelivery(BigDecimal.valueOf(100_000),
+                BigDecimal.valueOf(STORE_LAT), BigDecimal.valueOf(STORE_LNG + 0.03), null);
+        verify(distanceCacheRepository, times(1)).save(any(DistanceCache.class));
+    }
+
+    @Test
+    void flatFeeDoesNotGeocodeTheAddress() {
+        config.setDistanceTiers(null);
+        ShippingCalculatorService flat = new ShippingCalculatorService(config, mock(DistanceCacheService.class),
+                shippingFeeSettingsService, geocodingService, deliveryZoneService);
+        when(shippingFeeSettingsService.calculateShippingFee(any())).thenReturn(BigDecimal.valueOf(20_000));
+
+        ShippingCalculatorService.DeliveryQuote quote =
+                flat.quoteDelivery(BigDecimal.valueOf(100_000), null, null, "12 Lê Lợi, Quận 1, TP.HCM");
+        flat.calculate(ShippingCalculationRequest.builder()
+                .orderAmount(BigDecimal.valueOf(100_000))
+                .deliveryStreet("12 Lê Lợi")
+                .deliveryDistrict("Quận 1")
+                .deliveryCity("TP.HCM")
+                .build());
+
+        assertThat(quote.shippingFee()).isEqualByComparingTo("20000");
+        verifyNoInteractions(geocodingService);
+    }
+
+    @Test
+    void onlyCheckoutPersistsGeocodeCacheRows() {
+        String address = "12 Lê Lợi, Quận 1, TP.HCM";
+        Optional<Geocoder.Coordinates> point = Optional.of(new Geocoder.Coordinates(STORE_LAT + 0.018, STORE_LNG));
+        when(geocodingService.geocode(address, false)).thenReturn(point);
+        when(geocodingService.geocode(address, true)).thenReturn(point);
+
+        calculator.previewDelivery(BigDecimal.valueOf(100_000), null, null, address);
+        verify(geocodingService).geocode(address, false);
+        verify(geocodingService, never()).geocode(address, true);
+
+        calculator.quoteDelivery(BigDecimal.valueOf(100_000), null, null, address);
+        verify(geocodingService).geocode(address, true);
+    }
+}
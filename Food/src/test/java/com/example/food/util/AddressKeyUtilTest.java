@@ -0,0 +1,39 @@
+package com.example.food.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AddressKeyUtilTest {
+
+    @Test
+    void administrativePrefixesFollowedByNumberKeepTheNumber() {
+        assertThat(AddressKeyUtil.key("12 Lê Lợi", "P.05", "Q1", "TP.HCM"))
+                .isEqualTo(AddressKeyUtil.key("12 Đường Lê Lợi", "Phường 5", "Quận 1", "Sài Gòn"))
+                .isEqualTo("12 le loi|5|1|ho chi minh");
+        assertThat(AddressKeyUtil.key(null, "P 5", "Q 1", "HCM")).isEqualTo("|5|1|ho chi minh");
+    }
+
+    @Test
+    void streetNamedWithLetterAndNumberDoesNotCollideWithHouseNumber() {
+        String d2 = AddressKeyUtil.key("D2", "25", "Bình Thạnh", "HCM");
+        String two = AddressKeyUtil.key("2", "25", "Bình Thạnh", "HCM");
+
+        assertThat(d2).isEqualTo("d2|25|binh thanh|ho chi minh");
+        assertThat(d2).isNotEqualTo(two);
+        assertThat(AddressKeyUtil.key("Đường D2", "25", "Bình Thạnh", "HCM")).isEqualTo(d2);
+    }
+
+    @Test
+    void singleLetterPrefixIsKeptWhenNotFollowedByNumber() {
+        assertThat(AddressKeyUtil.key(null, null, "Quận Tân Bình", "HCM")).isEqualTo("||tan binh|ho chi minh");
+        assertThat(AddressKeyUtil.key(null, null, "Q Tân Bình", "HCM")).isEqualTo("||q tan binh|ho chi minh");
+    }
+
+    @Test
+    void keyFromTextReadsComponentsFromTheEnd() {
+        assertThat(AddressKeyUtil.keyFromText("12 Lê Lợi, Phường Bến Nghé, Quận 1, TP.HCM"))
+                .isEqualTo("12 le loi|ben nghe|1|ho chi minh");
+        assertThat(AddressKeyUtil.keyFromText("Hà Nội")).isNull();
+    }
+}